@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmark of the binary command format against text - parsing alone and end-to-end runs of gatorTaxi on
+ * the same workloadGenerator workload, checking that both produce the same output
+ */
+public class binaryProtocolBenchmark {
+
+    /**
+     * Number of measured rounds
+     */
+    private static final int rounds = 5;
+
+    /**
+     * Result sink so the JIT cannot drop the measured work
+     */
+    static long blackhole;
+
+    /**
+     * Method to open a parser over a command file
+     *
+     * @param channel command file
+     * @param binary  whether the file is in the binary format
+     * @return parser positioned before the first command
+     * @throws IOException if the file cannot be read
+     */
+    static commandParser open(FileChannel channel, boolean binary) throws IOException {
+        channel.position(0);
+        return binary ? new binaryCommandParser(channel, 1 << 16) : new commandParser(Channels.newInputStream(channel), 1 << 16);
+    }
+
+    /**
+     * Method to parse every command without running it
+     *
+     * @param channel command file
+     * @param binary  whether the file is in the binary format
+     * @return nanoseconds taken
+     * @throws IOException if reading fails
+     */
+    static long parse(FileChannel channel, boolean binary) throws IOException {
+        long start = System.nanoTime();
+        commandParser parser = open(channel, binary);
+        while (parser.next()) {
+            blackhole += parser.operation;
+            for (int index = 0; index < parser.argumentCount; index++) {
+                blackhole += parser.arguments[index];
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Method to run every command against a fresh gatorTaxi
+     *
+     * @param channel command file
+     * @param binary  whether the file is in the binary format
+     * @param sink    output to write results to
+     * @return nanoseconds taken
+     * @throws IOException if reading fails
+     */
+    static long run(FileChannel channel, boolean binary, outputSink sink) throws IOException {
+        gatorTaxi.initialize(new gatorTaxiOptions());
+        long start = System.nanoTime();
+        gatorTaxi.run(open(channel, binary), sink);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args number of commands (default 2000000)
+     * @throws IOException if the temporary files cannot be used
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        Path textFile = Files.createTempFile("binaryProtocolBenchmark", ".txt");
+        Path binaryFile = Files.createTempFile("binaryProtocolBenchmark", ".bin");
+        workloadGenerator.main(new String[]{"--commands=" + count, textFile.toString()});
+        commandConverter.convert(textFile.toString(), binaryFile.toString());
+
+        try (FileChannel text = FileChannel.open(textFile);
+             FileChannel binary = FileChannel.open(binaryFile)) {
+            outputSink textOutput = new outputSink(1 << 20);
+            outputSink binaryOutput = new outputSink(1 << 20);
+            run(text, false, textOutput);
+            run(binary, true, binaryOutput);
+            if (!textOutput.takeString().equals(binaryOutput.takeString())) {
+                throw new IllegalStateException("Binary output differs from text output");
+            }
+
+            long textParse = Long.MAX_VALUE;
+            long binaryParse = Long.MAX_VALUE;
+            long textRun = Long.MAX_VALUE;
+            long binaryRun = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                textParse = Math.min(textParse, parse(text, false));
+                binaryParse = Math.min(binaryParse, parse(binary, true));
+                textRun = Math.min(textRun, run(text, false, textOutput));
+                textOutput.takeString();
+                binaryRun = Math.min(binaryRun, run(binary, true, binaryOutput));
+                binaryOutput.takeString();
+            }
+
+            System.out.printf("%-8s %10s %12s %12s%n", "format", "MB", "parse ms", "run ms");
+            System.out.printf("%-8s %10.1f %12.1f %12.1f%n", "text", text.size() / 1e6, textParse / 1e6, textRun / 1e6);
+            System.out.printf("%-8s %10.1f %12.1f %12.1f%n", "binary", binary.size() / 1e6, binaryParse / 1e6, binaryRun / 1e6);
+            System.out.printf("speed-up %23.1fx %11.1fx%n", (double) textParse / binaryParse, (double) textRun / binaryRun);
+        } finally {
+            Files.delete(textFile);
+            Files.delete(binaryFile);
+        }
+        System.out.println("checksum " + blackhole);
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of loading a batch of rides into an empty gatorTaxi with bulkLoad against one Insert per ride,
+ * for each priority queue
+ */
+public class bulkLoadBenchmark {
+
+    /**
+     * Priority queues to compare, as accepted by the heap option
+     */
+    private static final String[] heaps = {"binary", "4-ary", "8-ary", "pairing"};
+
+    /**
+     * Result sink so the JIT cannot drop the measured work
+     */
+    static long blackhole;
+
+    /**
+     * Method to load the batch into a fresh gatorTaxi
+     *
+     * @param options       start-up options
+     * @param rideNumbers   ride numbers of the batch
+     * @param rideCosts     costs of the batch
+     * @param tripDurations trip durations of the batch
+     * @param bulk          true to use bulkLoad, false to insert ride by ride
+     * @return milliseconds taken
+     */
+    static double load(gatorTaxiOptions options, int[] rideNumbers, int[] rideCosts, int[] tripDurations, boolean bulk) {
+        gatorTaxi.initialize(options);
+        long start = System.nanoTime();
+        if (bulk) {
+            if (!gatorTaxi.bulkLoad(rideNumbers, rideCosts, tripDurations, rideNumbers.length).isEmpty()) {
+                throw new IllegalStateException("Duplicate RideNumber");
+            }
+        } else {
+            for (int ride = 0; ride < rideNumbers.length; ride++) {
+                if (!gatorTaxi.insert(rideNumbers[ride], rideCosts[ride], tripDurations[ride]).isEmpty()) {
+                    throw new IllegalStateException("Duplicate RideNumber");
+                }
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e6;
+        blackhole += gatorTaxi.rideQueue.peek();
+        return elapsed;
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args number of rides in the batch (default 1000000)
+     */
+    public static void main(String[] args) {
+        int rides = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] rideNumbers = new int[rides];
+        int[] rideCosts = new int[rides];
+        int[] tripDurations = new int[rides];
+        for (int ride = 0; ride < rides; ride++) {
+            rideNumbers[ride] = (int) ((ride + 1L) * 0x5DEECE66DL & Integer.MAX_VALUE);
+            rideCosts[ride] = random.nextInt(1, 101);
+            tripDurations[ride] = random.nextInt(1, 1_000_001);
+        }
+
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.expectedRides = 2000;
+        System.out.printf("%-10s %12s %12s%n", "ms", "insert", "bulkLoad");
+        for (String heap : heaps) {
+            options.heap = heap;
+            for (int warmup = 0; warmup < 3; warmup++) {
+                load(options, rideNumbers, rideCosts, tripDurations, false);
+                load(options, rideNumbers, rideCosts, tripDurations, true);
+            }
+            System.out.printf("%-10s %12.1f %12.1f%n", heap,
+                    load(options, rideNumbers, rideCosts, tripDurations, false),
+                    load(options, rideNumbers, rideCosts, tripDurations, true));
+        }
+        System.out.println("checksum " + blackhole);
+    }
+}
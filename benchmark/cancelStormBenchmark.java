@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of CancelRide removing rides at once against lazy cancellation under cancel storms. Rides are
+ * dispatched and replaced at a steady rate, and every round a storm cancels a share of the recent rides in one
+ * burst, after which as many new rides come in. Latency of every command is recorded per operation, and both
+ * modes are checked to dispatch the same rides.
+ */
+public class cancelStormBenchmark {
+
+    /**
+     * Operation code of each command, from opcode
+     */
+    private static int[] operations;
+
+    /**
+     * Ride number argument of each command
+     */
+    private static int[] rideNumbers;
+
+    /**
+     * Number of commands
+     */
+    private static int commandCount;
+
+    /**
+     * Next ride number inserted while the commands are built
+     */
+    private static int nextRideNumber;
+
+    /**
+     * Method to append a command
+     *
+     * @param operation  operation code
+     * @param rideNumber ride number argument
+     */
+    private static void add(int operation, int rideNumber) {
+        operations[commandCount] = operation;
+        rideNumbers[commandCount++] = rideNumber;
+    }
+
+    /**
+     * Method to build the commands of every round - a steady phase of Insert and GetNextRide pairs, a storm
+     * of CancelRide on rides drawn from the most recent ones, and as many Insert afterwards
+     *
+     * @param rides  number of rides loaded before the first round
+     * @param rounds number of rounds
+     * @param storm  rides cancelled per storm
+     */
+    private static void build(int rides, int rounds, int storm) {
+        int steady = rides / 4;
+        operations = new int[rounds * (2 * steady + 2 * storm)];
+        rideNumbers = new int[operations.length];
+        commandCount = 0;
+        nextRideNumber = rides + 1;
+        SplittableRandom random = new SplittableRandom(42);
+        for (int round = 0; round < rounds; round++) {
+            for (int command = 0; command < steady; command++) {
+                add(opcode.Insert, nextRideNumber++);
+                add(opcode.GetNextRide, 0);
+            }
+            for (int command = 0; command < storm; command++) {
+                add(opcode.CancelRide, nextRideNumber - 1 - random.nextInt(rides));
+            }
+            for (int command = 0; command < storm; command++) {
+                add(opcode.Insert, nextRideNumber++);
+            }
+        }
+    }
+
+    /**
+     * Method to get the cost of a ride, fixed per ride number so that both modes insert the same rides
+     *
+     * @param rideNumber ride number
+     * @return cost between 1 and 100
+     */
+    private static int rideCostOf(int rideNumber) {
+        return (int) ((rideNumber * 0x9E3779B97F4A7C15L >>> 40) % 100) + 1;
+    }
+
+    /**
+     * Method to get the trip duration of a ride, fixed per ride number
+     *
+     * @param rideNumber ride number
+     * @return trip duration between 1 and 1000000
+     */
+    private static int tripDurationOf(int rideNumber) {
+        return (int) ((rideNumber * 0xC2B2AE3D27D4EB4FL >>> 40) % 1_000_000) + 1;
+    }
+
+    /**
+     * Method to load rides and run every command, recording the latency of each
+     *
+     * @param rides     number of rides loaded before the commands
+     * @param lazy      whether cancellation is lazy
+     * @param latencies latency histograms, indexed by operation code
+     * @return checksum of the rides dispatched
+     * @throws IOException if writing fails
+     */
+    private static long run(int rides, boolean lazy, latencyHistogram[] latencies) throws IOException {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.expectedRides = rides * 2;
+        options.lazyCancel = lazy;
+        gatorTaxi.initialize(options);
+        int[] costs = new int[rides];
+        int[] durations = new int[rides];
+        int[] numbers = new int[rides];
+        for (int ride = 0; ride < rides; ride++) {
+            numbers[ride] = ride + 1;
+            costs[ride] = rideCostOf(ride + 1);
+            durations[ride] = tripDurationOf(ride + 1);
+        }
+        gatorTaxi.bulkLoad(numbers, costs, durations, rides);
+
+        outputSink sink = new outputSink(1 << 20);
+        long checksum = 0;
+        int dispatched = 0;
+        for (int command = 0; command < commandCount; command++) {
+            int rideNumber = rideNumbers[command];
+            long start = System.nanoTime();
+            switch (operations[command]) {
+                case opcode.Insert:
+                    gatorTaxi.insert(rideNumber, rideCostOf(rideNumber), tripDurationOf(rideNumber));
+                    break;
+                case opcode.GetNextRide:
+                    sink.beginLine();
+                    gatorTaxi.printNextRide(sink);
+                    dispatched++;
+                    break;
+                default:
+                    gatorTaxi.cancelRide(rideNumber);
+                    break;
+            }
+            latencies[operations[command]].record(System.nanoTime() - start);
+            if (dispatched == 1 << 14) {
+                dispatched = 0;
+                checksum = checksum * 31 + sink.takeString().hashCode();
+            }
+        }
+        return checksum * 31 + sink.takeString().hashCode();
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args rides (default 1000000), rounds (default 8) and percentage of the rides each storm cancels
+     *             (default 30)
+     * @throws IOException if writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        int rides = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int stormShare = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        build(rides, rounds, (int) ((long) rides * stormShare / 100));
+
+        String[] modes = {"eager", "lazy"};
+        long[] checksums = new long[modes.length];
+        System.out.printf("%-6s %-12s %10s %10s %10s %10s %10s%n", "mode", "operation", "p50 ns", "p99 ns", "p99.9 ns", "max ns", "total ms");
+        for (int run = 0; run < 2; run++) {
+            for (int mode = 0; mode < modes.length; mode++) {
+                latencyHistogram[] latencies = new latencyHistogram[opcode.names.length];
+                for (int operation = 0; operation < latencies.length; operation++) {
+                    latencies[operation] = new latencyHistogram();
+                }
+                long start = System.nanoTime();
+                checksums[mode] = run(rides, mode == 1, latencies);
+                long totalMillis = (System.nanoTime() - start) / 1_000_000;
+                if (run == 0) {
+                    continue;
+                }
+                for (int operation : new int[]{opcode.CancelRide, opcode.GetNextRide, opcode.Insert}) {
+                    latencyHistogram histogram = latencies[operation];
+                    System.out.printf("%-6s %-12s %10d %10d %10d %10d %10d%n", modes[mode], opcode.names[operation], histogram.percentile(50),
+                            histogram.percentile(99), histogram.percentile(99.9), histogram.maximum(), totalMillis);
+                }
+            }
+            if (checksums[0] != checksums[1]) {
+                throw new IllegalStateException("Lazy cancellation dispatched different rides");
+            }
+        }
+    }
+}
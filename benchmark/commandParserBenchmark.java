@@ -0,0 +1,146 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Benchmark of the byte level command parser against the previous split/parseInt line parser
+ */
+public class commandParserBenchmark {
+
+    /**
+     * Number of warmup rounds before measuring
+     */
+    private static final int warmupRounds = 5;
+
+    /**
+     * Number of measured rounds
+     */
+    private static final int measuredRounds = 5;
+
+    /**
+     * Result sink so the JIT cannot drop the measured work
+     */
+    static long blackhole;
+
+    /**
+     * Method to generate a command file in memory
+     *
+     * @param count number of commands
+     * @return command file bytes
+     */
+    static byte[] generate(int count) {
+        Random random = new Random(42);
+        StringBuilder commands = new StringBuilder();
+
+        for (int index = 0; index < count; index++) {
+            int rideNumber = random.nextInt(1_000_000);
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    commands.append("Insert(").append(rideNumber).append(',').append(random.nextInt(100)).append(',').append(random.nextInt(1_000_000)).append(')');
+                    break;
+                case 2:
+                    commands.append("Print(").append(rideNumber).append(',').append(rideNumber + 100).append(')');
+                    break;
+                case 3:
+                    commands.append("GetNextRide()");
+                    break;
+                case 4:
+                    commands.append("CancelRide(").append(rideNumber).append(')');
+                    break;
+                default:
+                    commands.append("UpdateTrip(").append(rideNumber).append(',').append(random.nextInt(1_000_000)).append(')');
+                    break;
+            }
+            commands.append('\n');
+        }
+
+        return commands.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Method to parse commands the way gatorTaxi.main did before commandParser
+     *
+     * @param input command file bytes
+     * @return number of lines parsed
+     * @throws IOException if reading fails
+     */
+    static int parseWithSplit(byte[] input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(input), StandardCharsets.US_ASCII));
+        int lines = 0;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            String[] tokens = line.split("\\(");
+            String[] argsTokens = tokens[1].split("\\)");
+            String[] methodArgs = new String[0];
+
+            if (argsTokens.length > 0 && !argsTokens[0].isEmpty()) {
+                methodArgs = argsTokens[0].split(",");
+            }
+
+            blackhole += tokens[0].length();
+            for (String methodArg : methodArgs) {
+                blackhole += Integer.parseInt(methodArg);
+            }
+            lines++;
+        }
+        return lines;
+    }
+
+    /**
+     * Method to parse commands with commandParser
+     *
+     * @param input command file bytes
+     * @return number of lines parsed
+     * @throws IOException if reading fails
+     */
+    static int parseWithCommandParser(byte[] input) throws IOException {
+        commandParser parser = new commandParser(new ByteArrayInputStream(input), 1 << 16);
+        int lines = 0;
+
+        while (parser.next()) {
+            blackhole += parser.operation;
+            for (int index = 0; index < parser.argumentCount; index++) {
+                blackhole += parser.arguments[index];
+            }
+            lines++;
+        }
+        return lines;
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args number of commands (default 2000000)
+     * @throws IOException if reading fails
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        byte[] input = generate(count);
+
+        for (int round = 0; round < warmupRounds; round++) {
+            parseWithSplit(input);
+            parseWithCommandParser(input);
+        }
+
+        long splitNanos = 0;
+        long parserNanos = 0;
+        for (int round = 0; round < measuredRounds; round++) {
+            long start = System.nanoTime();
+            parseWithSplit(input);
+            splitNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            parseWithCommandParser(input);
+            parserNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("split/parseInt  %12.0f lines/s%n", count * 1e9 * measuredRounds / splitNanos);
+        System.out.printf("commandParser   %12.0f lines/s%n", count * 1e9 * measuredRounds / parserNanos);
+        System.out.println("checksum " + blackhole);
+    }
+}
@@ -0,0 +1,192 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Multi-threaded throughput benchmark of concurrentGatorTaxi against the same engine behind one global lock,
+ * for thread counts doubling up to the number of cores
+ */
+public class concurrentDispatchBenchmark {
+
+    /**
+     * Number of rides loaded before measuring
+     */
+    private static final int preloadedRides = 100_000;
+
+    /**
+     * Ride numbers are drawn from 1 to keySpace
+     */
+    private static final int keySpace = 1_000_000;
+
+    /**
+     * Set when the measured interval is over
+     */
+    private static volatile boolean stopped;
+
+    /**
+     * Operation applied by a thread
+     */
+    interface engine {
+
+        /**
+         * Method to apply one command
+         *
+         * @param operation   operation code
+         * @param rideNumber  ride number argument
+         * @param argument    second argument
+         * @param sink        output of the calling thread
+         * @throws IOException if writing fails
+         */
+        void apply(int operation, int rideNumber, int argument, outputSink sink) throws IOException;
+    }
+
+    /**
+     * Method to apply one command to Gator Taxi
+     *
+     * @param taxi       engine to drive
+     * @param operation  operation code
+     * @param rideNumber ride number argument
+     * @param argument   second argument
+     * @param sink       output of the calling thread
+     * @throws IOException if writing fails
+     */
+    static void apply(concurrentGatorTaxi taxi, int operation, int rideNumber, int argument, outputSink sink) throws IOException {
+        switch (operation) {
+            case opcode.Insert:
+                taxi.insert(rideNumber, argument % 100, argument);
+                break;
+            case opcode.Print:
+                if (argument % 8 == 0) {
+                    taxi.printRidesInRange(rideNumber, rideNumber + 100, sink);
+                } else {
+                    taxi.printRidesInRange(rideNumber, sink);
+                }
+                break;
+            case opcode.GetNextRide:
+                taxi.printNextRide(sink);
+                break;
+            case opcode.CancelRide:
+                taxi.cancelRide(rideNumber);
+                break;
+            default:
+                taxi.updateTrip(rideNumber, argument);
+                break;
+        }
+    }
+
+    /**
+     * Method to pick the next command - a quarter are GetNextRide, as if from dispatcher threads, and the rest
+     * are Insert, Print, CancelRide and UpdateTrip from request threads, keeping the number of rides steady
+     *
+     * @param random source of randomness
+     * @return operation code
+     */
+    private static int nextOperation(ThreadLocalRandom random) {
+        int draw = random.nextInt(100);
+        if (draw < 40) {
+            return opcode.Insert;
+        } else if (draw < 60) {
+            return opcode.Print;
+        } else if (draw < 85) {
+            return opcode.GetNextRide;
+        } else if (draw < 90) {
+            return opcode.CancelRide;
+        }
+        return opcode.UpdateTrip;
+    }
+
+    /**
+     * Method to measure the throughput of an engine
+     *
+     * @param engine  engine to drive
+     * @param threads number of threads
+     * @param seconds length of the measured interval
+     * @return commands per second
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    static double measure(engine engine, int threads, double seconds) throws InterruptedException {
+        long[] commands = new long[threads];
+        Thread[] workers = new Thread[threads];
+        stopped = false;
+
+        for (int index = 0; index < threads; index++) {
+            int worker = index;
+            workers[index] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try (FileChannel channel = FileChannel.open(Paths.get("/dev/null"), StandardOpenOption.WRITE);
+                     outputSink sink = new outputSink(channel, 1 << 16, false)) {
+                    long count = 0;
+                    while (!stopped) {
+                        engine.apply(nextOperation(random), random.nextInt(1, keySpace + 1), random.nextInt(1, 1_000_000), sink);
+                        count++;
+                    }
+                    commands[worker] = count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        Thread.sleep((long) (seconds * 1000));
+        stopped = true;
+        long total = 0;
+        for (int index = 0; index < threads; index++) {
+            workers[index].join();
+            total += commands[index];
+        }
+        return total / seconds;
+    }
+
+    /**
+     * Method to create an engine loaded with rides
+     *
+     * @return loaded engine
+     */
+    static concurrentGatorTaxi loaded() {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.expectedRides = preloadedRides * 2;
+        concurrentGatorTaxi taxi = new concurrentGatorTaxi(options);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int ride = 0; ride < preloadedRides; ride++) {
+            int tripDuration = random.nextInt(1, 1_000_000);
+            taxi.insert(random.nextInt(1, keySpace + 1), tripDuration % 100, tripDuration);
+        }
+        return taxi;
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args largest thread count (default number of cores) and seconds per run (default 2)
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int maximumThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+        System.out.printf("%-8s %16s %16s%n", "threads", "global lock/s", "concurrent/s");
+        for (int threads = 1; ; threads = Math.min(threads * 2, maximumThreads)) {
+            concurrentGatorTaxi locked = loaded();
+            Object globalLock = new Object();
+            double globalLockThroughput = measure((operation, rideNumber, argument, sink) -> {
+                synchronized (globalLock) {
+                    apply(locked, operation, rideNumber, argument, sink);
+                }
+            }, threads, seconds);
+
+            concurrentGatorTaxi concurrent = loaded();
+            double concurrentThroughput = measure((operation, rideNumber, argument, sink) -> apply(concurrent, operation, rideNumber, argument, sink), threads, seconds);
+
+            System.out.printf("%-8d %16.0f %16.0f%n", threads, globalLockThroughput, concurrentThroughput);
+            if (threads == maximumThreads) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of point operations by ride number - Print(rideNumber), UpdateTrip, CancelRide with an Insert
+ * putting the ride back, and Insert of a duplicate - looked up by descending the red-black tree against the
+ * hash index
+ */
+public class hashIndexBenchmark {
+
+    /**
+     * Names of the measured operations
+     */
+    private static final String[] operations = {"Print", "UpdateTrip", "Cancel+Insert", "Duplicate"};
+
+    /**
+     * Rounds per measurement, the fastest is reported
+     */
+    private static final int rounds = 3;
+
+    /**
+     * Result sink so the JIT cannot drop the measured work
+     */
+    static long blackhole;
+
+    /**
+     * Method to get the ride number of the n-th ride, scattered over the positive ints
+     *
+     * @param ride ride counter
+     * @return unique positive ride number
+     */
+    private static int rideNumberOf(int ride) {
+        return (int) (((ride + 1L) * 0x5DEECE66DL) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to load rides into a fresh gatorTaxi
+     *
+     * @param rides     number of rides
+     * @param hashIndex whether lookups go through the hash index
+     */
+    private static void load(int rides, boolean hashIndex) {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.expectedRides = rides;
+        options.hashIndex = hashIndex;
+        gatorTaxi.initialize(options);
+        int[] rideNumbers = new int[rides];
+        int[] rideCosts = new int[rides];
+        int[] tripDurations = new int[rides];
+        SplittableRandom random = new SplittableRandom(rides);
+        for (int ride = 0; ride < rides; ride++) {
+            rideNumbers[ride] = rideNumberOf(ride);
+            rideCosts[ride] = random.nextInt(1, 101);
+            tripDurations[ride] = random.nextInt(1_000_000, 2_000_001);
+        }
+        gatorTaxi.bulkLoad(rideNumbers, rideCosts, tripDurations, rides);
+    }
+
+    /**
+     * Method to run one operation on rides drawn at random
+     *
+     * @param operation index of the operation
+     * @param rides     number of rides loaded
+     * @param commands  number of commands
+     * @param sink      output Print writes to
+     * @return nanoseconds per command
+     * @throws IOException if writing fails
+     */
+    private static double run(int operation, int rides, int commands, outputSink sink) throws IOException {
+        SplittableRandom random = new SplittableRandom(7);
+        long start = System.nanoTime();
+        for (int command = 0; command < commands; command++) {
+            int rideNumber = rideNumberOf(random.nextInt(rides));
+            switch (operation) {
+                case 0:
+                    gatorTaxi.printRidesInRange(rideNumber, sink);
+                    if ((command & 1023) == 0) {
+                        blackhole += sink.takeString().length();
+                    }
+                    break;
+                case 1:
+                    gatorTaxi.updateTrip(rideNumber, 1_000_000 - command % 1000);
+                    break;
+                case 2:
+                    gatorTaxi.cancelRide(rideNumber);
+                    gatorTaxi.insert(rideNumber, 50, 1_500_000);
+                    break;
+                default:
+                    blackhole += gatorTaxi.insert(rideNumber, 50, 1_500_000).length();
+                    break;
+            }
+        }
+        return (System.nanoTime() - start) / (double) commands;
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args numbers of rides loaded (default 100000, 1000000 and 4000000)
+     * @throws IOException if writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        int[] rideCounts = args.length > 0 ? new int[args.length] : new int[]{100_000, 1_000_000, 4_000_000};
+        for (int index = 0; index < args.length; index++) {
+            rideCounts[index] = Integer.parseInt(args[index]);
+        }
+        int commands = 1_000_000;
+        outputSink sink = new outputSink(1 << 16);
+
+        System.out.printf("%10s %-14s %12s %12s %8s%n", "rides", "operation", "tree ns", "hash ns", "speed-up");
+        for (int rides : rideCounts) {
+            double[][] nanos = new double[2][operations.length];
+            for (double[] row : nanos) {
+                Arrays.fill(row, Double.MAX_VALUE);
+            }
+            for (int round = 0; round < rounds; round++) {
+                for (int mode = 0; mode < 2; mode++) {
+                    load(rides, mode == 1);
+                    for (int operation = 0; operation < operations.length; operation++) {
+                        nanos[mode][operation] = Math.min(nanos[mode][operation], run(operation, rides, commands, sink));
+                    }
+                }
+            }
+            for (int operation = 0; operation < operations.length; operation++) {
+                System.out.printf("%10d %-14s %12.1f %12.1f %7.2fx%n", rides, operations[operation], nanos[0][operation],
+                        nanos[1][operation], nanos[0][operation] / nanos[1][operation]);
+            }
+        }
+        System.out.println("checksum " + blackhole);
+    }
+}
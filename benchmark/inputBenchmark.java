@@ -0,0 +1,123 @@
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmark of input ingestion in MB/s - line reader, buffered byte parser and memory-mapped byte parser
+ */
+public class inputBenchmark {
+
+    /**
+     * Number of measured rounds per input path
+     */
+    private static final int measuredRounds = 5;
+
+    /**
+     * Result sink so the JIT cannot drop the measured work
+     */
+    static long blackhole;
+
+    /**
+     * Method to read every line as a String, as the reader path did
+     *
+     * @param file command file
+     * @throws IOException if reading fails
+     */
+    static void readLines(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                blackhole += line.length();
+            }
+        }
+    }
+
+    /**
+     * Method to parse every command through a read buffer
+     *
+     * @param file command file
+     * @throws IOException if reading fails
+     */
+    static void parseStream(Path file) throws IOException {
+        try (FileInputStream input = new FileInputStream(file.toFile())) {
+            commandParser parser = new commandParser(input, 1 << 16);
+            while (parser.next()) {
+                blackhole += parser.arguments[0];
+            }
+        }
+    }
+
+    /**
+     * Method to parse every command out of memory-mapped chunks
+     *
+     * @param file command file
+     * @throws IOException if reading fails
+     */
+    static void parseMapped(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            commandParser parser = new commandParser(channel, 64 << 20);
+            while (parser.next()) {
+                blackhole += parser.arguments[0];
+            }
+        }
+    }
+
+    /**
+     * Method to measure one input path in MB/s
+     *
+     * @param name  name of the input path
+     * @param file  command file
+     * @param input input path to run
+     * @throws IOException if reading fails
+     */
+    private static void measure(String name, Path file, inputPath input) throws IOException {
+        input.run(file);
+
+        long elapsed = 0;
+        for (int round = 0; round < measuredRounds; round++) {
+            long start = System.nanoTime();
+            input.run(file);
+            elapsed += System.nanoTime() - start;
+        }
+        System.out.printf("%-14s %8.1f MB/s%n", name, Files.size(file) / 1e6 * measuredRounds / (elapsed / 1e9));
+    }
+
+    /**
+     * Input path to measure
+     */
+    interface inputPath {
+
+        /**
+         * Method to read the whole file
+         *
+         * @param file command file
+         * @throws IOException if reading fails
+         */
+        void run(Path file) throws IOException;
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args number of commands in the generated file (default 5000000)
+     * @throws IOException if reading or writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Path file = Files.createTempFile("gatorTaxi", ".txt");
+
+        try {
+            Files.write(file, commandParserBenchmark.generate(count));
+            measure("readLine", file, inputBenchmark::readLines);
+            measure("stream parser", file, inputBenchmark::parseStream);
+            measure("mmap parser", file, inputBenchmark::parseMapped);
+            System.out.println("checksum " + blackhole);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.Random;
+
+/**
+ * Benchmark of amortized min heap insert cost across resize boundaries
+ */
+public class minHeapBenchmark {
+
+    /**
+     * Number of inserts timed together as one batch
+     */
+    private static final int batchSize = 1024;
+
+    /**
+     * Number of warmup rounds before measuring
+     */
+    private static final int warmupRounds = 5;
+
+    /**
+     * Result sink so the JIT cannot drop the measured work
+     */
+    static long blackhole;
+
+    /**
+     * Method to insert rides into a min heap batch by batch
+     *
+     * @param rides           table holding the rides
+     * @param slots           slots of the rides to insert
+     * @param initialCapacity initial capacity of the heap
+     * @param growthFactor    growth factor of the heap
+     * @param batchNanos      elapsed nanoseconds of each batch, filled in
+     * @return total elapsed nanoseconds
+     */
+    static long run(rideTable rides, int[] slots, int initialCapacity, double growthFactor, long[] batchNanos) {
+        minHeap heap = new minHeap(rides, initialCapacity, growthFactor, false);
+        long total = 0;
+
+        for (int batch = 0; batch < batchNanos.length; batch++) {
+            int end = Math.min(slots.length, (batch + 1) * batchSize);
+            long start = System.nanoTime();
+            for (int index = batch * batchSize; index < end; index++) {
+                heap.insert(slots[index]);
+            }
+            batchNanos[batch] = System.nanoTime() - start;
+            total += batchNanos[batch];
+        }
+
+        blackhole += heap.capacity();
+        return total;
+    }
+
+    /**
+     * Method to print amortized and worst batch insert cost of one configuration
+     *
+     * @param name            name of the configuration
+     * @param rides           table holding the rides
+     * @param slots           slots of the rides to insert
+     * @param initialCapacity initial capacity of the heap
+     * @param growthFactor    growth factor of the heap
+     */
+    private static void measure(String name, rideTable rides, int[] slots, int initialCapacity, double growthFactor) {
+        long[] batchNanos = new long[(slots.length + batchSize - 1) / batchSize];
+
+        for (int round = 0; round < warmupRounds; round++) {
+            run(rides, slots, initialCapacity, growthFactor, batchNanos);
+        }
+        long total = run(rides, slots, initialCapacity, growthFactor, batchNanos);
+
+        long worst = 0;
+        for (long nanos : batchNanos) {
+            worst = Math.max(worst, nanos);
+        }
+        System.out.printf("%-22s amortized %7.1f ns/insert, worst batch %7.1f ns/insert%n", name, (double) total / slots.length, (double) worst / batchSize);
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args number of rides (default 4000000)
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+
+        Random random = new Random(42);
+        rideTable rides = new rideTable(count);
+        int[] slots = new int[count];
+        for (int index = 0; index < count; index++) {
+            slots[index] = rides.allocate(index, random.nextInt(1000), random.nextInt(1_000_000));
+        }
+
+        measure("presized", rides, slots, count, 2.0);
+        measure("from 16, growth 2.0", rides, slots, 16, 2.0);
+        measure("from 16, growth 1.5", rides, slots, 16, 1.5);
+        measure("from 16, growth 1.25", rides, slots, 16, 1.25);
+        System.out.println("checksum " + blackhole);
+    }
+}
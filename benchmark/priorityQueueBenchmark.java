@@ -0,0 +1,154 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of the ride priority queues - binary, 4-ary and 8-ary heaps, the pairing heap and the bucket queue - under
+ * cancel-heavy, update-heavy and dispatch-heavy command mixes
+ */
+public class priorityQueueBenchmark {
+
+    /**
+     * Priority queues to compare, as accepted by the heap option
+     */
+    private static final String[] heaps = {"binary", "4-ary", "8-ary", "pairing", "bucket"};
+
+    /**
+     * Names of the command mixes
+     */
+    private static final String[] mixes = {"cancel-heavy", "update-heavy", "dispatch-heavy"};
+
+    /**
+     * Percentages of insert, arbitraryDelete, changeKey and deleteMin per mix
+     */
+    private static final int[][] mixRatios = {{45, 40, 0, 15}, {20, 0, 60, 20}, {50, 0, 0, 50}};
+
+    /**
+     * Result sink so the JIT cannot drop the measured work
+     */
+    static long blackhole;
+
+    /**
+     * Slots of the rides in the queue
+     */
+    private static int[] active;
+
+    /**
+     * Position of each ride in active
+     */
+    private static int[] activePosition;
+
+    /**
+     * Number of rides in the queue
+     */
+    private static int activeCount;
+
+    /**
+     * Method to store a ride in the table and queue it
+     *
+     * @param rides  table holding the rides
+     * @param queue  queue under measurement
+     * @param random source of randomness
+     */
+    private static void insert(rideTable rides, ridePriorityQueue queue, SplittableRandom random) {
+        int slot = rides.allocate(random.nextInt(Integer.MAX_VALUE), random.nextInt(1, 101), random.nextInt(1, 1_000_001));
+        queue.insert(slot);
+        if (slot >= activePosition.length) {
+            activePosition = Arrays.copyOf(activePosition, slot * 2);
+        }
+        if (activeCount == active.length) {
+            active = Arrays.copyOf(active, activeCount * 2);
+        }
+        activePosition[slot] = activeCount;
+        active[activeCount++] = slot;
+    }
+
+    /**
+     * Method to forget a ride that left the queue and release its slot
+     *
+     * @param rides table holding the rides
+     * @param slot  slot of the ride
+     */
+    private static void remove(rideTable rides, int slot) {
+        int last = active[--activeCount];
+        active[activePosition[slot]] = last;
+        activePosition[last] = activePosition[slot];
+        rides.release(slot);
+    }
+
+    /**
+     * Method to run one mix against one priority queue
+     *
+     * @param heap     priority queue name
+     * @param mix      index of the mix
+     * @param preload  number of rides queued before measuring
+     * @param commands number of measured commands
+     * @return nanoseconds per command
+     */
+    static double run(String heap, int mix, int preload, int commands) {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.heap = heap;
+        rideTable rides = new rideTable(preload * 2);
+        ridePriorityQueue queue = ridePriorityQueue.create(rides, preload * 2, options);
+        SplittableRandom random = new SplittableRandom(42);
+        active = new int[preload * 2];
+        activePosition = new int[preload * 2 + 1];
+        activeCount = 0;
+        for (int ride = 0; ride < preload; ride++) {
+            insert(rides, queue, random);
+        }
+
+        int[] ratios = mixRatios[mix];
+        long start = System.nanoTime();
+        for (int command = 0; command < commands; command++) {
+            int draw = random.nextInt(100);
+            if (draw < ratios[0] || activeCount == 0) {
+                insert(rides, queue, random);
+            } else if ((draw -= ratios[0]) < ratios[1]) {
+                int slot = active[random.nextInt(activeCount)];
+                queue.arbitraryDelete(slot);
+                remove(rides, slot);
+            } else if ((draw -= ratios[1]) < ratios[2]) {
+                int slot = active[random.nextInt(activeCount)];
+                int tripDuration = rides.tripDuration[slot];
+                if (random.nextBoolean()) {
+                    queue.changeKey(slot, rides.rideCost[slot], Math.max(1, tripDuration - tripDuration / 4));
+                } else {
+                    queue.changeKey(slot, rides.rideCost[slot] + 10, tripDuration + tripDuration / 2);
+                }
+            } else {
+                int slot = queue.deleteMin();
+                blackhole += rides.rideCost[slot];
+                remove(rides, slot);
+            }
+        }
+        return (System.nanoTime() - start) / (double) commands;
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args rides queued before measuring (default 1000000) and measured commands per run (default 5000000)
+     */
+    public static void main(String[] args) {
+        int preload = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int commands = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+        System.out.printf("%-16s", "ns/command");
+        for (String heap : heaps) {
+            System.out.printf("%10s", heap);
+        }
+        System.out.println();
+
+        for (int mix = 0; mix < mixes.length; mix++) {
+            for (String heap : heaps) {
+                run(heap, mix, preload / 10, commands / 10);
+            }
+            System.out.printf("%-16s", mixes[mix]);
+            for (String heap : heaps) {
+                System.out.printf("%10.1f", run(heap, mix, preload, commands));
+            }
+            System.out.println();
+        }
+        System.out.println("checksum " + blackhole);
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of rideJournal - command throughput under each fsync policy, and restart time from a checkpoint
+ * plus log tail against replaying the whole history as text
+ */
+public class recoveryBenchmark {
+
+    /**
+     * Method to get the ride number of the n-th insert, scattered over the positive ints
+     *
+     * @param insert insert counter
+     * @return unique positive ride number
+     */
+    private static int rideNumberOf(int insert) {
+        return (int) (((insert + 1L) * 0x5DEECE66DL) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to open a journal on an emptied directory and attach it to a fresh gatorTaxi
+     *
+     * @param options start-up options naming the directory
+     * @return recovered journal
+     * @throws IOException if the directory cannot be used
+     */
+    private static rideJournal openEmpty(gatorTaxiOptions options) throws IOException {
+        Path directory = Path.of(options.walDirectory);
+        Files.deleteIfExists(directory.resolve("rides.wal"));
+        Files.deleteIfExists(directory.resolve("rides.checkpoint"));
+        gatorTaxi.initialize(options);
+        rideJournal journal = new rideJournal(options);
+        journal.recover();
+        return journal;
+    }
+
+    /**
+     * Method to run and log inserts, then a tail of cancels and updates, writing the same history as text
+     *
+     * @param journal    journal to log to
+     * @param rides      number of inserts
+     * @param tail       number of cancels and updates after the inserts
+     * @param history    text history to write, or null
+     * @param checkpoint whether to take a checkpoint between the inserts and the tail
+     * @return commands per second
+     * @throws IOException if logging or writing fails
+     */
+    static double record(rideJournal journal, int rides, int tail, BufferedWriter history, boolean checkpoint) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        long start = System.nanoTime();
+        for (int insert = 0; insert < rides; insert++) {
+            int rideNumber = rideNumberOf(insert);
+            int rideCost = random.nextInt(1, 101);
+            int tripDuration = random.nextInt(1, 1_000_001);
+            gatorTaxi.insert(rideNumber, rideCost, tripDuration);
+            journal.logInsert(rideNumber, rideCost, tripDuration);
+            if (history != null) {
+                history.write("Insert(" + rideNumber + "," + rideCost + "," + tripDuration + ")\n");
+            }
+        }
+        if (checkpoint) {
+            journal.checkpoint();
+        }
+        for (int command = 0; command < tail; command++) {
+            int rideNumber = rideNumberOf(random.nextInt(rides));
+            if (command % 2 == 0) {
+                gatorTaxi.cancelRide(rideNumber);
+                journal.logCancelRide(rideNumber);
+                if (history != null) {
+                    history.write("CancelRide(" + rideNumber + ")\n");
+                }
+            } else {
+                int tripDuration = random.nextInt(1, 1_000_001);
+                gatorTaxi.updateTrip(rideNumber, tripDuration);
+                journal.logUpdateTrip(rideNumber, tripDuration);
+                if (history != null) {
+                    history.write("UpdateTrip(" + rideNumber + "," + tripDuration + ")\n");
+                }
+            }
+        }
+        journal.commit();
+        return (rides + tail) / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args rides in the checkpoint (default 10000000), commands in the log tail (default 1000000) and
+     *             commands per fsync policy run (default 200000)
+     * @throws IOException if the temporary files cannot be used
+     */
+    public static void main(String[] args) throws IOException {
+        int rides = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int tail = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int policyCommands = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        Path directory = Files.createTempDirectory("recoveryBenchmark");
+        Path historyFile = directory.resolve("history.txt");
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.walDirectory = directory.toString();
+        options.checkpointInterval = 0;
+        options.expectedRides = rides;
+
+        System.out.printf("%-8s %16s%n", "fsync", "commands/s");
+        for (String fsync : new String[]{"none", "group", "always"}) {
+            options.fsync = fsync;
+            try (rideJournal journal = openEmpty(options)) {
+                int commands = fsync.equals("always") ? policyCommands / 100 : policyCommands;
+                System.out.printf("%-8s %16.0f%n", fsync, record(journal, commands, 0, null, false));
+            }
+        }
+
+        options.fsync = "group";
+        try (rideJournal journal = openEmpty(options);
+             BufferedWriter history = Files.newBufferedWriter(historyFile)) {
+            record(journal, rides, tail, history, true);
+        }
+        int expected = gatorTaxi.rides.size();
+
+        gatorTaxi.initialize(options);
+        long start = System.nanoTime();
+        try (InputStream input = Files.newInputStream(historyFile)) {
+            gatorTaxi.run(new commandParser(input, 1 << 16), new outputSink(256));
+        }
+        double textSeconds = (System.nanoTime() - start) / 1e9;
+
+        gatorTaxi.initialize(options);
+        start = System.nanoTime();
+        int replayed;
+        try (rideJournal journal = new rideJournal(options)) {
+            replayed = journal.recover();
+        }
+        double recoverySeconds = (System.nanoTime() - start) / 1e9;
+        if (gatorTaxi.rides.size() != expected) {
+            throw new IllegalStateException("Recovered " + gatorTaxi.rides.size() + " rides, expected " + expected);
+        }
+
+        System.out.printf("text replay of %d commands                %8.3f s%n", rides + tail, textSeconds);
+        System.out.printf("checkpoint of %d rides + %d logged commands %8.3f s%n", rides, replayed, recoverySeconds);
+
+        for (String name : new String[]{"rides.wal", "rides.checkpoint", "history.txt"}) {
+            Files.deleteIfExists(directory.resolve(name));
+        }
+        Files.delete(directory);
+    }
+}
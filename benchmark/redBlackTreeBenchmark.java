@@ -0,0 +1,161 @@
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Benchmark of the int-keyed red-black tree against a boxed, Comparable-based tree (java.util.TreeMap)
+ */
+public class redBlackTreeBenchmark {
+
+    /**
+     * Number of warmup rounds before measuring
+     */
+    private static final int warmupRounds = 5;
+
+    /**
+     * Number of measured rounds
+     */
+    private static final int measuredRounds = 5;
+
+    /**
+     * Result sink so the JIT cannot drop the measured work
+     */
+    static long blackhole;
+
+    /**
+     * Method to run insert, find, range and delete over the int-keyed red-black tree
+     *
+     * @param keys ride numbers to use
+     * @return elapsed nanoseconds per phase (insert, find, range, delete)
+     */
+    static long[] runIntTree(int[] keys) {
+        long[] elapsed = new long[4];
+        rideTable rides = new rideTable(keys.length);
+        redBlackTree tree = new redBlackTree(rides);
+        int[] page = new int[256];
+
+        long start = System.nanoTime();
+        for (int key : keys) {
+            tree.insert(rides.allocate(key, key & 127, key));
+        }
+        elapsed[0] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int key : keys) {
+            blackhole += tree.find(key);
+        }
+        elapsed[1] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int index = 0; index < keys.length; index += 64) {
+            redBlackTreeCursor cursor = tree.range(keys[index], keys[index] + 1000);
+            for (int size = cursor.nextPage(page); size > 0; size = cursor.nextPage(page)) {
+                blackhole += page[size - 1];
+            }
+        }
+        elapsed[2] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int key : keys) {
+            blackhole += tree.delete(key);
+        }
+        elapsed[3] = System.nanoTime() - start;
+        return elapsed;
+    }
+
+    /**
+     * Method to run insert, find, range and delete over a boxed TreeMap
+     *
+     * @param keys ride numbers to use
+     * @return elapsed nanoseconds per phase (insert, find, range, delete)
+     */
+    static long[] runBoxedTree(int[] keys) {
+        long[] elapsed = new long[4];
+        TreeMap<Integer, int[]> tree = new TreeMap<>();
+
+        long start = System.nanoTime();
+        for (int key : keys) {
+            tree.putIfAbsent(key, new int[]{key, key & 127, key});
+        }
+        elapsed[0] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int key : keys) {
+            blackhole += tree.get(key)[0];
+        }
+        elapsed[1] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int index = 0; index < keys.length; index += 64) {
+            for (Map.Entry<Integer, int[]> entry : tree.subMap(keys[index], true, keys[index] + 1000, true).entrySet()) {
+                blackhole += entry.getValue()[0];
+            }
+        }
+        elapsed[2] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int key : keys) {
+            blackhole += tree.remove(key)[0];
+        }
+        elapsed[3] = System.nanoTime() - start;
+        return elapsed;
+    }
+
+    /**
+     * Method to print average nanoseconds per operation of each phase
+     *
+     * @param name    name of the implementation
+     * @param elapsed summed elapsed nanoseconds per phase
+     * @param count   number of operations per phase
+     */
+    private static void report(String name, long[] elapsed, int count) {
+        String[] phases = {"insert", "find", "range", "delete"};
+        for (int phase = 0; phase < phases.length; phase++) {
+            int operations = phase == 2 ? (count + 63) / 64 : count;
+            System.out.printf("%-8s %-7s %10.1f ns/op%n", name, phases[phase], (double) elapsed[phase] / measuredRounds / operations);
+        }
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args number of rides (default 1000000)
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Random random = new Random(42);
+        int[] keys = new int[count];
+        for (int index = 0; index < count; index++) {
+            keys[index] = index * 2;
+        }
+        for (int index = count - 1; index > 0; index--) {
+            int swapIndex = random.nextInt(index + 1);
+            int temp = keys[index];
+            keys[index] = keys[swapIndex];
+            keys[swapIndex] = temp;
+        }
+
+        for (int round = 0; round < warmupRounds; round++) {
+            runIntTree(keys);
+            runBoxedTree(keys);
+        }
+
+        long[] intElapsed = new long[4];
+        long[] boxedElapsed = new long[4];
+        for (int round = 0; round < measuredRounds; round++) {
+            long[] elapsed = runIntTree(keys);
+            for (int phase = 0; phase < 4; phase++) {
+                intElapsed[phase] += elapsed[phase];
+            }
+            elapsed = runBoxedTree(keys);
+            for (int phase = 0; phase < 4; phase++) {
+                boxedElapsed[phase] += elapsed[phase];
+            }
+        }
+
+        report("int", intElapsed, count);
+        report("boxed", boxedElapsed, count);
+        System.out.println("checksum " + blackhole);
+    }
+}
@@ -0,0 +1,367 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Replay of a command file through Gator Taxi - reports throughput and latency percentiles per command type,
+ * then replays the file through a reference built on TreeMap and PriorityQueue and diffs the two outputs
+ */
+public class replayBenchmark {
+
+    /**
+     * Names of the measured command types
+     */
+    private static final String[] commandTypes = {"Insert", "Print(n)", "Print(a,b)", "GetNextRide", "CancelRide", "UpdateTrip"};
+
+    /**
+     * Method to get the measured command type of a parsed command
+     *
+     * @param parser parser positioned on the command
+     * @return index into commandTypes, or -1 for commands Gator Taxi rejects
+     */
+    private static int commandTypeOf(commandParser parser) {
+        switch (parser.operation) {
+            case opcode.Insert:
+                return parser.argumentCount == 3 ? 0 : -1;
+            case opcode.Print:
+                return parser.argumentCount == 1 ? 1 : parser.argumentCount == 2 ? 2 : -1;
+            case opcode.GetNextRide:
+                return parser.argumentCount == 0 ? 3 : -1;
+            case opcode.CancelRide:
+                return parser.argumentCount == 1 ? 4 : -1;
+            case opcode.UpdateTrip:
+                return parser.argumentCount == 2 ? 5 : -1;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Method to replay a command file through Gator Taxi, timing every command
+     *
+     * @param input      command file
+     * @param output     file to write the results to
+     * @param histograms latency histogram per command type
+     * @return number of replayed commands
+     * @throws IOException if reading or writing fails
+     */
+    static long replay(Path input, Path output, latencyHistogram[] histograms) throws IOException {
+        gatorTaxi.initialize(new gatorTaxiOptions());
+        long commands = 0;
+
+        try (FileInputStream stream = new FileInputStream(input.toFile());
+             FileChannel outputChannel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             outputSink sink = new outputSink(outputChannel, 1 << 16, true)) {
+
+            commandParser parser = new commandParser(stream, 1 << 16);
+            boolean duplicate = false;
+
+            while (!duplicate && parser.next()) {
+                int commandType = commandTypeOf(parser);
+                if (commandType < 0) {
+                    continue;
+                }
+                int[] methodArgs = parser.arguments;
+                long start = System.nanoTime();
+
+                switch (commandType) {
+                    case 0:
+                        String result = gatorTaxi.insert(methodArgs[0], methodArgs[1], methodArgs[2]);
+                        if (!result.isEmpty()) {
+                            sink.beginLine();
+                            sink.writeAscii(result);
+                            duplicate = true;
+                        }
+                        break;
+                    case 1:
+                        sink.beginLine();
+                        gatorTaxi.printRidesInRange(methodArgs[0], sink);
+                        break;
+                    case 2:
+                        sink.beginLine();
+                        gatorTaxi.printRidesInRange(methodArgs[0], methodArgs[1], sink);
+                        break;
+                    case 3:
+                        sink.beginLine();
+                        gatorTaxi.printNextRide(sink);
+                        break;
+                    case 4:
+                        gatorTaxi.cancelRide(methodArgs[0]);
+                        break;
+                    default:
+                        gatorTaxi.updateTrip(methodArgs[0], methodArgs[1]);
+                        break;
+                }
+
+                histograms[commandType].record(System.nanoTime() - start);
+                commands++;
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Reference implementation of Gator Taxi on java.util collections. Cancelled and updated rides stay in
+     * the priority queue and are skipped when they surface, since an entry is live only while the map holds it.
+     */
+    static class referenceTaxi {
+
+        /**
+         * Active rides by ride number, each as {rideNumber, rideCost, tripDuration}
+         */
+        private final TreeMap<Integer, int[]> rides = new TreeMap<>();
+
+        /**
+         * Rides ordered by cost, then trip duration, then ride number
+         */
+        private final PriorityQueue<int[]> queue = new PriorityQueue<>(Comparator.<int[]>comparingInt(ride -> ride[1]).thenComparingInt(ride -> ride[2]).thenComparingInt(ride -> ride[0]));
+
+        /**
+         * Method to insert a ride
+         *
+         * @param rideNumber   ride number
+         * @param rideCost     cost of ride
+         * @param tripDuration trip duration of ride
+         * @return false if the ride number is already active
+         */
+        boolean insert(int rideNumber, int rideCost, int tripDuration) {
+            if (rides.containsKey(rideNumber)) {
+                return false;
+            }
+            int[] ride = {rideNumber, rideCost, tripDuration};
+            rides.put(rideNumber, ride);
+            queue.add(ride);
+            return true;
+        }
+
+        /**
+         * Method to write a ride, or (0,0,0) if it is not active
+         *
+         * @param rideNumber ride number
+         * @param writer     output to write to
+         * @throws IOException if writing fails
+         */
+        void print(int rideNumber, BufferedWriter writer) throws IOException {
+            write(rides.getOrDefault(rideNumber, new int[3]), writer);
+        }
+
+        /**
+         * Method to write the active rides between two ride numbers, or (0,0,0) if there are none
+         *
+         * @param rideNumber1 start limit of range
+         * @param rideNumber2 end limit of range
+         * @param writer      output to write to
+         * @throws IOException if writing fails
+         */
+        void print(int rideNumber1, int rideNumber2, BufferedWriter writer) throws IOException {
+            if (rideNumber1 > rideNumber2 || rides.subMap(rideNumber1, true, rideNumber2, true).isEmpty()) {
+                writer.write("(0,0,0)");
+                return;
+            }
+            boolean isFirst = true;
+            for (Map.Entry<Integer, int[]> entry : rides.subMap(rideNumber1, true, rideNumber2, true).entrySet()) {
+                if (!isFirst) {
+                    writer.write(',');
+                }
+                write(entry.getValue(), writer);
+                isFirst = false;
+            }
+        }
+
+        /**
+         * Method to remove the lowest cost ride and write it
+         *
+         * @param writer output to write to
+         * @throws IOException if writing fails
+         */
+        void nextRide(BufferedWriter writer) throws IOException {
+            int[] ride;
+            while ((ride = queue.poll()) != null && rides.get(ride[0]) != ride) {
+                // stale entry of a cancelled or updated ride
+            }
+            if (ride == null) {
+                writer.write("No active ride requests");
+                return;
+            }
+            rides.remove(ride[0]);
+            write(ride, writer);
+        }
+
+        /**
+         * Method to cancel a ride
+         *
+         * @param rideNumber ride number
+         */
+        void cancel(int rideNumber) {
+            rides.remove(rideNumber);
+        }
+
+        /**
+         * Method to update the trip duration of a ride
+         *
+         * @param rideNumber       ride number
+         * @param new_tripDuration new trip duration
+         */
+        void updateTrip(int rideNumber, int new_tripDuration) {
+            int[] ride = rides.get(rideNumber);
+            if (ride == null) {
+                return;
+            }
+            rides.remove(rideNumber);
+            if (new_tripDuration <= ride[2]) {
+                insert(rideNumber, ride[1], new_tripDuration);
+            } else if (new_tripDuration <= 2 * ride[2]) {
+                insert(rideNumber, ride[1] + 10, new_tripDuration);
+            }
+        }
+
+        /**
+         * Method to write a ride as "(rideNumber,rideCost,tripDuration)"
+         *
+         * @param ride   ride to write
+         * @param writer output to write to
+         * @throws IOException if writing fails
+         */
+        private static void write(int[] ride, BufferedWriter writer) throws IOException {
+            writer.write("(" + ride[0] + "," + ride[1] + "," + ride[2] + ")");
+        }
+    }
+
+    /**
+     * Method to replay a command file through the reference implementation
+     *
+     * @param input  command file
+     * @param output file to write the results to
+     * @throws IOException if reading or writing fails
+     */
+    static void replayReference(Path input, Path output) throws IOException {
+        referenceTaxi reference = new referenceTaxi();
+
+        try (FileInputStream stream = new FileInputStream(input.toFile());
+             BufferedWriter writer = new BufferedWriter(new FileWriter(output.toFile()), 1 << 16)) {
+
+            commandParser parser = new commandParser(stream, 1 << 16);
+            boolean isFirst = true;
+
+            while (parser.next()) {
+                int commandType = commandTypeOf(parser);
+                int[] methodArgs = parser.arguments;
+                if (commandType < 0 || commandType == 4 || commandType == 5) {
+                    if (commandType == 4) {
+                        reference.cancel(methodArgs[0]);
+                    } else if (commandType == 5) {
+                        reference.updateTrip(methodArgs[0], methodArgs[1]);
+                    }
+                    continue;
+                }
+                if (commandType == 0 && reference.insert(methodArgs[0], methodArgs[1], methodArgs[2])) {
+                    continue;
+                }
+
+                if (!isFirst) {
+                    writer.newLine();
+                }
+                isFirst = false;
+
+                if (commandType == 0) {
+                    writer.write("Duplicate RideNumber");
+                    break;
+                } else if (commandType == 1) {
+                    reference.print(methodArgs[0], writer);
+                } else if (commandType == 2) {
+                    reference.print(methodArgs[0], methodArgs[1], writer);
+                } else {
+                    reference.nextRide(writer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to compare two output files line by line
+     *
+     * @param actual   output of Gator Taxi
+     * @param expected output of the reference implementation
+     * @return description of the first difference, or null if the files match
+     * @throws IOException if reading fails
+     */
+    static String firstDifference(Path actual, Path expected) throws IOException {
+        try (BufferedReader actualReader = new BufferedReader(new FileReader(actual.toFile()));
+             BufferedReader expectedReader = new BufferedReader(new FileReader(expected.toFile()))) {
+
+            for (long line = 1; ; line++) {
+                String actualLine = actualReader.readLine();
+                String expectedLine = expectedReader.readLine();
+                if (actualLine == null && expectedLine == null) {
+                    return null;
+                }
+                if (actualLine == null || !actualLine.equals(expectedLine)) {
+                    return "output line " + line + " differs\n  gatorTaxi: " + actualLine + "\n  reference: " + expectedLine;
+                }
+            }
+        }
+    }
+
+    /**
+     * Start of the replay
+     *
+     * @param args command file, and "--no-oracle" to skip the reference run
+     * @throws IOException if reading or writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java replayBenchmark <input_file> [--no-oracle]");
+            return;
+        }
+        Path input = Paths.get(args[0]);
+        boolean oracle = !(args.length > 1 && args[1].equals("--no-oracle"));
+        Path actual = Files.createTempFile("gatorTaxi", ".out");
+        Path expected = Files.createTempFile("reference", ".out");
+        String difference = null;
+
+        try {
+            latencyHistogram[] histograms = new latencyHistogram[commandTypes.length];
+            for (int index = 0; index < histograms.length; index++) {
+                histograms[index] = new latencyHistogram();
+            }
+
+            long start = System.nanoTime();
+            long commands = replay(input, actual, histograms);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%d commands in %.3f s (%.0f commands/s, %.1f MB/s)%n", commands, seconds, commands / seconds, Files.size(input) / 1e6 / seconds);
+            System.out.printf("%-12s %12s %10s %10s %10s %10s%n", "command", "count", "p50 ns", "p99 ns", "p99.9 ns", "max ns");
+            for (int index = 0; index < histograms.length; index++) {
+                latencyHistogram histogram = histograms[index];
+                if (histogram.count() > 0) {
+                    System.out.printf("%-12s %12d %10d %10d %10d %10d%n", commandTypes[index], histogram.count(),
+                            histogram.percentile(50), histogram.percentile(99), histogram.percentile(99.9), histogram.maximum());
+                }
+            }
+
+            if (oracle) {
+                replayReference(input, expected);
+                difference = firstDifference(actual, expected);
+                System.out.println(difference == null ? "output matches the reference" : difference);
+            }
+        } finally {
+            Files.delete(actual);
+            Files.delete(expected);
+        }
+        if (difference != null) {
+            System.exit(1);
+        }
+    }
+}
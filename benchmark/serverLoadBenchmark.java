@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Load generator for gatorTaxiServer - keeps a fixed number of pipelined commands in flight on each of 1 to
+ * 1000 connections and reports reply throughput and latency percentiles per connection count. Without an
+ * address it starts a server in the same process.
+ */
+public class serverLoadBenchmark {
+
+    /**
+     * Connection counts measured
+     */
+    private static final int[] connectionCounts = {1, 10, 100, 1000};
+
+    /**
+     * Nanoseconds at the start of each round before replies are counted
+     */
+    private static final long warmUpNanos = 500_000_000L;
+
+    /**
+     * Ride number of the next Insert, unique across every connection and round
+     */
+    private static int nextRideNumber = 1;
+
+    /**
+     * Client side of one connection
+     */
+    static final class connection {
+
+        /**
+         * Socket of the connection
+         */
+        final SocketChannel channel;
+
+        /**
+         * Commands not yet sent
+         */
+        final ByteBuffer sending = ByteBuffer.allocate(16 << 10).order(ByteOrder.LITTLE_ENDIAN);
+
+        /**
+         * Replies received and not yet matched to a command
+         */
+        final ByteBuffer receiving = ByteBuffer.allocate(64 << 10);
+
+        /**
+         * Send time of each command in flight, oldest at head
+         */
+        final long[] sentAt;
+
+        /**
+         * Index in sentAt of the oldest command in flight
+         */
+        int head;
+
+        /**
+         * Number of commands in flight
+         */
+        int inFlight;
+
+        /**
+         * Connection constructor
+         *
+         * @param channel  socket of the connection
+         * @param pipeline number of commands kept in flight
+         */
+        connection(SocketChannel channel, int pipeline) {
+            this.channel = channel;
+            this.sentAt = new long[pipeline];
+        }
+    }
+
+    /**
+     * Method to append an int in decimal
+     *
+     * @param buffer buffer to append to
+     * @param value  non-negative int
+     */
+    private static void putDecimal(ByteBuffer buffer, int value) {
+        int digits = 1;
+        for (int power = 10; digits < 10 && value >= power; power *= 10) {
+            digits++;
+        }
+        int end = buffer.position() + digits;
+        for (int index = end - 1; index >= end - digits; index--) {
+            buffer.put(index, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    /**
+     * Method to append a text command
+     *
+     * @param buffer    buffer to append to
+     * @param operation operation code
+     * @param arguments arguments of the command
+     * @param count     number of arguments
+     */
+    private static void putText(ByteBuffer buffer, int operation, int[] arguments, int count) {
+        for (int index = 0; index < opcode.names[operation].length(); index++) {
+            buffer.put((byte) opcode.names[operation].charAt(index));
+        }
+        buffer.put((byte) '(');
+        for (int index = 0; index < count; index++) {
+            if (index > 0) {
+                buffer.put((byte) ',');
+            }
+            putDecimal(buffer, arguments[index]);
+        }
+        buffer.put((byte) ')').put((byte) '\n');
+    }
+
+    /**
+     * Method to queue commands on a connection until the pipeline is full - 40% Insert, 20% GetNextRide,
+     * 20% Print, 10% CancelRide and 10% UpdateTrip
+     *
+     * @param client connection to fill
+     * @param binary whether to send the binary format
+     * @param random source of the command mix
+     */
+    private static void fill(connection client, boolean binary, SplittableRandom random) {
+        int[] arguments = new int[commandParser.maximumArguments];
+        while (client.inFlight < client.sentAt.length && client.sending.remaining() >= 64) {
+            int draw = random.nextInt(10);
+            int recent = Math.max(1, nextRideNumber - random.nextInt(1, 10_000));
+            int operation;
+            int count;
+            if (draw < 4) {
+                operation = opcode.Insert;
+                arguments[0] = nextRideNumber++;
+                arguments[1] = random.nextInt(1, 101);
+                arguments[2] = random.nextInt(1, 1001);
+                count = 3;
+            } else if (draw < 6) {
+                operation = opcode.GetNextRide;
+                count = 0;
+            } else if (draw < 8) {
+                operation = opcode.Print;
+                arguments[0] = recent;
+                count = 1;
+            } else if (draw < 9) {
+                operation = opcode.CancelRide;
+                arguments[0] = recent;
+                count = 1;
+            } else {
+                operation = opcode.UpdateTrip;
+                arguments[0] = recent;
+                arguments[1] = random.nextInt(1, 2001);
+                count = 2;
+            }
+
+            if (binary) {
+                binaryCommandParser.writeCommand(client.sending, operation, arguments, count);
+            } else {
+                putText(client.sending, operation, arguments, count);
+            }
+            client.sentAt[(client.head + client.inFlight) % client.sentAt.length] = System.nanoTime();
+            client.inFlight++;
+        }
+    }
+
+    /**
+     * Method to send queued commands, watching for writability while some are left
+     *
+     * @param key    selection key of the connection
+     * @param client connection to send on
+     * @throws IOException if writing fails
+     */
+    private static void send(SelectionKey key, connection client) throws IOException {
+        client.sending.flip();
+        client.channel.write(client.sending);
+        client.sending.compact();
+        key.interestOps(client.sending.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    /**
+     * Method to run one round of load over a number of connections, after opening them all
+     *
+     * @param address  server address
+     * @param count    number of connections
+     * @param seconds  measured seconds, after the warm-up
+     * @param pipeline commands kept in flight per connection
+     * @param binary   whether to send the binary format
+     * @return row of results - connections, connect time, replies/s and latency percentiles
+     * @throws IOException if a connection fails
+     */
+    static String round(InetSocketAddress address, int count, double seconds, int pipeline, boolean binary) throws IOException {
+        SplittableRandom random = new SplittableRandom(count);
+        latencyHistogram histogram = new latencyHistogram();
+        long replies = 0;
+        long connectNanos;
+
+        try (Selector selector = Selector.open()) {
+            long connectStart = System.nanoTime();
+            for (int index = 0; index < count; index++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.configureBlocking(false);
+                connection client = new connection(channel, pipeline);
+                if (binary) {
+                    binaryCommandParser.writeHeader(client.sending);
+                }
+                fill(client, binary, random);
+                send(channel.register(selector, SelectionKey.OP_READ, client), client);
+            }
+
+            long start = System.nanoTime();
+            connectNanos = start - connectStart;
+            long measureStart = start + warmUpNanos;
+            long end = measureStart + (long) (seconds * 1e9);
+            long now = start;
+            while (now < end) {
+                selector.select(10);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    connection client = (connection) key.attachment();
+                    if (key.isReadable()) {
+                        if (client.channel.read(client.receiving) < 0) {
+                            throw new IOException("Server closed the connection");
+                        }
+                        now = System.nanoTime();
+                        client.receiving.flip();
+                        while (client.receiving.hasRemaining()) {
+                            if (client.receiving.get() != '\n') {
+                                continue;
+                            }
+                            if (now >= measureStart) {
+                                histogram.record(now - client.sentAt[client.head]);
+                                replies++;
+                            }
+                            client.head = (client.head + 1) % pipeline;
+                            client.inFlight--;
+                        }
+                        client.receiving.clear();
+                        fill(client, binary, random);
+                    }
+                    send(key, client);
+                }
+                now = System.nanoTime();
+            }
+
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+        }
+
+        return String.format("%11d %10.1f %12.0f %10.1f %10.1f %10.1f %10.1f", count, connectNanos / 1e6, replies / seconds,
+                histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3,
+                histogram.percentile(99.9) / 1e3, histogram.maximum() / 1e3);
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args seconds per connection count (default 3), commands in flight per connection (default 16),
+     *             text or binary (default text) and an optional host:port of a running server
+     * @throws IOException if the server cannot be started or reached
+     */
+    public static void main(String[] args) throws IOException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 3;
+        int pipeline = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        boolean binary = args.length > 2 && args[2].equals("binary");
+
+        gatorTaxiServer server = null;
+        InetSocketAddress address;
+        if (args.length > 3) {
+            int separator = args[3].lastIndexOf(':');
+            address = new InetSocketAddress(args[3].substring(0, separator), Integer.parseInt(args[3].substring(separator + 1)));
+        } else {
+            gatorTaxiOptions options = new gatorTaxiOptions();
+            options.port = 0;
+            server = new gatorTaxiServer(options);
+            address = new InetSocketAddress(options.bindAddress, server.port());
+        }
+
+        try {
+            System.out.printf("%s commands, %d in flight per connection%n", binary ? "binary" : "text", pipeline);
+            System.out.printf("%11s %10s %12s %10s %10s %10s %10s%n", "connections", "connect ms", "replies/s", "p50 us", "p99 us", "p99.9 us", "max us");
+            for (int count : connectionCounts) {
+                System.out.println(round(address, count, seconds, pipeline, binary));
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+}
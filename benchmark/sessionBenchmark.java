@@ -0,0 +1,104 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Benchmark of the thread-per-session server models at many concurrent sessions - a virtual thread per
+ * session against a pool of as many platform threads, with the nio event loops for reference. Each server
+ * runs in its own process, started with the same Java, so client and server sockets are not counted
+ * against one open file limit. Run with Java 21 to get virtual threads.
+ */
+public class sessionBenchmark {
+
+    /**
+     * Server models measured
+     */
+    private static final String[] models = {"virtual", "platform", "nio"};
+
+    /**
+     * Method to start a server process
+     *
+     * @param model    server model
+     * @param sessions number of platform session threads
+     * @return server process
+     * @throws IOException if the process cannot be started
+     */
+    static Process startServer(String model, int sessions) throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "gatorTaxiServer",
+                "--port=0", "--server-model=" + model, "--session-threads=" + sessions, "--core-queue-size=" + sessions)
+                .redirectErrorStream(true).start();
+    }
+
+    /**
+     * Method to read the port a server process listens on from its start-up line
+     *
+     * @param process server process
+     * @return port
+     * @throws IOException if the process ends without listening
+     */
+    static int portOf(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("Listening on ")) {
+                return Integer.parseInt(line.substring(line.lastIndexOf(':') + 1, line.indexOf(' ', line.lastIndexOf(':'))));
+            }
+        }
+        throw new IOException("Server did not start");
+    }
+
+    /**
+     * Method to read a field of the status of a process, on Linux
+     *
+     * @param process process to look at
+     * @param field   name of the field, such as "Threads" or "VmHWM"
+     * @return value of the field, or "-" if it cannot be read
+     */
+    static String status(Process process, String field) {
+        Path file = Paths.get("/proc", Long.toString(process.pid()), "status");
+        try {
+            for (String line : Files.readAllLines(file)) {
+                if (line.startsWith(field + ":")) {
+                    return line.substring(field.length() + 1).trim();
+                }
+            }
+        } catch (IOException e) {
+            // not on Linux
+        }
+        return "-";
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args concurrent sessions (default 10000), measured seconds per model (default 5) and commands in
+     *             flight per session (default 4)
+     * @throws IOException          if a server cannot be started or reached
+     * @throws InterruptedException if interrupted while stopping a server
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        int pipeline = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        System.out.printf("%d sessions, %d commands in flight each, Java %s%n", sessions, pipeline, Runtime.version());
+        System.out.printf("%-9s %11s %10s %12s %10s %10s %10s %10s %8s %12s%n", "model", "connections", "connect ms",
+                "replies/s", "p50 us", "p99 us", "p99.9 us", "max us", "threads", "peak RSS");
+        for (String model : models) {
+            Process server = startServer(model, sessions);
+            try {
+                InetSocketAddress address = new InetSocketAddress("127.0.0.1", portOf(server));
+                String row = serverLoadBenchmark.round(address, sessions, seconds, pipeline, false);
+                System.out.printf("%-9s %s %8s %12s%n", model, row, status(server, "Threads"), status(server, "VmHWM"));
+            } finally {
+                server.destroy();
+                server.waitFor();
+            }
+        }
+    }
+}
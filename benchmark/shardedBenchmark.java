@@ -0,0 +1,80 @@
+/**
+ * Benchmark of Insert and CancelRide throughput of shardedGatorTaxi for shard counts doubling up to the
+ * number of cores, against the single-threaded gatorTaxi
+ */
+public class shardedBenchmark {
+
+    /**
+     * Method to get the ride number of the n-th insert, scattered over the positive ints
+     *
+     * @param insert insert counter
+     * @return unique positive ride number
+     */
+    private static int rideNumberOf(int insert) {
+        return (int) (((insert + 1L) * 0x5DEECE66DL) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to insert rides and cancel them again, keeping activeRides of them active
+     *
+     * @param taxi        sharded engine, or null for gatorTaxi
+     * @param commands    number of inserts
+     * @param activeRides number of rides active once the run is warm
+     * @return commands per second
+     */
+    static double measure(shardedGatorTaxi taxi, int commands, int activeRides) {
+        long start = System.nanoTime();
+        for (int insert = 0; insert < commands; insert++) {
+            int rideNumber = rideNumberOf(insert);
+            int cancelled = insert - activeRides;
+            if (taxi == null) {
+                gatorTaxi.insert(rideNumber, insert % 100, insert % 1000 + 1);
+                if (cancelled >= 0) {
+                    gatorTaxi.cancelRide(rideNumberOf(cancelled));
+                }
+            } else {
+                taxi.insert(rideNumber, insert % 100, insert % 1000 + 1);
+                if (cancelled >= 0) {
+                    taxi.cancelRide(rideNumberOf(cancelled));
+                }
+            }
+        }
+        if (taxi != null && taxi.duplicateInsert()) {
+            throw new IllegalStateException("Duplicate RideNumber");
+        }
+        return (commands * 2.0 - activeRides) / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args largest shard count (default number of cores), inserts per run (default 5000000) and
+     *             number of active rides (default 1000000)
+     */
+    public static void main(String[] args) {
+        int maximumShards = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int commands = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        int activeRides = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.expectedRides = activeRides;
+        gatorTaxi.initialize(options);
+        measure(null, commands, activeRides);
+        gatorTaxi.initialize(options);
+        System.out.printf("%-8s %16s%n", "shards", "commands/s");
+        System.out.printf("%-8s %16.0f%n", "none", measure(null, commands, activeRides));
+
+        for (int shards = 1; ; shards = Math.min(shards * 2, maximumShards)) {
+            options.shards = shards;
+            try (shardedGatorTaxi taxi = new shardedGatorTaxi(options)) {
+                measure(taxi, commands / 4, activeRides / 4);
+            }
+            try (shardedGatorTaxi taxi = new shardedGatorTaxi(options)) {
+                System.out.printf("%-8d %16.0f%n", shards, measure(taxi, commands, activeRides));
+            }
+            if (shards == maximumShards) {
+                break;
+            }
+        }
+    }
+}
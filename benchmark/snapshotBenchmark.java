@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of start-up from a memory-mapped rideSnapshot against rebuilding the tree and heap with bulkLoad,
+ * measured to the first answered Print and GetNextRide and over a run of commands afterwards
+ */
+public class snapshotBenchmark {
+
+    /**
+     * Result sink so the JIT cannot drop the measured work
+     */
+    static long blackhole;
+
+    /**
+     * Method to run a mix of Print, GetNextRide, CancelRide and UpdateTrip against gatorTaxi
+     *
+     * @param commands number of commands
+     * @param rides    number of rides the ride numbers are drawn from
+     */
+    static void serve(int commands, int rides) {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int command = 0; command < commands; command++) {
+            int rideNumber = rideNumberOf(random.nextInt(rides));
+            switch (command % 4) {
+                case 0:
+                    blackhole += gatorTaxi.getRidesInRange(rideNumber).length();
+                    break;
+                case 1:
+                    blackhole += gatorTaxi.getNextRide().length();
+                    break;
+                case 2:
+                    gatorTaxi.cancelRide(rideNumber);
+                    break;
+                default:
+                    gatorTaxi.updateTrip(rideNumber, random.nextInt(1, 1_000_001));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Method to get the ride number of the n-th insert, scattered over the positive ints
+     *
+     * @param insert insert counter
+     * @return unique positive ride number
+     */
+    private static int rideNumberOf(int insert) {
+        return (int) (((insert + 1L) * 0x5DEECE66DL) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args rides in the snapshot (default 10000000) and commands served after start-up (default 1000000)
+     * @throws IOException if the snapshot cannot be written or mapped
+     */
+    public static void main(String[] args) throws IOException {
+        int rides = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int commands = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        SplittableRandom random = new SplittableRandom(42);
+        rideColumns columns = new rideColumns(rides);
+        int[] rideNumbers = new int[rides];
+        for (int ride = 0; ride < rides; ride++) {
+            rideNumbers[ride] = rideNumberOf(ride);
+        }
+        Arrays.sort(rideNumbers);
+        for (int ride = 0; ride < rides; ride++) {
+            columns.add(rideNumbers[ride], random.nextInt(1, 101), random.nextInt(1, 1_000_001));
+        }
+        Path file = Files.createTempFile("snapshotBenchmark", ".snapshot");
+        rideSnapshot.write(file, columns);
+
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        System.out.printf("%-10s %14s %14s%n", "start-up", "first answer", "then commands");
+        for (int round = 0; round < 3; round++) {
+            gatorTaxi.initialize(options);
+            long start = System.nanoTime();
+            gatorTaxi.snapshot = rideSnapshot.open(file);
+            blackhole += gatorTaxi.getRidesInRange(rideNumbers[rides / 2]).length() + gatorTaxi.getNextRide().length();
+            double firstAnswer = (System.nanoTime() - start) / 1e6;
+            serve(commands, rides);
+            System.out.printf("%-10s %11.1f ms %11.1f ms%n", "mmap", firstAnswer, (System.nanoTime() - start) / 1e6);
+
+            gatorTaxi.initialize(options);
+            start = System.nanoTime();
+            gatorTaxi.bulkLoad(columns.rideNumber, columns.rideCost, columns.tripDuration, columns.count);
+            blackhole += gatorTaxi.getRidesInRange(rideNumbers[rides / 2]).length() + gatorTaxi.getNextRide().length();
+            firstAnswer = (System.nanoTime() - start) / 1e6;
+            serve(commands, rides);
+            System.out.printf("%-10s %11.1f ms %11.1f ms%n", "bulkLoad", firstAnswer, (System.nanoTime() - start) / 1e6);
+        }
+        System.out.println("checksum " + blackhole);
+        Files.delete(file);
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of GetNextRides(k) against k GetNextRide() commands - each round loads n rides and runs commands
+ * taking half of them in batches of k, one way or the other, and checks both wrote the same output
+ */
+public class topKDispatchBenchmark {
+
+    /**
+     * Batch sizes measured, with a sixteenth and a quarter of the rides loaded added per ride count
+     */
+    private static final int[] batchSizes = {1, 64, 1024};
+
+    /**
+     * Rounds per measurement, the fastest is reported
+     */
+    private static final int rounds = 5;
+
+    /**
+     * Method to load rides with random costs and trip durations into a fresh gatorTaxi
+     *
+     * @param rides number of rides
+     */
+    private static void load(int rides) {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.expectedRides = rides;
+        gatorTaxi.initialize(options);
+        SplittableRandom random = new SplittableRandom(rides);
+        for (int ride = 1; ride <= rides; ride++) {
+            gatorTaxi.insert(ride, random.nextInt(1, 101), random.nextInt(1, 1_000_001));
+        }
+    }
+
+    /**
+     * Method to build the commands taking rides in batches of k
+     *
+     * @param taken   number of rides to take
+     * @param k       rides per batch
+     * @param batched whether each batch is one GetNextRides(k) or k GetNextRide() commands
+     * @return commands as text
+     */
+    private static byte[] commands(int taken, int k, boolean batched) {
+        StringBuilder commands = new StringBuilder();
+        for (int done = 0; done < taken; done += k) {
+            if (batched) {
+                commands.append("GetNextRides(").append(k).append(")\n");
+            } else {
+                for (int call = 0; call < k; call++) {
+                    commands.append("GetNextRide()\n");
+                }
+            }
+        }
+        return commands.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Method to load rides and run commands taking half of them, timing the commands
+     *
+     * @param rides    number of rides loaded
+     * @param commands commands to run
+     * @param output   output[0] receives everything the commands wrote
+     * @return nanoseconds spent running the commands
+     * @throws IOException if writing fails
+     */
+    private static long take(int rides, byte[] commands, String[] output) throws IOException {
+        outputSink sink = new outputSink(rides * 16);
+        load(rides);
+        long start = System.nanoTime();
+        gatorTaxi.run(new commandParser(new ByteArrayInputStream(commands), 1 << 16), sink);
+        long nanos = System.nanoTime() - start;
+        output[0] = sink.takeString();
+        return nanos;
+    }
+
+    /**
+     * Start of the benchmark
+     *
+     * @param args numbers of rides loaded (default 100000 and 2000000)
+     * @throws IOException if writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        int[] rideCounts = args.length > 0 ? new int[args.length] : new int[]{100_000, 2_000_000};
+        for (int index = 0; index < args.length; index++) {
+            rideCounts[index] = Integer.parseInt(args[index]);
+        }
+
+        String[] sequentialOutput = new String[1];
+        String[] batchedOutput = new String[1];
+        System.out.printf("%10s %7s %16s %16s %8s%n", "rides", "k", "sequential ns", "batched ns", "speed-up");
+        for (int rides : rideCounts) {
+            int[] ks = Arrays.copyOf(batchSizes, batchSizes.length + 2);
+            ks[batchSizes.length] = rides / 16;
+            ks[batchSizes.length + 1] = rides / 4;
+            for (int k : ks) {
+                int taken = rides / 2 / k * k;
+                byte[] sequentialCommands = commands(taken, k, false);
+                byte[] batchedCommands = commands(taken, k, true);
+                long sequential = Long.MAX_VALUE;
+                long batched = Long.MAX_VALUE;
+                for (int round = 0; round < rounds; round++) {
+                    sequential = Math.min(sequential, take(rides, sequentialCommands, sequentialOutput));
+                    batched = Math.min(batched, take(rides, batchedCommands, batchedOutput));
+                }
+                if (!sequentialOutput[0].equals(batchedOutput[0])) {
+                    throw new IllegalStateException("GetNextRides(" + k + ") wrote different rides than " + k + " GetNextRide calls");
+                }
+                System.out.printf("%10d %7d %16.1f %16.1f %7.2fx%n", rides, k, (double) sequential / taken,
+                        (double) batched / taken, (double) sequential / batched);
+            }
+        }
+    }
+}
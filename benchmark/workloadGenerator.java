@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generator of synthetic Gator Taxi command files. Commands are streamed to the file as they are drawn,
+ * so sizes from thousands to hundreds of millions of commands run in constant memory.
+ * Inserted ride numbers never repeat, so a generated file never stops on "Duplicate RideNumber".
+ */
+public class workloadGenerator {
+
+    /**
+     * Percentages of Insert, Print(n), Print(a,b), GetNextRide, CancelRide and UpdateTrip commands
+     */
+    int[] ratios = {40, 15, 5, 20, 10, 10};
+
+    /**
+     * Number of commands to generate
+     */
+    long commands = 1_000_000;
+
+    /**
+     * Number of rides to keep active; inserts turn into GetNextRide once it is reached
+     */
+    int activeRides = 100_000;
+
+    /**
+     * Cost distribution - "uniform:low:high" or "exponential:mean"
+     */
+    String costDistribution = "uniform:1:100";
+
+    /**
+     * Skew of ride numbers targeted by Print, CancelRide and UpdateTrip towards recent rides, from 0 (uniform) to below 1
+     */
+    double skew = 0.0;
+
+    /**
+     * Ride number layout - "sequential" (1, 2, 3, ...) or "scattered" over the positive ints
+     */
+    String keys = "sequential";
+
+    /**
+     * Number of ride numbers spanned by Print(a,b)
+     */
+    int rangeWidth = 100;
+
+    /**
+     * Random seed
+     */
+    long seed = 42;
+
+    /**
+     * Whether costs are drawn from an exponential distribution rather than a uniform one
+     */
+    private boolean exponentialCost;
+
+    /**
+     * Mean of the exponential cost distribution
+     */
+    private double costMean;
+
+    /**
+     * Lowest cost of the uniform cost distribution
+     */
+    private int costLow;
+
+    /**
+     * Highest cost of the uniform cost distribution
+     */
+    private int costHigh;
+
+    /**
+     * Source of randomness
+     */
+    private SplittableRandom random;
+
+    /**
+     * Ring of recently inserted ride numbers, targeted by Print, CancelRide and UpdateTrip
+     */
+    private int[] recentRides;
+
+    /**
+     * Number of rides inserted so far
+     */
+    private long inserted;
+
+    /**
+     * Estimated number of active rides
+     */
+    private long active;
+
+    /**
+     * Method to get the ride number of the n-th insert
+     *
+     * @param insert insert counter
+     * @return unique positive ride number
+     */
+    private int rideNumberOf(long insert) {
+        if (keys.equals("sequential")) {
+            return (int) (insert + 1);
+        }
+        // multiplying by an odd constant permutes the 31-bit values, so ride numbers stay unique
+        return (int) (((insert + 1) * 0x5DEECE66DL) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method to draw a ride cost
+     *
+     * @return ride cost
+     */
+    private int nextCost() {
+        if (exponentialCost) {
+            return 1 + (int) Math.min(Integer.MAX_VALUE / 2, -costMean * Math.log(1 - random.nextDouble()));
+        }
+        return random.nextInt(costLow, costHigh + 1);
+    }
+
+    /**
+     * Method to pick an earlier inserted ride number, skewed towards recent ones
+     *
+     * @return ride number
+     */
+    private int targetRide() {
+        long window = Math.min(inserted, recentRides.length);
+        double position = Math.pow(random.nextDouble(), 1.0 / (1.0 - skew));
+        long back = Math.min(window - 1, (long) (position * window));
+        return recentRides[(int) ((inserted - 1 - back) % recentRides.length)];
+    }
+
+    /**
+     * Method to write the commands to a file
+     *
+     * @param fileName file to write
+     * @throws IOException if writing fails
+     */
+    void generate(String fileName) throws IOException {
+        random = new SplittableRandom(seed);
+        recentRides = new int[Math.max(activeRides, 1)];
+        String[] costParts = costDistribution.split(":");
+        exponentialCost = costParts[0].equals("exponential");
+        if (exponentialCost) {
+            costMean = Double.parseDouble(costParts[1]);
+        } else {
+            costLow = Integer.parseInt(costParts[1]);
+            costHigh = Integer.parseInt(costParts[2]);
+        }
+        int[] thresholds = new int[ratios.length];
+        int total = 0;
+        for (int index = 0; index < ratios.length; index++) {
+            total += ratios[index];
+            thresholds[index] = total;
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             outputSink sink = new outputSink(channel, 1 << 20, true)) {
+
+            for (long command = 0; command < commands; command++) {
+                int draw = random.nextInt(total);
+                int operation = 0;
+                while (draw >= thresholds[operation]) {
+                    operation++;
+                }
+                if (inserted == 0 || (operation == 0 && active >= activeRides && active > 0)) {
+                    operation = inserted == 0 ? 0 : 3;
+                }
+
+                switch (operation) {
+                    case 0:
+                        int rideNumber = rideNumberOf(inserted);
+                        recentRides[(int) (inserted % recentRides.length)] = rideNumber;
+                        inserted++;
+                        active++;
+                        sink.writeAscii("Insert(");
+                        sink.writeInt(rideNumber);
+                        sink.writeByte(',');
+                        sink.writeInt(nextCost());
+                        sink.writeByte(',');
+                        sink.writeInt(random.nextInt(1, 1_000_001));
+                        sink.writeAscii(")\n");
+                        break;
+                    case 1:
+                        sink.writeAscii("Print(");
+                        sink.writeInt(targetRide());
+                        sink.writeAscii(")\n");
+                        break;
+                    case 2:
+                        int rideNumber1 = targetRide();
+                        sink.writeAscii("Print(");
+                        sink.writeInt(rideNumber1);
+                        sink.writeByte(',');
+                        sink.writeInt((int) Math.min(Integer.MAX_VALUE, (long) rideNumber1 + rangeWidth - 1));
+                        sink.writeAscii(")\n");
+                        break;
+                    case 3:
+                        active = Math.max(active - 1, 0);
+                        sink.writeAscii("GetNextRide()\n");
+                        break;
+                    case 4:
+                        active = Math.max(active - 1, 0);
+                        sink.writeAscii("CancelRide(");
+                        sink.writeInt(targetRide());
+                        sink.writeAscii(")\n");
+                        break;
+                    default:
+                        sink.writeAscii("UpdateTrip(");
+                        sink.writeInt(targetRide());
+                        sink.writeByte(',');
+                        sink.writeInt(random.nextInt(1, 2_000_001));
+                        sink.writeAscii(")\n");
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Start of the generator
+     *
+     * @param args "--name=value" options and the output file name
+     * @throws IOException if writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        workloadGenerator generator = new workloadGenerator();
+        String fileName = null;
+        String[] operations = {"insert", "print", "range", "next", "cancel", "update"};
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                fileName = arg;
+                continue;
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "commands":
+                    generator.commands = Long.parseLong(value);
+                    break;
+                case "active":
+                    generator.activeRides = Integer.parseInt(value);
+                    break;
+                case "cost":
+                    generator.costDistribution = value;
+                    break;
+                case "skew":
+                    generator.skew = Double.parseDouble(value);
+                    break;
+                case "keys":
+                    generator.keys = value;
+                    break;
+                case "range-width":
+                    generator.rangeWidth = Integer.parseInt(value);
+                    break;
+                case "seed":
+                    generator.seed = Long.parseLong(value);
+                    break;
+                default:
+                    int operation = Arrays.asList(operations).indexOf(name);
+                    if (operation < 0) {
+                        throw new IllegalArgumentException("Unknown option " + name);
+                    }
+                    generator.ratios[operation] = Integer.parseInt(value);
+                    break;
+            }
+        }
+
+        if (fileName == null) {
+            System.out.println("Usage: java workloadGenerator [--commands=n] [--active=n] [--cost=uniform:low:high|exponential:mean]\n"
+                    + "       [--skew=0..1) [--keys=sequential|scattered] [--range-width=n] [--seed=n]\n"
+                    + "       [--insert=%] [--print=%] [--range=%] [--next=%] [--cancel=%] [--update=%] <output_file>");
+            return;
+        }
+        generator.generate(fileName);
+    }
+}
@@ -0,0 +1,41 @@
+import gatortaxi.jmh.gatorTaxiOperations;
+
+/**
+ * End-to-end Gator Taxi workload measured by gatortaxi.jmh.gatorTaxiBenchmark
+ */
+public class gatorTaxiWorkload implements gatorTaxiOperations {
+
+    @Override
+    public void setUp(int[] keys) {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.expectedRides = keys.length + 1;
+        gatorTaxi.initialize(options);
+        for (int key : keys) {
+            gatorTaxi.insert(key, 1 + (key >>> 1) % 1000, 1 + (key >>> 1) % 100_000);
+        }
+    }
+
+    @Override
+    public void insertThenCancelRide(int rideNumber) {
+        gatorTaxi.insert(rideNumber, 500, 500);
+        gatorTaxi.cancelRide(rideNumber);
+    }
+
+    @Override
+    public String insertThenGetNextRide(int rideNumber) {
+        gatorTaxi.insert(rideNumber, 0, 0);
+        return gatorTaxi.getNextRide();
+    }
+
+    @Override
+    public void updateTrip(int rideNumber) {
+        int tripDuration = 1 + (rideNumber >>> 1) % 100_000;
+        gatorTaxi.updateTrip(rideNumber, tripDuration + 1);
+        gatorTaxi.updateTrip(rideNumber, tripDuration);
+    }
+
+    @Override
+    public String getRidesInRange(int rideNumber1, int rideNumber2) {
+        return gatorTaxi.getRidesInRange(rideNumber1, rideNumber2);
+    }
+}
@@ -0,0 +1,105 @@
+package gatortaxi.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark of gatorTaxi insert, getNextRide, cancelRide, updateTrip and range printing.
+ * gatorTaxi keeps its state in static fields, so this benchmark must run single threaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class gatorTaxiBenchmark {
+
+    /**
+     * Number of active rides
+     */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    /**
+     * Distribution of ride numbers
+     */
+    @Param({"sequential", "random", "clustered"})
+    public String distribution;
+
+    /**
+     * Number of ride numbers each range query spans
+     */
+    @Param({"10", "1000"})
+    public int rangeWidth;
+
+    /**
+     * Gator Taxi under measurement
+     */
+    private gatorTaxiOperations gatorTaxi;
+
+    /**
+     * Present ride numbers in lookup order
+     */
+    private int[] lookups;
+
+    /**
+     * Position in lookups of the next invocation
+     */
+    private int next;
+
+    /**
+     * Method to fill Gator Taxi once per trial
+     */
+    @Setup
+    public void setUp() {
+        int[] keys = keyDistribution.generate(size, distribution, 42);
+        gatorTaxi = workloads.load("gatorTaxiWorkload", gatorTaxiOperations.class);
+        gatorTaxi.setUp(keys);
+        lookups = keyDistribution.shuffled(keys, 7);
+    }
+
+    /**
+     * Method to get the next present ride number
+     *
+     * @return ride number
+     */
+    private int nextKey() {
+        if (next == lookups.length) {
+            next = 0;
+        }
+        return lookups[next++];
+    }
+
+    @Benchmark
+    public void insertThenCancelRide() {
+        gatorTaxi.insertThenCancelRide(nextKey() + 1);
+    }
+
+    @Benchmark
+    public String insertThenGetNextRide() {
+        return gatorTaxi.insertThenGetNextRide(nextKey() + 1);
+    }
+
+    @Benchmark
+    public void updateTrip() {
+        gatorTaxi.updateTrip(nextKey());
+    }
+
+    @Benchmark
+    public String getRidesInRange() {
+        int rideNumber = nextKey();
+        return gatorTaxi.getRidesInRange(rideNumber, rideNumber + 2 * (rangeWidth - 1));
+    }
+}
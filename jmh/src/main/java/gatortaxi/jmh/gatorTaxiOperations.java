@@ -0,0 +1,45 @@
+package gatortaxi.jmh;
+
+/**
+ * End-to-end Gator Taxi operations measured by gatorTaxiBenchmark
+ */
+public interface gatorTaxiOperations {
+
+    /**
+     * Method to reset Gator Taxi and insert one ride per ride number
+     *
+     * @param keys ride numbers, in insertion order
+     */
+    void setUp(int[] keys);
+
+    /**
+     * Method to insert an absent ride and cancel it again
+     *
+     * @param rideNumber absent ride number
+     */
+    void insertThenCancelRide(int rideNumber);
+
+    /**
+     * Method to insert the cheapest ride and take it with GetNextRide
+     *
+     * @param rideNumber absent ride number
+     * @return the ride taken
+     */
+    String insertThenGetNextRide(int rideNumber);
+
+    /**
+     * Method to update a ride's trip duration up and back down, both in place
+     *
+     * @param rideNumber present ride number
+     */
+    void updateTrip(int rideNumber);
+
+    /**
+     * Method to print the rides of a range
+     *
+     * @param rideNumber1 start limit of the range
+     * @param rideNumber2 end limit of the range
+     * @return the rides in the range
+     */
+    String getRidesInRange(int rideNumber1, int rideNumber2);
+}
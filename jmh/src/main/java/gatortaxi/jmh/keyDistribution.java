@@ -0,0 +1,89 @@
+package gatortaxi.jmh;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Ride number distributions used by the benchmarks. Every generated ride number is even, so
+ * rideNumber + 1 is always absent from the set and can be inserted and removed again.
+ */
+public final class keyDistribution {
+
+    /**
+     * Number of dense clusters in the clustered distribution
+     */
+    private static final int clusters = 16;
+
+    private keyDistribution() {
+    }
+
+    /**
+     * Method to generate distinct ride numbers, in insertion order
+     *
+     * @param size         number of ride numbers
+     * @param distribution sequential, random or clustered
+     * @param seed         random seed
+     * @return ride numbers
+     */
+    public static int[] generate(int size, String distribution, long seed) {
+        Random random = new Random(seed);
+        int[] keys = new int[size];
+
+        switch (distribution) {
+            case "sequential":
+                for (int index = 0; index < size; index++) {
+                    keys[index] = 2 * index;
+                }
+                return keys;
+            case "random":
+                BitSet used = new BitSet();
+                for (int index = 0; index < size; ) {
+                    int key = random.nextInt(1 << 29);
+                    if (!used.get(key)) {
+                        used.set(key);
+                        keys[index++] = 2 * key;
+                    }
+                }
+                return keys;
+            case "clustered":
+                int clusterSize = (size + clusters - 1) / clusters;
+                int spacing = Math.max(4 * clusterSize, 1 << 16);
+                for (int index = 0; index < size; index++) {
+                    int cluster = index / clusterSize;
+                    keys[index] = 2 * (cluster * spacing + index % clusterSize);
+                }
+                shuffle(keys, random);
+                return keys;
+            default:
+                throw new IllegalArgumentException("Unknown key distribution " + distribution);
+        }
+    }
+
+    /**
+     * Method to get the ride numbers in a random order, for lookups
+     *
+     * @param keys ride numbers
+     * @param seed random seed
+     * @return shuffled copy of the ride numbers
+     */
+    public static int[] shuffled(int[] keys, long seed) {
+        int[] copy = keys.clone();
+        shuffle(copy, new Random(seed));
+        return copy;
+    }
+
+    /**
+     * Method to shuffle ride numbers in place
+     *
+     * @param keys   ride numbers
+     * @param random source of randomness
+     */
+    private static void shuffle(int[] keys, Random random) {
+        for (int index = keys.length - 1; index > 0; index--) {
+            int swapIndex = random.nextInt(index + 1);
+            int temp = keys[index];
+            keys[index] = keys[swapIndex];
+            keys[swapIndex] = temp;
+        }
+    }
+}
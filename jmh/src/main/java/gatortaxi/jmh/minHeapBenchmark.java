@@ -0,0 +1,75 @@
+package gatortaxi.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of minHeap insert, deleteMin and arbitraryDelete. Each removal is paired with an insert so
+ * the heap keeps its size across invocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class minHeapBenchmark {
+
+    /**
+     * Number of rides in the heap
+     */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    /**
+     * Distribution of ride numbers, from which costs and durations are derived
+     */
+    @Param({"sequential", "random", "clustered"})
+    public String distribution;
+
+    /**
+     * Heap under measurement
+     */
+    private minHeapOperations heap;
+
+    /**
+     * Position of the next ride for arbitrary deletes
+     */
+    private int next;
+
+    /**
+     * Method to build the heap once per trial
+     */
+    @Setup
+    public void setUp() {
+        heap = workloads.load("minHeapWorkload", minHeapOperations.class);
+        heap.setUp(keyDistribution.generate(size, distribution, 42));
+    }
+
+    @Benchmark
+    public int insertThenDeleteMin() {
+        return heap.insertThenDeleteMin();
+    }
+
+    @Benchmark
+    public int deleteMinThenInsert() {
+        return heap.deleteMinThenInsert();
+    }
+
+    @Benchmark
+    public int arbitraryDeleteThenInsert() {
+        next = next + 7919 < size ? next + 7919 : (next + 7919) % size;
+        return heap.arbitraryDeleteThenInsert(next);
+    }
+}
@@ -0,0 +1,36 @@
+package gatortaxi.jmh;
+
+/**
+ * Min heap operations measured by minHeapBenchmark
+ */
+public interface minHeapOperations {
+
+    /**
+     * Method to build a heap holding one ride per ride number
+     *
+     * @param keys ride numbers, in insertion order
+     */
+    void setUp(int[] keys);
+
+    /**
+     * Method to insert a ride cheaper than every other and remove the minimum, i.e. that ride
+     *
+     * @return slot of the removed ride
+     */
+    int insertThenDeleteMin();
+
+    /**
+     * Method to remove the minimum and insert it again
+     *
+     * @return slot of the removed ride
+     */
+    int deleteMinThenInsert();
+
+    /**
+     * Method to delete a ride from anywhere in the heap and insert it again
+     *
+     * @param index index of the ride, in insertion order
+     * @return slot of the ride
+     */
+    int arbitraryDeleteThenInsert(int index);
+}
@@ -0,0 +1,105 @@
+package gatortaxi.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of redBlackTree insert, find, delete, deleteNode and range walks. Inserts are measured
+ * together with the deletion of the same ride so the tree keeps its size across invocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class redBlackTreeBenchmark {
+
+    /**
+     * Number of rides in the tree
+     */
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    /**
+     * Distribution of ride numbers
+     */
+    @Param({"sequential", "random", "clustered"})
+    public String distribution;
+
+    /**
+     * Number of ride numbers each range query spans
+     */
+    @Param({"10", "1000", "100000"})
+    public int rangeWidth;
+
+    /**
+     * Tree under measurement
+     */
+    private redBlackTreeOperations tree;
+
+    /**
+     * Present ride numbers in lookup order
+     */
+    private int[] lookups;
+
+    /**
+     * Position in lookups of the next invocation
+     */
+    private int next;
+
+    /**
+     * Method to build the tree once per trial
+     */
+    @Setup
+    public void setUp() {
+        int[] keys = keyDistribution.generate(size, distribution, 42);
+        tree = workloads.load("redBlackTreeWorkload", redBlackTreeOperations.class);
+        tree.setUp(keys);
+        lookups = keyDistribution.shuffled(keys, 7);
+    }
+
+    /**
+     * Method to get the next present ride number
+     *
+     * @return ride number
+     */
+    private int nextKey() {
+        if (next == lookups.length) {
+            next = 0;
+        }
+        return lookups[next++];
+    }
+
+    @Benchmark
+    public int find() {
+        return tree.find(nextKey());
+    }
+
+    @Benchmark
+    public int insertThenDelete() {
+        return tree.insertThenDelete(nextKey() + 1);
+    }
+
+    @Benchmark
+    public int insertThenDeleteNode() {
+        return tree.insertThenDeleteNode(nextKey() + 1);
+    }
+
+    @Benchmark
+    public int range() {
+        int rideNumber = nextKey();
+        return tree.range(rideNumber, rideNumber + 2 * (rangeWidth - 1));
+    }
+}
@@ -0,0 +1,47 @@
+package gatortaxi.jmh;
+
+/**
+ * Red-black tree operations measured by redBlackTreeBenchmark
+ */
+public interface redBlackTreeOperations {
+
+    /**
+     * Method to build a tree holding the given ride numbers
+     *
+     * @param keys ride numbers, in insertion order
+     */
+    void setUp(int[] keys);
+
+    /**
+     * Method to insert an absent ride and delete it again by ride number
+     *
+     * @param rideNumber absent ride number
+     * @return slot of the deleted ride
+     */
+    int insertThenDelete(int rideNumber);
+
+    /**
+     * Method to insert an absent ride and delete it again by slot
+     *
+     * @param rideNumber absent ride number
+     * @return slot of the deleted ride
+     */
+    int insertThenDeleteNode(int rideNumber);
+
+    /**
+     * Method to find a ride
+     *
+     * @param rideNumber ride number
+     * @return slot of the ride
+     */
+    int find(int rideNumber);
+
+    /**
+     * Method to walk every ride of a range
+     *
+     * @param rideNumber1 start limit of the range
+     * @param rideNumber2 end limit of the range
+     * @return number of rides in the range
+     */
+    int range(int rideNumber1, int rideNumber2);
+}
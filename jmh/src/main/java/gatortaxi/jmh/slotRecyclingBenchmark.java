@@ -0,0 +1,98 @@
+package gatortaxi.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the ride slot life cycle - a ride is inserted and then cancelled or dispatched, so its slot goes
+ * back on the free list and the next insert takes it again. Run it with -prof gc to see the bytes allocated per
+ * operation. slotChecks sets gatorTaxi.slotChecks before the workload loads the engine, which every fork does
+ * afresh, so the same run measures the cost of the checks. gatorTaxi keeps its state in static fields, so
+ * this benchmark must run single threaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class slotRecyclingBenchmark {
+
+    /**
+     * Number of active rides
+     */
+    @Param({"100000"})
+    public int size;
+
+    /**
+     * Priority queue behind GetNextRide
+     */
+    @Param({"binary", "pairing", "bucket"})
+    public String heap;
+
+    /**
+     * Whether slots are checked for use after release
+     */
+    @Param({"false", "true"})
+    public String slotChecks;
+
+    /**
+     * Gator Taxi under measurement
+     */
+    private slotRecyclingOperations gatorTaxi;
+
+    /**
+     * Absent ride numbers in insertion order
+     */
+    private int[] insertions;
+
+    /**
+     * Position in insertions of the next invocation
+     */
+    private int next;
+
+    /**
+     * Method to fill Gator Taxi once per trial
+     */
+    @Setup
+    public void setUp() {
+        System.setProperty("gatorTaxi.slotChecks", slotChecks);
+        int[] keys = keyDistribution.generate(size, "random", 42);
+        gatorTaxi = workloads.load("slotRecyclingWorkload", slotRecyclingOperations.class);
+        gatorTaxi.setUp(keys, heap);
+        insertions = keyDistribution.shuffled(keys, 7);
+    }
+
+    /**
+     * Method to get the next absent ride number
+     *
+     * @return ride number
+     */
+    private int nextKey() {
+        if (next == insertions.length) {
+            next = 0;
+        }
+        return insertions[next++] + 1;
+    }
+
+    @Benchmark
+    public void insertThenCancelRide() {
+        gatorTaxi.insertThenCancelRide(nextKey());
+    }
+
+    @Benchmark
+    public boolean insertThenGetNextRide() {
+        return gatorTaxi.insertThenGetNextRide(nextKey());
+    }
+}
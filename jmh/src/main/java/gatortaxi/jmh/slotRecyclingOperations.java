@@ -0,0 +1,30 @@
+package gatortaxi.jmh;
+
+/**
+ * Gator Taxi operations measured by slotRecyclingBenchmark
+ */
+public interface slotRecyclingOperations {
+
+    /**
+     * Method to reset Gator Taxi with a priority queue and insert one ride per ride number
+     *
+     * @param keys ride numbers, in insertion order
+     * @param heap priority queue, as --heap takes it
+     */
+    void setUp(int[] keys, String heap);
+
+    /**
+     * Method to insert an absent ride and cancel it again, releasing its slot for the next insert
+     *
+     * @param rideNumber absent ride number
+     */
+    void insertThenCancelRide(int rideNumber);
+
+    /**
+     * Method to insert the cheapest ride and dispatch it with GetNextRide into a reused output buffer
+     *
+     * @param rideNumber absent ride number
+     * @return whether a ride was dispatched
+     */
+    boolean insertThenGetNextRide(int rideNumber);
+}
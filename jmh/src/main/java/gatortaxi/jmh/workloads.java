@@ -0,0 +1,28 @@
+package gatortaxi.jmh;
+
+/**
+ * Loads the workload implementations. The engine lives in the unnamed package, which named packages such
+ * as this one cannot refer to, and JMH refuses benchmarks in the unnamed package; so each workload is an
+ * unnamed-package class implementing an interface from this package, loaded once per trial by name.
+ */
+final class workloads {
+
+    private workloads() {
+    }
+
+    /**
+     * Method to create a workload by class name
+     *
+     * @param className name of the workload class in the unnamed package
+     * @param type      interface the workload implements
+     * @param <T>       interface type
+     * @return new workload
+     */
+    static <T> T load(String className, Class<T> type) {
+        try {
+            return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load workload " + className, e);
+        }
+    }
+}
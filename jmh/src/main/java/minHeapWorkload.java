@@ -0,0 +1,57 @@
+import gatortaxi.jmh.minHeapOperations;
+
+/**
+ * Min heap workload measured by gatortaxi.jmh.minHeapBenchmark
+ */
+public class minHeapWorkload implements minHeapOperations {
+
+    /**
+     * Table holding the rides
+     */
+    private rideTable rides;
+
+    /**
+     * Heap under measurement
+     */
+    private minHeap heap;
+
+    /**
+     * Slots of the rides, in insertion order
+     */
+    private int[] slots;
+
+    @Override
+    public void setUp(int[] keys) {
+        rides = new rideTable(keys.length + 1);
+        heap = new minHeap(rides, keys.length + 1);
+        slots = new int[keys.length];
+        for (int index = 0; index < keys.length; index++) {
+            slots[index] = rides.allocate(keys[index], (keys[index] >>> 1) % 1000, keys[index]);
+            heap.insert(slots[index]);
+        }
+    }
+
+    @Override
+    public int insertThenDeleteMin() {
+        int slot = rides.allocate(-1, -1, 0);
+        heap.insert(slot);
+        int minimum = heap.deleteMin();
+        rides.release(minimum);
+        return minimum;
+    }
+
+    @Override
+    public int deleteMinThenInsert() {
+        int minimum = heap.deleteMin();
+        heap.insert(minimum);
+        return minimum;
+    }
+
+    @Override
+    public int arbitraryDeleteThenInsert(int index) {
+        int slot = slots[index];
+        heap.arbitraryDelete(slot);
+        heap.insert(slot);
+        return slot;
+    }
+}
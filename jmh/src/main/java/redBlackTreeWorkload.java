@@ -0,0 +1,63 @@
+import gatortaxi.jmh.redBlackTreeOperations;
+
+/**
+ * Red-black tree workload measured by gatortaxi.jmh.redBlackTreeBenchmark
+ */
+public class redBlackTreeWorkload implements redBlackTreeOperations {
+
+    /**
+     * Table holding the rides
+     */
+    private rideTable rides;
+
+    /**
+     * Tree under measurement
+     */
+    private redBlackTree tree;
+
+    /**
+     * Page of slots reused by range walks
+     */
+    private final int[] page = new int[256];
+
+    @Override
+    public void setUp(int[] keys) {
+        rides = new rideTable(keys.length + 1);
+        tree = new redBlackTree(rides);
+        for (int key : keys) {
+            tree.insert(rides.allocate(key, key & 127, key));
+        }
+    }
+
+    @Override
+    public int insertThenDelete(int rideNumber) {
+        tree.insert(rides.allocate(rideNumber, 0, 0));
+        int slot = tree.delete(rideNumber);
+        rides.release(slot);
+        return slot;
+    }
+
+    @Override
+    public int insertThenDeleteNode(int rideNumber) {
+        int slot = rides.allocate(rideNumber, 0, 0);
+        tree.insert(slot);
+        tree.deleteNode(slot);
+        rides.release(slot);
+        return slot;
+    }
+
+    @Override
+    public int find(int rideNumber) {
+        return tree.find(rideNumber);
+    }
+
+    @Override
+    public int range(int rideNumber1, int rideNumber2) {
+        redBlackTreeCursor cursor = tree.range(rideNumber1, rideNumber2);
+        int count = 0;
+        for (int size = cursor.nextPage(page); size > 0; size = cursor.nextPage(page)) {
+            count += size;
+        }
+        return count;
+    }
+}
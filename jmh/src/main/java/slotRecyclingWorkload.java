@@ -0,0 +1,54 @@
+import gatortaxi.jmh.slotRecyclingOperations;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Slot recycling workload measured by gatortaxi.jmh.slotRecyclingBenchmark. Dispatched rides are written to
+ * an in-memory outputSink that is drained to a discarding channel, so no result String is built.
+ */
+public class slotRecyclingWorkload implements slotRecyclingOperations {
+
+    /**
+     * Output GetNextRide writes to
+     */
+    private final outputSink sink = new outputSink(1 << 12);
+
+    /**
+     * Channel the output is drained to and dropped
+     */
+    private final WritableByteChannel discard = Channels.newChannel(OutputStream.nullOutputStream());
+
+    @Override
+    public void setUp(int[] keys, String heap) {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.expectedRides = keys.length + 1;
+        options.heap = heap;
+        gatorTaxi.initialize(options);
+        for (int key : keys) {
+            gatorTaxi.insert(key, 1 + (key >>> 1) % 1000, 1 + (key >>> 1) % 100_000);
+        }
+    }
+
+    @Override
+    public void insertThenCancelRide(int rideNumber) {
+        gatorTaxi.insert(rideNumber, 500, 500);
+        gatorTaxi.cancelRide(rideNumber);
+    }
+
+    @Override
+    public boolean insertThenGetNextRide(int rideNumber) {
+        gatorTaxi.insert(rideNumber, 0, 0);
+        try {
+            sink.beginLine();
+            boolean dispatched = gatorTaxi.printNextRide(sink);
+            sink.drainTo(discard);
+            return dispatched;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
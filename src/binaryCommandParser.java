@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Class implementing a parser of Gator Taxi commands in the binary format. A stream starts with the magic
+ * number "GTBC" and a format version; each command is one byte holding the operation code in its low nibble
+ * and the number of arguments in its high nibble, followed by the arguments as little-endian int32. Every
+ * command has a fixed width given by its first byte, so decoding is a byte and up to three int loads with no
+ * scanning or digit conversion.
+ */
+public class binaryCommandParser extends commandParser {
+
+    /**
+     * Magic number opening a binary command stream, "GTBC"
+     */
+    private static final int streamMagic = 0x47544243;
+
+    /**
+     * Version of the binary command format
+     */
+    private static final int formatVersion = 1;
+
+    /**
+     * Size in bytes of the stream header - magic and version
+     */
+    static final int headerSize = 8;
+
+    /**
+     * Size in bytes of the largest command, an Insert
+     */
+    static final int maximumCommandSize = 1 + 4 * maximumArguments;
+
+    /**
+     * Channel the commands are read from
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * Buffer of bytes read from the channel
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Binary command parser constructor, reading and checking the stream header
+     *
+     * @param channel    channel to read commands from
+     * @param bufferSize size of the read buffer in bytes
+     * @throws IOException if reading fails or the stream is not in the binary format
+     */
+    public binaryCommandParser(ReadableByteChannel channel, int bufferSize) throws IOException {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, maximumCommandSize)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+
+        fill();
+        if (buffer.remaining() < headerSize || buffer.getInt() != streamMagic || buffer.getInt() != formatVersion) {
+            throw new IOException("Not a binary command stream");
+        }
+    }
+
+    /**
+     * Method to move the unread bytes to the front of the buffer and read more behind them
+     *
+     * @throws IOException if reading fails
+     */
+    private void fill() throws IOException {
+        buffer.compact();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read > 0 && buffer.hasRemaining());
+        buffer.flip();
+    }
+
+    /**
+     * Method to read the next command. lineNumber counts commands.
+     *
+     * @return false at end of input
+     * @throws IOException if reading fails or the stream is corrupt or truncated
+     */
+    @Override
+    public boolean next() throws IOException {
+        if (buffer.remaining() < maximumCommandSize) {
+            fill();
+            if (!buffer.hasRemaining()) {
+                return false;
+            }
+        }
+
+        lineNumber++;
+        int code = buffer.get() & 0xFF;
+        operation = code & 0x0F;
+        argumentCount = code >>> 4;
+        if (argumentCount > maximumArguments) {
+            throw new IOException("Corrupt binary command " + lineNumber);
+        }
+        if (buffer.remaining() < 4 * argumentCount) {
+            throw new IOException("Truncated binary command " + lineNumber);
+        }
+        for (int index = 0; index < argumentCount; index++) {
+            arguments[index] = buffer.getInt();
+        }
+
+        if (operation >= opcode.names.length) {
+            error = "Command " + lineNumber + ": Invalid operation code " + operation;
+            operation = opcode.Invalid;
+        }
+        return true;
+    }
+
+    /**
+     * Method to check whether bytes are the start of a binary command stream
+     *
+     * @param input bytes to check, from their position
+     * @return true if they open with the magic number
+     */
+    static boolean isStreamStart(ByteBuffer input) {
+        return input.remaining() >= 4 && input.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt() == streamMagic;
+    }
+
+    /**
+     * Method to get the size of a command from its first byte
+     *
+     * @param code first byte of the command
+     * @return size of the command in bytes; a corrupt code counts as a single byte
+     */
+    static int commandSize(byte code) {
+        int argumentCount = (code & 0xFF) >>> 4;
+        return argumentCount > maximumArguments ? 1 : 1 + 4 * argumentCount;
+    }
+
+    /**
+     * Method to write the stream header
+     *
+     * @param output little-endian buffer with at least headerSize bytes remaining
+     */
+    static void writeHeader(ByteBuffer output) {
+        output.putInt(streamMagic).putInt(formatVersion);
+    }
+
+    /**
+     * Method to write a command
+     *
+     * @param output        little-endian buffer with at least maximumCommandSize bytes remaining
+     * @param operation     operation code
+     * @param arguments     arguments of the command
+     * @param argumentCount number of arguments, at most maximumArguments
+     */
+    static void writeCommand(ByteBuffer output, int operation, int[] arguments, int argumentCount) {
+        output.put((byte) (argumentCount << 4 | operation));
+        for (int index = 0; index < argumentCount; index++) {
+            output.putInt(arguments[index]);
+        }
+    }
+}
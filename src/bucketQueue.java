@@ -0,0 +1,604 @@
+import java.util.Arrays;
+
+/**
+ * Class implementing bucket queue over the slots of a ride table for small non-negative integer ride costs.
+ * Bucket c holds the rides costing c in a binary heap ordered by trip duration, then ride number, keyed by one
+ * packed long per ride so that sifting never goes back to the ride table. A two-level bitmap of non-empty
+ * buckets finds the cheapest one with two word scans. Insert, arbitraryDelete and changeKey touch a single
+ * bucket, whose heap holds only the rides sharing a cost, so they sift through a few levels at most. A bucket
+ * halves once it drains to a quarter of its capacity. A cost outside [0, costLimit) moves every ride into a
+ * minHeap, which serves the queue until no ride costs outside the buckets any more and at least as many
+ * operations as rides have passed, so moving back and forth costs O(1) per operation amortized.
+ */
+public class bucketQueue implements ridePriorityQueue {
+
+    /**
+     * Table holding the rides and their positions in their bucket
+     */
+    private final rideTable rides;
+
+    /**
+     * Costs at or past this limit, and negative ones, send the queue to the min heap
+     */
+    private final int costLimit;
+
+    /**
+     * Capacity the min heap starts with if the queue falls back to it
+     */
+    private final int initialCapacity;
+
+    /**
+     * Growth factor of the min heap if the queue falls back to it
+     */
+    private final double growthFactor;
+
+    /**
+     * Whether the min heap shrinks after bursts if the queue falls back to it
+     */
+    private final boolean shrinkAfterBursts;
+
+    /**
+     * Heap of each bucket as packed trip duration and ride number keys, indexed by cost, or null while unused
+     */
+    private long[][] keys = new long[0][];
+
+    /**
+     * Heap of each bucket as ride slots, parallel to keys
+     */
+    private int[][] slots = new int[0][];
+
+    /**
+     * Number of rides in each bucket
+     */
+    private int[] bucketSizes = new int[0];
+
+    /**
+     * Bit per bucket, set while the bucket holds rides
+     */
+    private final long[] nonEmptyBuckets;
+
+    /**
+     * Bit per word of nonEmptyBuckets, set while the word is not zero
+     */
+    private final long[] nonEmptyWords;
+
+    /**
+     * Number of rides in the buckets
+     */
+    private int size;
+
+    /**
+     * Smallest capacity of a bucket's heap
+     */
+    private static final int minimumBucketCapacity = 4;
+
+    /**
+     * Min heap holding every ride while a cost lies outside the buckets, or null
+     */
+    private minHeap fallback;
+
+    /**
+     * Number of rides in the min heap whose cost lies outside the buckets
+     */
+    private int outOfRange;
+
+    /**
+     * Number of operations the min heap has served since the queue fell back to it
+     */
+    private long fallbackOperations;
+
+    /**
+     * Bucket Queue Constructor
+     *
+     * @param rides             table holding the rides
+     * @param costLimit         number of buckets, costs 0 to costLimit - 1
+     * @param initialCapacity   number of rides the min heap holds before growing if the queue falls back to it
+     * @param growthFactor      factor (greater than 1) the min heap capacity is multiplied by when it is full
+     * @param shrinkAfterBursts whether to halve the min heap capacity when it drops to a quarter full
+     */
+    public bucketQueue(rideTable rides, int costLimit, int initialCapacity, double growthFactor, boolean shrinkAfterBursts) {
+        this.rides = rides;
+        this.costLimit = costLimit;
+        this.initialCapacity = initialCapacity;
+        this.growthFactor = growthFactor;
+        this.shrinkAfterBursts = shrinkAfterBursts;
+        nonEmptyBuckets = new long[(costLimit + 63) >>> 6];
+        nonEmptyWords = new long[(nonEmptyBuckets.length + 63) >>> 6];
+    }
+
+    /**
+     * Method to check whether the queue has fallen back to the min heap
+     *
+     * @return true while the min heap serves the queue
+     */
+    public boolean hasFallenBack() {
+        return fallback != null;
+    }
+
+    /**
+     * Method to check whether a cost has a bucket
+     *
+     * @param cost cost of a ride
+     * @return true if the cost lies in [0, costLimit)
+     */
+    private boolean hasBucket(int cost) {
+        return cost >= 0 && cost < costLimit;
+    }
+
+    /**
+     * Method to count the rides of a batch whose cost lies outside the buckets
+     *
+     * @param slots slots of the rides
+     * @param count number of slots to take from the start of slots
+     * @return number of rides without a bucket
+     */
+    private int countOutOfRange(int[] slots, int count) {
+        int found = 0;
+        for (int index = 0; index < count; index++) {
+            if (!hasBucket(rides.rideCost[slots[index]])) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Method to get number of rides in the queue
+     *
+     * @return number of rides
+     */
+    @Override
+    public int size() {
+        return fallback != null ? fallback.size() : size;
+    }
+
+    /**
+     * Method to get the key a ride is ordered by within its bucket
+     *
+     * @param slot slot of the ride
+     * @return trip duration in the high half and ride number in the low half, ordered as signed longs
+     */
+    private long keyOf(int slot) {
+        return (long) rides.tripDuration[slot] << 32 | (rides.rideNumber[slot] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Method to make sure the bucket of a cost exists with room for one more ride
+     *
+     * @param cost cost of the bucket
+     */
+    private void reserveBucket(int cost) {
+        if (cost >= keys.length) {
+            int buckets = Math.min(costLimit, Math.max(cost + 1, keys.length * 2));
+            keys = Arrays.copyOf(keys, buckets);
+            slots = Arrays.copyOf(slots, buckets);
+            bucketSizes = Arrays.copyOf(bucketSizes, buckets);
+        }
+        if (keys[cost] == null) {
+            keys[cost] = new long[minimumBucketCapacity];
+            slots[cost] = new int[minimumBucketCapacity];
+        } else if (bucketSizes[cost] == keys[cost].length) {
+            keys[cost] = Arrays.copyOf(keys[cost], bucketSizes[cost] * 2);
+            slots[cost] = Arrays.copyOf(slots[cost], bucketSizes[cost] * 2);
+        }
+    }
+
+    /**
+     * Method to halve the heap of a bucket once it has drained to a quarter of its capacity
+     *
+     * @param cost cost of the bucket
+     */
+    private void shrinkIfSparse(int cost) {
+        int capacity = keys[cost].length;
+        if (capacity > minimumBucketCapacity && bucketSizes[cost] < capacity / 4) {
+            keys[cost] = Arrays.copyOf(keys[cost], capacity / 2);
+            slots[cost] = Arrays.copyOf(slots[cost], capacity / 2);
+        }
+    }
+
+    /**
+     * Method to mark a bucket as holding rides
+     *
+     * @param cost cost of the bucket
+     */
+    private void markNonEmpty(int cost) {
+        nonEmptyBuckets[cost >>> 6] |= 1L << cost;
+        nonEmptyWords[cost >>> 12] |= 1L << (cost >>> 6);
+    }
+
+    /**
+     * Method to mark a bucket as empty
+     *
+     * @param cost cost of the bucket
+     */
+    private void markEmpty(int cost) {
+        if ((nonEmptyBuckets[cost >>> 6] &= ~(1L << cost)) == 0) {
+            nonEmptyWords[cost >>> 12] &= ~(1L << (cost >>> 6));
+        }
+    }
+
+    /**
+     * Method to find the cheapest bucket holding rides; the queue must not be empty
+     *
+     * @return cost of the bucket
+     */
+    private int lowestBucket() {
+        int summary = 0;
+        while (nonEmptyWords[summary] == 0) {
+            summary++;
+        }
+        int word = summary << 6 | Long.numberOfTrailingZeros(nonEmptyWords[summary]);
+        return word << 6 | Long.numberOfTrailingZeros(nonEmptyBuckets[word]);
+    }
+
+    /**
+     * Method to put a ride at a position of a bucket
+     *
+     * @param cost     cost of the bucket
+     * @param position position in the bucket's heap
+     * @param key      key of the ride
+     * @param slot     slot of the ride
+     */
+    private void place(int cost, int position, long key, int slot) {
+        keys[cost][position] = key;
+        slots[cost][position] = slot;
+        rides.heapIndex[slot] = position + 1;
+    }
+
+    /**
+     * Method to move a ride up its bucket's heap from a position until its parent's key is smaller
+     *
+     * @param cost     cost of the bucket
+     * @param position position the ride starts from
+     * @param key      key of the ride
+     * @param slot     slot of the ride
+     */
+    private void siftUp(int cost, int position, long key, int slot) {
+        long[] bucketKeys = keys[cost];
+        int[] bucketSlots = slots[cost];
+        int startPosition = position;
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (bucketKeys[parent] < key) {
+                break;
+            }
+            place(cost, position, bucketKeys[parent], bucketSlots[parent]);
+            position = parent;
+        }
+        place(cost, position, key, slot);
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.recordSiftUp(Integer.numberOfLeadingZeros(position + 1) - Integer.numberOfLeadingZeros(startPosition + 1));
+        }
+    }
+
+    /**
+     * Method to move a ride down its bucket's heap from a position until no child has a smaller key
+     *
+     * @param cost     cost of the bucket
+     * @param position position the ride starts from
+     * @param key      key of the ride
+     * @param slot     slot of the ride
+     */
+    private void siftDown(int cost, int position, long key, int slot) {
+        long[] bucketKeys = keys[cost];
+        int[] bucketSlots = slots[cost];
+        int bucketSize = bucketSizes[cost];
+        int startPosition = position;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= bucketSize) {
+                break;
+            }
+            if (child + 1 < bucketSize && bucketKeys[child + 1] < bucketKeys[child]) {
+                child++;
+            }
+            if (key < bucketKeys[child]) {
+                break;
+            }
+            place(cost, position, bucketKeys[child], bucketSlots[child]);
+            position = child;
+        }
+        place(cost, position, key, slot);
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.recordSiftDown(Integer.numberOfLeadingZeros(startPosition + 1) - Integer.numberOfLeadingZeros(position + 1));
+        }
+    }
+
+    /**
+     * Method to insert a ride into the bucket of its cost
+     *
+     * @param slot slot of the ride to be inserted
+     */
+    @Override
+    public void insert(int slot) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        if (fallback == null && !hasBucket(rides.rideCost[slot])) {
+            fallBack();
+        }
+        if (fallback != null) {
+            if (!hasBucket(rides.rideCost[slot])) {
+                outOfRange++;
+            }
+            fallback.insert(slot);
+            countFallbackOperation();
+            return;
+        }
+
+        int cost = rides.rideCost[slot];
+        reserveBucket(cost);
+        int position = bucketSizes[cost]++;
+        if (position == 0) {
+            markNonEmpty(cost);
+        }
+        siftUp(cost, position, keyOf(slot), slot);
+        size++;
+    }
+
+    /**
+     * Method to insert a batch of rides, handing them to the min heap's bulkLoad once the queue has fallen back
+     *
+     * @param slots slots of the rides to be inserted
+     * @param count number of slots to take from the start of slots
+     */
+    @Override
+    public void bulkLoad(int[] slots, int count) {
+        if (fallback != null) {
+            outOfRange += countOutOfRange(slots, count);
+            fallback.bulkLoad(slots, count);
+        } else {
+            ridePriorityQueue.super.bulkLoad(slots, count);
+        }
+    }
+
+    /**
+     * Method to get the minimum without removing it
+     *
+     * @return slot of the minimum ride, or noSlot if empty
+     */
+    @Override
+    public int peek() {
+        if (fallback != null) {
+            return fallback.peek();
+        }
+        return size == 0 ? rideTable.noSlot : slots[lowestBucket()][0];
+    }
+
+    /**
+     * Method to remove the ride at a position of a bucket, filling the position with the bucket's last ride
+     *
+     * @param cost     cost of the bucket
+     * @param position position of the ride in the bucket's heap
+     * @return slot of the removed ride
+     */
+    private int removeAt(int cost, int position) {
+        int removed = slots[cost][position];
+        if (rideTable.slotChecks) {
+            rides.checkLive(removed);
+        }
+        rides.heapIndex[removed] = 0;
+        size--;
+
+        int last = --bucketSizes[cost];
+        if (last == 0) {
+            markEmpty(cost);
+        } else if (position < last) {
+            long key = keys[cost][last];
+            int slot = slots[cost][last];
+            if (position > 0 && key < keys[cost][(position - 1) >> 1]) {
+                siftUp(cost, position, key, slot);
+            } else {
+                siftDown(cost, position, key, slot);
+            }
+        }
+        shrinkIfSparse(cost);
+        return removed;
+    }
+
+    /**
+     * Method to remove the minimum, the root of the cheapest bucket
+     *
+     * @return slot of the minimum ride, or noSlot if empty
+     */
+    @Override
+    public int deleteMin() {
+        if (fallback != null) {
+            int popped = fallback.deleteMin();
+            if (popped != rideTable.noSlot && !hasBucket(rides.rideCost[popped])) {
+                outOfRange--;
+            }
+            countFallbackOperation();
+            return popped;
+        }
+        return size == 0 ? rideTable.noSlot : removeAt(lowestBucket(), 0);
+    }
+
+    /**
+     * Method to remove up to count minimums at once, through the min heap's deleteMins once the queue has
+     * fallen back
+     *
+     * @param slots array to write the removed slots to, smallest first
+     * @param count most rides to remove
+     * @return number of rides removed, less than count only if the queue ran empty
+     */
+    @Override
+    public int deleteMins(int[] slots, int count) {
+        if (fallback != null) {
+            int removed = fallback.deleteMins(slots, count);
+            outOfRange -= countOutOfRange(slots, removed);
+            countFallbackOperation();
+            return removed;
+        }
+        return ridePriorityQueue.super.deleteMins(slots, count);
+    }
+
+    /**
+     * Method to remove a ride anywhere in the queue
+     *
+     * @param slot slot of the ride to be deleted
+     */
+    @Override
+    public void arbitraryDelete(int slot) {
+        if (fallback != null) {
+            if (!hasBucket(rides.rideCost[slot])) {
+                outOfRange--;
+            }
+            fallback.arbitraryDelete(slot);
+            countFallbackOperation();
+            return;
+        }
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        removeAt(rides.rideCost[slot], rides.heapIndex[slot] - 1);
+    }
+
+    /**
+     * Method to remove every cancelled ride, compacting each bucket around them and heapifying it bottom-up
+     *
+     * @param slots array to write the removed slots to, long enough for every cancelled ride
+     * @return number of rides removed
+     */
+    @Override
+    public int removeCancelled(int[] slots) {
+        if (fallback != null) {
+            int removed = fallback.removeCancelled(slots);
+            outOfRange -= countOutOfRange(slots, removed);
+            countFallbackOperation();
+            return removed;
+        }
+
+        int removed = 0;
+        for (int cost = 0; cost < bucketSizes.length; cost++) {
+            int bucketSize = bucketSizes[cost];
+            if (bucketSize == 0) {
+                continue;
+            }
+
+            long[] bucketKeys = keys[cost];
+            int[] bucketSlots = this.slots[cost];
+            int kept = 0;
+            for (int position = 0; position < bucketSize; position++) {
+                int slot = bucketSlots[position];
+                if (rides.cancelled[slot]) {
+                    rides.heapIndex[slot] = 0;
+                    slots[removed++] = slot;
+                } else {
+                    place(cost, kept++, bucketKeys[position], slot);
+                }
+            }
+            size -= bucketSize - kept;
+            bucketSizes[cost] = kept;
+            if (kept == 0) {
+                markEmpty(cost);
+            }
+            for (int position = kept / 2 - 1; position >= 0; position--) {
+                siftDown(cost, position, bucketKeys[position], bucketSlots[position]);
+            }
+            shrinkIfSparse(cost);
+        }
+        return removed;
+    }
+
+    /**
+     * Method to change the cost and trip duration of a ride. The ride sifts within its bucket if the cost
+     * stays, and moves to the bucket of its new cost otherwise.
+     *
+     * @param slot         slot of the ride
+     * @param rideCost     new cost of the ride
+     * @param tripDuration new trip duration of the ride
+     */
+    @Override
+    public void changeKey(int slot, int rideCost, int tripDuration) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        if (fallback == null && !hasBucket(rideCost)) {
+            fallBack();
+        }
+        if (fallback != null) {
+            if (!hasBucket(rides.rideCost[slot])) {
+                outOfRange--;
+            }
+            if (!hasBucket(rideCost)) {
+                outOfRange++;
+            }
+            fallback.changeKey(slot, rideCost, tripDuration);
+            countFallbackOperation();
+            return;
+        }
+
+        int cost = rides.rideCost[slot];
+        int position = rides.heapIndex[slot] - 1;
+        if (rideCost != cost) {
+            removeAt(cost, position);
+            rides.rideCost[slot] = rideCost;
+            rides.tripDuration[slot] = tripDuration;
+            insert(slot);
+            return;
+        }
+
+        rides.tripDuration[slot] = tripDuration;
+        long key = keyOf(slot);
+        if (position > 0 && key < keys[cost][(position - 1) >> 1]) {
+            siftUp(cost, position, key, slot);
+        } else {
+            siftDown(cost, position, key, slot);
+        }
+    }
+
+    /**
+     * Method to move every ride into a min heap built bottom-up and serve the queue from it, once a cost
+     * does not fit the buckets
+     */
+    private void fallBack() {
+        int[] queued = new int[size];
+        int count = 0;
+        for (int cost = 0; cost < bucketSizes.length; cost++) {
+            if (bucketSizes[cost] > 0) {
+                System.arraycopy(slots[cost], 0, queued, count, bucketSizes[cost]);
+                count += bucketSizes[cost];
+            }
+        }
+
+        fallback = new minHeap(rides, Math.max(initialCapacity, count), growthFactor, shrinkAfterBursts);
+        fallback.bulkLoad(queued, count);
+        keys = new long[0][];
+        slots = new int[0][];
+        bucketSizes = new int[0];
+        Arrays.fill(nonEmptyBuckets, 0);
+        Arrays.fill(nonEmptyWords, 0);
+        size = 0;
+        outOfRange = 0;
+        fallbackOperations = 0;
+    }
+
+    /**
+     * Method to count an operation served by the min heap, and move every ride back into the buckets once
+     * all their costs fit and the min heap has served at least as many operations as it holds rides, which
+     * pays for the move and for the fall back before it
+     */
+    private void countFallbackOperation() {
+        fallbackOperations++;
+        if (outOfRange == 0 && fallbackOperations >= fallback.size()) {
+            int[] queued = new int[fallback.size()];
+            int count = fallback.removeAll(queued);
+            fallback = null;
+            for (int index = 0; index < count; index++) {
+                insert(queued[index]);
+            }
+        }
+    }
+
+    /**
+     * Method to check whether a ride is in the queue
+     *
+     * @param slot slot of the ride
+     * @return true if the ride has not been deleted from the queue
+     */
+    @Override
+    public boolean contains(int slot) {
+        return rides.heapIndex[slot] != 0;
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class implementing the converter of text command files to the binary format read by binaryCommandParser.
+ * Malformed lines are reported and left out, as the text path skips them too.
+ */
+public class commandConverter {
+
+    /**
+     * Method to write the filled part of a buffer to a channel and clear it
+     *
+     * @param output channel to write to
+     * @param buffer buffer to drain
+     * @throws IOException if writing fails
+     */
+    private static void drain(FileChannel output, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Method to convert a text command file to a binary one
+     *
+     * @param inputFileName  text command file
+     * @param outputFileName binary command file to write
+     * @return number of commands written
+     * @throws IOException           if reading or writing fails
+     * @throws NumberFormatException if an argument is not a valid int
+     */
+    public static long convert(String inputFileName, String outputFileName) throws IOException {
+        try (FileChannel input = FileChannel.open(Paths.get(inputFileName));
+             FileChannel output = FileChannel.open(Paths.get(outputFileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            commandParser parser = new commandParser(Channels.newInputStream(input), 1 << 16);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            binaryCommandParser.writeHeader(buffer);
+
+            long commands = 0;
+            while (parser.next()) {
+                if (parser.operation == opcode.Invalid) {
+                    System.out.println(parser.error);
+                    continue;
+                }
+                if (buffer.remaining() < binaryCommandParser.maximumCommandSize) {
+                    drain(output, buffer);
+                }
+                binaryCommandParser.writeCommand(buffer, parser.operation, parser.arguments, parser.argumentCount);
+                commands++;
+            }
+            drain(output, buffer);
+            return commands;
+        }
+    }
+
+    /**
+     * Start of the converter
+     *
+     * @param args text input file and binary output file
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: java commandConverter <text_input_file> <binary_output_file>");
+            return;
+        }
+
+        try {
+            System.out.println("Converted " + convert(args[0], args[1]) + " commands");
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (NumberFormatException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
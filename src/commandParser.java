@@ -0,0 +1,410 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Operation codes of Gator Taxi commands
+ */
+final class opcode {
+
+    /**
+     * Malformed command
+     */
+    static final int Invalid = -1;
+
+    /**
+     * Insert(rideNumber, rideCost, tripDuration)
+     */
+    static final int Insert = 0;
+
+    /**
+     * Print(rideNumber) or Print(rideNumber1, rideNumber2)
+     */
+    static final int Print = 1;
+
+    /**
+     * GetNextRide()
+     */
+    static final int GetNextRide = 2;
+
+    /**
+     * CancelRide(rideNumber)
+     */
+    static final int CancelRide = 3;
+
+    /**
+     * UpdateTrip(rideNumber, new_tripDuration)
+     */
+    static final int UpdateTrip = 4;
+
+    /**
+     * GetNextRides(k)
+     */
+    static final int GetNextRides = 5;
+
+    /**
+     * Names of the operations, indexed by operation code
+     */
+    static final String[] names = {"Insert", "Print", "GetNextRide", "CancelRide", "UpdateTrip", "GetNextRides"};
+
+    private opcode() {
+    }
+}
+
+/**
+ * Class implementing a byte level parser of Gator Taxi commands such as "Insert(12,30,50)".
+ * Commands are decoded straight from a reused buffer, or from memory-mapped chunks of the input file,
+ * so a well formed line allocates nothing.
+ */
+public class commandParser {
+
+    /**
+     * Maximum number of arguments of any command
+     */
+    public static final int maximumArguments = 3;
+
+    /**
+     * Operation names as ASCII bytes, indexed by operation code
+     */
+    private static final byte[][] operationNames = new byte[opcode.names.length][];
+
+    static {
+        for (int operation = 0; operation < opcode.names.length; operation++) {
+            operationNames[operation] = opcode.names[operation].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Stream the commands are read from, or null when reading a mapped file
+     */
+    private final InputStream input;
+
+    /**
+     * File the commands are mapped from, or null when reading a stream
+     */
+    private final FileChannel channel;
+
+    /**
+     * Size in bytes of each mapped chunk of the file
+     */
+    private final int chunkSize;
+
+    /**
+     * Offset in the file of the next chunk to map
+     */
+    private long chunkOffset;
+
+    /**
+     * Buffer of bytes read from the stream
+     */
+    private final byte[] buffer;
+
+    /**
+     * Current mapped chunk of the file
+     */
+    private ByteBuffer mappedChunk;
+
+    /**
+     * Position of the next unread byte in buffer or mapped chunk
+     */
+    private int position;
+
+    /**
+     * Number of valid bytes in buffer or mapped chunk
+     */
+    private int limit;
+
+    /**
+     * Operation code of the current command
+     */
+    public int operation;
+
+    /**
+     * Arguments of the current command
+     */
+    public final int[] arguments = new int[maximumArguments];
+
+    /**
+     * Number of arguments of the current command
+     */
+    public int argumentCount;
+
+    /**
+     * Line number of the current command, starting at 1
+     */
+    public int lineNumber;
+
+    /**
+     * Description of what is wrong with the current command when operation is Invalid
+     */
+    public String error;
+
+    /**
+     * Command parser constructor
+     *
+     * @param input      stream to read commands from
+     * @param bufferSize size of the read buffer in bytes
+     */
+    public commandParser(InputStream input, int bufferSize) {
+        this.input = input;
+        this.channel = null;
+        this.chunkSize = bufferSize;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Command parser constructor for a memory-mapped file, mapped one chunk at a time.
+     * Lines straddling two chunks are decoded across the boundary.
+     *
+     * @param channel   file to read commands from
+     * @param chunkSize size in bytes of each mapped chunk
+     */
+    public commandParser(FileChannel channel, int chunkSize) {
+        this.input = null;
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+        this.buffer = null;
+    }
+
+    /**
+     * Command parser constructor for subclasses that decode another input format
+     */
+    protected commandParser() {
+        this.input = null;
+        this.channel = null;
+        this.chunkSize = 0;
+        this.buffer = null;
+    }
+
+    /**
+     * Method to refill the buffer with the next bytes of input
+     *
+     * @return false at end of input
+     * @throws IOException if reading or mapping fails
+     */
+    private boolean fill() throws IOException {
+        if (channel != null) {
+            long remaining = channel.size() - chunkOffset;
+            if (remaining <= 0) {
+                return false;
+            }
+            limit = (int) Math.min(chunkSize, remaining);
+            mappedChunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkOffset, limit);
+            chunkOffset += limit;
+            position = 0;
+            return true;
+        }
+
+        limit = Math.max(input.read(buffer, 0, buffer.length), 0);
+        position = 0;
+        return limit > 0;
+    }
+
+    /**
+     * Method to read the next byte
+     *
+     * @return next byte, or -1 at end of input
+     * @throws IOException if reading fails
+     */
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer != null ? buffer[position++] : mappedChunk.get(position++);
+    }
+
+    /**
+     * Method to push back the byte just read
+     *
+     * @param next byte just read
+     */
+    private void unread(int next) {
+        if (next != -1) {
+            position--;
+        }
+    }
+
+    /**
+     * Method to read the next byte that is not a space or tab
+     *
+     * @return next non-blank byte, or -1 at end of input
+     * @throws IOException if reading fails
+     */
+    private int readNonBlank() throws IOException {
+        int next = read();
+        while (next == ' ' || next == '\t') {
+            next = read();
+        }
+        return next;
+    }
+
+    /**
+     * Method to skip the rest of the current line
+     *
+     * @param next byte already read
+     * @throws IOException if reading fails
+     */
+    private void skipLine(int next) throws IOException {
+        while (next != '\n' && next != -1) {
+            next = read();
+        }
+    }
+
+    /**
+     * Method to mark the current command as malformed and skip the rest of its line
+     *
+     * @param message description of the problem
+     * @param next    byte already read
+     * @return true, as a command (the invalid one) was read
+     * @throws IOException if reading fails
+     */
+    private boolean invalid(String message, int next) throws IOException {
+        operation = opcode.Invalid;
+        error = "Line " + lineNumber + ": " + message;
+        skipLine(next);
+        return true;
+    }
+
+    /**
+     * Method to match the operation name starting with the given byte
+     *
+     * @param first first byte of the name
+     * @return operation code, or Invalid if the name is unknown
+     * @throws IOException if reading fails
+     */
+    private int readOperation(int first) throws IOException {
+        int candidate;
+        switch (first) {
+            case 'I':
+                candidate = opcode.Insert;
+                break;
+            case 'P':
+                candidate = opcode.Print;
+                break;
+            case 'G':
+                candidate = opcode.GetNextRide;
+                break;
+            case 'C':
+                candidate = opcode.CancelRide;
+                break;
+            case 'U':
+                candidate = opcode.UpdateTrip;
+                break;
+            default:
+                return opcode.Invalid;
+        }
+
+        byte[] name = operationNames[candidate];
+        for (int index = 1; index < name.length; index++) {
+            int next = read();
+            if (next != name[index]) {
+                unread(next);
+                return opcode.Invalid;
+            }
+        }
+        if (candidate == opcode.GetNextRide) {
+            int next = read();
+            if (next == 's') {
+                return opcode.GetNextRides;
+            }
+            unread(next);
+        }
+        return candidate;
+    }
+
+    /**
+     * Method to read the next command
+     *
+     * @return false at end of input
+     * @throws IOException           if reading fails
+     * @throws NumberFormatException if an argument is not a valid int
+     */
+    public boolean next() throws IOException {
+        int next = readNonBlank();
+        lineNumber++;
+        while (next == '\n' || next == '\r') {
+            if (next == '\n') {
+                lineNumber++;
+            }
+            next = readNonBlank();
+        }
+        if (next == -1) {
+            lineNumber--;
+            return false;
+        }
+
+        operation = readOperation(next);
+        argumentCount = 0;
+        if (operation == opcode.Invalid) {
+            return invalid("Invalid operation name", read());
+        }
+
+        next = readNonBlank();
+        if (next != '(') {
+            return invalid("Expected '(' after operation name", next);
+        }
+
+        next = readNonBlank();
+        if (next != ')') {
+            while (true) {
+                if (argumentCount == maximumArguments) {
+                    return invalid("Too many parameters", next);
+                }
+                next = readArgument(next);
+                next = next == ' ' || next == '\t' ? readNonBlank() : next;
+                if (next == ')') {
+                    break;
+                }
+                if (next != ',') {
+                    return invalid("Expected ',' or ')' in parameters", next);
+                }
+                next = readNonBlank();
+            }
+        }
+
+        next = readNonBlank();
+        if (next == '\r') {
+            next = read();
+        }
+        if (next != '\n' && next != -1) {
+            return invalid("Unexpected characters after ')'", next);
+        }
+        return true;
+    }
+
+    /**
+     * Method to decode a decimal int argument
+     *
+     * @param next first byte of the argument
+     * @return byte following the argument
+     * @throws IOException           if reading fails
+     * @throws NumberFormatException if the argument is not a valid int
+     */
+    private int readArgument(int next) throws IOException {
+        boolean negative = next == '-';
+        if (negative) {
+            next = read();
+        }
+        if (next < '0' || next > '9') {
+            throw new NumberFormatException("Invalid integer on line " + lineNumber);
+        }
+
+        long value = 0;
+        while (next >= '0' && next <= '9') {
+            value = value * 10 + (next - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Invalid integer on line " + lineNumber);
+            }
+            next = read();
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Invalid integer on line " + lineNumber);
+        }
+        arguments[argumentCount++] = (int) value;
+        return next;
+    }
+}
@@ -0,0 +1,501 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Class implementing Gator Taxi for many threads at once. Request threads Insert, CancelRide and UpdateTrip
+ * while dispatcher threads take rides with GetNextRide, each thread writing to its own output sink.
+ * <p>
+ * The tree and the heap have a lock each, always taken tree first. Print(rideNumber) reads the tree
+ * optimistically and Print(rideNumber1, rideNumber2) under a shared lock, page by page. GetNextRide pops
+ * the heap holding only the heap lock, which claims the ride, and then unlinks it from the tree; a ride
+ * found in the tree but no longer in the heap has been claimed and is treated as gone. CancelRide and
+ * UpdateTrip find their ride outside the tree lock and claim it the same way.
+ * <p>
+ * Writers still serialize on the tree lock: Insert holds it to allocate, link and enqueue a ride, every
+ * claimed ride is unlinked under it, and UpdateTrip holds it to change a key. Only the finds and the
+ * heap work of CancelRide and of cancelling UpdateTrips run outside it. Splitting rides by ride number
+ * across independent trees is what --shards does.
+ */
+public class concurrentGatorTaxi {
+
+    /**
+     * Number of rides copied out of the tree per shared lock hold in range queries
+     */
+    private static final int rangePageSize = 64;
+
+    /**
+     * Table holding every active ride
+     */
+    private final rideTable rides;
+
+    /**
+     * Red-black tree of active rides, guarded by treeLock
+     */
+    private final redBlackTree redBlackTree;
+
+    /**
+     * Priority queue of unclaimed rides, guarded by heapLock
+     */
+    private final ridePriorityQueue rideQueue;
+
+    /**
+     * Lock of the red-black tree and of the ride table columns other than heapIndex
+     */
+    private final StampedLock treeLock = new StampedLock();
+
+    /**
+     * Lock of the priority queue and of the heapIndex column; taken after treeLock when both are held
+     */
+    private final ReentrantLock heapLock = new ReentrantLock();
+
+    /**
+     * Metrics file, or null when metrics are off
+     */
+    private final Path metricsPath;
+
+    /**
+     * Milliseconds between writes of the metrics file, or 0 when metrics are off
+     */
+    final int metricsInterval;
+
+    /**
+     * Per-thread page of ride slots for range queries
+     */
+    private final ThreadLocal<int[]> ridePage = ThreadLocal.withInitial(() -> new int[rangePageSize]);
+
+    /**
+     * Per-thread buffer of (rideNumber, rideCost, tripDuration) copied out of the table
+     */
+    private final ThreadLocal<int[]> rideBuffer = ThreadLocal.withInitial(() -> new int[rangePageSize * 3]);
+
+    /**
+     * Concurrent Gator Taxi constructor
+     *
+     * @param options start-up options
+     */
+    public concurrentGatorTaxi(gatorTaxiOptions options) {
+        rides = new rideTable(options.expectedRides);
+        redBlackTree = new redBlackTree(rides, options.hashIndex ? new rideHashIndex(options.expectedRides) : null);
+        rideQueue = ridePriorityQueue.create(rides, options.expectedRides, options);
+        metricsPath = options.metricsFileName == null ? null : Paths.get(options.metricsFileName);
+        metricsInterval = options.metricsFileName == null ? 0 : options.metricsInterval;
+    }
+
+    /**
+     * Method to write the metrics file if it is due, with the black height of the tree and the size of the
+     * heap read under their locks. Called from one thread only.
+     *
+     * @throws IOException if writing fails
+     */
+    public void writeMetricsIfDue() throws IOException {
+        if (metricsPath == null || !gatorTaxiMetrics.isWriteDue(metricsInterval)) {
+            return;
+        }
+        int treeBlackHeight;
+        long stamp = treeLock.readLock();
+        try {
+            treeBlackHeight = redBlackTree.blackHeight();
+        } finally {
+            treeLock.unlockRead(stamp);
+        }
+        int heapSize;
+        heapLock.lock();
+        try {
+            heapSize = rideQueue.size();
+        } finally {
+            heapLock.unlock();
+        }
+        gatorTaxiMetrics.write(metricsPath, treeBlackHeight, heapSize, 0);
+    }
+
+    /**
+     * Method to insert ride into red-black tree and min heap
+     *
+     * @param rideNumber   ride number
+     * @param rideCost     cost of ride
+     * @param tripDuration trip duration of ride
+     * @return error message if any
+     */
+    public String insert(int rideNumber, int rideCost, int tripDuration) {
+        long stamp = treeLock.writeLock();
+        try {
+            int ride = allocate(rideNumber, rideCost, tripDuration);
+            if (!redBlackTree.insert(ride)) {
+                rides.release(ride);
+                return "Duplicate RideNumber";
+            }
+
+            heapLock.lock();
+            try {
+                rideQueue.insert(ride);
+            } finally {
+                heapLock.unlock();
+            }
+            return "";
+        } finally {
+            treeLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to store a ride in the table - growing the table replaces every column, so it also excludes
+     * the heap, which reads costs and writes heap indexes holding only the heap lock. Requires treeLock.
+     *
+     * @param rideNumber   ride number
+     * @param rideCost     cost of ride
+     * @param tripDuration trip duration of ride
+     * @return slot of the stored ride
+     */
+    private int allocate(int rideNumber, int rideCost, int tripDuration) {
+        if (!rides.isFull()) {
+            return rides.allocate(rideNumber, rideCost, tripDuration);
+        }
+        heapLock.lock();
+        try {
+            return rides.allocate(rideNumber, rideCost, tripDuration);
+        } finally {
+            heapLock.unlock();
+        }
+    }
+
+    /**
+     * Method to write range of rides between rideNumber1 and rideNumber2. Each page is copied under the
+     * shared lock and written after releasing it, so the range reflects every change made before the call
+     * and may reflect changes made while it runs.
+     *
+     * @param rideNumber1 start limit of range
+     * @param rideNumber2 end limit of range
+     * @param sink        output of the calling thread
+     * @throws IOException if writing fails
+     */
+    public void printRidesInRange(int rideNumber1, int rideNumber2, outputSink sink) throws IOException {
+        int[] page = ridePage.get();
+        int[] buffer = rideBuffer.get();
+        boolean isFirst = true;
+        redBlackTreeCursor cursor = null;
+        int size;
+
+        do {
+            long stamp = treeLock.readLock();
+            try {
+                cursor = cursor == null ? redBlackTree.range(rideNumber1, rideNumber2) : cursor.openAfter(cursor.lastRideNumber(), rideNumber2);
+                size = cursor.nextPage(page);
+                for (int index = 0; index < size; index++) {
+                    copyRide(page[index], buffer, index * 3);
+                }
+            } finally {
+                treeLock.unlockRead(stamp);
+            }
+
+            if (isFirst && size == 0) {
+                sink.writeAscii("(0,0,0)");
+                return;
+            }
+            for (int index = 0; index < size; index++) {
+                if (!isFirst) {
+                    sink.writeByte(',');
+                }
+                int offset = index * 3;
+                sink.writeRide(buffer[offset], buffer[offset + 1], buffer[offset + 2]);
+                isFirst = false;
+            }
+        } while (size == rangePageSize);
+    }
+
+    /**
+     * Method to write ride details, read without locking unless a writer gets in the way
+     *
+     * @param rideNumber given ride number
+     * @param sink       output of the calling thread
+     * @throws IOException if writing fails
+     */
+    public void printRidesInRange(int rideNumber, outputSink sink) throws IOException {
+        int[] buffer = rideBuffer.get();
+        boolean found = false;
+
+        long stamp = treeLock.tryOptimisticRead();
+        if (stamp != 0) {
+            found = copyRideOptimistic(redBlackTree.findOptimistic(rideNumber), buffer);
+        }
+        if (stamp == 0 || !treeLock.validate(stamp)) {
+            stamp = treeLock.readLock();
+            try {
+                int ride = redBlackTree.find(rideNumber);
+                found = ride != rideTable.noSlot;
+                if (found) {
+                    copyRide(ride, buffer, 0);
+                }
+            } finally {
+                treeLock.unlockRead(stamp);
+            }
+        }
+
+        if (!found) {
+            sink.writeAscii("(0,0,0)");
+            return;
+        }
+        sink.writeRide(buffer[0], buffer[1], buffer[2]);
+    }
+
+    /**
+     * Method to copy a ride out of the table. Requires treeLock.
+     *
+     * @param ride   slot of the ride
+     * @param buffer buffer to copy to
+     * @param offset position of the copy in the buffer
+     */
+    private void copyRide(int ride, int[] buffer, int offset) {
+        buffer[offset] = rides.rideNumber[ride];
+        buffer[offset + 1] = rides.rideCost[ride];
+        buffer[offset + 2] = rides.tripDuration[ride];
+    }
+
+    /**
+     * Method to copy a ride out of the table without holding treeLock - the copy is only trusted once the
+     * optimistic read has been validated
+     *
+     * @param ride   slot of the ride, or noSlot
+     * @param buffer buffer to copy to
+     * @return true if a ride was copied
+     */
+    private boolean copyRideOptimistic(int ride, int[] buffer) {
+        int[] rideNumber = rides.rideNumber;
+        int[] rideCost = rides.rideCost;
+        int[] tripDuration = rides.tripDuration;
+        if (ride == rideTable.noSlot || ride >= Math.min(rideNumber.length, Math.min(rideCost.length, tripDuration.length))) {
+            return false;
+        }
+        buffer[0] = rideNumber[ride];
+        buffer[1] = rideCost[ride];
+        buffer[2] = tripDuration[ride];
+        return true;
+    }
+
+    /**
+     * Method to remove next active ride with the lowest cost and write it
+     *
+     * @param sink output of the calling thread
+     * @throws IOException if writing fails
+     */
+    public void printNextRide(outputSink sink) throws IOException {
+        int[] buffer = rideBuffer.get();
+        int lowestCostRide;
+
+        heapLock.lock();
+        try {
+            lowestCostRide = rideQueue.deleteMin();
+        } finally {
+            heapLock.unlock();
+        }
+        if (lowestCostRide == rideTable.noSlot) {
+            sink.writeAscii("No active ride requests");
+            return;
+        }
+
+        long stamp = treeLock.writeLock();
+        try {
+            copyRide(lowestCostRide, buffer, 0);
+            redBlackTree.deleteNode(lowestCostRide);
+            rides.release(lowestCostRide);
+        } finally {
+            treeLock.unlockWrite(stamp);
+        }
+        sink.writeRide(buffer[0], buffer[1], buffer[2]);
+    }
+
+    /**
+     * Method to remove the k active rides with the lowest cost and write them one per line, as k calls of
+     * printNextRide would. Rides are claimed a page at a time with one deleteMins under the heap lock and
+     * unlinked with one deleteNodes under the tree lock, so a large k never holds either lock for long.
+     *
+     * @param k    number of rides to take
+     * @param sink output of the calling thread
+     * @return number of rides taken
+     * @throws IOException if writing fails
+     */
+    public int printNextRides(int k, outputSink sink) throws IOException {
+        int[] page = ridePage.get();
+        int[] buffer = rideBuffer.get();
+        int taken = 0;
+
+        while (taken < k) {
+            int count;
+            heapLock.lock();
+            try {
+                count = rideQueue.deleteMins(page, Math.min(k - taken, page.length));
+            } finally {
+                heapLock.unlock();
+            }
+            if (count == 0) {
+                break;
+            }
+
+            long stamp = treeLock.writeLock();
+            try {
+                for (int index = 0; index < count; index++) {
+                    copyRide(page[index], buffer, index * 3);
+                }
+                redBlackTree.deleteNodes(page, count, rides.size());
+                for (int index = 0; index < count; index++) {
+                    rides.release(page[index]);
+                }
+            } finally {
+                treeLock.unlockWrite(stamp);
+            }
+            for (int index = 0; index < count; index++) {
+                if (taken + index > 0) {
+                    sink.writeByte('\n');
+                }
+                sink.writeRide(buffer[index * 3], buffer[index * 3 + 1], buffer[index * 3 + 2]);
+            }
+            taken += count;
+        }
+
+        for (int call = taken; call < k; call++) {
+            if (call > 0) {
+                sink.writeByte('\n');
+            }
+            sink.writeAscii("No active ride requests");
+        }
+        return taken;
+    }
+
+    /**
+     * Method to find a ride, reading the tree optimistically unless a writer gets in the way. The slot may
+     * be claimed or reused as soon as this returns, so callers check it again with isQueued.
+     *
+     * @param rideNumber ride number to find
+     * @return slot of the ride, or noSlot
+     */
+    private int findRide(int rideNumber) {
+        long stamp = treeLock.tryOptimisticRead();
+        if (stamp != 0) {
+            int ride = redBlackTree.findOptimistic(rideNumber);
+            if (treeLock.validate(stamp)) {
+                return ride;
+            }
+        }
+        stamp = treeLock.readLock();
+        try {
+            return redBlackTree.find(rideNumber);
+        } finally {
+            treeLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Method to check that a slot found by findRide still holds an unclaimed ride with the given number - a
+     * queued slot is neither released nor reallocated, so its ride number is stable. Requires heapLock.
+     *
+     * @param ride       slot of the ride
+     * @param rideNumber ride number the slot was found under
+     * @return true if the ride is still in the priority queue
+     */
+    private boolean isQueued(int ride, int rideNumber) {
+        return rideQueue.contains(ride) && rides.rideNumber[ride] == rideNumber;
+    }
+
+    /**
+     * Method to unlink a claimed ride from the tree and free its slot
+     *
+     * @param ride slot of a ride no longer in the priority queue
+     */
+    private void unlink(int ride) {
+        long stamp = treeLock.writeLock();
+        try {
+            redBlackTree.deleteNode(ride);
+            rides.release(ride);
+        } finally {
+            treeLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Method to cancel a ride. The ride is found outside the tree lock and claimed under the heap lock, as
+     * GetNextRide claims it, so the tree lock is held only to unlink it.
+     *
+     * @param rideNumber ride number of ride to cancel
+     */
+    public void cancelRide(int rideNumber) {
+        int ride = findRide(rideNumber);
+        if (ride == rideTable.noSlot) {
+            return;
+        }
+
+        heapLock.lock();
+        try {
+            if (!isQueued(ride, rideNumber)) {
+                return;
+            }
+            rideQueue.arbitraryDelete(ride);
+        } finally {
+            heapLock.unlock();
+        }
+        unlink(ride);
+    }
+
+    /**
+     * Method to update trip duration of a ride. The ride keeps its slot and tree node and only moves
+     * within the priority queue. A ride cancelled by the update is claimed like in cancelRide; changing
+     * its key also takes the tree lock, since Print reads the cost and trip duration under it.
+     *
+     * @param rideNumber       ride number of ride to update
+     * @param new_tripDuration new trip duration
+     */
+    public void updateTrip(int rideNumber, int new_tripDuration) {
+        int ride = findRide(rideNumber);
+        if (ride == rideTable.noSlot) {
+            return;
+        }
+
+        boolean cancelled;
+        heapLock.lock();
+        try {
+            if (!isQueued(ride, rideNumber)) {
+                return;
+            }
+            cancelled = new_tripDuration > 2 * rides.tripDuration[ride];
+            if (cancelled) {
+                rideQueue.arbitraryDelete(ride);
+            }
+        } finally {
+            heapLock.unlock();
+        }
+        if (cancelled) {
+            unlink(ride);
+            return;
+        }
+
+        long stamp = treeLock.writeLock();
+        try {
+            heapLock.lock();
+            try {
+                if (!isQueued(ride, rideNumber)) {
+                    return;
+                }
+                int tripDuration = rides.tripDuration[ride];
+                int rideCost = rides.rideCost[ride];
+                cancelled = new_tripDuration > 2 * tripDuration;
+                if (cancelled) {
+                    rideQueue.arbitraryDelete(ride);
+                } else if (new_tripDuration <= tripDuration) {
+                    rideQueue.changeKey(ride, rideCost, new_tripDuration);
+                } else {
+                    rideQueue.changeKey(ride, rideCost + 10, new_tripDuration);
+                }
+            } finally {
+                heapLock.unlock();
+            }
+
+            if (cancelled) {
+                redBlackTree.deleteNode(ride);
+                rides.release(ride);
+            }
+        } finally {
+            treeLock.unlockWrite(stamp);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+import java.util.Arrays;
+
+/**
+ * Class implementing d-ary min heap over the slots of a ride table. With 4 or 8 children per node the tree
+ * is half or a third as deep as a binary heap and the children of a node share a cache line, so deleteMin
+ * touches fewer lines at the cost of more comparisons per level.
+ */
+public class dAryHeap implements ridePriorityQueue {
+
+    /**
+     * Table holding the rides and their heap positions
+     */
+    private final rideTable rides;
+
+    /**
+     * Number of children per node
+     */
+    private final int arity;
+
+    /**
+     * Heap array of ride slots, root at position 0; heapIndex holds position + 1
+     */
+    private int[] heap;
+
+    /**
+     * Number of rides in the heap
+     */
+    private int size;
+
+    /**
+     * Capacity the heap array starts with and never shrinks below
+     */
+    private final int initialCapacity;
+
+    /**
+     * Factor the heap array capacity is multiplied by when it is full
+     */
+    private final double growthFactor;
+
+    /**
+     * Whether the heap array is shrunk again once a burst has drained
+     */
+    private final boolean shrinkAfterBursts;
+
+    /**
+     * Frontier deleteMins searches for the smallest rides with
+     */
+    private final rideFrontier frontier;
+
+    /**
+     * D-ary heap constructor
+     *
+     * @param rides             table holding the rides
+     * @param arity             number of children per node, at least 2
+     * @param initialCapacity   number of rides the heap holds before growing
+     * @param growthFactor      factor (greater than 1) the capacity is multiplied by when the heap is full
+     * @param shrinkAfterBursts whether to halve the capacity when the heap drops to a quarter full
+     */
+    public dAryHeap(rideTable rides, int arity, int initialCapacity, double growthFactor, boolean shrinkAfterBursts) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2");
+        }
+        if (growthFactor <= 1.0) {
+            throw new IllegalArgumentException("Growth factor must be greater than 1");
+        }
+
+        this.rides = rides;
+        this.arity = arity;
+        this.frontier = new rideFrontier(rides);
+        this.initialCapacity = Math.max(initialCapacity, 1);
+        this.growthFactor = growthFactor;
+        this.shrinkAfterBursts = shrinkAfterBursts;
+        heap = new int[this.initialCapacity];
+    }
+
+    /**
+     * Method to get number of rides in the heap
+     *
+     * @return number of rides
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to get number of rides the heap holds before growing
+     *
+     * @return capacity of heap array
+     */
+    public int capacity() {
+        return heap.length;
+    }
+
+    /**
+     * Method to grow heap array by growth factor
+     */
+    private void grow() {
+        int capacity = heap.length;
+        heap = Arrays.copyOf(heap, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity + 1L, (long) (capacity * growthFactor))));
+    }
+
+    /**
+     * Method to halve heap array once a burst has drained to a quarter of its capacity
+     */
+    private void shrinkIfSparse() {
+        int capacity = heap.length;
+        if (shrinkAfterBursts && capacity > initialCapacity && size < capacity / 4) {
+            heap = Arrays.copyOf(heap, Math.max(initialCapacity, capacity / 2));
+        }
+    }
+
+    /**
+     * Method to put a ride at a position and record the position
+     *
+     * @param position position in heap array
+     * @param slot     slot of the ride
+     */
+    private void place(int position, int slot) {
+        heap[position] = slot;
+        rides.heapIndex[slot] = position + 1;
+    }
+
+    /**
+     * Method to move a ride up until its parent is not greater than it
+     *
+     * @param position position of the ride in heap array
+     */
+    private void siftUp(int position) {
+        int slot = heap[position];
+        int levels = 0;
+
+        while (position > 0) {
+            int parent = (position - 1) / arity;
+            if (!rides.ranksBefore(slot, heap[parent])) {
+                break;
+            }
+            place(position, heap[parent]);
+            position = parent;
+            levels++;
+        }
+        place(position, slot);
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.recordSiftUp(levels);
+        }
+    }
+
+    /**
+     * Method to move a ride down until no child is less than it
+     *
+     * @param position position of the ride in heap array
+     */
+    private void siftDown(int position) {
+        int slot = heap[position];
+        int levels = 0;
+
+        while (true) {
+            int firstChild = position * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+
+            int smallest = firstChild;
+            int lastChild = Math.min(firstChild + arity, size);
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (rides.ranksBefore(heap[child], heap[smallest])) {
+                    smallest = child;
+                }
+            }
+            if (!rides.ranksBefore(heap[smallest], slot)) {
+                break;
+            }
+            place(position, heap[smallest]);
+            position = smallest;
+            levels++;
+        }
+        place(position, slot);
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.recordSiftDown(levels);
+        }
+    }
+
+    /**
+     * Method to insert a ride into the heap
+     *
+     * @param slot slot of the ride to be inserted
+     */
+    @Override
+    public void insert(int slot) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        if (size == heap.length) {
+            grow();
+        }
+        heap[size] = slot;
+        siftUp(size++);
+    }
+
+    /**
+     * Method to insert a batch of rides by appending them and heapifying bottom-up
+     *
+     * @param slots slots of the rides to be inserted
+     * @param count number of slots to take from the start of slots
+     */
+    @Override
+    public void bulkLoad(int[] slots, int count) {
+        if (size + count > heap.length) {
+            heap = Arrays.copyOf(heap, size + count);
+        }
+
+        System.arraycopy(slots, 0, heap, size, count);
+        size += count;
+        heapify();
+    }
+
+    /**
+     * Method to restore heap order over the whole heap array bottom-up, sifting every position down from the
+     * last one so each slot's heapIndex is wired in the same sweep
+     */
+    private void heapify() {
+        for (int position = size - 1; position >= 0; position--) {
+            siftDown(position);
+        }
+    }
+
+    /**
+     * Method to get the minimum without removing it
+     *
+     * @return slot of the minimum ride, or noSlot if empty
+     */
+    @Override
+    public int peek() {
+        return size == 0 ? rideTable.noSlot : heap[0];
+    }
+
+    /**
+     * Method to remove the minimum
+     *
+     * @return slot of the minimum ride, or noSlot if empty
+     */
+    @Override
+    public int deleteMin() {
+        if (size == 0) {
+            return rideTable.noSlot;
+        }
+
+        int popped = heap[0];
+        if (rideTable.slotChecks) {
+            rides.checkLive(popped);
+        }
+        heap[0] = heap[--size];
+        rides.heapIndex[popped] = 0;
+        if (size > 0) {
+            siftDown(0);
+        }
+        shrinkIfSparse();
+        return popped;
+    }
+
+    /**
+     * Method to remove up to count minimums at once, as minHeap does - one deleteMin at a time for a few,
+     * and for an eighth of the heap or more a frontier search from the root followed by a bottom-up rebuild
+     *
+     * @param slots array to write the removed slots to, smallest first
+     * @param count most rides to remove
+     * @return number of rides removed, less than count only if the heap ran empty
+     */
+    @Override
+    public int deleteMins(int[] slots, int count) {
+        count = Math.min(count, size);
+        if ((long) count * 8 < size) {
+            for (int taken = 0; taken < count; taken++) {
+                slots[taken] = deleteMin();
+            }
+            return count;
+        }
+
+        frontier.clear(count * (arity - 1) + 1);
+        frontier.push(heap[0], 0);
+        for (int taken = 0; taken < count; taken++) {
+            slots[taken] = frontier.peekSlot();
+            int position = frontier.pop();
+            rides.heapIndex[slots[taken]] = 0;
+            int firstChild = position * arity + 1;
+            int lastChild = (int) Math.min((long) firstChild + arity, size);
+            for (int child = firstChild; child < lastChild; child++) {
+                frontier.push(heap[child], child);
+            }
+        }
+
+        int kept = 0;
+        for (int position = 0; position < size; position++) {
+            if (rides.heapIndex[heap[position]] != 0) {
+                heap[kept++] = heap[position];
+            }
+        }
+        size = kept;
+        heapify();
+        shrinkIfSparse();
+        return count;
+    }
+
+    /**
+     * Method to remove a ride anywhere in the heap
+     *
+     * @param slot slot of the ride to be deleted
+     */
+    @Override
+    public void arbitraryDelete(int slot) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        int position = rides.heapIndex[slot] - 1;
+        int moved = heap[--size];
+        rides.heapIndex[slot] = 0;
+        if (position < size) {
+            heap[position] = moved;
+            siftUp(position);
+            siftDown(rides.heapIndex[moved] - 1);
+        }
+        shrinkIfSparse();
+    }
+
+    /**
+     * Method to remove every cancelled ride by compacting the heap array around them and rebuilding it
+     * bottom-up, O(n) however many there are
+     *
+     * @param slots array to write the removed slots to, long enough for every cancelled ride
+     * @return number of rides removed
+     */
+    @Override
+    public int removeCancelled(int[] slots) {
+        int removed = 0;
+        int kept = 0;
+        for (int position = 0; position < size; position++) {
+            int slot = heap[position];
+            if (rides.cancelled[slot]) {
+                rides.heapIndex[slot] = 0;
+                slots[removed++] = slot;
+            } else {
+                heap[kept++] = slot;
+            }
+        }
+        size = kept;
+        heapify();
+        shrinkIfSparse();
+        return removed;
+    }
+
+    /**
+     * Method to change the key of a ride and sift it up or down from its position
+     *
+     * @param slot         slot of the ride
+     * @param rideCost     new cost of the ride
+     * @param tripDuration new trip duration of the ride
+     */
+    @Override
+    public void changeKey(int slot, int rideCost, int tripDuration) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        rides.rideCost[slot] = rideCost;
+        rides.tripDuration[slot] = tripDuration;
+        int position = rides.heapIndex[slot] - 1;
+        siftUp(position);
+        if (rides.heapIndex[slot] - 1 == position) {
+            siftDown(position);
+        }
+    }
+
+    /**
+     * Method to check whether a ride is in the heap
+     *
+     * @param slot slot of the ride
+     * @return true if the ride has not been deleted from the heap
+     */
+    @Override
+    public boolean contains(int slot) {
+        return rides.heapIndex[slot] != 0;
+    }
+}
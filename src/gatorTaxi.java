@@ -1,23 +1,81 @@
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 /**
  * Class implementing Gator Taxi
  */
 public class gatorTaxi {
 
+    /**
+     * Table holding every active ride
+     */
+    static rideTable rides = new rideTable(2000);
+
     /**
      * Object of red-black tree
      */
-    static redBlackTree<redBlackTreeRide> redBlackTree = new redBlackTree<>();
+    static redBlackTree redBlackTree = new redBlackTree(rides);
+
+    /**
+     * Priority queue of rides, a binary min heap unless chosen otherwise
+     */
+    static ridePriorityQueue rideQueue = new minHeap(rides, 2000);
+
+    /**
+     * Write-ahead log the commands run are recorded in, or null when running without one
+     */
+    static rideJournal journal;
+
+    /**
+     * Memory-mapped snapshot the rides not yet touched are served from, or null when every ride is in the
+     * structures above
+     */
+    static rideSnapshot snapshot;
+
+    /**
+     * Number of rides cancelled lazily that still wait in the priority queue
+     */
+    private static int cancelledRides;
+
+    /**
+     * Options Gator Taxi was last initialized with
+     */
+    private static gatorTaxiOptions options = new gatorTaxiOptions();
 
     /**
-     * Object of min heap
+     * Page of ride slots reused by range queries
      */
-    static minHeap minHeap = new minHeap(2000);
+    private static final int[] rangePage = new int[256];
+
+    /**
+     * Slots of the rides taken by the last GetNextRides, reused between calls
+     */
+    private static int[] nextRides = new int[16];
+
+    /**
+     * In-memory output backing the String returning methods
+     */
+    private static final outputSink stringSink = new outputSink(256);
+
+    /**
+     * Method to reset Gator Taxi to an empty state sized by the given options
+     *
+     * @param options start-up options
+     */
+    public static void initialize(gatorTaxiOptions options) {
+        gatorTaxi.options = options;
+        snapshot = null;
+        cancelledRides = 0;
+        rides = new rideTable(options.expectedRides);
+        redBlackTree = new redBlackTree(rides, options.hashIndex ? new rideHashIndex(options.expectedRides) : null);
+        rideQueue = ridePriorityQueue.create(rides, options.expectedRides, options);
+    }
 
     /**
      * Method to insert ride into red-black tree and min heap
@@ -28,25 +86,118 @@ public class gatorTaxi {
      * @return error message if any
      */
     public static String insert(int rideNumber, int rideCost, int tripDuration) {
-        redBlackTreeRide ride = new redBlackTreeRide(rideNumber, rideCost, tripDuration);
-        redBlackTreeNode<redBlackTreeRide> redBlackTreeNode = redBlackTree.insert(ride);
+        if (snapshot != null && snapshot.find(rideNumber) >= 0) {
+            return "Duplicate RideNumber";
+        }
+
+        int ride = rides.allocate(rideNumber, rideCost, tripDuration);
 
-        if (redBlackTreeNode == null) {
+        if (!redBlackTree.insert(ride)) {
+            rides.release(ride);
             return "Duplicate RideNumber";
         }
 
-        minHeapRide minHeapRide = new minHeapRide(rideNumber, rideCost, tripDuration);
-        minHeapNode minHeapNode = minHeap.insert(minHeapRide);
+        rideQueue.insert(ride);
+        return "";
+    }
 
-        if (minHeapNode == null) {
-            return "MinHeap size exceeded";
+    /**
+     * Method to insert a batch of rides at once, all or none. The batch is radix sorted by ride number, which
+     * also exposes duplicates as neighbours, and the rides are stored in that order so tree neighbours share
+     * cache lines. Into an empty Gator Taxi the red-black tree is then built bottom-up and the priority queue
+     * heapified, O(n) overall; otherwise the sorted rides go into the tree one by one.
+     *
+     * @param rideNumbers   ride numbers of the rides
+     * @param rideCosts     costs of the rides
+     * @param tripDurations trip durations of the rides
+     * @param count         number of rides to take from the start of the arrays
+     * @return error message if any
+     */
+    public static String bulkLoad(int[] rideNumbers, int[] rideCosts, int[] tripDurations, int count) {
+        int[] order = sortByRideNumber(rideNumbers, count);
+        for (int index = 0; index < count; index++) {
+            int rideNumber = rideNumbers[order[index]];
+            if ((index > 0 && rideNumber == rideNumbers[order[index - 1]]) || redBlackTree.find(rideNumber) != rideTable.noSlot
+                    || (snapshot != null && snapshot.find(rideNumber) >= 0)) {
+                return "Duplicate RideNumber";
+            }
         }
 
-        ride.minHeapNodePointer = minHeapNode;
-        minHeapRide.redBlackTreeNodePointer = redBlackTreeNode;
+        rides.reserve(count);
+        int[] slots = new int[count];
+        for (int index = 0; index < count; index++) {
+            int ride = order[index];
+            slots[index] = rides.allocate(rideNumbers[ride], rideCosts[ride], tripDurations[ride]);
+        }
+
+        if (redBlackTree.isEmpty()) {
+            redBlackTree.bulkLoad(slots, count);
+        } else {
+            for (int index = 0; index < count; index++) {
+                redBlackTree.insert(slots[index]);
+            }
+        }
+        rideQueue.bulkLoad(slots, count);
         return "";
     }
 
+    /**
+     * Method to order a batch by ride number. A batch that is already sorted, as a checkpoint is, costs a
+     * single scan.
+     *
+     * @param rideNumbers ride numbers of the batch
+     * @param count       number of rides to take from the start of rideNumbers
+     * @return indexes of the rides in increasing ride number order
+     */
+    private static int[] sortByRideNumber(int[] rideNumbers, int count) {
+        int[] order = new int[count];
+        boolean sorted = true;
+        for (int index = 0; index < count; index++) {
+            order[index] = index;
+            sorted &= index == 0 || rideNumbers[index - 1] <= rideNumbers[index];
+        }
+        return sorted ? order : radixSort(rideNumbers, order, count);
+    }
+
+    /**
+     * Method to stably reorder indexes by a key with a least significant digit radix sort, one byte per pass.
+     * Passes over a byte that every key shares are skipped.
+     *
+     * @param keys  keys, indexed by the values in order
+     * @param order indexes to reorder; may be reused for the result
+     * @param count number of indexes in order
+     * @return indexes in increasing key order, ties kept in their previous order
+     */
+    static int[] radixSort(int[] keys, int[] order, int count) {
+        if (count == 0) {
+            return order;
+        }
+
+        int[] buffer = new int[count];
+        int[] counts = new int[257];
+        for (int shift = 0; shift < 32; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int index = 0; index < count; index++) {
+                counts[((keys[index] ^ Integer.MIN_VALUE) >>> shift & 0xFF) + 1]++;
+            }
+            if (counts[((keys[0] ^ Integer.MIN_VALUE) >>> shift & 0xFF) + 1] == count) {
+                continue;
+            }
+
+            for (int digit = 0; digit < 256; digit++) {
+                counts[digit + 1] += counts[digit];
+            }
+            for (int index = 0; index < count; index++) {
+                int key = order[index];
+                buffer[counts[(keys[key] ^ Integer.MIN_VALUE) >>> shift & 0xFF]++] = key;
+            }
+            int[] temp = order;
+            order = buffer;
+            buffer = temp;
+        }
+        return order;
+    }
+
     /**
      * Method to return range of rides between rideNumber1 and rideNumber2
      *
@@ -55,23 +206,100 @@ public class gatorTaxi {
      * @return list of rides in range
      */
     public static String getRidesInRange(int rideNumber1, int rideNumber2) {
-        redBlackTreeRide[] results = new redBlackTreeRide[2000];
+        try {
+            printRidesInRange(rideNumber1, rideNumber2, stringSink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stringSink.takeString();
+    }
+
+    /**
+     * Method to write range of rides between rideNumber1 and rideNumber2 page by page
+     *
+     * @param rideNumber1 start limit of range
+     * @param rideNumber2 end limit of range
+     * @param sink        output to stream the rides to
+     * @throws IOException if writing fails
+     */
+    public static void printRidesInRange(int rideNumber1, int rideNumber2, outputSink sink) throws IOException {
+        if (snapshot != null) {
+            printMergedRidesInRange(rideNumber1, rideNumber2, sink);
+            return;
+        }
 
-        int size = redBlackTree.printInRange(rideNumber1, rideNumber2, results);
+        redBlackTreeCursor cursor = redBlackTree.range(rideNumber1, rideNumber2);
 
+        int size = cursor.nextPage(rangePage);
         if (size == 0) {
-            return "(0,0,0)";
+            sink.writeAscii("(0,0,0)");
+            return;
         }
 
-        StringBuilder result = new StringBuilder();
+        boolean isFirst = true;
+        while (size > 0) {
+            for (int index = 0; index < size; index++) {
+                if (!isFirst) {
+                    sink.writeByte(',');
+                }
+                printRide(rangePage[index], sink);
+                isFirst = false;
+            }
+            size = cursor.nextPage(rangePage);
+        }
+    }
+
+    /**
+     * Method to write range of rides between rideNumber1 and rideNumber2, merging the rides of the snapshot
+     * with those of the tree by ride number
+     *
+     * @param rideNumber1 start limit of range
+     * @param rideNumber2 end limit of range
+     * @param sink        output to stream the rides to
+     * @throws IOException if writing fails
+     */
+    private static void printMergedRidesInRange(int rideNumber1, int rideNumber2, outputSink sink) throws IOException {
+        redBlackTreeCursor cursor = redBlackTree.range(rideNumber1, rideNumber2);
+        int ride = cursor.hasNext() ? cursor.next() : rideTable.noSlot;
+        int index = snapshot.ceiling(rideNumber1);
+
+        boolean isFirst = true;
+        while (true) {
+            boolean snapshotInRange = index < snapshot.size() && snapshot.rideNumber(index) <= rideNumber2;
+            if (ride == rideTable.noSlot && !snapshotInRange) {
+                break;
+            }
+            if (!isFirst) {
+                sink.writeByte(',');
+            }
+            isFirst = false;
 
-        int index = 0;
-        while (index != (size - 1)) {
-            result.append(results[index].toString()).append(",");
-            index++;
+            if (ride != rideTable.noSlot && (!snapshotInRange || rides.rideNumber[ride] < snapshot.rideNumber(index))) {
+                printRide(ride, sink);
+                ride = cursor.hasNext() ? cursor.next() : rideTable.noSlot;
+            } else {
+                sink.writeRide(snapshot.rideNumber(index), snapshot.rideCost(index), snapshot.tripDuration(index));
+                index = snapshot.nextLive(index + 1);
+            }
         }
 
-        return result.toString() + results[size - 1];
+        if (isFirst) {
+            sink.writeAscii("(0,0,0)");
+        }
+    }
+
+    /**
+     * Method to write a ride as "(rideNumber,rideCost,tripDuration)"
+     *
+     * @param ride slot of the ride
+     * @param sink output to write the ride to
+     * @throws IOException if writing fails
+     */
+    private static void printRide(int ride, outputSink sink) throws IOException {
+        if (rideTable.slotChecks) {
+            rides.checkLive(ride);
+        }
+        sink.writeRide(rides.rideNumber[ride], rides.rideCost[ride], rides.tripDuration[ride]);
     }
 
     /**
@@ -81,8 +309,34 @@ public class gatorTaxi {
      * @return ride details
      */
     public static String getRidesInRange(int rideNumber) {
-        redBlackTreeRide redBlackTreeRide = redBlackTree.find(rideNumber);
-        return redBlackTreeRide != null ? redBlackTreeRide.toString() : "(0,0,0)";
+        try {
+            printRidesInRange(rideNumber, stringSink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stringSink.takeString();
+    }
+
+    /**
+     * Method to write ride details
+     *
+     * @param rideNumber given ride number
+     * @param sink       output to write the ride to
+     * @throws IOException if writing fails
+     */
+    public static void printRidesInRange(int rideNumber, outputSink sink) throws IOException {
+        int ride = redBlackTree.find(rideNumber);
+        if (ride != rideTable.noSlot) {
+            printRide(ride, sink);
+            return;
+        }
+
+        int index = snapshot == null ? -1 : snapshot.find(rideNumber);
+        if (index < 0) {
+            sink.writeAscii("(0,0,0)");
+            return;
+        }
+        sink.writeRide(snapshot.rideNumber(index), snapshot.rideCost(index), snapshot.tripDuration(index));
     }
 
     /**
@@ -91,133 +345,503 @@ public class gatorTaxi {
      * @return lowest cost ride
      */
     public static String getNextRide() {
-        minHeapRide lowestCostRide = minHeap.deleteMin();
-        if (lowestCostRide == null) {
-            return "No active ride requests";
+        try {
+            printNextRide(stringSink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stringSink.takeString();
+    }
+
+    /**
+     * Method to remove next active ride with the lowest cost and write it
+     *
+     * @param sink output to write the ride to
+     * @return true if a ride was taken, false if there was none
+     * @throws IOException if writing fails
+     */
+    public static boolean printNextRide(outputSink sink) throws IOException {
+        skipCancelledRides();
+        int index = nextSnapshotRide();
+        if (index >= 0) {
+            sink.writeRide(snapshot.rideNumber(index), snapshot.rideCost(index), snapshot.tripDuration(index));
+            removeFromSnapshot(index);
+            return true;
+        }
+
+        int lowestCostRide = rideQueue.deleteMin();
+        if (lowestCostRide == rideTable.noSlot) {
+            sink.writeAscii("No active ride requests");
+            return false;
         }
-        redBlackTree.deleteNode(lowestCostRide.redBlackTreeNodePointer);
-        return lowestCostRide.toString();
+        redBlackTree.deleteNode(lowestCostRide);
+        printRide(lowestCostRide, sink);
+        rides.release(lowestCostRide);
+        return true;
     }
 
     /**
-     * Method to cancel a ride
+     * Method to remove the k active rides with the lowest cost and write them one per line, exactly as k
+     * calls of printNextRide would - the same rides in the same order, and a "No active ride requests" line
+     * for each call that would find none. The queue takes the rides in one deleteMins and the tree drops
+     * them in one deleteNodes; with a snapshot, or cancelled rides still in the queue, they are taken one at a
+     * time.
+     *
+     * @param k    number of rides to take
+     * @param sink output to write the rides to
+     * @return number of rides taken
+     * @throws IOException if writing fails
+     */
+    public static int printNextRides(int k, outputSink sink) throws IOException {
+        int taken = 0;
+        if (snapshot != null || cancelledRides > 0) {
+            for (int call = 0; call < k; call++) {
+                if (call > 0) {
+                    sink.writeByte('\n');
+                }
+                if (printNextRide(sink)) {
+                    taken++;
+                }
+            }
+            return taken;
+        }
+
+        int count = Math.min(k, rideQueue.size());
+        if (nextRides.length < count) {
+            nextRides = new int[count];
+        }
+        taken = rideQueue.deleteMins(nextRides, count);
+        redBlackTree.deleteNodes(nextRides, taken, rides.size());
+        for (int call = 0; call < k; call++) {
+            if (call > 0) {
+                sink.writeByte('\n');
+            }
+            if (call < taken) {
+                printRide(nextRides[call], sink);
+                rides.release(nextRides[call]);
+            } else {
+                sink.writeAscii("No active ride requests");
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Method to remove the ride GetNextRide would print without printing it
+     */
+    static void dropNextRide() {
+        skipCancelledRides();
+        int index = nextSnapshotRide();
+        if (index >= 0) {
+            removeFromSnapshot(index);
+            return;
+        }
+
+        int lowestCostRide = rideQueue.deleteMin();
+        if (lowestCostRide != rideTable.noSlot) {
+            redBlackTree.deleteNode(lowestCostRide);
+            rides.release(lowestCostRide);
+        }
+    }
+
+    /**
+     * Method to drop lazily cancelled rides from the top of the queue, so that its minimum is an active ride
+     */
+    private static void skipCancelledRides() {
+        while (cancelledRides > 0 && rideQueue.size() > 0 && rides.cancelled[rideQueue.peek()]) {
+            rides.release(rideQueue.deleteMin());
+            cancelledRides--;
+        }
+    }
+
+    /**
+     * Method to remove a ride that has left the tree from the priority queue. With lazy cancellation the ride
+     * is only marked cancelled, in O(1), and stays queued until GetNextRide reaches it or the cancelled rides
+     * pass the tombstone ratio of the queue and are all removed in one compaction.
+     *
+     * @param slot slot of the ride
+     */
+    private static void removeFromQueue(int slot) {
+        if (!options.lazyCancel) {
+            rideQueue.arbitraryDelete(slot);
+            rides.release(slot);
+            return;
+        }
+
+        rides.cancelled[slot] = true;
+        cancelledRides++;
+        if (cancelledRides > options.tombstoneRatio * rideQueue.size()) {
+            compactQueue();
+        }
+    }
+
+    /**
+     * Method to remove every lazily cancelled ride from the priority queue and release its slot. Compaction
+     * rebuilds the queue in O(n) and runs once per tombstone ratio times n cancellations, so its cost per
+     * cancellation stays O(1).
+     */
+    private static void compactQueue() {
+        if (nextRides.length < cancelledRides) {
+            nextRides = new int[cancelledRides];
+        }
+        int removed = rideQueue.removeCancelled(nextRides);
+        for (int index = 0; index < removed; index++) {
+            rides.release(nextRides[index]);
+        }
+        cancelledRides -= removed;
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.queueCompactions.increment();
+        }
+    }
+
+    /**
+     * Method to get the snapshot ride GetNextRide takes next, if it ranks before the minimum of the queue
+     *
+     * @return index of the snapshot ride, or -1 if the queue's minimum goes first
+     */
+    private static int nextSnapshotRide() {
+        if (snapshot == null) {
+            return -1;
+        }
+
+        int index = snapshot.peekNext();
+        int ride = rideQueue.peek();
+        if (index < 0 || ride == rideTable.noSlot) {
+            return index;
+        }
+
+        int rideCost = snapshot.rideCost(index);
+        int tripDuration = snapshot.tripDuration(index);
+        if (rideCost != rides.rideCost[ride]) {
+            return rideCost < rides.rideCost[ride] ? index : -1;
+        }
+        if (tripDuration != rides.tripDuration[ride]) {
+            return tripDuration < rides.tripDuration[ride] ? index : -1;
+        }
+        return snapshot.rideNumber(index) < rides.rideNumber[ride] ? index : -1;
+    }
+
+    /**
+     * Method to remove a ride from the snapshot. Once more than half of the snapshot is removed its live rides
+     * are merged into the tree and queue and it is dropped, so the merge costs O(1) amortized per removal.
+     *
+     * @param index index of the snapshot ride
+     */
+    private static void removeFromSnapshot(int index) {
+        snapshot.remove(index);
+        if (snapshot.removedCount() > snapshot.size() / 2) {
+            mergeSnapshot();
+        }
+    }
+
+    /**
+     * Method to move every live ride of the snapshot into the tree and queue and drop the snapshot
+     */
+    static void mergeSnapshot() {
+        if (snapshot == null) {
+            return;
+        }
+
+        rideColumns columns = collectRides();
+        initialize(options);
+        bulkLoad(columns.rideNumber, columns.rideCost, columns.tripDuration, columns.count);
+    }
+
+    /**
+     * Method to gather every active ride, from the snapshot and the tree, in ride number order
+     *
+     * @return rides as columns
+     */
+    static rideColumns collectRides() {
+        rideColumns columns = new rideColumns(rides.size() + (snapshot == null ? 0 : snapshot.liveCount()));
+        redBlackTreeCursor cursor = redBlackTree.range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+        int ride = cursor.hasNext() ? cursor.next() : rideTable.noSlot;
+        int index = snapshot == null ? 0 : snapshot.nextLive(0);
+        int snapshotSize = snapshot == null ? 0 : snapshot.size();
+
+        while (ride != rideTable.noSlot || index < snapshotSize) {
+            if (ride != rideTable.noSlot && (index == snapshotSize || rides.rideNumber[ride] < snapshot.rideNumber(index))) {
+                columns.add(rides.rideNumber[ride], rides.rideCost[ride], rides.tripDuration[ride]);
+                ride = cursor.hasNext() ? cursor.next() : rideTable.noSlot;
+            } else {
+                columns.add(snapshot.rideNumber(index), snapshot.rideCost(index), snapshot.tripDuration(index));
+                index = snapshot.nextLive(index + 1);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Method to cancel a ride. The ride leaves the tree at once, so Print, Insert and UpdateTrip never see it
+     * again; with lazy cancellation it leaves the queue later.
      *
      * @param rideNumber ride number of ride to cancel
      */
     public static void cancelRide(int rideNumber) {
-        redBlackTreeRide deletedRide = redBlackTree.deleteData(rideNumber);
-        if (deletedRide != null) {
-            minHeap.arbitraryDelete(deletedRide.minHeapNodePointer);
+        int deletedRide = redBlackTree.delete(rideNumber);
+        if (deletedRide != rideTable.noSlot) {
+            removeFromQueue(deletedRide);
+        } else if (snapshot != null) {
+            int index = snapshot.find(rideNumber);
+            if (index >= 0) {
+                removeFromSnapshot(index);
+            }
         }
     }
 
     /**
-     * Method to update trip duration of a ride
+     * Method to update trip duration of a ride. The ride number does not change, so the ride keeps its
+     * tree node and only moves within the priority queue.
      *
      * @param rideNumber       ride number of ride to update
      * @param new_tripDuration new trip duration
      */
     public static void updateTrip(int rideNumber, int new_tripDuration) {
-        redBlackTreeRide findRide = redBlackTree.find(rideNumber);
-
-        if (new_tripDuration <= findRide.tripDuration) {
-            minHeapNode minFindRide = findRide.minHeapNodePointer;
-            findRide.tripDuration = new_tripDuration;
-            minFindRide.data.tripDuration = new_tripDuration;
-        } else if (new_tripDuration <= 2 * findRide.tripDuration) {
-            cancelRide(rideNumber);
-            insert(rideNumber, findRide.rideCost + 10, new_tripDuration);
+        int findRide = redBlackTree.find(rideNumber);
+
+        if (findRide == rideTable.noSlot) {
+            updateSnapshotTrip(rideNumber, new_tripDuration);
+            return;
+        }
+
+        int tripDuration = rides.tripDuration[findRide];
+        int rideCost = rides.rideCost[findRide];
+        if (new_tripDuration <= tripDuration) {
+            rideQueue.changeKey(findRide, rideCost, new_tripDuration);
+        } else if (new_tripDuration <= 2 * tripDuration) {
+            rideQueue.changeKey(findRide, rideCost + 10, new_tripDuration);
         } else {
-            cancelRide(rideNumber);
+            redBlackTree.deleteNode(findRide);
+            removeFromQueue(findRide);
         }
     }
 
     /**
-     * Start of the program
+     * Method to update trip duration of a snapshot ride. The snapshot cannot change, so the ride is removed
+     * from it and, unless the update cancels it, inserted with its new key.
      *
-     * @param args input file
+     * @param rideNumber       ride number of ride to update
+     * @param new_tripDuration new trip duration
      */
-    public static void main(String[] args) {
-        String outputFileName = "output.txt";
-
-        if (args.length != 1) {
-            System.out.println("Usage: java Main <input_file>");
+    private static void updateSnapshotTrip(int rideNumber, int new_tripDuration) {
+        int index = snapshot == null ? -1 : snapshot.find(rideNumber);
+        if (index < 0) {
             return;
         }
 
-        try (FileReader fileReader = new FileReader(args[0]); FileWriter fileWriter = new FileWriter(outputFileName); BufferedReader reader = new BufferedReader(fileReader); BufferedWriter writer = new BufferedWriter(fileWriter)) {
-
-            String line;
-            boolean isFirst = true;
-
-            while ((line = reader.readLine()) != null) {
-                String[] tokens = line.split("\\(");
-                String methodName = tokens[0];
-                String[] argsTokens = tokens[1].split("\\)");
-                String[] methodArgs = new String[0];
+        int tripDuration = snapshot.tripDuration(index);
+        int rideCost = snapshot.rideCost(index);
+        removeFromSnapshot(index);
+        if (new_tripDuration <= tripDuration) {
+            insert(rideNumber, rideCost, new_tripDuration);
+        } else if (new_tripDuration <= 2 * tripDuration) {
+            insert(rideNumber, rideCost + 10, new_tripDuration);
+        }
+    }
 
-                if (argsTokens.length > 0 && !argsTokens[0].isEmpty()) {
-                    methodArgs = argsTokens[0].split(",");
-                }
+    /**
+     * Method to run every command of the input, stopping after a duplicate ride number
+     *
+     * @param parser parser of the input
+     * @param sink   output to write results to
+     * @throws IOException if reading or writing fails
+     */
+    static void run(commandParser parser, outputSink sink) throws IOException {
+        boolean duplicate = false;
 
-                String output = "";
+        while (!duplicate && parser.next()) {
+            long startNanos = gatorTaxiMetrics.enabled ? System.nanoTime() : 0;
+            int[] methodArgs = parser.arguments;
+            int argumentCount = parser.argumentCount;
 
-                switch (methodName) {
-                    case "Insert":
-                        if (methodArgs.length != 3) {
-                            System.out.println("Incorrect number of parameters in Insert");
-                            break;
-                        }
-                        output = insert(Integer.parseInt(methodArgs[0]), Integer.parseInt(methodArgs[1]), Integer.parseInt(methodArgs[2]));
-                        break;
-                    case "Print":
-                        if (methodArgs.length == 1) {
-                            output = getRidesInRange(Integer.parseInt(methodArgs[0]));
-                        } else if (methodArgs.length == 2) {
-                            output = getRidesInRange(Integer.parseInt(methodArgs[0]), Integer.parseInt(methodArgs[1]));
-                        } else {
-                            System.out.println("Incorrect number of parameters in Print");
-                            break;
-                        }
+            switch (parser.operation) {
+                case opcode.Insert:
+                    if (argumentCount != 3) {
+                        System.out.println("Incorrect number of parameters in Insert on line " + parser.lineNumber);
                         break;
-                    case "GetNextRide":
-                        if (methodArgs.length != 0) {
-                            System.out.println("Incorrect number of parameters in GetNextRide");
-                            break;
-                        }
-                        output = getNextRide();
+                    }
+                    String output = insert(methodArgs[0], methodArgs[1], methodArgs[2]);
+                    if (!output.isEmpty()) {
+                        sink.beginLine();
+                        sink.writeAscii(output);
+                        duplicate = output.equals("Duplicate RideNumber");
+                    } else if (journal != null) {
+                        journal.logInsert(methodArgs[0], methodArgs[1], methodArgs[2]);
+                    }
+                    break;
+                case opcode.Print:
+                    if (argumentCount == 1) {
+                        sink.beginLine();
+                        printRidesInRange(methodArgs[0], sink);
+                    } else if (argumentCount == 2) {
+                        sink.beginLine();
+                        printRidesInRange(methodArgs[0], methodArgs[1], sink);
+                    } else {
+                        System.out.println("Incorrect number of parameters in Print on line " + parser.lineNumber);
+                    }
+                    break;
+                case opcode.GetNextRide:
+                    if (argumentCount != 0) {
+                        System.out.println("Incorrect number of parameters in GetNextRide on line " + parser.lineNumber);
                         break;
-                    case "CancelRide":
-                        if (methodArgs.length != 1) {
-                            System.out.println("Incorrect number of parameters in CancelRide");
-                            break;
-                        }
-                        cancelRide(Integer.parseInt(methodArgs[0]));
+                    }
+                    sink.beginLine();
+                    printNextRide(sink);
+                    if (journal != null) {
+                        journal.logGetNextRide();
+                    }
+                    break;
+                case opcode.GetNextRides:
+                    if (argumentCount != 1 || methodArgs[0] < 1) {
+                        System.out.println("Incorrect number of parameters in GetNextRides on line " + parser.lineNumber);
                         break;
-                    case "UpdateTrip":
-                        if (methodArgs.length != 2) {
-                            System.out.println("Incorrect number of parameters in UpdateTrip");
-                            break;
+                    }
+                    sink.beginLine();
+                    int taken = printNextRides(methodArgs[0], sink);
+                    if (journal != null) {
+                        for (int ride = 0; ride < taken; ride++) {
+                            journal.logGetNextRide();
                         }
-                        updateTrip(Integer.parseInt(methodArgs[0]), Integer.parseInt(methodArgs[1]));
+                    }
+                    break;
+                case opcode.CancelRide:
+                    if (argumentCount != 1) {
+                        System.out.println("Incorrect number of parameters in CancelRide on line " + parser.lineNumber);
                         break;
-                    default:
-                        System.out.println("Invalid operation name");
+                    }
+                    cancelRide(methodArgs[0]);
+                    if (journal != null) {
+                        journal.logCancelRide(methodArgs[0]);
+                    }
+                    break;
+                case opcode.UpdateTrip:
+                    if (argumentCount != 2) {
+                        System.out.println("Incorrect number of parameters in UpdateTrip on line " + parser.lineNumber);
                         break;
+                    }
+                    updateTrip(methodArgs[0], methodArgs[1]);
+                    if (journal != null) {
+                        journal.logUpdateTrip(methodArgs[0], methodArgs[1]);
+                    }
+                    break;
+                default:
+                    System.out.println(parser.error);
+                    break;
+            }
+
+            if (journal != null) {
+                journal.commitIfDue();
+            }
+            if (gatorTaxiMetrics.enabled) {
+                gatorTaxiMetrics.recordLatency(parser.operation, startNanos);
+                if (options.metricsFileName != null && gatorTaxiMetrics.isWriteDue(options.metricsInterval)) {
+                    writeMetrics();
                 }
+            }
+        }
+    }
 
-                writer.write((isFirst || output.isEmpty()) ? output : ("\n" + output));
-                isFirst = output.isEmpty() && isFirst;
+    /**
+     * Method to write the metrics file, with the current black height of the tree, heap size and cancelled
+     * rides in the heap
+     *
+     * @throws IOException if writing fails
+     */
+    static void writeMetrics() throws IOException {
+        gatorTaxiMetrics.write(Paths.get(options.metricsFileName), redBlackTree.blackHeight(), rideQueue.size(), cancelledRides);
+    }
 
-                if (output.contains("Duplicate RideNumber")) {
-                    break;
+    /**
+     * Start of the program
+     *
+     * @param args options and input file
+     */
+    public static void main(String[] args) {
+        gatorTaxiOptions options;
+
+        try {
+            options = gatorTaxiOptions.parse(args);
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(e.getMessage());
+            System.out.println(gatorTaxiOptions.usage());
+            return;
+        }
+
+        if (options.inputFileName == null) {
+            System.out.println(gatorTaxiOptions.usage());
+            return;
+        }
+
+        if (options.walDirectory != null && options.shards > 1) {
+            System.out.println("Option wal-dir needs a single shard");
+            return;
+        }
+        if (options.snapshotFileName != null && (options.walDirectory != null || options.shards > 1)) {
+            System.out.println("Option snapshot needs a single shard and no wal-dir");
+            return;
+        }
+        if (options.lazyCancel && options.shards > 1) {
+            System.out.println("Option lazy-cancel needs a single shard");
+            return;
+        }
+        if (options.metricsFileName != null) {
+            if (options.shards > 1) {
+                System.out.println("Option metrics-file needs a single shard");
+                return;
+            }
+            System.setProperty("gatorTaxi.metrics", "true");
+        }
+
+        initialize(options);
+
+        long startNanos = System.nanoTime();
+
+        try (rideJournal rideJournal = options.walDirectory == null ? null : new rideJournal(options);
+             FileChannel channel = FileChannel.open(Paths.get(options.inputFileName));
+             FileChannel outputChannel = FileChannel.open(Paths.get(options.outputFileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             outputSink sink = new outputSink(outputChannel, options.outputBufferSize, options.backgroundFlush)) {
+
+            commandParser parser;
+            if (options.inputFormat.equals("binary")) {
+                parser = new binaryCommandParser(channel, 1 << 16);
+            } else if (options.inputMode.equals("mmap")) {
+                parser = new commandParser(channel, options.mmapChunkSize);
+            } else {
+                parser = new commandParser(Channels.newInputStream(channel), 1 << 16);
+            }
+            if (options.shards > 1) {
+                try (shardedGatorTaxi shardedGatorTaxi = new shardedGatorTaxi(options)) {
+                    shardedGatorTaxi.run(parser, sink);
                 }
+            } else {
+                if (rideJournal != null) {
+                    rideJournal.recover();
+                    journal = rideJournal;
+                }
+                if (options.snapshotFileName != null && Files.exists(Paths.get(options.snapshotFileName))) {
+                    snapshot = rideSnapshot.open(Paths.get(options.snapshotFileName));
+                }
+                run(parser, sink);
+                if (rideJournal != null) {
+                    rideJournal.checkpoint();
+                }
+                if (options.snapshotFileName != null) {
+                    rideSnapshot.write(Paths.get(options.snapshotFileName), collectRides());
+                }
+                if (options.metricsFileName != null) {
+                    writeMetrics();
+                }
+            }
+
+            if (options.throughput) {
+                double megabytes = channel.size() / 1e6;
+                double seconds = (System.nanoTime() - startNanos) / 1e9;
+                System.err.printf("Processed %.1f MB in %.3f s (%.1f MB/s, %s input)%n", megabytes, seconds, megabytes / seconds, options.inputFormat.equals("binary") ? "binary" : options.inputMode);
             }
         } catch (IOException e) {
             e.printStackTrace();
         } catch (NumberFormatException e) {
-            System.out.println("Invalid integer");
-            e.printStackTrace();
+            System.out.println(e.getMessage());
         }
     }
 }
\ No newline at end of file
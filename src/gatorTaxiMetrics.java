@@ -0,0 +1,221 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class holding Gator Taxi instrumentation - a latency histogram per operation and counters of the work
+ * done inside the tree and heap. It is switched on by the gatorTaxi.metrics system property, which
+ * --metrics-file sets before anything runs. Every probe is guarded by the constant enabled, so with it off the
+ * JIT drops the probes and the instrumented code runs as if they were not there.
+ */
+public final class gatorTaxiMetrics {
+
+    /**
+     * Whether instrumentation is on, fixed when the class is loaded
+     */
+    static final boolean enabled = Boolean.getBoolean("gatorTaxi.metrics");
+
+    /**
+     * Latency of each operation in nanoseconds, indexed by operation code; recorded by the thread running
+     * commands, or under the histogram's monitor when several threads do
+     */
+    private static final latencyHistogram[] latencies = new latencyHistogram[opcode.names.length];
+
+    static {
+        for (int operation = 0; operation < latencies.length; operation++) {
+            latencies[operation] = new latencyHistogram();
+        }
+    }
+
+    /**
+     * Calls of redBlackTree.rotateToLeft
+     */
+    static final LongAdder leftRotations = new LongAdder();
+
+    /**
+     * Calls of redBlackTree.rotateToRight
+     */
+    static final LongAdder rightRotations = new LongAdder();
+
+    /**
+     * Loop iterations of redBlackTree.refactorInsert
+     */
+    static final LongAdder insertFixIterations = new LongAdder();
+
+    /**
+     * Loop iterations of redBlackTree.refactorDelete
+     */
+    static final LongAdder deleteFixIterations = new LongAdder();
+
+    /**
+     * Sift-downs of the heap, from minHeapify and its d-ary counterpart
+     */
+    static final LongAdder siftDowns = new LongAdder();
+
+    /**
+     * Levels moved by sift-downs of the heap
+     */
+    static final LongAdder siftDownLevels = new LongAdder();
+
+    /**
+     * Sift-ups of the heap, from insert and key decreases
+     */
+    static final LongAdder siftUps = new LongAdder();
+
+    /**
+     * Levels moved by sift-ups of the heap
+     */
+    static final LongAdder siftUpLevels = new LongAdder();
+
+    /**
+     * Compactions of the priority queue removing lazily cancelled rides
+     */
+    static final LongAdder queueCompactions = new LongAdder();
+
+    /**
+     * Time the metrics file is written next, in System.nanoTime units
+     */
+    private static long nextWriteNanos;
+
+    private gatorTaxiMetrics() {
+    }
+
+    /**
+     * Method to record the latency of a command
+     *
+     * @param operation  operation code of the command
+     * @param startNanos System.nanoTime when the command started
+     */
+    static void recordLatency(int operation, long startNanos) {
+        if (operation >= 0) {
+            latencies[operation].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Method to record the latency of a command run by one of several threads, as the servers run them
+     *
+     * @param operation  operation code of the command
+     * @param startNanos System.nanoTime when the command started
+     */
+    static void recordSharedLatency(int operation, long startNanos) {
+        if (operation >= 0) {
+            long latency = System.nanoTime() - startNanos;
+            latencyHistogram histogram = latencies[operation];
+            synchronized (histogram) {
+                histogram.record(latency);
+            }
+        }
+    }
+
+    /**
+     * Method to record a sift-down
+     *
+     * @param levels levels the ride moved down
+     */
+    static void recordSiftDown(int levels) {
+        siftDowns.increment();
+        siftDownLevels.add(levels);
+    }
+
+    /**
+     * Method to record a sift-up
+     *
+     * @param levels levels the ride moved up
+     */
+    static void recordSiftUp(int levels) {
+        siftUps.increment();
+        siftUpLevels.add(levels);
+    }
+
+    /**
+     * Method to check whether the metrics file is due to be written, and if so when it is due next. Called
+     * from one thread only.
+     *
+     * @param intervalMillis milliseconds between writes
+     * @return true if it should be written now
+     */
+    static boolean isWriteDue(int intervalMillis) {
+        long now = System.nanoTime();
+        if (now - nextWriteNanos < 0) {
+            return false;
+        }
+        nextWriteNanos = now + intervalMillis * 1_000_000L;
+        return true;
+    }
+
+    /**
+     * Method to write every metric to a file in the Prometheus text format, replacing it atomically so a
+     * reader never sees half a report
+     *
+     * @param path            metrics file
+     * @param treeBlackHeight current black height of the red-black tree, twice which bounds its height
+     * @param heapSize        current number of rides in the priority queue, cancelled ones included
+     * @param tombstones      current number of lazily cancelled rides in the priority queue
+     * @throws IOException if writing fails
+     */
+    static void write(Path path, int treeBlackHeight, int heapSize, int tombstones) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(temporary, StandardCharsets.US_ASCII))) {
+            writer.println("# TYPE gatortaxi_latency_nanoseconds summary");
+            for (int operation = 0; operation < latencies.length; operation++) {
+                latencyHistogram histogram = latencies[operation];
+                long median, p99, p999, maximum, count;
+                synchronized (histogram) {
+                    median = histogram.percentile(50);
+                    p99 = histogram.percentile(99);
+                    p999 = histogram.percentile(99.9);
+                    maximum = histogram.maximum();
+                    count = histogram.count();
+                }
+                String name = "gatortaxi_latency_nanoseconds{operation=\"" + opcode.names[operation] + "\"";
+                writer.println(name + ",quantile=\"0.5\"} " + median);
+                writer.println(name + ",quantile=\"0.99\"} " + p99);
+                writer.println(name + ",quantile=\"0.999\"} " + p999);
+                writer.println(name + ",quantile=\"1.0\"} " + maximum);
+                writer.println("gatortaxi_latency_nanoseconds_count{operation=\"" + opcode.names[operation] + "\"} " + count);
+            }
+
+            counter(writer, "gatortaxi_tree_left_rotations_total", leftRotations);
+            counter(writer, "gatortaxi_tree_right_rotations_total", rightRotations);
+            counter(writer, "gatortaxi_tree_insert_fix_iterations_total", insertFixIterations);
+            counter(writer, "gatortaxi_tree_delete_fix_iterations_total", deleteFixIterations);
+            counter(writer, "gatortaxi_heap_sift_downs_total", siftDowns);
+            counter(writer, "gatortaxi_heap_sift_down_levels_total", siftDownLevels);
+            counter(writer, "gatortaxi_heap_sift_ups_total", siftUps);
+            counter(writer, "gatortaxi_heap_sift_up_levels_total", siftUpLevels);
+            counter(writer, "gatortaxi_heap_compactions_total", queueCompactions);
+
+            writer.println("# TYPE gatortaxi_tree_black_height gauge");
+            writer.println("gatortaxi_tree_black_height " + treeBlackHeight);
+            writer.println("# TYPE gatortaxi_tree_height_bound gauge");
+            writer.println("gatortaxi_tree_height_bound " + 2 * treeBlackHeight);
+            writer.println("# TYPE gatortaxi_heap_size gauge");
+            writer.println("gatortaxi_heap_size " + heapSize);
+            writer.println("# TYPE gatortaxi_heap_tombstones gauge");
+            writer.println("gatortaxi_heap_tombstones " + tombstones);
+            writer.println("# TYPE gatortaxi_heap_tombstone_ratio gauge");
+            writer.println("gatortaxi_heap_tombstone_ratio " + (heapSize == 0 ? 0.0 : (double) tombstones / heapSize));
+            if (writer.checkError()) {
+                throw new IOException("Cannot write metrics to " + temporary);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Method to write a counter
+     *
+     * @param writer  output
+     * @param name    metric name
+     * @param counter counter to write
+     */
+    private static void counter(PrintWriter writer, String name, LongAdder counter) {
+        writer.println("# TYPE " + name + " counter");
+        writer.println(name + " " + counter.sum());
+    }
+}
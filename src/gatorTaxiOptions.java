@@ -0,0 +1,427 @@
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Class holding Gator Taxi start-up options, read from the command line and an optional config file
+ */
+public class gatorTaxiOptions {
+
+    /**
+     * Input file with the commands to run
+     */
+    public String inputFileName;
+
+    /**
+     * Output file the results are written to
+     */
+    public String outputFileName = "output.txt";
+
+    /**
+     * Size in bytes of each batch of output written to the output file
+     */
+    public int outputBufferSize = 1 << 20;
+
+    /**
+     * Whether output batches are written by a background thread while the next one is filled
+     */
+    public boolean backgroundFlush = false;
+
+    /**
+     * How the input file is read - "stream" through a read buffer or "mmap" in memory-mapped chunks
+     */
+    public String inputMode = "stream";
+
+    /**
+     * Format of the input file - "text" commands or the "binary" format written by commandConverter
+     */
+    public String inputFormat = "text";
+
+    /**
+     * Size in bytes of each memory-mapped chunk of the input file
+     */
+    public int mmapChunkSize = 64 << 20;
+
+    /**
+     * Whether to report input throughput on standard error
+     */
+    public boolean throughput = false;
+
+    /**
+     * Number of rides expected to be active at once, used for initial sizing
+     */
+    public int expectedRides = 2000;
+
+    /**
+     * Factor the min heap capacity is multiplied by when it is full
+     */
+    public double heapGrowthFactor = 2.0;
+
+    /**
+     * Whether the min heap is shrunk again once a burst has drained
+     */
+    public boolean heapShrink = false;
+
+    /**
+     * Priority queue ordering rides for GetNextRide - "binary", "4-ary", "8-ary", "pairing" or "bucket"
+     */
+    public String heap = "binary";
+
+    /**
+     * Number of cost buckets of the bucket queue; a cost outside 0 to this limit - 1 makes it fall back to the
+     * binary min heap
+     */
+    public int bucketCostLimit = 1 << 16;
+
+    /**
+     * Whether point lookups by ride number - Print(rideNumber), CancelRide, UpdateTrip and the duplicate check
+     * of Insert - go through a hash index kept beside the red-black tree instead of descending it
+     */
+    public boolean hashIndex = false;
+
+    /**
+     * Whether CancelRide only marks a ride cancelled and leaves it in the priority queue until GetNextRide
+     * reaches it or the queue is compacted
+     */
+    public boolean lazyCancel = false;
+
+    /**
+     * Share of the priority queue cancelled rides may take before it is compacted, with lazy cancellation
+     */
+    public double tombstoneRatio = 0.5;
+
+    /**
+     * Number of shards rides are split across, each owned by a worker thread; 1 runs on the calling thread
+     */
+    public int shards = 1;
+
+    /**
+     * Directory holding the write-ahead log and checkpoints, or null to run without them
+     */
+    public String walDirectory;
+
+    /**
+     * When logged commands reach disk - "always" after each command, "group" once per group commit or
+     * "none" leaving it to the operating system
+     */
+    public String fsync = "group";
+
+    /**
+     * Size in bytes of a group of log records committed with one write
+     */
+    public int groupCommitBytes = 64 << 10;
+
+    /**
+     * Milliseconds a group of log records stays open after its first record before it is committed
+     */
+    public int groupCommitMillis = 5;
+
+    /**
+     * Number of logged commands after which a checkpoint is taken, or 0 to checkpoint only on exit
+     */
+    public int checkpointInterval = 1_000_000;
+
+    /**
+     * Snapshot file served memory-mapped at start-up if it exists and rewritten on exit, or null for none
+     */
+    public String snapshotFileName;
+
+    /**
+     * File latency histograms and tree and heap counters are written to, or null to run without
+     * instrumentation
+     */
+    public String metricsFileName;
+
+    /**
+     * Milliseconds between writes of the metrics file
+     */
+    public int metricsInterval = 1000;
+
+    /**
+     * TCP port gatorTaxiServer listens on, or 0 for any free port
+     */
+    public int port = 7878;
+
+    /**
+     * Address gatorTaxiServer listens on
+     */
+    public String bindAddress = "127.0.0.1";
+
+    /**
+     * Number of event-loop threads of gatorTaxiServer, each serving its share of the connections
+     */
+    public int eventLoops = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * How gatorTaxiServer serves connections - "nio" event loops, or a "virtual" or "platform" thread per
+     * session feeding a single core thread
+     */
+    public String serverModel = "nio";
+
+    /**
+     * Size of the platform thread pool running sessions in the platform server model
+     */
+    public int sessionThreads = 1024;
+
+    /**
+     * Number of sessions that can wait for the core thread at once
+     */
+    public int coreQueueSize = 1024;
+
+    /**
+     * Method to parse options - "--name=value" arguments and a single input file name.
+     * "--config=file" loads a properties file with the same names; command line values win.
+     *
+     * @param args command line arguments
+     * @return parsed options
+     * @throws IllegalArgumentException if an option is unknown or malformed
+     * @throws IOException              if the config file cannot be read
+     */
+    public static gatorTaxiOptions parse(String[] args) throws IOException {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        Properties properties = new Properties();
+
+        for (String arg : args) {
+            if (arg.startsWith("--config=")) {
+                try (FileReader reader = new FileReader(arg.substring("--config=".length()))) {
+                    properties.load(reader);
+                }
+            }
+        }
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                if (options.inputFileName != null) {
+                    throw new IllegalArgumentException("More than one input file given");
+                }
+                options.inputFileName = arg;
+                continue;
+            }
+
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                properties.setProperty(arg.substring(2), "true");
+            } else {
+                properties.setProperty(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+
+        for (String name : properties.stringPropertyNames()) {
+            options.set(name, properties.getProperty(name).trim());
+        }
+
+        return options;
+    }
+
+    /**
+     * Method to set a single option by name
+     *
+     * @param name  option name
+     * @param value option value
+     */
+    private void set(String name, String value) {
+        try {
+            switch (name) {
+                case "config":
+                    break;
+                case "output":
+                    outputFileName = value;
+                    break;
+                case "output-buffer-size":
+                    outputBufferSize = Integer.parseInt(value);
+                    if (outputBufferSize < 64) {
+                        throw new IllegalArgumentException("Option output-buffer-size must be at least 64");
+                    }
+                    break;
+                case "background-flush":
+                    backgroundFlush = Boolean.parseBoolean(value);
+                    break;
+                case "input-mode":
+                    if (!value.equals("stream") && !value.equals("mmap")) {
+                        throw new IllegalArgumentException("Option input-mode must be stream or mmap");
+                    }
+                    inputMode = value;
+                    break;
+                case "input-format":
+                    if (!value.equals("text") && !value.equals("binary")) {
+                        throw new IllegalArgumentException("Option input-format must be text or binary");
+                    }
+                    inputFormat = value;
+                    break;
+                case "mmap-chunk-size":
+                    mmapChunkSize = Integer.parseInt(value);
+                    if (mmapChunkSize < 4096) {
+                        throw new IllegalArgumentException("Option mmap-chunk-size must be at least 4096");
+                    }
+                    break;
+                case "throughput":
+                    throughput = Boolean.parseBoolean(value);
+                    break;
+                case "expected-rides":
+                    expectedRides = Integer.parseInt(value);
+                    if (expectedRides < 1) {
+                        throw new IllegalArgumentException("Option expected-rides must be positive");
+                    }
+                    break;
+                case "heap-growth-factor":
+                    heapGrowthFactor = Double.parseDouble(value);
+                    if (!(heapGrowthFactor > 1.0)) {
+                        throw new IllegalArgumentException("Option heap-growth-factor must be greater than 1");
+                    }
+                    break;
+                case "heap":
+                    if (!value.equals("binary") && !value.equals("4-ary") && !value.equals("8-ary") && !value.equals("pairing") && !value.equals("bucket")) {
+                        throw new IllegalArgumentException("Option heap must be binary, 4-ary, 8-ary, pairing or bucket");
+                    }
+                    heap = value;
+                    break;
+                case "bucket-cost-limit":
+                    bucketCostLimit = Integer.parseInt(value);
+                    if (bucketCostLimit < 1 || bucketCostLimit > 1 << 24) {
+                        throw new IllegalArgumentException("Option bucket-cost-limit must be between 1 and 16777216");
+                    }
+                    break;
+                case "heap-shrink":
+                    heapShrink = Boolean.parseBoolean(value);
+                    break;
+                case "hash-index":
+                    hashIndex = Boolean.parseBoolean(value);
+                    break;
+                case "lazy-cancel":
+                    lazyCancel = Boolean.parseBoolean(value);
+                    break;
+                case "tombstone-ratio":
+                    tombstoneRatio = Double.parseDouble(value);
+                    if (!(tombstoneRatio > 0.0 && tombstoneRatio < 1.0)) {
+                        throw new IllegalArgumentException("Option tombstone-ratio must be between 0 and 1");
+                    }
+                    break;
+                case "shards":
+                    shards = Integer.parseInt(value);
+                    if (shards < 1) {
+                        throw new IllegalArgumentException("Option shards must be positive");
+                    }
+                    break;
+                case "wal-dir":
+                    walDirectory = value;
+                    break;
+                case "fsync":
+                    if (!value.equals("always") && !value.equals("group") && !value.equals("none")) {
+                        throw new IllegalArgumentException("Option fsync must be always, group or none");
+                    }
+                    fsync = value;
+                    break;
+                case "group-commit-bytes":
+                    groupCommitBytes = Integer.parseInt(value);
+                    if (groupCommitBytes < 64) {
+                        throw new IllegalArgumentException("Option group-commit-bytes must be at least 64");
+                    }
+                    break;
+                case "group-commit-millis":
+                    groupCommitMillis = Integer.parseInt(value);
+                    if (groupCommitMillis < 0) {
+                        throw new IllegalArgumentException("Option group-commit-millis must not be negative");
+                    }
+                    break;
+                case "checkpoint-interval":
+                    checkpointInterval = Integer.parseInt(value);
+                    if (checkpointInterval < 0) {
+                        throw new IllegalArgumentException("Option checkpoint-interval must not be negative");
+                    }
+                    break;
+                case "snapshot":
+                    snapshotFileName = value;
+                    break;
+                case "metrics-file":
+                    metricsFileName = value;
+                    break;
+                case "metrics-interval":
+                    metricsInterval = Integer.parseInt(value);
+                    if (metricsInterval < 1) {
+                        throw new IllegalArgumentException("Option metrics-interval must be positive");
+                    }
+                    break;
+                case "port":
+                    port = Integer.parseInt(value);
+                    if (port < 0 || port > 65535) {
+                        throw new IllegalArgumentException("Option port must be between 0 and 65535");
+                    }
+                    break;
+                case "bind":
+                    bindAddress = value;
+                    break;
+                case "event-loops":
+                    eventLoops = Integer.parseInt(value);
+                    if (eventLoops < 1) {
+                        throw new IllegalArgumentException("Option event-loops must be positive");
+                    }
+                    break;
+                case "server-model":
+                    if (!value.equals("nio") && !value.equals("virtual") && !value.equals("platform")) {
+                        throw new IllegalArgumentException("Option server-model must be nio, virtual or platform");
+                    }
+                    serverModel = value;
+                    break;
+                case "session-threads":
+                    sessionThreads = Integer.parseInt(value);
+                    if (sessionThreads < 1) {
+                        throw new IllegalArgumentException("Option session-threads must be positive");
+                    }
+                    break;
+                case "core-queue-size":
+                    coreQueueSize = Integer.parseInt(value);
+                    if (coreQueueSize < 1) {
+                        throw new IllegalArgumentException("Option core-queue-size must be positive");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for option " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Method to get usage text of the program
+     *
+     * @return usage text
+     */
+    public static String usage() {
+        return "Usage: java gatorTaxi [options] <input_file>\n"
+                + "  --config=<file>              properties file with any of the options below\n"
+                + "  --output=<file>              output file (default output.txt)\n"
+                + "  --output-buffer-size=<bytes> size of each output batch (default 1048576)\n"
+                + "  --background-flush[=true|false] write output batches on a background thread (default false)\n"
+                + "  --input-mode=stream|mmap     read input through a buffer or memory-mapped (default stream)\n"
+                + "  --input-format=text|binary   read text commands or commandConverter output (default text)\n"
+                + "  --mmap-chunk-size=<bytes>    size of each mapped chunk (default 67108864)\n"
+                + "  --throughput[=true|false]    report input MB/s on standard error (default false)\n"
+                + "  --expected-rides=<n>         expected number of active rides (default 2000)\n"
+                + "  --heap=binary|4-ary|8-ary|pairing|bucket priority queue for GetNextRide (default binary)\n"
+                + "  --bucket-cost-limit=<n>      costs with a bucket; while a ride costs more the queue runs on a binary heap (default 65536)\n"
+                + "  --heap-growth-factor=<f>     min heap growth factor (default 2.0)\n"
+                + "  --heap-shrink[=true|false]   shrink the heap array of the binary, d-ary and bucket fallback heaps after bursts\n"
+                + "                               drain; the pairing heap has no array (default false)\n"
+                + "  --hash-index[=true|false]    look rides up by ride number in a hash index (default false)\n"
+                + "  --lazy-cancel[=true|false]   cancel by marking rides and compact the queue later (default false)\n"
+                + "  --tombstone-ratio=<f>        share of the queue cancelled rides take before compaction (default 0.5)\n"
+                + "  --shards=<n>                 split rides across n worker threads (default 1)\n"
+                + "  --wal-dir=<dir>              recover from and log commands to a write-ahead log in dir\n"
+                + "  --fsync=always|group|none    when logged commands are forced to disk (default group)\n"
+                + "  --group-commit-bytes=<bytes> size of a group of log records (default 65536)\n"
+                + "  --group-commit-millis=<ms>   longest a group stays open (default 5)\n"
+                + "  --checkpoint-interval=<n>    logged commands between checkpoints, 0 for exit only (default 1000000)\n"
+                + "  --snapshot=<file>            serve rides mapped from file at start-up and rewrite it on exit\n"
+                + "  --metrics-file=<file>        write latency histograms and tree and heap counters to file,\n"
+                + "                               from batch runs and servers\n"
+                + "  --metrics-interval=<ms>      milliseconds between metrics writes (default 1000)\n"
+                + "Usage: java gatorTaxiServer [options]\n"
+                + "  --port=<n>                   TCP port to listen on, 0 for any (default 7878)\n"
+                + "  --bind=<address>             address to listen on (default 127.0.0.1)\n"
+                + "  --event-loops=<n>            event-loop threads (default up to 4, one per core)\n"
+                + "  --server-model=nio|virtual|platform event loops or a thread per session (default nio)\n"
+                + "  --session-threads=<n>        platform threads running sessions, more connections are refused (default 1024)\n"
+                + "  --core-queue-size=<n>        sessions waiting for the core thread at most (default 1024)";
+    }
+}
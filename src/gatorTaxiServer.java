@@ -0,0 +1,696 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class exposing the complete commands received on a connection to a parser, as a stream and as a channel.
+ * Reads stop at the end of the last complete command instead of waiting for more bytes, so the parser sees
+ * end of input where the received bytes run out and picks up from there once more arrive.
+ */
+final class receivedCommands extends InputStream implements ReadableByteChannel {
+
+    /**
+     * Bytes received on the connection, flipped for reading
+     */
+    private final ByteBuffer received;
+
+    /**
+     * Position in received after the last complete command
+     */
+    int end;
+
+    /**
+     * Received commands constructor
+     *
+     * @param received bytes received on the connection
+     */
+    receivedCommands(ByteBuffer received) {
+        this.received = received;
+    }
+
+    /**
+     * Method to read a byte of a complete command
+     *
+     * @return next byte, or -1 after the last complete command
+     */
+    @Override
+    public int read() {
+        return received.position() < end ? received.get() & 0xFF : -1;
+    }
+
+    /**
+     * Method to read bytes of complete commands
+     *
+     * @param bytes  array to read into
+     * @param offset first index to fill
+     * @param length most bytes to read
+     * @return number of bytes read, or -1 after the last complete command
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        int available = end - received.position();
+        if (available <= 0) {
+            return length == 0 ? 0 : -1;
+        }
+        int count = Math.min(length, available);
+        received.get(bytes, offset, count);
+        return count;
+    }
+
+    /**
+     * Method to read bytes of complete commands
+     *
+     * @param target buffer to read into
+     * @return number of bytes read, or -1 after the last complete command
+     */
+    @Override
+    public int read(ByteBuffer target) {
+        int available = end - received.position();
+        if (available <= 0) {
+            return target.hasRemaining() ? -1 : 0;
+        }
+        int count = Math.min(target.remaining(), available);
+        target.put(received.slice(received.position(), count));
+        received.position(received.position() + count);
+        return count;
+    }
+
+    /**
+     * Method to check whether the channel is open, which it always is
+     *
+     * @return true
+     */
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    /**
+     * Method to close the stream, which leaves the connection open
+     */
+    @Override
+    public void close() {
+    }
+}
+
+/**
+ * Class holding the state of one client connection - bytes received but not yet run, the parser of its
+ * command format and the replies not yet sent. Commands are run in the order they arrive and each gets one
+ * reply line, empty for commands without output, so a client may pipeline any number of commands and match
+ * replies to them by position.
+ */
+final class serverConnection {
+
+    /**
+     * Size in bytes of the receive buffer, which also bounds the length of a text command
+     */
+    private static final int receiveBufferSize = 16 << 10;
+
+    /**
+     * Size in bytes of the parser buffer
+     */
+    private static final int parserBufferSize = 4 << 10;
+
+    /**
+     * Socket of the connection
+     */
+    final SocketChannel channel;
+
+    /**
+     * Bytes received and not yet run, ready for writing into
+     */
+    private final ByteBuffer received = ByteBuffer.allocate(receiveBufferSize);
+
+    /**
+     * Complete commands in received
+     */
+    private final receivedCommands commands = new receivedCommands(received);
+
+    /**
+     * Parser of the commands, or null until the command format is known
+     */
+    private commandParser parser;
+
+    /**
+     * Whether the connection speaks the binary command format
+     */
+    private boolean binary;
+
+    /**
+     * Replies not yet sent
+     */
+    private final outputSink replies = new outputSink(4 << 10);
+
+    /**
+     * Whether the connection is closed once its replies are sent - the client has finished sending or broke
+     * the protocol
+     */
+    boolean closing;
+
+    /**
+     * Server connection constructor
+     *
+     * @param channel socket of the connection
+     */
+    serverConnection(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Method to read what the client sent and run every complete command
+     *
+     * @param taxi engine to run the commands against
+     * @throws IOException if reading from the socket fails
+     */
+    void receive(concurrentGatorTaxi taxi) throws IOException {
+        if (read()) {
+            runReceived(taxi);
+        }
+    }
+
+    /**
+     * Method to read what the client sent
+     *
+     * @return false once the client has finished sending
+     * @throws IOException if reading from the socket fails
+     */
+    boolean read() throws IOException {
+        if (channel.read(received) < 0) {
+            closing = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Method to run every complete command read so far
+     *
+     * @param taxi engine to run the commands against
+     * @throws IOException if writing a reply fails
+     */
+    void runReceived(concurrentGatorTaxi taxi) throws IOException {
+        received.flip();
+        try {
+            if (parser == null && !detectFormat()) {
+                return;
+            }
+            commands.end = completeCommandsEnd();
+            if (commands.end == received.position() && received.limit() == received.capacity()) {
+                reject("Command longer than " + receiveBufferSize + " bytes");
+                return;
+            }
+            while (parser.next()) {
+                execute(taxi);
+            }
+        } catch (NumberFormatException | IOException e) {
+            reject(e.getMessage());
+        } finally {
+            received.compact();
+        }
+    }
+
+    /**
+     * Method to pick the command format from the first bytes received and create its parser
+     *
+     * @return false if more bytes are needed to tell
+     * @throws IOException if the binary stream header is malformed
+     */
+    private boolean detectFormat() throws IOException {
+        if (received.remaining() < 4) {
+            return false;
+        }
+        binary = binaryCommandParser.isStreamStart(received);
+        if (!binary) {
+            parser = new commandParser(commands, parserBufferSize);
+            return true;
+        }
+        if (received.remaining() < binaryCommandParser.headerSize) {
+            return false;
+        }
+        commands.end = received.position() + binaryCommandParser.headerSize;
+        parser = new binaryCommandParser(commands, parserBufferSize);
+        return true;
+    }
+
+    /**
+     * Method to find where the complete commands received end
+     *
+     * @return position in received after the last complete command
+     */
+    private int completeCommandsEnd() {
+        if (!binary) {
+            for (int index = received.limit() - 1; index >= received.position(); index--) {
+                if (received.get(index) == '\n') {
+                    return index + 1;
+                }
+            }
+            return received.position();
+        }
+
+        int end = received.position();
+        while (end < received.limit()) {
+            int size = binaryCommandParser.commandSize(received.get(end));
+            if (end + size > received.limit()) {
+                break;
+            }
+            end += size;
+        }
+        return end;
+    }
+
+    /**
+     * Method to reply with a protocol error and close the connection after it, as the rest of the stream
+     * cannot be parsed reliably
+     *
+     * @param message description of the error
+     * @throws IOException if writing the reply fails
+     */
+    private void reject(String message) throws IOException {
+        replies.writeAscii(message);
+        replies.writeByte('\n');
+        closing = true;
+        received.position(received.limit());
+    }
+
+    /**
+     * Method to run the current command and write its reply line. Unlike a batch run, a duplicate ride
+     * number is reported and the connection carries on.
+     *
+     * @param taxi engine to run the command against
+     * @throws IOException if writing the reply fails
+     */
+    private void execute(concurrentGatorTaxi taxi) throws IOException {
+        long startNanos = gatorTaxiMetrics.enabled ? System.nanoTime() : 0;
+        int[] methodArgs = parser.arguments;
+        int argumentCount = parser.argumentCount;
+
+        switch (parser.operation) {
+            case opcode.Insert:
+                if (argumentCount != 3) {
+                    replies.writeAscii("Incorrect number of parameters in Insert on line " + parser.lineNumber);
+                    break;
+                }
+                replies.writeAscii(taxi.insert(methodArgs[0], methodArgs[1], methodArgs[2]));
+                break;
+            case opcode.Print:
+                if (argumentCount == 1) {
+                    taxi.printRidesInRange(methodArgs[0], replies);
+                } else if (argumentCount == 2) {
+                    taxi.printRidesInRange(methodArgs[0], methodArgs[1], replies);
+                } else {
+                    replies.writeAscii("Incorrect number of parameters in Print on line " + parser.lineNumber);
+                }
+                break;
+            case opcode.GetNextRide:
+                if (argumentCount != 0) {
+                    replies.writeAscii("Incorrect number of parameters in GetNextRide on line " + parser.lineNumber);
+                    break;
+                }
+                taxi.printNextRide(replies);
+                break;
+            case opcode.GetNextRides:
+                if (argumentCount != 1 || methodArgs[0] < 1) {
+                    replies.writeAscii("Incorrect number of parameters in GetNextRides on line " + parser.lineNumber);
+                    break;
+                }
+                taxi.printNextRides(methodArgs[0], replies);
+                break;
+            case opcode.CancelRide:
+                if (argumentCount != 1) {
+                    replies.writeAscii("Incorrect number of parameters in CancelRide on line " + parser.lineNumber);
+                    break;
+                }
+                taxi.cancelRide(methodArgs[0]);
+                break;
+            case opcode.UpdateTrip:
+                if (argumentCount != 2) {
+                    replies.writeAscii("Incorrect number of parameters in UpdateTrip on line " + parser.lineNumber);
+                    break;
+                }
+                taxi.updateTrip(methodArgs[0], methodArgs[1]);
+                break;
+            default:
+                replies.writeAscii(parser.error);
+                break;
+        }
+        replies.writeByte('\n');
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.recordSharedLatency(parser.operation, startNanos);
+        }
+    }
+
+    /**
+     * Method to send as many pending replies as the socket takes without blocking
+     *
+     * @return true once every reply has been sent
+     * @throws IOException if writing fails
+     */
+    boolean send() throws IOException {
+        return replies.drainTo(channel);
+    }
+}
+
+/**
+ * Class implementing an event loop of gatorTaxiServer - one thread and one selector serving its share of the
+ * connections, reading and running their commands and sending the replies. A connection whose replies
+ * the socket does not take is not read again until they are sent, so a slow client holds back only itself.
+ * The loop that accepts connections also writes the metrics file when one is due.
+ */
+final class serverEventLoop implements Runnable {
+
+    /**
+     * Selector of the connections of this loop
+     */
+    private final Selector selector;
+
+    /**
+     * Engine the commands are run against, shared by every loop
+     */
+    private final concurrentGatorTaxi taxi;
+
+    /**
+     * Connections accepted for this loop and not yet registered with its selector
+     */
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Server, for the loop that accepts connections, or null
+     */
+    private final gatorTaxiServer server;
+
+    /**
+     * Set when the loop is to stop
+     */
+    volatile boolean stopped;
+
+    /**
+     * Server event loop constructor
+     *
+     * @param taxi   engine the commands are run against
+     * @param server server whose connections this loop accepts, or null
+     * @throws IOException if the selector cannot be opened
+     */
+    serverEventLoop(concurrentGatorTaxi taxi, gatorTaxiServer server) throws IOException {
+        this.selector = Selector.open();
+        this.taxi = taxi;
+        this.server = server;
+        if (server != null) {
+            server.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        }
+    }
+
+    /**
+     * Method to hand an accepted connection to this loop
+     *
+     * @param channel socket of the connection, in non-blocking mode
+     */
+    void add(SocketChannel channel) {
+        accepted.add(channel);
+        selector.wakeup();
+    }
+
+    /**
+     * Method to stop the loop, closing its connections
+     */
+    void stop() {
+        stopped = true;
+        selector.wakeup();
+    }
+
+    /**
+     * Method run by the event-loop thread
+     */
+    @Override
+    public void run() {
+        try {
+            while (!stopped) {
+                selector.select(server != null ? taxi.metricsInterval : 0);
+                registerAccepted();
+                if (server != null) {
+                    writeMetricsIfDue();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        server.accept();
+                    } else {
+                        serve(key, (serverConnection) key.attachment());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            SocketChannel channel;
+            while ((channel = accepted.poll()) != null) {
+                closeQuietly(channel);
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    /**
+     * Method to write the metrics file if it is due; a failed write is reported and the loop carries on
+     */
+    private void writeMetricsIfDue() {
+        try {
+            taxi.writeMetricsIfDue();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method to register connections handed to this loop with its selector
+     *
+     * @throws IOException if a connection cannot be registered
+     */
+    private void registerAccepted() throws IOException {
+        SocketChannel channel;
+        while ((channel = accepted.poll()) != null) {
+            channel.register(selector, SelectionKey.OP_READ, new serverConnection(channel));
+        }
+    }
+
+    /**
+     * Method to serve a ready connection - read and run its commands, then send replies, reading again only
+     * once every reply is sent
+     *
+     * @param key        selection key of the connection
+     * @param connection state of the connection
+     */
+    private void serve(SelectionKey key, serverConnection connection) {
+        try {
+            if (key.isReadable()) {
+                connection.receive(taxi);
+            }
+            if (!connection.send()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (connection.closing) {
+                closeQuietly(key);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            closeQuietly(key);
+        }
+    }
+
+    /**
+     * Method to close a connection or the server channel of a key
+     *
+     * @param key selection key to cancel
+     */
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    /**
+     * Method to close a resource, ignoring failures
+     *
+     * @param closeable resource to close
+     */
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // already failed or closed; nothing left to release
+        }
+    }
+}
+
+/**
+ * Class implementing Gator Taxi as a long-lived TCP service. A few event-loop threads, each with its own
+ * selector, serve the connections without blocking; the first also accepts them and deals them out in
+ * turn. A connection sends the same text commands as an input file, or the binary format of
+ * binaryCommandParser starting with its header, and gets one reply line per command, in order. Commands are
+ * run against one concurrentGatorTaxi shared by every connection.
+ */
+public class gatorTaxiServer implements AutoCloseable {
+
+    /**
+     * Channel accepting connections
+     */
+    final ServerSocketChannel serverChannel;
+
+    /**
+     * Event loops, the first of which accepts connections
+     */
+    private final serverEventLoop[] eventLoops;
+
+    /**
+     * Threads running the event loops
+     */
+    private final Thread[] threads;
+
+    /**
+     * Event loop the next accepted connection is handed to
+     */
+    private int nextEventLoop;
+
+    /**
+     * Gator Taxi server constructor - binds the listening socket and starts the event loops
+     *
+     * @param options start-up options
+     * @throws IOException if the socket cannot be bound
+     */
+    public gatorTaxiServer(gatorTaxiOptions options) throws IOException {
+        concurrentGatorTaxi taxi = new concurrentGatorTaxi(options);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(options.bindAddress, options.port), 1024);
+        serverChannel.configureBlocking(false);
+
+        eventLoops = new serverEventLoop[options.eventLoops];
+        threads = new Thread[options.eventLoops];
+        for (int loop = 0; loop < eventLoops.length; loop++) {
+            eventLoops[loop] = new serverEventLoop(taxi, loop == 0 ? this : null);
+            threads[loop] = new Thread(eventLoops[loop], "gatorTaxi-loop-" + loop);
+            threads[loop].start();
+        }
+    }
+
+    /**
+     * Method to get the port the server listens on
+     *
+     * @return local port
+     * @throws IOException if the socket is closed
+     */
+    public int port() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Method to accept every pending connection and hand each to the next event loop. Run by the first
+     * event loop.
+     *
+     * @throws IOException if accepting fails
+     */
+    void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            eventLoops[nextEventLoop].add(channel);
+            nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+        }
+    }
+
+    /**
+     * Method to wait until every event loop has stopped
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitTermination() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Method to stop accepting, close every connection and stop the event loops
+     *
+     * @throws IOException if the listening socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        for (serverEventLoop eventLoop : eventLoops) {
+            eventLoop.stop();
+        }
+        try {
+            awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        serverChannel.close();
+    }
+
+    /**
+     * Start of the server - runs until the process is stopped
+     *
+     * @param args options
+     */
+    public static void main(String[] args) {
+        gatorTaxiOptions options;
+
+        try {
+            options = gatorTaxiOptions.parse(args);
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println(e.getMessage());
+            System.out.println(gatorTaxiOptions.usage());
+            return;
+        }
+
+        if (options.walDirectory != null || options.snapshotFileName != null || options.shards > 1 || options.lazyCancel) {
+            System.out.println("Options wal-dir, snapshot, shards and lazy-cancel are not supported by gatorTaxiServer");
+            return;
+        }
+        if (options.metricsFileName != null) {
+            System.setProperty("gatorTaxi.metrics", "true");
+        }
+
+        try {
+            if (!options.serverModel.equals("nio")) {
+                sessionServer server = new sessionServer(options);
+                Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+                System.out.println("Listening on " + options.bindAddress + ":" + server.port() + " with a " + server.threadKind() + " thread per session");
+                server.awaitTermination();
+                return;
+            }
+
+            gatorTaxiServer server = new gatorTaxiServer(options);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+            System.out.println("Listening on " + options.bindAddress + ":" + server.port() + " with " + options.eventLoops + " event loops");
+            server.awaitTermination();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
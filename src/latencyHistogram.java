@@ -0,0 +1,103 @@
+/**
+ * Log-linear histogram of latencies in nanoseconds - 8 sub-buckets per power of two, so recorded
+ * values are kept within 12.5% and recording never allocates
+ */
+public class latencyHistogram {
+
+    /**
+     * Number of sub-buckets per power of two, as a power of two
+     */
+    private static final int subBucketBits = 3;
+
+    /**
+     * Counts per bucket
+     */
+    private final long[] counts = new long[(64 << subBucketBits) + 1];
+
+    /**
+     * Number of recorded values
+     */
+    private long totalCount;
+
+    /**
+     * Largest recorded value
+     */
+    private long maximum;
+
+    /**
+     * Method to get the bucket of a value
+     *
+     * @param value recorded value
+     * @return bucket index
+     */
+    private static int bucketOf(long value) {
+        if (value < (1L << subBucketBits)) {
+            return (int) Math.max(value, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - subBucketBits)) & ((1 << subBucketBits) - 1);
+        return ((exponent - subBucketBits + 1) << subBucketBits) + subBucket;
+    }
+
+    /**
+     * Method to get the highest value of a bucket
+     *
+     * @param bucket bucket index
+     * @return highest value falling in the bucket
+     */
+    private static long highestValueOf(int bucket) {
+        if (bucket < (1 << subBucketBits)) {
+            return bucket;
+        }
+        int exponent = (bucket >>> subBucketBits) + subBucketBits - 1;
+        long subBucket = bucket & ((1 << subBucketBits) - 1);
+        return ((1L << subBucketBits | subBucket) + 1 << (exponent - subBucketBits)) - 1;
+    }
+
+    /**
+     * Method to record a value
+     *
+     * @param value latency in nanoseconds
+     */
+    public void record(long value) {
+        counts[bucketOf(value)]++;
+        totalCount++;
+        maximum = Math.max(maximum, value);
+    }
+
+    /**
+     * Method to get number of recorded values
+     *
+     * @return number of recorded values
+     */
+    public long count() {
+        return totalCount;
+    }
+
+    /**
+     * Method to get the value at a percentile
+     *
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket holding the percentile, capped at the maximum
+     */
+    public long percentile(double percentile) {
+        long rank = (long) Math.ceil(totalCount * percentile / 100.0);
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= Math.max(rank, 1)) {
+                return Math.min(highestValueOf(bucket), maximum);
+            }
+        }
+        return maximum;
+    }
+
+    /**
+     * Method to get the largest recorded value
+     *
+     * @return largest value
+     */
+    public long maximum() {
+        return maximum;
+    }
+}
@@ -1,200 +1,452 @@
-/**
- * Min Heap Node
- */
-class minHeapNode {
-
-    /**
-     * Data in Min Heap Node
-     */
-    minHeapRide data;
-
-    /**
-     * Represents position of node in min heap array
-     */
-    int positionIndex;
-
-    /**
-     * Constructor of minHeapNode
-     *
-     * @param data          of type minHeapRide
-     * @param positionIndex of type int
-     */
-    public minHeapNode(minHeapRide data, int positionIndex) {
-        this.data = data;
-        this.positionIndex = positionIndex;
-    }
-}
-
-/**
- * Class implementing min heap
- */
-public class minHeap {
-
-    /**
-     * Heap array to store min heap structure
-     */
-    private final minHeapNode[] Heap;
-
-    /**
-     * Represents min heap's current size
-     */
-    private int size;
-
-    /**
-     * Maximum size limit of min heap
-     */
-    private final int maximumSize;
-
-    /**
-     * Starting position index of min heap
-     */
-    private static final int startPositionIndex = 1;
-
-    /**
-     * Min Heap Constructor
-     *
-     * @param maximumSize max size of the min heap
-     */
-    public minHeap(int maximumSize) {
-        this.maximumSize = maximumSize;
-        this.size = 0;
-
-        Heap = new minHeapNode[maximumSize + 1];
-        Heap[0] = new minHeapNode(new minHeapRide(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE), 0);
-    }
-
-    /**
-     * Method to get node's parent's position index in heap array
-     *
-     * @param positionIndex position index of node in heap array
-     * @return position index of parent in heap array
-     */
-    private int getParentPositionIndex(int positionIndex) {
-        return positionIndex / 2;
-    }
-
-    /**
-     * Method to get node's left child's position index in heap array
-     *
-     * @param positionIndex position index of node in heap array
-     * @return position index of left child in heap array
-     */
-    private int getLeftChildPositionIndex(int positionIndex) {
-        return (2 * positionIndex);
-    }
-
-    /**
-     * Method to get node's right child's position index in heap array
-     *
-     * @param positionIndex position index of node in heap array
-     * @return position index of right child in heap array
-     */
-    private int getRightChildPositionIndex(int positionIndex) {
-        return (2 * positionIndex) + 1;
-    }
-
-    /**
-     * Method to check whether the node is a leaf in min heap
-     *
-     * @param positionIndex position index of node in heap array
-     * @return true/false on whether the node is a leaf in min heap
-     */
-    private boolean isLeaf(int positionIndex) {
-        return positionIndex > (size / 2);
-    }
-
-    /**
-     * Swaps positions of two nodes within min heap
-     *
-     * @param positionIndex1 position index of node to be swapped
-     * @param positionIndex2 position index of node to be swapped with
-     */
-    private void swap(int positionIndex1, int positionIndex2) {
-        minHeapNode temp;
-        temp = Heap[positionIndex1];
-
-        Heap[positionIndex1] = Heap[positionIndex2];
-        Heap[positionIndex2] = temp;
-
-        Heap[positionIndex1].positionIndex = positionIndex1;
-        Heap[positionIndex2].positionIndex = positionIndex2;
-    }
-
-    /**
-     * Method to fix min heap with heapify
-     *
-     * @param positionIndex position index of node in heap array to start heapify from
-     */
-    private void minHeapify(int positionIndex) {
-        if (!isLeaf(positionIndex)) {
-            int swapPositionIndex;
-
-            if (getRightChildPositionIndex(positionIndex) <= size)
-                swapPositionIndex = (Heap[getLeftChildPositionIndex(positionIndex)].data.compareTo(Heap[getRightChildPositionIndex(positionIndex)].data) < 0) ? getLeftChildPositionIndex(positionIndex) : getRightChildPositionIndex(positionIndex);
-            else swapPositionIndex = getLeftChildPositionIndex(positionIndex);
-
-            if ((Heap[positionIndex].data.compareTo(Heap[getLeftChildPositionIndex(positionIndex)].data) > 0) || (Heap[positionIndex].data.compareTo(Heap[getRightChildPositionIndex(positionIndex)].data) > 0)) {
-                swap(positionIndex, swapPositionIndex);
-                minHeapify(swapPositionIndex);
-            }
-        }
-    }
-
-    /**
-     * Method to insert data into min heap
-     *
-     * @param minHeapRide data to be inserted
-     * @return pointer to node in which data is inserted
-     */
-    public minHeapNode insert(minHeapRide minHeapRide) {
-        if (size >= maximumSize) {
-            return null;
-        }
-
-        minHeapNode node = new minHeapNode(minHeapRide, ++size);
-
-        Heap[size] = node;
-        int current = size;
-
-        while (Heap[current].data.compareTo(Heap[getParentPositionIndex(current)].data) < 0) {
-            swap(current, getParentPositionIndex(current));
-            current = getParentPositionIndex(current);
-        }
-
-        return node;
-    }
-
-    /**
-     * Delete the minimum, i.e., the root node of min heap
-     *
-     * @return the minimum data value from min heap
-     */
-    public minHeapRide deleteMin() {
-        if (size == 0) {
-            return null;
-        }
-
-        minHeapNode popped = Heap[startPositionIndex];
-        Heap[startPositionIndex] = Heap[size--];
-        Heap[startPositionIndex].positionIndex = startPositionIndex;
-        minHeapify(startPositionIndex);
-
-        return popped.data;
-    }
-
-    /**
-     * Delete an arbitrary node from min heap
-     *
-     * @param minHeapNode pointer to the node to be deleted
-     */
-    public void arbitraryDelete(minHeapNode minHeapNode) {
-        if (size == 0) {
-            return;
-        }
-
-        int positionIndex = minHeapNode.positionIndex;
-        Heap[positionIndex] = Heap[size--];
-        Heap[positionIndex].positionIndex = positionIndex;
-        minHeapify(positionIndex);
-    }
-}
+import java.util.Arrays;
+
+/**
+ * Class implementing binary min heap over the slots of a ride table, ordered by ride cost, then trip duration, then ride number
+ */
+public class minHeap implements ridePriorityQueue {
+
+    /**
+     * Table holding the rides and their heap positions
+     */
+    private final rideTable rides;
+
+    /**
+     * Heap array to store min heap structure as ride slots
+     */
+    private int[] Heap;
+
+    /**
+     * Represents min heap's current size
+     */
+    private int size;
+
+    /**
+     * Capacity the heap array starts with and never shrinks below
+     */
+    private final int initialCapacity;
+
+    /**
+     * Factor the heap array capacity is multiplied by when it is full
+     */
+    private final double growthFactor;
+
+    /**
+     * Whether the heap array is shrunk again once a burst has drained
+     */
+    private final boolean shrinkAfterBursts;
+
+    /**
+     * Starting position index of min heap
+     */
+    private static final int startPositionIndex = 1;
+
+    /**
+     * Frontier deleteMins searches for the smallest rides with
+     */
+    private final rideFrontier frontier;
+
+    /**
+     * Min Heap Constructor
+     *
+     * @param rides           table holding the rides
+     * @param initialCapacity number of rides the heap holds before growing
+     */
+    public minHeap(rideTable rides, int initialCapacity) {
+        this(rides, initialCapacity, 2.0, false);
+    }
+
+    /**
+     * Min Heap Constructor
+     *
+     * @param rides             table holding the rides
+     * @param initialCapacity   number of rides the heap holds before growing
+     * @param growthFactor      factor (greater than 1) the capacity is multiplied by when the heap is full
+     * @param shrinkAfterBursts whether to halve the capacity when the heap drops to a quarter full
+     */
+    public minHeap(rideTable rides, int initialCapacity, double growthFactor, boolean shrinkAfterBursts) {
+        if (growthFactor <= 1.0) {
+            throw new IllegalArgumentException("Growth factor must be greater than 1");
+        }
+
+        this.rides = rides;
+        this.initialCapacity = Math.max(initialCapacity, 1);
+        this.growthFactor = growthFactor;
+        this.shrinkAfterBursts = shrinkAfterBursts;
+        this.size = 0;
+        this.frontier = new rideFrontier(rides);
+
+        Heap = new int[this.initialCapacity + 1];
+    }
+
+    /**
+     * Method to get number of rides in min heap
+     *
+     * @return number of rides
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to get number of rides min heap holds before growing
+     *
+     * @return capacity of heap array
+     */
+    public int capacity() {
+        return Heap.length - 1;
+    }
+
+    /**
+     * Method to resize heap array to a new capacity
+     *
+     * @param capacity new capacity of heap array
+     */
+    private void resize(int capacity) {
+        Heap = Arrays.copyOf(Heap, capacity + 1);
+    }
+
+    /**
+     * Method to grow heap array by growth factor
+     */
+    private void grow() {
+        int capacity = capacity();
+        resize((int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity + 1L, (long) (capacity * growthFactor))));
+    }
+
+    /**
+     * Method to halve heap array once a burst has drained to a quarter of its capacity
+     */
+    private void shrinkIfSparse() {
+        int capacity = capacity();
+        if (shrinkAfterBursts && capacity > initialCapacity && size < capacity / 4) {
+            resize(Math.max(initialCapacity, capacity / 2));
+        }
+    }
+
+    /**
+     * Method to get node's parent's position index in heap array
+     *
+     * @param positionIndex position index of node in heap array
+     * @return position index of parent in heap array
+     */
+    private int getParentPositionIndex(int positionIndex) {
+        return positionIndex / 2;
+    }
+
+    /**
+     * Method to get node's left child's position index in heap array
+     *
+     * @param positionIndex position index of node in heap array
+     * @return position index of left child in heap array
+     */
+    private int getLeftChildPositionIndex(int positionIndex) {
+        return (2 * positionIndex);
+    }
+
+    /**
+     * Method to get node's right child's position index in heap array
+     *
+     * @param positionIndex position index of node in heap array
+     * @return position index of right child in heap array
+     */
+    private int getRightChildPositionIndex(int positionIndex) {
+        return (2 * positionIndex) + 1;
+    }
+
+    /**
+     * Method to check whether the node is a leaf in min heap
+     *
+     * @param positionIndex position index of node in heap array
+     * @return true/false on whether the node is a leaf in min heap
+     */
+    private boolean isLeaf(int positionIndex) {
+        return positionIndex > (size / 2);
+    }
+
+    /**
+     * Method to move a node down until no child is less than it. The node is carried down as a hole
+     * and written once, so each level costs one move instead of a swap.
+     *
+     * @param positionIndex position index of node in heap array to start heapify from
+     */
+    private void minHeapify(int positionIndex) {
+        int slot = Heap[positionIndex];
+        int startIndex = positionIndex;
+
+        while (!isLeaf(positionIndex)) {
+            int swapPositionIndex = getLeftChildPositionIndex(positionIndex);
+            int rightChildPositionIndex = getRightChildPositionIndex(positionIndex);
+            if (rightChildPositionIndex <= size && rides.ranksBefore(Heap[rightChildPositionIndex], Heap[swapPositionIndex])) {
+                swapPositionIndex = rightChildPositionIndex;
+            }
+            if (!rides.ranksBefore(Heap[swapPositionIndex], slot)) {
+                break;
+            }
+
+            Heap[positionIndex] = Heap[swapPositionIndex];
+            rides.heapIndex[Heap[positionIndex]] = positionIndex;
+            positionIndex = swapPositionIndex;
+        }
+
+        Heap[positionIndex] = slot;
+        rides.heapIndex[slot] = positionIndex;
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.recordSiftDown(Integer.numberOfLeadingZeros(startIndex) - Integer.numberOfLeadingZeros(positionIndex));
+        }
+    }
+
+    /**
+     * Method to move a node up until its parent is not greater than it
+     *
+     * @param positionIndex position index of node in heap array to start from
+     */
+    private void siftUp(int positionIndex) {
+        int slot = Heap[positionIndex];
+        int startIndex = positionIndex;
+
+        while (positionIndex > startPositionIndex && rides.ranksBefore(slot, Heap[getParentPositionIndex(positionIndex)])) {
+            Heap[positionIndex] = Heap[getParentPositionIndex(positionIndex)];
+            rides.heapIndex[Heap[positionIndex]] = positionIndex;
+            positionIndex = getParentPositionIndex(positionIndex);
+        }
+
+        Heap[positionIndex] = slot;
+        rides.heapIndex[slot] = positionIndex;
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.recordSiftUp(Integer.numberOfLeadingZeros(positionIndex) - Integer.numberOfLeadingZeros(startIndex));
+        }
+    }
+
+    /**
+     * Method to insert a ride into min heap
+     *
+     * @param slot slot of the ride to be inserted
+     */
+    @Override
+    public void insert(int slot) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        if (size == capacity()) {
+            grow();
+        }
+
+        Heap[++size] = slot;
+        siftUp(size);
+    }
+
+    /**
+     * Method to insert a batch of rides by appending them and heapifying bottom-up (Floyd), O(n) instead of
+     * O(n log n)
+     *
+     * @param slots slots of the rides to be inserted
+     * @param count number of slots to take from the start of slots
+     */
+    @Override
+    public void bulkLoad(int[] slots, int count) {
+        if (size + count > capacity()) {
+            resize(size + count);
+        }
+
+        System.arraycopy(slots, 0, Heap, size + 1, count);
+        size += count;
+        heapify();
+    }
+
+    /**
+     * Method to restore heap order over the whole heap array bottom-up (Floyd), sifting every position down
+     * from the last one to the root so each slot's heapIndex is wired in the same sweep
+     */
+    private void heapify() {
+        for (int positionIndex = size; positionIndex >= startPositionIndex; positionIndex--) {
+            minHeapify(positionIndex);
+        }
+    }
+
+    /**
+     * Method to get the minimum without removing it
+     *
+     * @return slot of the minimum ride in min heap, or noSlot if empty
+     */
+    @Override
+    public int peek() {
+        return size == 0 ? rideTable.noSlot : Heap[startPositionIndex];
+    }
+
+    /**
+     * Delete the minimum, i.e., the root node of min heap
+     *
+     * @return slot of the minimum ride in min heap, or noSlot if empty
+     */
+    @Override
+    public int deleteMin() {
+        if (size == 0) {
+            return rideTable.noSlot;
+        }
+
+        int popped = Heap[startPositionIndex];
+        if (rideTable.slotChecks) {
+            rides.checkLive(popped);
+        }
+        Heap[startPositionIndex] = Heap[size--];
+        rides.heapIndex[popped] = 0;
+        if (size > 0) {
+            minHeapify(startPositionIndex);
+        }
+        shrinkIfSparse();
+
+        return popped;
+    }
+
+    /**
+     * Method to remove up to count minimums at once. A few are removed one deleteMin at a time. Once count
+     * reaches an eighth of the heap the smallest rides are found instead by a frontier search from the root
+     * that leaves the heap untouched, O(count log count), and the heap is compacted and rebuilt bottom-up in
+     * O(n), which is cheaper than count sift-downs of log n levels each.
+     *
+     * @param slots array to write the removed slots to, smallest first
+     * @param count most rides to remove
+     * @return number of rides removed, less than count only if the heap ran empty
+     */
+    @Override
+    public int deleteMins(int[] slots, int count) {
+        count = Math.min(count, size);
+        if ((long) count * 8 < size) {
+            for (int taken = 0; taken < count; taken++) {
+                slots[taken] = deleteMin();
+            }
+            return count;
+        }
+
+        frontier.clear(count + 1);
+        frontier.push(Heap[startPositionIndex], startPositionIndex);
+        for (int taken = 0; taken < count; taken++) {
+            slots[taken] = frontier.peekSlot();
+            int positionIndex = frontier.pop();
+            rides.heapIndex[slots[taken]] = 0;
+            int leftChildPositionIndex = getLeftChildPositionIndex(positionIndex);
+            if (leftChildPositionIndex <= size) {
+                frontier.push(Heap[leftChildPositionIndex], leftChildPositionIndex);
+            }
+            int rightChildPositionIndex = getRightChildPositionIndex(positionIndex);
+            if (rightChildPositionIndex <= size) {
+                frontier.push(Heap[rightChildPositionIndex], rightChildPositionIndex);
+            }
+        }
+
+        int kept = 0;
+        for (int positionIndex = startPositionIndex; positionIndex <= size; positionIndex++) {
+            if (rides.heapIndex[Heap[positionIndex]] != 0) {
+                Heap[++kept] = Heap[positionIndex];
+            }
+        }
+        size = kept;
+        heapify();
+        shrinkIfSparse();
+
+        return count;
+    }
+
+    /**
+     * Delete an arbitrary ride from min heap
+     *
+     * @param slot slot of the ride to be deleted
+     */
+    @Override
+    public void arbitraryDelete(int slot) {
+        if (size == 0) {
+            return;
+        }
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+
+        int positionIndex = rides.heapIndex[slot];
+        int moved = Heap[size--];
+        Heap[positionIndex] = moved;
+        rides.heapIndex[slot] = 0;
+        if (positionIndex <= size) {
+            siftUp(positionIndex);
+            minHeapify(rides.heapIndex[moved]);
+        }
+        shrinkIfSparse();
+    }
+
+    /**
+     * Method to remove every cancelled ride by compacting the heap array around them and rebuilding it
+     * bottom-up, O(n) however many there are
+     *
+     * @param slots array to write the removed slots to, long enough for every cancelled ride
+     * @return number of rides removed
+     */
+    @Override
+    public int removeCancelled(int[] slots) {
+        int removed = 0;
+        int kept = 0;
+        for (int positionIndex = startPositionIndex; positionIndex <= size; positionIndex++) {
+            int slot = Heap[positionIndex];
+            if (rides.cancelled[slot]) {
+                rides.heapIndex[slot] = 0;
+                slots[removed++] = slot;
+            } else {
+                Heap[++kept] = slot;
+            }
+        }
+        size = kept;
+        heapify();
+        shrinkIfSparse();
+
+        return removed;
+    }
+
+    /**
+     * Method to remove every ride at once, in heap array order
+     *
+     * @param slots array to write the removed slots to, at least as long as the heap
+     * @return number of rides removed
+     */
+    public int removeAll(int[] slots) {
+        int removed = size;
+        for (int positionIndex = startPositionIndex; positionIndex <= size; positionIndex++) {
+            slots[positionIndex - startPositionIndex] = Heap[positionIndex];
+            rides.heapIndex[Heap[positionIndex]] = 0;
+        }
+        size = 0;
+        shrinkIfSparse();
+
+        return removed;
+    }
+
+    /**
+     * Method to change the key of a ride and sift it up or down from its position
+     *
+     * @param slot         slot of the ride
+     * @param rideCost     new cost of the ride
+     * @param tripDuration new trip duration of the ride
+     */
+    @Override
+    public void changeKey(int slot, int rideCost, int tripDuration) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        rides.rideCost[slot] = rideCost;
+        rides.tripDuration[slot] = tripDuration;
+        int positionIndex = rides.heapIndex[slot];
+        siftUp(positionIndex);
+        if (rides.heapIndex[slot] == positionIndex) {
+            minHeapify(positionIndex);
+        }
+    }
+
+    /**
+     * Method to check whether a ride is in min heap
+     *
+     * @param slot slot of the ride
+     * @return true if the ride has not been deleted from min heap
+     */
+    @Override
+    public boolean contains(int slot) {
+        return rides.heapIndex[slot] != 0;
+    }
+}
@@ -0,0 +1,312 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Class implementing the output of Gator Taxi - results are formatted as ASCII straight into a reused byte
+ * buffer and written to a file channel in large batches, optionally by a background thread while the next
+ * batch is being filled. Without a channel, output is kept in memory and taken as a String.
+ */
+public class outputSink implements AutoCloseable {
+
+    /**
+     * Channel results are written to, or null to keep them in memory
+     */
+    private final FileChannel channel;
+
+    /**
+     * Buffer being filled
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Whether nothing has been written since the start or the last takeString()
+     */
+    private boolean isFirst = true;
+
+    /**
+     * Buffers handed to the background flush thread, or null without one
+     */
+    private final BlockingQueue<ByteBuffer> filledBuffers;
+
+    /**
+     * Buffers the background flush thread has written and handed back
+     */
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+
+    /**
+     * Background flush thread, or null to flush on the calling thread
+     */
+    private final Thread flushThread;
+
+    /**
+     * Buffer telling the background flush thread to stop
+     */
+    private final ByteBuffer endOfOutput = ByteBuffer.allocate(0);
+
+    /**
+     * Failure of the background flush thread, rethrown on the calling thread
+     */
+    private volatile IOException flushFailure;
+
+    /**
+     * Output sink constructor for results kept in memory
+     *
+     * @param initialSize initial size of the buffer in bytes, which grows as needed
+     */
+    public outputSink(int initialSize) {
+        this.channel = null;
+        this.buffer = ByteBuffer.allocate(initialSize);
+        this.filledBuffers = null;
+        this.freeBuffers = null;
+        this.flushThread = null;
+    }
+
+    /**
+     * Output sink constructor for results written to a file
+     *
+     * @param channel         channel to write results to
+     * @param bufferSize      size of each batch in bytes
+     * @param backgroundFlush whether to write full batches on a background thread, double-buffered
+     */
+    public outputSink(FileChannel channel, int bufferSize, boolean backgroundFlush) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+
+        if (backgroundFlush) {
+            filledBuffers = new ArrayBlockingQueue<>(2);
+            freeBuffers = new ArrayBlockingQueue<>(2);
+            freeBuffers.add(ByteBuffer.allocate(bufferSize));
+            flushThread = new Thread(this::flushInBackground, "gatorTaxi-output");
+            flushThread.setDaemon(true);
+            flushThread.start();
+        } else {
+            filledBuffers = null;
+            freeBuffers = null;
+            flushThread = null;
+        }
+    }
+
+    /**
+     * Method run by the background flush thread - writes filled buffers until told to stop
+     */
+    private void flushInBackground() {
+        try {
+            ByteBuffer filled;
+            while ((filled = filledBuffers.take()) != endOfOutput) {
+                try {
+                    if (flushFailure == null) {
+                        writeFully(filled);
+                    }
+                } catch (IOException e) {
+                    flushFailure = e;
+                }
+                filled.clear();
+                freeBuffers.put(filled);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method to write a whole buffer to the channel
+     *
+     * @param filled buffer to write, flipped for reading
+     * @throws IOException if writing fails
+     */
+    private void writeFully(ByteBuffer filled) throws IOException {
+        while (filled.hasRemaining()) {
+            channel.write(filled);
+        }
+    }
+
+    /**
+     * Method to make room for the given number of bytes
+     *
+     * @param length number of bytes about to be written
+     * @throws IOException if flushing fails
+     */
+    private void ensureRoom(int length) throws IOException {
+        if (buffer.remaining() >= length) {
+            return;
+        }
+        if (channel == null) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length));
+            buffer.flip();
+            buffer = grown.put(buffer);
+            return;
+        }
+        flush();
+    }
+
+    /**
+     * Method to write the filled part of the buffer to the channel
+     *
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        if (channel == null || buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+
+        if (flushThread == null) {
+            writeFully(buffer);
+            buffer.clear();
+            return;
+        }
+
+        try {
+            filledBuffers.put(buffer);
+            buffer = freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while flushing output", e);
+        }
+        if (flushFailure != null) {
+            throw flushFailure;
+        }
+    }
+
+    /**
+     * Method to start a new result - every result but the first goes on a new line
+     *
+     * @throws IOException if flushing fails
+     */
+    public void beginLine() throws IOException {
+        if (!isFirst) {
+            writeByte('\n');
+        }
+        isFirst = false;
+    }
+
+    /**
+     * Method to write a single ASCII character
+     *
+     * @param character character to write
+     * @throws IOException if flushing fails
+     */
+    public void writeByte(char character) throws IOException {
+        ensureRoom(1);
+        buffer.put((byte) character);
+    }
+
+    /**
+     * Method to write ASCII text
+     *
+     * @param text text to write
+     * @throws IOException if flushing fails
+     */
+    public void writeAscii(String text) throws IOException {
+        ensureRoom(text.length());
+        for (int index = 0; index < text.length(); index++) {
+            buffer.put((byte) text.charAt(index));
+        }
+    }
+
+    /**
+     * Method to write an int in decimal
+     *
+     * @param value int to write
+     * @throws IOException if flushing fails
+     */
+    public void writeInt(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            writeAscii("-2147483648");
+            return;
+        }
+
+        ensureRoom(11);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        int digits = 1;
+        for (int power = 10; digits < 10 && value >= power; power *= 10) {
+            digits++;
+        }
+
+        int end = buffer.position() + digits;
+        for (int index = end - 1; index >= end - digits; index--) {
+            buffer.put(index, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    /**
+     * Method to write a ride tuple as "(rideNumber,rideCost,tripDuration)"
+     *
+     * @param rideNumber   ride number
+     * @param rideCost     cost of the ride
+     * @param tripDuration trip duration of the ride
+     * @throws IOException if flushing fails
+     */
+    public void writeRide(int rideNumber, int rideCost, int tripDuration) throws IOException {
+        writeByte('(');
+        writeInt(rideNumber);
+        writeByte(',');
+        writeInt(rideCost);
+        writeByte(',');
+        writeInt(tripDuration);
+        writeByte(')');
+    }
+
+    /**
+     * Method to take the results kept in memory as a String and start over
+     *
+     * @return results written since the last call
+     */
+    public String takeString() {
+        String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+        buffer.clear();
+        isFirst = true;
+        return text;
+    }
+
+    /**
+     * Method to write the results kept in memory to a channel, as far as the channel takes them without
+     * blocking, and keep the rest for the next call
+     *
+     * @param target channel to write to
+     * @return true once every result has been written
+     * @throws IOException if writing fails
+     */
+    public boolean drainTo(WritableByteChannel target) throws IOException {
+        buffer.flip();
+        try {
+            target.write(buffer);
+        } finally {
+            buffer.compact();
+        }
+        return buffer.position() == 0;
+    }
+
+    /**
+     * Method to flush the remaining results and stop the background flush thread
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (flushThread != null) {
+            try {
+                filledBuffers.put(endOfOutput);
+                flushThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while closing output", e);
+            }
+            if (flushFailure != null) {
+                throw flushFailure;
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+import java.util.Arrays;
+
+/**
+ * Class implementing pairing heap over the slots of a ride table. Insert and decreasing a key are O(1)
+ * melds; deleteMin pairs up the root's children left to right and melds the pairs right to left, for
+ * O(log n) amortized. Tree links are kept in arrays indexed by slot, grown along with the ride table.
+ */
+public class pairingHeap implements ridePriorityQueue {
+
+    /**
+     * Table holding the rides
+     */
+    private final rideTable rides;
+
+    /**
+     * First child of each ride, or noSlot
+     */
+    private int[] firstChild = new int[0];
+
+    /**
+     * Next sibling of each ride, or noSlot
+     */
+    private int[] nextSibling = new int[0];
+
+    /**
+     * Previous sibling of each ride, its parent if it is a first child, or noSlot for the root
+     */
+    private int[] previous = new int[0];
+
+    /**
+     * Roots waiting to be melded during the two pairing passes
+     */
+    private int[] pairs = new int[16];
+
+    /**
+     * Rides removeCancelled keeps and inserts again, reused between compactions
+     */
+    private int[] keptSlots = new int[0];
+
+    /**
+     * Slot of the root, or noSlot if empty
+     */
+    private int root = rideTable.noSlot;
+
+    /**
+     * Number of rides in the heap
+     */
+    private int size;
+
+    /**
+     * Pairing heap constructor
+     *
+     * @param rides table holding the rides
+     */
+    public pairingHeap(rideTable rides) {
+        this.rides = rides;
+    }
+
+    /**
+     * Method to get number of rides in the heap
+     *
+     * @return number of rides
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to grow the link arrays to the capacity of the ride table
+     */
+    private void grow() {
+        int capacity = rides.rideNumber.length;
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+    }
+
+    /**
+     * Method to meld two heaps
+     *
+     * @param root1 root of the first heap
+     * @param root2 root of the second heap
+     * @return root of the melded heap
+     */
+    private int meld(int root1, int root2) {
+        if (rides.ranksBefore(root2, root1)) {
+            int temp = root1;
+            root1 = root2;
+            root2 = temp;
+        }
+
+        nextSibling[root2] = firstChild[root1];
+        if (firstChild[root1] != rideTable.noSlot) {
+            previous[firstChild[root1]] = root2;
+        }
+        previous[root2] = root1;
+        firstChild[root1] = root2;
+        return root1;
+    }
+
+    /**
+     * Method to detach a ride and its subtree from its parent
+     *
+     * @param slot slot of a ride other than the root
+     */
+    private void cut(int slot) {
+        int before = previous[slot];
+        if (firstChild[before] == slot) {
+            firstChild[before] = nextSibling[slot];
+        } else {
+            nextSibling[before] = nextSibling[slot];
+        }
+        if (nextSibling[slot] != rideTable.noSlot) {
+            previous[nextSibling[slot]] = before;
+        }
+        nextSibling[slot] = rideTable.noSlot;
+        previous[slot] = rideTable.noSlot;
+    }
+
+    /**
+     * Method to meld a list of siblings into one heap with the two-pass pairing rule
+     *
+     * @param first first sibling, or noSlot
+     * @return root of the melded heap, or noSlot
+     */
+    private int combineSiblings(int first) {
+        int count = 0;
+        while (first != rideTable.noSlot) {
+            int second = nextSibling[first];
+            int rest = second == rideTable.noSlot ? rideTable.noSlot : nextSibling[second];
+            nextSibling[first] = rideTable.noSlot;
+            previous[first] = rideTable.noSlot;
+            if (second != rideTable.noSlot) {
+                nextSibling[second] = rideTable.noSlot;
+                previous[second] = rideTable.noSlot;
+                first = meld(first, second);
+            }
+
+            if (count == pairs.length) {
+                pairs = Arrays.copyOf(pairs, count * 2);
+            }
+            pairs[count++] = first;
+            first = rest;
+        }
+
+        if (count == 0) {
+            return rideTable.noSlot;
+        }
+        int melded = pairs[--count];
+        while (count > 0) {
+            melded = meld(pairs[--count], melded);
+        }
+        return melded;
+    }
+
+    /**
+     * Method to insert a ride into the heap
+     *
+     * @param slot slot of the ride to be inserted
+     */
+    @Override
+    public void insert(int slot) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        if (slot >= firstChild.length) {
+            grow();
+        }
+        firstChild[slot] = rideTable.noSlot;
+        nextSibling[slot] = rideTable.noSlot;
+        previous[slot] = rideTable.noSlot;
+        rides.heapIndex[slot] = 1;
+
+        root = root == rideTable.noSlot ? slot : meld(root, slot);
+        size++;
+    }
+
+    /**
+     * Method to get the minimum without removing it
+     *
+     * @return slot of the minimum ride, or noSlot if empty
+     */
+    @Override
+    public int peek() {
+        return root;
+    }
+
+    /**
+     * Method to remove the minimum
+     *
+     * @return slot of the minimum ride, or noSlot if empty
+     */
+    @Override
+    public int deleteMin() {
+        int popped = root;
+        if (popped == rideTable.noSlot) {
+            return rideTable.noSlot;
+        }
+        if (rideTable.slotChecks) {
+            rides.checkLive(popped);
+        }
+
+        root = combineSiblings(firstChild[popped]);
+        rides.heapIndex[popped] = 0;
+        size--;
+        return popped;
+    }
+
+    /**
+     * Method to remove a ride anywhere in the heap
+     *
+     * @param slot slot of the ride to be deleted
+     */
+    @Override
+    public void arbitraryDelete(int slot) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        if (slot == root) {
+            deleteMin();
+            return;
+        }
+
+        cut(slot);
+        int subHeap = combineSiblings(firstChild[slot]);
+        if (subHeap != rideTable.noSlot) {
+            root = meld(root, subHeap);
+        }
+        rides.heapIndex[slot] = 0;
+        size--;
+    }
+
+    /**
+     * Method to remove every cancelled ride by visiting each ride of the heap once and inserting the rest
+     * again into an empty heap, O(n) since each insert is a single meld
+     *
+     * @param slots array to write the removed slots to, long enough for every cancelled ride
+     * @return number of rides removed
+     */
+    @Override
+    public int removeCancelled(int[] slots) {
+        if (keptSlots.length < size) {
+            keptSlots = new int[size];
+        }
+        int[] kept = keptSlots;
+        int keptCount = 0;
+        int removed = 0;
+        int pending = 0;
+        if (root != rideTable.noSlot) {
+            pairs[pending++] = root;
+        }
+        while (pending > 0) {
+            int slot = pairs[--pending];
+            if (pending + 2 > pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            if (firstChild[slot] != rideTable.noSlot) {
+                pairs[pending++] = firstChild[slot];
+            }
+            if (nextSibling[slot] != rideTable.noSlot) {
+                pairs[pending++] = nextSibling[slot];
+            }
+
+            if (rides.cancelled[slot]) {
+                rides.heapIndex[slot] = 0;
+                slots[removed++] = slot;
+            } else {
+                kept[keptCount++] = slot;
+            }
+        }
+
+        root = rideTable.noSlot;
+        size = 0;
+        for (int index = 0; index < keptCount; index++) {
+            insert(kept[index]);
+        }
+        return removed;
+    }
+
+    /**
+     * Method to change the key of a ride. A decrease cuts the ride's subtree and melds it with the root;
+     * an increase removes the ride and inserts it again.
+     *
+     * @param slot         slot of the ride
+     * @param rideCost     new cost of the ride
+     * @param tripDuration new trip duration of the ride
+     */
+    @Override
+    public void changeKey(int slot, int rideCost, int tripDuration) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(slot);
+        }
+        boolean decreased = rideCost < rides.rideCost[slot] || (rideCost == rides.rideCost[slot] && tripDuration < rides.tripDuration[slot]);
+        rides.rideCost[slot] = rideCost;
+        rides.tripDuration[slot] = tripDuration;
+
+        if (!decreased) {
+            arbitraryDelete(slot);
+            insert(slot);
+        } else if (slot != root) {
+            cut(slot);
+            root = meld(root, slot);
+        }
+    }
+
+    /**
+     * Method to check whether a ride is in the heap
+     *
+     * @param slot slot of the ride
+     * @return true if the ride has not been deleted from the heap
+     */
+    @Override
+    public boolean contains(int slot) {
+        return rides.heapIndex[slot] != 0;
+    }
+}
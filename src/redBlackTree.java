@@ -1,492 +1,806 @@
-/**
- * Enum for Red-Black Tree redBlackTreeNode colour
- */
-enum colour {
-    Red, Black
-}
-
-/**
- * Red-Black Tree Node
- *
- * @param <T>
- */
-class redBlackTreeNode<T extends Comparable<Object>> {
-
-    /**
-     * Represents data in the red-black tree node
-     */
-    public T data;
-
-    /**
-     * Represents parent of the red-black tree node
-     */
-    public redBlackTreeNode<T> parent;
-
-    /**
-     * Represents left child of the red-black tree node
-     */
-    public redBlackTreeNode<T> leftChild;
-
-    /**
-     * Represents right child of the red-black tree node
-     */
-    public redBlackTreeNode<T> rightChild;
-
-    /**
-     * Represents colour(Red, Black) of the red-black tree node
-     */
-    public colour colour;
-
-    /**
-     * Red-Black Tree Node constructor
-     *
-     * @param data       data present in node
-     * @param parent     parent of the node
-     * @param leftChild  left child of the node
-     * @param rightChild right child of the node
-     * @param colour     color of the node (Red, Black)
-     */
-    public redBlackTreeNode(T data, redBlackTreeNode<T> parent, redBlackTreeNode<T> leftChild, redBlackTreeNode<T> rightChild, colour colour) {
-        this.data = data;
-        this.parent = parent;
-        this.leftChild = leftChild;
-        this.rightChild = rightChild;
-        this.colour = colour;
-    }
-}
-
-/**
- * Class implementing red-black tree
- *
- * @param <T>
- */
-public class redBlackTree<T extends Comparable<Object>> {
-    private redBlackTreeNode<T> root;
-    private final redBlackTreeNode<T> externalRedBlackTreeNode;
-
-    /**
-     * Red-black tree constructor
-     */
-    public redBlackTree() {
-        externalRedBlackTreeNode = new redBlackTreeNode<>(null, null, null, null, colour.Black);
-        root = externalRedBlackTreeNode;
-    }
-
-    /**
-     * Method to help finding red black tree data
-     *
-     * @param redBlackTreeNode root of the tree/subtree to search from
-     * @param value            value to search
-     * @return data to be found
-     */
-    private T findHelper(redBlackTreeNode<T> redBlackTreeNode, Object value) {
-        if (redBlackTreeNode == externalRedBlackTreeNode || redBlackTreeNode.data.compareTo(value) == 0) {
-            return redBlackTreeNode.data;
-        }
-
-        if (redBlackTreeNode.data.compareTo(value) > 0) {
-            return findHelper(redBlackTreeNode.leftChild, value);
-        }
-        return findHelper(redBlackTreeNode.rightChild, value);
-    }
-
-    int size;
-
-    /**
-     * Method to get data values between value1 and value2 in red black tree
-     *
-     * @param value1  start limit of the range
-     * @param value2  end limit of the range
-     * @param results data in the range
-     * @return size of data in the range
-     */
-    public int printInRange(Object value1, Object value2, T[] results) {
-        size = 0;
-        printInRangeHelper(root, value1, value2, results);
-        return size;
-    }
-
-    /**
-     * Method to help get data values between value1 and value2 in red black tree
-     *
-     * @param redBlackTreeNode root of tree/subtree to search from
-     * @param value1           start limit of the range
-     * @param value2           end limit of the range
-     * @param results          data in the range
-     */
-    private void printInRangeHelper(redBlackTreeNode<T> redBlackTreeNode, Object value1, Object value2, T[] results) {
-        if (redBlackTreeNode == externalRedBlackTreeNode) {
-            return;
-        }
-        if (redBlackTreeNode.data.compareTo(value1) > 0 && redBlackTreeNode.data.compareTo(value2) < 0) {
-            printInRangeHelper(redBlackTreeNode.leftChild, value1, value2, results);
-            results[size++] = redBlackTreeNode.data;
-            printInRangeHelper(redBlackTreeNode.rightChild, value1, value2, results);
-        } else if (redBlackTreeNode.data.compareTo(value1) == 0) {
-            results[size++] = redBlackTreeNode.data;
-            printInRangeHelper(redBlackTreeNode.rightChild, value1, value2, results);
-        } else if (redBlackTreeNode.data.compareTo(value2) == 0) {
-            printInRangeHelper(redBlackTreeNode.leftChild, value1, value2, results);
-            results[size++] = redBlackTreeNode.data;
-        } else if (redBlackTreeNode.data.compareTo(value1) < 0) {
-            printInRangeHelper(redBlackTreeNode.rightChild, value1, value2, results);
-        } else {
-            printInRangeHelper(redBlackTreeNode.leftChild, value1, value2, results);
-        }
-    }
-
-    /**
-     * Method to fix red black tree after deletion
-     *
-     * @param redBlackTreeNode node to be refactored in red-black tree
-     */
-    private void refactorDelete(redBlackTreeNode<T> redBlackTreeNode) {
-        redBlackTreeNode<T> siblingRedBlackTreeNode;
-        while (redBlackTreeNode != root && redBlackTreeNode.colour == colour.Black) {
-            if (redBlackTreeNode == redBlackTreeNode.parent.leftChild) {
-                siblingRedBlackTreeNode = redBlackTreeNode.parent.rightChild;
-                if (siblingRedBlackTreeNode.colour == colour.Red) {
-                    siblingRedBlackTreeNode.colour = colour.Black;
-                    redBlackTreeNode.parent.colour = colour.Red;
-                    rotateToLeft(redBlackTreeNode.parent);
-                    siblingRedBlackTreeNode = redBlackTreeNode.parent.rightChild;
-                }
-
-                if (siblingRedBlackTreeNode.leftChild.colour == colour.Black && siblingRedBlackTreeNode.rightChild.colour == colour.Black) {
-                    siblingRedBlackTreeNode.colour = colour.Red;
-                    redBlackTreeNode = redBlackTreeNode.parent;
-                } else {
-                    if (siblingRedBlackTreeNode.rightChild.colour == colour.Black) {
-                        siblingRedBlackTreeNode.leftChild.colour = colour.Black;
-                        siblingRedBlackTreeNode.colour = colour.Red;
-                        rotateToRight(siblingRedBlackTreeNode);
-                        siblingRedBlackTreeNode = redBlackTreeNode.parent.rightChild;
-                    }
-
-                    siblingRedBlackTreeNode.colour = redBlackTreeNode.parent.colour;
-                    redBlackTreeNode.parent.colour = colour.Black;
-                    siblingRedBlackTreeNode.rightChild.colour = colour.Black;
-                    rotateToLeft(redBlackTreeNode.parent);
-                    redBlackTreeNode = root;
-                }
-            } else {
-                siblingRedBlackTreeNode = redBlackTreeNode.parent.leftChild;
-                if (siblingRedBlackTreeNode.colour == colour.Red) {
-                    siblingRedBlackTreeNode.colour = colour.Black;
-                    redBlackTreeNode.parent.colour = colour.Red;
-                    rotateToRight(redBlackTreeNode.parent);
-                    siblingRedBlackTreeNode = redBlackTreeNode.parent.leftChild;
-                }
-
-                if (siblingRedBlackTreeNode.rightChild.colour == colour.Black) {
-                    siblingRedBlackTreeNode.colour = colour.Red;
-                    redBlackTreeNode = redBlackTreeNode.parent;
-                } else {
-                    if (siblingRedBlackTreeNode.leftChild.colour == colour.Black) {
-                        siblingRedBlackTreeNode.rightChild.colour = colour.Black;
-                        siblingRedBlackTreeNode.colour = colour.Red;
-                        rotateToLeft(siblingRedBlackTreeNode);
-                        siblingRedBlackTreeNode = redBlackTreeNode.parent.leftChild;
-                    }
-
-                    siblingRedBlackTreeNode.colour = redBlackTreeNode.parent.colour;
-                    redBlackTreeNode.parent.colour = colour.Black;
-                    siblingRedBlackTreeNode.leftChild.colour = colour.Black;
-                    rotateToRight(redBlackTreeNode.parent);
-                    redBlackTreeNode = root;
-                }
-            }
-        }
-        redBlackTreeNode.colour = colour.Black;
-    }
-
-    /**
-     * Method to replace red-black tree node with another node
-     *
-     * @param oldRedBlackTreeNode node to be replaced in red-black tree
-     * @param newRedBlackTreeNode node to be replaced with
-     */
-    private void replaceNode(redBlackTreeNode<T> oldRedBlackTreeNode, redBlackTreeNode<T> newRedBlackTreeNode) {
-        if (oldRedBlackTreeNode.parent == null) {
-            root = newRedBlackTreeNode;
-        } else if (oldRedBlackTreeNode == oldRedBlackTreeNode.parent.leftChild) {
-            oldRedBlackTreeNode.parent.leftChild = newRedBlackTreeNode;
-        } else {
-            oldRedBlackTreeNode.parent.rightChild = newRedBlackTreeNode;
-        }
-        newRedBlackTreeNode.parent = oldRedBlackTreeNode.parent;
-    }
-
-    /**
-     * Method to help delete red-black tree data
-     *
-     * @param redBlackTreeNode root of the tree/subtree to be deleted from
-     * @param deleteValue      value to be deleted from red-black tree
-     * @return the deleted data
-     */
-    private T deleteDataHelper(redBlackTreeNode<T> redBlackTreeNode, Object deleteValue) {
-        redBlackTreeNode<T> deleteRedBlackTreeNode = externalRedBlackTreeNode;
-        redBlackTreeNode<T> childRedBlackTreeNode, newRedBlackTreeNode;
-        while (redBlackTreeNode != externalRedBlackTreeNode) {
-            if (redBlackTreeNode.data.compareTo(deleteValue) == 0) {
-                deleteRedBlackTreeNode = redBlackTreeNode;
-            }
-
-            if (redBlackTreeNode.data.compareTo(deleteValue) <= 0) {
-                redBlackTreeNode = redBlackTreeNode.rightChild;
-            } else {
-                redBlackTreeNode = redBlackTreeNode.leftChild;
-            }
-        }
-
-        if (deleteRedBlackTreeNode == externalRedBlackTreeNode) {
-            return null;
-        }
-
-        newRedBlackTreeNode = deleteRedBlackTreeNode;
-        colour newNodeColour = newRedBlackTreeNode.colour;
-        if (deleteRedBlackTreeNode.leftChild == externalRedBlackTreeNode) {
-            childRedBlackTreeNode = deleteRedBlackTreeNode.rightChild;
-            replaceNode(deleteRedBlackTreeNode, deleteRedBlackTreeNode.rightChild);
-        } else if (deleteRedBlackTreeNode.rightChild == externalRedBlackTreeNode) {
-            childRedBlackTreeNode = deleteRedBlackTreeNode.leftChild;
-            replaceNode(deleteRedBlackTreeNode, deleteRedBlackTreeNode.leftChild);
-        } else {
-            newRedBlackTreeNode = minimumOfSubTree(deleteRedBlackTreeNode.rightChild);
-            newNodeColour = newRedBlackTreeNode.colour;
-            childRedBlackTreeNode = newRedBlackTreeNode.rightChild;
-            if (newRedBlackTreeNode.parent == deleteRedBlackTreeNode) {
-                childRedBlackTreeNode.parent = newRedBlackTreeNode;
-            } else {
-                replaceNode(newRedBlackTreeNode, newRedBlackTreeNode.rightChild);
-                newRedBlackTreeNode.rightChild = deleteRedBlackTreeNode.rightChild;
-                newRedBlackTreeNode.rightChild.parent = newRedBlackTreeNode;
-            }
-
-            replaceNode(deleteRedBlackTreeNode, newRedBlackTreeNode);
-            newRedBlackTreeNode.leftChild = deleteRedBlackTreeNode.leftChild;
-            newRedBlackTreeNode.leftChild.parent = newRedBlackTreeNode;
-            newRedBlackTreeNode.colour = deleteRedBlackTreeNode.colour;
-        }
-        if (newNodeColour == colour.Black) {
-            refactorDelete(childRedBlackTreeNode);
-        }
-
-        return deleteRedBlackTreeNode.data;
-    }
-
-    /**
-     * Method to delete node from red-black tree with pointer
-     *
-     * @param deleteRedBlackTreeNode node to be deleted from red-black tree
-     */
-    public void deleteNode(redBlackTreeNode<T> deleteRedBlackTreeNode) {
-        redBlackTreeNode<T> childRedBlackTreeNode, newRedBlackTreeNode;
-
-        if (deleteRedBlackTreeNode == externalRedBlackTreeNode) {
-            return;
-        }
-
-        newRedBlackTreeNode = deleteRedBlackTreeNode;
-        colour yOriginalColour = newRedBlackTreeNode.colour;
-        if (deleteRedBlackTreeNode.leftChild == externalRedBlackTreeNode) {
-            childRedBlackTreeNode = deleteRedBlackTreeNode.rightChild;
-            replaceNode(deleteRedBlackTreeNode, deleteRedBlackTreeNode.rightChild);
-        } else if (deleteRedBlackTreeNode.rightChild == externalRedBlackTreeNode) {
-            childRedBlackTreeNode = deleteRedBlackTreeNode.leftChild;
-            replaceNode(deleteRedBlackTreeNode, deleteRedBlackTreeNode.leftChild);
-        } else {
-            newRedBlackTreeNode = minimumOfSubTree(deleteRedBlackTreeNode.rightChild);
-            yOriginalColour = newRedBlackTreeNode.colour;
-            childRedBlackTreeNode = newRedBlackTreeNode.rightChild;
-            if (newRedBlackTreeNode.parent == deleteRedBlackTreeNode) {
-                childRedBlackTreeNode.parent = newRedBlackTreeNode;
-            } else {
-                replaceNode(newRedBlackTreeNode, newRedBlackTreeNode.rightChild);
-                newRedBlackTreeNode.rightChild = deleteRedBlackTreeNode.rightChild;
-                newRedBlackTreeNode.rightChild.parent = newRedBlackTreeNode;
-            }
-
-            replaceNode(deleteRedBlackTreeNode, newRedBlackTreeNode);
-            newRedBlackTreeNode.leftChild = deleteRedBlackTreeNode.leftChild;
-            newRedBlackTreeNode.leftChild.parent = newRedBlackTreeNode;
-            newRedBlackTreeNode.colour = deleteRedBlackTreeNode.colour;
-        }
-        if (yOriginalColour == colour.Black) {
-            refactorDelete(childRedBlackTreeNode);
-        }
-    }
-
-    /**
-     * Method to fix red-black tree after inserting new node
-     *
-     * @param newRedBlackTreeNode node to be inserted in red-black tree
-     */
-    private void refactorInsert(redBlackTreeNode<T> newRedBlackTreeNode) {
-        redBlackTreeNode<T> uncleRedBlackTreeNode;
-        while (newRedBlackTreeNode.parent.colour == colour.Red) {
-            if (newRedBlackTreeNode.parent == newRedBlackTreeNode.parent.parent.rightChild) {
-                uncleRedBlackTreeNode = newRedBlackTreeNode.parent.parent.leftChild;
-                if (uncleRedBlackTreeNode.colour == colour.Red) {
-                    uncleRedBlackTreeNode.colour = colour.Black;
-                    newRedBlackTreeNode.parent.colour = colour.Black;
-                    newRedBlackTreeNode.parent.parent.colour = colour.Red;
-                    newRedBlackTreeNode = newRedBlackTreeNode.parent.parent;
-                } else {
-                    if (newRedBlackTreeNode == newRedBlackTreeNode.parent.leftChild) {
-                        newRedBlackTreeNode = newRedBlackTreeNode.parent;
-                        rotateToRight(newRedBlackTreeNode);
-                    }
-                    newRedBlackTreeNode.parent.colour = colour.Black;
-                    newRedBlackTreeNode.parent.parent.colour = colour.Red;
-                    rotateToLeft(newRedBlackTreeNode.parent.parent);
-                }
-            } else {
-                uncleRedBlackTreeNode = newRedBlackTreeNode.parent.parent.rightChild;
-
-                if (uncleRedBlackTreeNode.colour == colour.Red) {
-                    uncleRedBlackTreeNode.colour = colour.Black;
-                    newRedBlackTreeNode.parent.colour = colour.Black;
-                    newRedBlackTreeNode.parent.parent.colour = colour.Red;
-                    newRedBlackTreeNode = newRedBlackTreeNode.parent.parent;
-                } else {
-                    if (newRedBlackTreeNode == newRedBlackTreeNode.parent.rightChild) {
-                        newRedBlackTreeNode = newRedBlackTreeNode.parent;
-                        rotateToLeft(newRedBlackTreeNode);
-                    }
-                    newRedBlackTreeNode.parent.colour = colour.Black;
-                    newRedBlackTreeNode.parent.parent.colour = colour.Red;
-                    rotateToRight(newRedBlackTreeNode.parent.parent);
-                }
-            }
-            if (newRedBlackTreeNode == root) {
-                break;
-            }
-        }
-        root.colour = colour.Black;
-    }
-
-    /**
-     * Method to find particular red-black node data
-     *
-     * @param value value to find in red-black tree
-     * @return data of the found node
-     */
-    public T find(Object value) {
-        return findHelper(this.root, value);
-    }
-
-    /**
-     * Method to get minimum from a particular subtree
-     *
-     * @param redBlackTreeNode root of tree/subtree to find minimum from
-     * @return minimum node from tree/subtree
-     */
-    private redBlackTreeNode<T> minimumOfSubTree(redBlackTreeNode<T> redBlackTreeNode) {
-        while (redBlackTreeNode.leftChild != externalRedBlackTreeNode) {
-            redBlackTreeNode = redBlackTreeNode.leftChild;
-        }
-        return redBlackTreeNode;
-    }
-
-    /**
-     * Method to fix red-black tree by rotating left
-     *
-     * @param redBlackTreeNode node to be rotated left in red-black tree
-     */
-    private void rotateToLeft(redBlackTreeNode<T> redBlackTreeNode) {
-        redBlackTreeNode<T> rightChild = redBlackTreeNode.rightChild;
-        redBlackTreeNode.rightChild = rightChild.leftChild;
-        if (rightChild.leftChild != externalRedBlackTreeNode) {
-            rightChild.leftChild.parent = redBlackTreeNode;
-        }
-        rightChild.parent = redBlackTreeNode.parent;
-        if (redBlackTreeNode.parent == null) {
-            this.root = rightChild;
-        } else if (redBlackTreeNode == redBlackTreeNode.parent.leftChild) {
-            redBlackTreeNode.parent.leftChild = rightChild;
-        } else {
-            redBlackTreeNode.parent.rightChild = rightChild;
-        }
-        rightChild.leftChild = redBlackTreeNode;
-        redBlackTreeNode.parent = rightChild;
-    }
-
-    /**
-     * Method to fix red-black tree by rotating right
-     *
-     * @param redBlackTreeNode node to be rotated right in red-black tree
-     */
-    private void rotateToRight(redBlackTreeNode<T> redBlackTreeNode) {
-        redBlackTreeNode<T> leftChild = redBlackTreeNode.leftChild;
-        redBlackTreeNode.leftChild = leftChild.rightChild;
-        if (leftChild.rightChild != externalRedBlackTreeNode) {
-            leftChild.rightChild.parent = redBlackTreeNode;
-        }
-        leftChild.parent = redBlackTreeNode.parent;
-        if (redBlackTreeNode.parent == null) {
-            this.root = leftChild;
-        } else if (redBlackTreeNode == redBlackTreeNode.parent.rightChild) {
-            redBlackTreeNode.parent.rightChild = leftChild;
-        } else {
-            redBlackTreeNode.parent.leftChild = leftChild;
-        }
-        leftChild.rightChild = redBlackTreeNode;
-        redBlackTreeNode.parent = leftChild;
-    }
-
-    /**
-     * Method to insert data into red-black tree
-     *
-     * @param data data to be inserted in red-black tree
-     * @return pointer to the node inserted in red-black tree
-     */
-    public redBlackTreeNode<T> insert(T data) {
-        redBlackTreeNode<T> parent = null;
-        redBlackTreeNode<T> temp = this.root;
-
-        while (temp != externalRedBlackTreeNode) {
-            parent = temp;
-            if (data.compareTo(temp.data) < 0) {
-                temp = temp.leftChild;
-            } else {
-                temp = temp.rightChild;
-            }
-        }
-
-        redBlackTreeNode<T> newRedBlackTreeNode = new redBlackTreeNode<>(data, parent, externalRedBlackTreeNode, externalRedBlackTreeNode, colour.Red);
-
-        if (parent == null) {
-            root = newRedBlackTreeNode;
-        } else if (newRedBlackTreeNode.data.compareTo(parent.data) < 0) {
-            parent.leftChild = newRedBlackTreeNode;
-        } else if (newRedBlackTreeNode.data.compareTo(parent.data) > 0) {
-            parent.rightChild = newRedBlackTreeNode;
-        } else {
-            return null;
-        }
-
-        if (newRedBlackTreeNode.parent == null) {
-            newRedBlackTreeNode.colour = colour.Black;
-            return newRedBlackTreeNode;
-        }
-
-        if (newRedBlackTreeNode.parent.parent == null) {
-            return newRedBlackTreeNode;
-        }
-
-        refactorInsert(newRedBlackTreeNode);
-
-        return newRedBlackTreeNode;
-    }
-
-    /**
-     * Method to delete data from red-black tree
-     *
-     * @param data data to be deleted from red-black tree
-     * @return deleted data from red-black tree
-     */
-    public T deleteData(Object data) {
-        return deleteDataHelper(this.root, data);
-    }
-}
\ No newline at end of file
+import java.util.Arrays;
+
+/**
+ * Colours for Red-Black Tree node
+ */
+final class colour {
+
+    /**
+     * Red colour
+     */
+    static final byte Red = 0;
+
+    /**
+     * Black colour
+     */
+    static final byte Black = 1;
+
+    private colour() {
+    }
+}
+
+/**
+ * Cursor walking rides of a red-black tree in ride number order, one ride or one page at a time.
+ * A cursor is invalidated by any change to the tree; resume with openAfter(lastRideNumber(), ...) instead.
+ */
+class redBlackTreeCursor {
+
+    /**
+     * Tree being walked
+     */
+    private final redBlackTree redBlackTree;
+
+    /**
+     * Table holding the rides of the tree
+     */
+    private final rideTable rides;
+
+    /**
+     * Slot of the next ride to return, or noSlot
+     */
+    private int nextRedBlackTreeNode = rideTable.noSlot;
+
+    /**
+     * End limit of the range
+     */
+    private int upperLimit;
+
+    /**
+     * Ride number of the last ride returned
+     */
+    private int lastRideNumber;
+
+    /**
+     * Red-black tree cursor constructor
+     *
+     * @param redBlackTree tree to walk
+     * @param rides        table holding the rides of the tree
+     */
+    redBlackTreeCursor(redBlackTree redBlackTree, rideTable rides) {
+        this.redBlackTree = redBlackTree;
+        this.rides = rides;
+    }
+
+    /**
+     * Method to position the cursor before the first ride between value1 and value2
+     *
+     * @param value1 start limit of the range
+     * @param value2 end limit of the range
+     * @return this cursor
+     */
+    public redBlackTreeCursor open(int value1, int value2) {
+        nextRedBlackTreeNode = redBlackTree.ceiling(value1);
+        upperLimit = value2;
+        return this;
+    }
+
+    /**
+     * Method to position the cursor before the first ride after afterValue and up to value2
+     *
+     * @param afterValue ride number to resume after
+     * @param value2     end limit of the range
+     * @return this cursor
+     */
+    public redBlackTreeCursor openAfter(int afterValue, int value2) {
+        if (afterValue == Integer.MAX_VALUE) {
+            nextRedBlackTreeNode = rideTable.noSlot;
+            return this;
+        }
+        return open(afterValue + 1, value2);
+    }
+
+    /**
+     * Method to check whether the range has more rides
+     *
+     * @return true if next() returns a ride
+     */
+    public boolean hasNext() {
+        return nextRedBlackTreeNode != rideTable.noSlot && rides.rideNumber[nextRedBlackTreeNode] <= upperLimit;
+    }
+
+    /**
+     * Method to get the next ride of the range
+     *
+     * @return slot of the next ride, or noSlot at the end of the range
+     */
+    public int next() {
+        if (!hasNext()) {
+            return rideTable.noSlot;
+        }
+
+        int redBlackTreeNode = nextRedBlackTreeNode;
+        lastRideNumber = rides.rideNumber[redBlackTreeNode];
+        nextRedBlackTreeNode = redBlackTree.successor(redBlackTreeNode);
+        return redBlackTreeNode;
+    }
+
+    /**
+     * Method to fill a page with the next rides of the range
+     *
+     * @param page slots of the rides, filled up to its length
+     * @return number of rides in the page, 0 at the end of the range
+     */
+    public int nextPage(int[] page) {
+        int size = 0;
+        while (size < page.length && hasNext()) {
+            page[size++] = next();
+        }
+        return size;
+    }
+
+    /**
+     * Method to get the key to resume after once the tree has changed
+     *
+     * @return ride number of the last ride returned
+     */
+    public int lastRideNumber() {
+        return lastRideNumber;
+    }
+}
+
+/**
+ * Class implementing red-black tree over the slots of a ride table, keyed by ride number
+ */
+public class redBlackTree {
+
+    /**
+     * Table holding the rides and their tree links
+     */
+    private final rideTable rides;
+
+    /**
+     * Slot of the root node
+     */
+    private int root;
+
+    /**
+     * Slot of the external node
+     */
+    private static final int externalRedBlackTreeNode = rideTable.externalSlot;
+
+    /**
+     * Bound on the height of a red-black tree of up to 2^31 rides
+     */
+    private static final int maximumHeight = 64;
+
+    /**
+     * Hash index from ride number to slot of every node, kept in sync with the tree and answering point lookups
+     * in its place, or null to descend the tree
+     */
+    private final rideHashIndex index;
+
+    /**
+     * Red-black tree constructor
+     *
+     * @param rides table holding the rides
+     */
+    public redBlackTree(rideTable rides) {
+        this(rides, null);
+    }
+
+    /**
+     * Red-black tree constructor
+     *
+     * @param rides table holding the rides
+     * @param index empty hash index to keep in sync with the tree for point lookups, or null for none
+     */
+    public redBlackTree(rideTable rides, rideHashIndex index) {
+        this.rides = rides;
+        this.index = index;
+        root = externalRedBlackTreeNode;
+    }
+
+    /**
+     * Method to get the first ride with ride number not less than value
+     *
+     * @param value lower limit of ride number
+     * @return slot of the ceiling ride, or noSlot
+     */
+    int ceiling(int value) {
+        int[] rideNumber = rides.rideNumber;
+        int ceilingRedBlackTreeNode = rideTable.noSlot;
+        int redBlackTreeNode = root;
+
+        while (redBlackTreeNode != externalRedBlackTreeNode) {
+            if (rideNumber[redBlackTreeNode] < value) {
+                redBlackTreeNode = rides.rightChild[redBlackTreeNode];
+            } else if (rideNumber[redBlackTreeNode] > value) {
+                ceilingRedBlackTreeNode = redBlackTreeNode;
+                redBlackTreeNode = rides.leftChild[redBlackTreeNode];
+            } else {
+                return redBlackTreeNode;
+            }
+        }
+        return ceilingRedBlackTreeNode;
+    }
+
+    /**
+     * Method to get the in-order successor of a node
+     *
+     * @param redBlackTreeNode node to find successor of
+     * @return slot of the successor, or noSlot
+     */
+    int successor(int redBlackTreeNode) {
+        if (rides.rightChild[redBlackTreeNode] != externalRedBlackTreeNode) {
+            return minimumOfSubTree(rides.rightChild[redBlackTreeNode]);
+        }
+
+        int parent = rides.parent[redBlackTreeNode];
+        while (parent != rideTable.noSlot && redBlackTreeNode == rides.rightChild[parent]) {
+            redBlackTreeNode = parent;
+            parent = rides.parent[parent];
+        }
+        return parent;
+    }
+
+    /**
+     * Method to get a cursor over rides between value1 and value2 in red black tree
+     *
+     * @param value1 start limit of the range
+     * @param value2 end limit of the range
+     * @return cursor positioned before the first ride in the range
+     */
+    public redBlackTreeCursor range(int value1, int value2) {
+        return new redBlackTreeCursor(this, rides).open(value1, value2);
+    }
+
+    /**
+     * Method to fix red black tree after deletion
+     *
+     * @param redBlackTreeNode node to be refactored in red-black tree
+     */
+    private void refactorDelete(int redBlackTreeNode) {
+        int[] parent = rides.parent;
+        int[] leftChild = rides.leftChild;
+        int[] rightChild = rides.rightChild;
+        byte[] nodeColour = rides.nodeColour;
+
+        int siblingRedBlackTreeNode;
+        while (redBlackTreeNode != root && nodeColour[redBlackTreeNode] == colour.Black) {
+            if (gatorTaxiMetrics.enabled) {
+                gatorTaxiMetrics.deleteFixIterations.increment();
+            }
+            if (redBlackTreeNode == leftChild[parent[redBlackTreeNode]]) {
+                siblingRedBlackTreeNode = rightChild[parent[redBlackTreeNode]];
+                if (nodeColour[siblingRedBlackTreeNode] == colour.Red) {
+                    nodeColour[siblingRedBlackTreeNode] = colour.Black;
+                    nodeColour[parent[redBlackTreeNode]] = colour.Red;
+                    rotateToLeft(parent[redBlackTreeNode]);
+                    siblingRedBlackTreeNode = rightChild[parent[redBlackTreeNode]];
+                }
+
+                if (nodeColour[leftChild[siblingRedBlackTreeNode]] == colour.Black && nodeColour[rightChild[siblingRedBlackTreeNode]] == colour.Black) {
+                    nodeColour[siblingRedBlackTreeNode] = colour.Red;
+                    redBlackTreeNode = parent[redBlackTreeNode];
+                } else {
+                    if (nodeColour[rightChild[siblingRedBlackTreeNode]] == colour.Black) {
+                        nodeColour[leftChild[siblingRedBlackTreeNode]] = colour.Black;
+                        nodeColour[siblingRedBlackTreeNode] = colour.Red;
+                        rotateToRight(siblingRedBlackTreeNode);
+                        siblingRedBlackTreeNode = rightChild[parent[redBlackTreeNode]];
+                    }
+
+                    nodeColour[siblingRedBlackTreeNode] = nodeColour[parent[redBlackTreeNode]];
+                    nodeColour[parent[redBlackTreeNode]] = colour.Black;
+                    nodeColour[rightChild[siblingRedBlackTreeNode]] = colour.Black;
+                    rotateToLeft(parent[redBlackTreeNode]);
+                    redBlackTreeNode = root;
+                }
+            } else {
+                siblingRedBlackTreeNode = leftChild[parent[redBlackTreeNode]];
+                if (nodeColour[siblingRedBlackTreeNode] == colour.Red) {
+                    nodeColour[siblingRedBlackTreeNode] = colour.Black;
+                    nodeColour[parent[redBlackTreeNode]] = colour.Red;
+                    rotateToRight(parent[redBlackTreeNode]);
+                    siblingRedBlackTreeNode = leftChild[parent[redBlackTreeNode]];
+                }
+
+                if (nodeColour[rightChild[siblingRedBlackTreeNode]] == colour.Black && nodeColour[leftChild[siblingRedBlackTreeNode]] == colour.Black) {
+                    nodeColour[siblingRedBlackTreeNode] = colour.Red;
+                    redBlackTreeNode = parent[redBlackTreeNode];
+                } else {
+                    if (nodeColour[leftChild[siblingRedBlackTreeNode]] == colour.Black) {
+                        nodeColour[rightChild[siblingRedBlackTreeNode]] = colour.Black;
+                        nodeColour[siblingRedBlackTreeNode] = colour.Red;
+                        rotateToLeft(siblingRedBlackTreeNode);
+                        siblingRedBlackTreeNode = leftChild[parent[redBlackTreeNode]];
+                    }
+
+                    nodeColour[siblingRedBlackTreeNode] = nodeColour[parent[redBlackTreeNode]];
+                    nodeColour[parent[redBlackTreeNode]] = colour.Black;
+                    nodeColour[leftChild[siblingRedBlackTreeNode]] = colour.Black;
+                    rotateToRight(parent[redBlackTreeNode]);
+                    redBlackTreeNode = root;
+                }
+            }
+        }
+        nodeColour[redBlackTreeNode] = colour.Black;
+    }
+
+    /**
+     * Method to replace red-black tree node with another node
+     *
+     * @param oldRedBlackTreeNode node to be replaced in red-black tree
+     * @param newRedBlackTreeNode node to be replaced with
+     */
+    private void replaceNode(int oldRedBlackTreeNode, int newRedBlackTreeNode) {
+        int oldParent = rides.parent[oldRedBlackTreeNode];
+        if (oldParent == rideTable.noSlot) {
+            root = newRedBlackTreeNode;
+        } else if (oldRedBlackTreeNode == rides.leftChild[oldParent]) {
+            rides.leftChild[oldParent] = newRedBlackTreeNode;
+        } else {
+            rides.rightChild[oldParent] = newRedBlackTreeNode;
+        }
+        rides.parent[newRedBlackTreeNode] = oldParent;
+    }
+
+    /**
+     * Method to delete node from red-black tree with pointer
+     *
+     * @param deleteRedBlackTreeNode slot of the node to be deleted from red-black tree
+     */
+    public void deleteNode(int deleteRedBlackTreeNode) {
+        int[] parent = rides.parent;
+        int[] leftChild = rides.leftChild;
+        int[] rightChild = rides.rightChild;
+        byte[] nodeColour = rides.nodeColour;
+
+        int childRedBlackTreeNode, newRedBlackTreeNode;
+
+        if (deleteRedBlackTreeNode == externalRedBlackTreeNode) {
+            return;
+        }
+        if (rideTable.slotChecks) {
+            rides.checkLive(deleteRedBlackTreeNode);
+        }
+        if (index != null) {
+            index.remove(rides.rideNumber[deleteRedBlackTreeNode]);
+        }
+
+        newRedBlackTreeNode = deleteRedBlackTreeNode;
+        byte yOriginalColour = nodeColour[newRedBlackTreeNode];
+        if (leftChild[deleteRedBlackTreeNode] == externalRedBlackTreeNode) {
+            childRedBlackTreeNode = rightChild[deleteRedBlackTreeNode];
+            replaceNode(deleteRedBlackTreeNode, rightChild[deleteRedBlackTreeNode]);
+        } else if (rightChild[deleteRedBlackTreeNode] == externalRedBlackTreeNode) {
+            childRedBlackTreeNode = leftChild[deleteRedBlackTreeNode];
+            replaceNode(deleteRedBlackTreeNode, leftChild[deleteRedBlackTreeNode]);
+        } else {
+            newRedBlackTreeNode = minimumOfSubTree(rightChild[deleteRedBlackTreeNode]);
+            yOriginalColour = nodeColour[newRedBlackTreeNode];
+            childRedBlackTreeNode = rightChild[newRedBlackTreeNode];
+            if (parent[newRedBlackTreeNode] == deleteRedBlackTreeNode) {
+                parent[childRedBlackTreeNode] = newRedBlackTreeNode;
+            } else {
+                replaceNode(newRedBlackTreeNode, rightChild[newRedBlackTreeNode]);
+                rightChild[newRedBlackTreeNode] = rightChild[deleteRedBlackTreeNode];
+                parent[rightChild[newRedBlackTreeNode]] = newRedBlackTreeNode;
+            }
+
+            replaceNode(deleteRedBlackTreeNode, newRedBlackTreeNode);
+            leftChild[newRedBlackTreeNode] = leftChild[deleteRedBlackTreeNode];
+            parent[leftChild[newRedBlackTreeNode]] = newRedBlackTreeNode;
+            nodeColour[newRedBlackTreeNode] = nodeColour[deleteRedBlackTreeNode];
+        }
+        if (yOriginalColour == colour.Black) {
+            refactorDelete(childRedBlackTreeNode);
+        }
+        if (rideTable.slotChecks) {
+            unlink(deleteRedBlackTreeNode);
+        }
+    }
+
+    /**
+     * Method to clear the links of a node that has left the tree, so that releasing its slot passes the slot
+     * checks
+     *
+     * @param redBlackTreeNode slot of the node
+     */
+    private void unlink(int redBlackTreeNode) {
+        rides.parent[redBlackTreeNode] = rideTable.noSlot;
+        rides.leftChild[redBlackTreeNode] = externalRedBlackTreeNode;
+        rides.rightChild[redBlackTreeNode] = externalRedBlackTreeNode;
+    }
+
+    /**
+     * Method to delete a batch of nodes. While less than half of the tree goes each node is deleted on its
+     * own; past that the rides left are collected by one in-order walk, skipping the deleted ride numbers, and
+     * the tree is rebuilt from them in O(n) with no rotation at all.
+     *
+     * @param slots slots of the nodes to be deleted
+     * @param count number of slots to take from the start of slots
+     * @param size  number of nodes in the tree
+     */
+    public void deleteNodes(int[] slots, int count, int size) {
+        if ((long) count * 2 < size) {
+            for (int index = 0; index < count; index++) {
+                deleteNode(slots[index]);
+            }
+            return;
+        }
+
+        int[] deletedRideNumbers = new int[count];
+        for (int position = 0; position < count; position++) {
+            deletedRideNumbers[position] = rides.rideNumber[slots[position]];
+            if (index != null) {
+                index.remove(deletedRideNumbers[position]);
+            }
+            if (rideTable.slotChecks) {
+                rides.checkLive(slots[position]);
+            }
+        }
+        Arrays.sort(deletedRideNumbers);
+
+        int[] keptSlots = new int[Math.max(size - count, 0)];
+        int kept = 0;
+        int deleted = 0;
+        int redBlackTreeNode = root == externalRedBlackTreeNode ? rideTable.noSlot : minimumOfSubTree(root);
+        while (redBlackTreeNode != rideTable.noSlot) {
+            if (deleted < count && rides.rideNumber[redBlackTreeNode] == deletedRideNumbers[deleted]) {
+                deleted++;
+            } else {
+                keptSlots[kept++] = redBlackTreeNode;
+            }
+            redBlackTreeNode = successor(redBlackTreeNode);
+        }
+
+        root = externalRedBlackTreeNode;
+        build(keptSlots, kept);
+        if (rideTable.slotChecks) {
+            for (int position = 0; position < count; position++) {
+                unlink(slots[position]);
+            }
+        }
+    }
+
+    /**
+     * Method to fix red-black tree after inserting new node
+     *
+     * @param newRedBlackTreeNode node to be inserted in red-black tree
+     */
+    private void refactorInsert(int newRedBlackTreeNode) {
+        int[] parent = rides.parent;
+        int[] leftChild = rides.leftChild;
+        int[] rightChild = rides.rightChild;
+        byte[] nodeColour = rides.nodeColour;
+
+        int uncleRedBlackTreeNode;
+        while (nodeColour[parent[newRedBlackTreeNode]] == colour.Red) {
+            if (gatorTaxiMetrics.enabled) {
+                gatorTaxiMetrics.insertFixIterations.increment();
+            }
+            int grandParent = parent[parent[newRedBlackTreeNode]];
+            if (parent[newRedBlackTreeNode] == rightChild[grandParent]) {
+                uncleRedBlackTreeNode = leftChild[grandParent];
+                if (nodeColour[uncleRedBlackTreeNode] == colour.Red) {
+                    nodeColour[uncleRedBlackTreeNode] = colour.Black;
+                    nodeColour[parent[newRedBlackTreeNode]] = colour.Black;
+                    nodeColour[grandParent] = colour.Red;
+                    newRedBlackTreeNode = grandParent;
+                } else {
+                    if (newRedBlackTreeNode == leftChild[parent[newRedBlackTreeNode]]) {
+                        newRedBlackTreeNode = parent[newRedBlackTreeNode];
+                        rotateToRight(newRedBlackTreeNode);
+                    }
+                    nodeColour[parent[newRedBlackTreeNode]] = colour.Black;
+                    nodeColour[parent[parent[newRedBlackTreeNode]]] = colour.Red;
+                    rotateToLeft(parent[parent[newRedBlackTreeNode]]);
+                }
+            } else {
+                uncleRedBlackTreeNode = rightChild[grandParent];
+
+                if (nodeColour[uncleRedBlackTreeNode] == colour.Red) {
+                    nodeColour[uncleRedBlackTreeNode] = colour.Black;
+                    nodeColour[parent[newRedBlackTreeNode]] = colour.Black;
+                    nodeColour[grandParent] = colour.Red;
+                    newRedBlackTreeNode = grandParent;
+                } else {
+                    if (newRedBlackTreeNode == rightChild[parent[newRedBlackTreeNode]]) {
+                        newRedBlackTreeNode = parent[newRedBlackTreeNode];
+                        rotateToLeft(newRedBlackTreeNode);
+                    }
+                    nodeColour[parent[newRedBlackTreeNode]] = colour.Black;
+                    nodeColour[parent[parent[newRedBlackTreeNode]]] = colour.Red;
+                    rotateToRight(parent[parent[newRedBlackTreeNode]]);
+                }
+            }
+            if (newRedBlackTreeNode == root) {
+                break;
+            }
+        }
+        nodeColour[root] = colour.Black;
+    }
+
+    /**
+     * Method to get the black height of the tree, following left children from the root, O(log n). Every path
+     * from the root to a leaf has this many black nodes and, as no red node has a red child and the root is
+     * black, at most as many red ones, so the height of the tree is between it and twice it.
+     *
+     * @return number of black nodes on any path from the root to a leaf
+     */
+    public int blackHeight() {
+        int blackNodes = 0;
+        for (int redBlackTreeNode = root; redBlackTreeNode != externalRedBlackTreeNode; redBlackTreeNode = rides.leftChild[redBlackTreeNode]) {
+            if (rides.nodeColour[redBlackTreeNode] == colour.Black) {
+                blackNodes++;
+            }
+        }
+        return blackNodes;
+    }
+
+    /**
+     * Method to check whether the tree holds no rides
+     *
+     * @return true if the tree is empty
+     */
+    public boolean isEmpty() {
+        return root == externalRedBlackTreeNode;
+    }
+
+    /**
+     * Method to build the tree from rides sorted by ride number in O(n). Every subtree is rooted at the middle
+     * of its range, so external nodes sit on at most two adjacent levels. When the deepest level of rides is
+     * incomplete its nodes are coloured red and all others black, which gives every path the same black height
+     * without any rotation.
+     *
+     * @param sortedSlots slots of the rides in strictly increasing ride number order
+     * @param count       number of slots to take from the start of sortedSlots
+     * @throws IllegalStateException if the tree is not empty
+     */
+    public void bulkLoad(int[] sortedSlots, int count) {
+        if (!isEmpty()) {
+            throw new IllegalStateException("Bulk load needs an empty tree");
+        }
+        if (index != null) {
+            for (int position = 0; position < count; position++) {
+                index.put(rides.rideNumber[sortedSlots[position]], sortedSlots[position]);
+            }
+        }
+        build(sortedSlots, count);
+    }
+
+    /**
+     * Method to link sorted rides into a balanced tree, leaving the hash index as it is
+     *
+     * @param sortedSlots slots of the rides in strictly increasing ride number order
+     * @param count       number of slots to take from the start of sortedSlots
+     */
+    private void build(int[] sortedSlots, int count) {
+        if (count == 0) {
+            return;
+        }
+
+        boolean perfect = Integer.bitCount(count + 1) == 1;
+        int redDepth = perfect ? -1 : 31 - Integer.numberOfLeadingZeros(count);
+        root = buildSubTree(sortedSlots, 0, count - 1, rideTable.noSlot, 0, redDepth);
+    }
+
+    /**
+     * Method to link the middle ride of a sorted range under its parent and build its subtrees from both halves
+     *
+     * @param sortedSlots slots of the rides in increasing ride number order
+     * @param low         first index of the range
+     * @param high        last index of the range
+     * @param parent      slot of the parent, or noSlot for the root
+     * @param depth       depth of the subtree's root
+     * @param redDepth    depth whose nodes are coloured red, or -1
+     * @return slot of the subtree's root, or the external node for an empty range
+     */
+    private int buildSubTree(int[] sortedSlots, int low, int high, int parent, int depth, int redDepth) {
+        if (low > high) {
+            return externalRedBlackTreeNode;
+        }
+
+        int middle = (low + high) >>> 1;
+        int redBlackTreeNode = sortedSlots[middle];
+        rides.parent[redBlackTreeNode] = parent;
+        rides.nodeColour[redBlackTreeNode] = depth == redDepth ? colour.Red : colour.Black;
+        rides.leftChild[redBlackTreeNode] = buildSubTree(sortedSlots, low, middle - 1, redBlackTreeNode, depth + 1, redDepth);
+        rides.rightChild[redBlackTreeNode] = buildSubTree(sortedSlots, middle + 1, high, redBlackTreeNode, depth + 1, redDepth);
+        return redBlackTreeNode;
+    }
+
+    /**
+     * Method to find particular ride in red-black tree, with one probe of the hash index when there is one
+     *
+     * @param value ride number to find in red-black tree
+     * @return slot of the found ride, or noSlot
+     */
+    public int find(int value) {
+        if (index != null) {
+            int slot = index.get(value);
+            if (rideTable.slotChecks && slot != rideTable.noSlot) {
+                rides.checkLive(slot);
+            }
+            return slot;
+        }
+
+        int[] rideNumber = rides.rideNumber;
+        int redBlackTreeNode = root;
+
+        while (redBlackTreeNode != externalRedBlackTreeNode) {
+            if (rideNumber[redBlackTreeNode] > value) {
+                redBlackTreeNode = rides.leftChild[redBlackTreeNode];
+            } else if (rideNumber[redBlackTreeNode] < value) {
+                redBlackTreeNode = rides.rightChild[redBlackTreeNode];
+            } else {
+                if (rideTable.slotChecks) {
+                    rides.checkLive(redBlackTreeNode);
+                }
+                return redBlackTreeNode;
+            }
+        }
+        return rideTable.noSlot;
+    }
+
+    /**
+     * Method to search for a ride while a writer may be changing the tree. The walk is bounded and never
+     * indexes outside the columns, so it always ends, but the caller must validate its result afterwards.
+     *
+     * @param value ride number to be found
+     * @return slot of the ride, or noSlot if not found or the walk ran into a change
+     */
+    int findOptimistic(int value) {
+        int[] rideNumber = rides.rideNumber;
+        int[] leftChild = rides.leftChild;
+        int[] rightChild = rides.rightChild;
+        int limit = Math.min(rideNumber.length, Math.min(leftChild.length, rightChild.length));
+        int redBlackTreeNode = root;
+
+        for (int depth = 0; depth < maximumHeight && redBlackTreeNode != externalRedBlackTreeNode; depth++) {
+            if (redBlackTreeNode < 0 || redBlackTreeNode >= limit) {
+                return rideTable.noSlot;
+            }
+            if (rideNumber[redBlackTreeNode] > value) {
+                redBlackTreeNode = leftChild[redBlackTreeNode];
+            } else if (rideNumber[redBlackTreeNode] < value) {
+                redBlackTreeNode = rightChild[redBlackTreeNode];
+            } else {
+                return redBlackTreeNode;
+            }
+        }
+        return rideTable.noSlot;
+    }
+
+    /**
+     * Method to get minimum from a particular subtree
+     *
+     * @param redBlackTreeNode root of tree/subtree to find minimum from
+     * @return minimum node from tree/subtree
+     */
+    private int minimumOfSubTree(int redBlackTreeNode) {
+        while (rides.leftChild[redBlackTreeNode] != externalRedBlackTreeNode) {
+            redBlackTreeNode = rides.leftChild[redBlackTreeNode];
+        }
+        return redBlackTreeNode;
+    }
+
+    /**
+     * Method to fix red-black tree by rotating left
+     *
+     * @param redBlackTreeNode node to be rotated left in red-black tree
+     */
+    private void rotateToLeft(int redBlackTreeNode) {
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.leftRotations.increment();
+        }
+        int[] parent = rides.parent;
+        int[] leftChild = rides.leftChild;
+        int[] rightChild = rides.rightChild;
+
+        int right = rightChild[redBlackTreeNode];
+        rightChild[redBlackTreeNode] = leftChild[right];
+        if (leftChild[right] != externalRedBlackTreeNode) {
+            parent[leftChild[right]] = redBlackTreeNode;
+        }
+        parent[right] = parent[redBlackTreeNode];
+        if (parent[redBlackTreeNode] == rideTable.noSlot) {
+            this.root = right;
+        } else if (redBlackTreeNode == leftChild[parent[redBlackTreeNode]]) {
+            leftChild[parent[redBlackTreeNode]] = right;
+        } else {
+            rightChild[parent[redBlackTreeNode]] = right;
+        }
+        leftChild[right] = redBlackTreeNode;
+        parent[redBlackTreeNode] = right;
+    }
+
+    /**
+     * Method to fix red-black tree by rotating right
+     *
+     * @param redBlackTreeNode node to be rotated right in red-black tree
+     */
+    private void rotateToRight(int redBlackTreeNode) {
+        if (gatorTaxiMetrics.enabled) {
+            gatorTaxiMetrics.rightRotations.increment();
+        }
+        int[] parent = rides.parent;
+        int[] leftChild = rides.leftChild;
+        int[] rightChild = rides.rightChild;
+
+        int left = leftChild[redBlackTreeNode];
+        leftChild[redBlackTreeNode] = rightChild[left];
+        if (rightChild[left] != externalRedBlackTreeNode) {
+            parent[rightChild[left]] = redBlackTreeNode;
+        }
+        parent[left] = parent[redBlackTreeNode];
+        if (parent[redBlackTreeNode] == rideTable.noSlot) {
+            this.root = left;
+        } else if (redBlackTreeNode == rightChild[parent[redBlackTreeNode]]) {
+            rightChild[parent[redBlackTreeNode]] = left;
+        } else {
+            leftChild[parent[redBlackTreeNode]] = left;
+        }
+        rightChild[left] = redBlackTreeNode;
+        parent[redBlackTreeNode] = left;
+    }
+
+    /**
+     * Method to insert a ride into red-black tree. With a hash index a ride number already present is caught
+     * there before descending.
+     *
+     * @param newRedBlackTreeNode slot of the ride to be inserted in red-black tree
+     * @return false if the ride number is already present
+     */
+    public boolean insert(int newRedBlackTreeNode) {
+        if (rideTable.slotChecks) {
+            rides.checkLive(newRedBlackTreeNode);
+        }
+        int rideNumber = rides.rideNumber[newRedBlackTreeNode];
+        if (index != null && !index.put(rideNumber, newRedBlackTreeNode)) {
+            return false;
+        }
+        int parent = rideTable.noSlot;
+        int temp = this.root;
+
+        while (temp != externalRedBlackTreeNode) {
+            parent = temp;
+            if (rideNumber < rides.rideNumber[temp]) {
+                temp = rides.leftChild[temp];
+            } else if (rideNumber > rides.rideNumber[temp]) {
+                temp = rides.rightChild[temp];
+            } else {
+                return false;
+            }
+        }
+
+        rides.parent[newRedBlackTreeNode] = parent;
+        rides.leftChild[newRedBlackTreeNode] = externalRedBlackTreeNode;
+        rides.rightChild[newRedBlackTreeNode] = externalRedBlackTreeNode;
+        rides.nodeColour[newRedBlackTreeNode] = colour.Red;
+
+        if (parent == rideTable.noSlot) {
+            root = newRedBlackTreeNode;
+            rides.nodeColour[newRedBlackTreeNode] = colour.Black;
+            return true;
+        } else if (rideNumber < rides.rideNumber[parent]) {
+            rides.leftChild[parent] = newRedBlackTreeNode;
+        } else {
+            rides.rightChild[parent] = newRedBlackTreeNode;
+        }
+
+        if (rides.parent[parent] == rideTable.noSlot) {
+            return true;
+        }
+
+        refactorInsert(newRedBlackTreeNode);
+
+        return true;
+    }
+
+    /**
+     * Method to delete a ride from red-black tree
+     *
+     * @param value ride number to be deleted from red-black tree
+     * @return slot of the deleted ride, or noSlot
+     */
+    public int delete(int value) {
+        int deleteRedBlackTreeNode = find(value);
+
+        if (deleteRedBlackTreeNode != rideTable.noSlot) {
+            deleteNode(deleteRedBlackTreeNode);
+        }
+        return deleteRedBlackTreeNode;
+    }
+}
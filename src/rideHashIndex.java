@@ -0,0 +1,177 @@
+import java.util.Arrays;
+
+/**
+ * Class implementing an open-addressing hash index from ride number to ride slot. Each entry packs the ride
+ * number and the slot into one long, so a probe reads a single array element and never touches the ride table.
+ * Collisions probe linearly from a Fibonacci hash of the ride number, removal shifts the rest of the cluster
+ * back instead of leaving tombstones, and the table is kept at most half full.
+ */
+public class rideHashIndex {
+
+    /**
+     * Entry of an empty bucket - slot noSlot, which no stored ride has
+     */
+    private static final long emptyEntry = -1L;
+
+    /**
+     * Smallest number of buckets
+     */
+    private static final int minimumCapacity = 16;
+
+    /**
+     * Buckets, each holding the ride number in the high half and the slot in the low half, or emptyEntry
+     */
+    private long[] entries;
+
+    /**
+     * Number of buckets minus one, the buckets being a power of two
+     */
+    private int mask;
+
+    /**
+     * Shift taking the top bits of the 64-bit hash as a bucket index
+     */
+    private int shift;
+
+    /**
+     * Number of rides in the index
+     */
+    private int size;
+
+    /**
+     * Ride hash index constructor
+     *
+     * @param expectedRides number of rides the index holds before growing
+     */
+    public rideHashIndex(int expectedRides) {
+        int capacity = minimumCapacity;
+        while (capacity < 2L * expectedRides && capacity < 1 << 30) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Method to replace the buckets with empty ones
+     *
+     * @param capacity number of buckets, a power of two
+     */
+    private void allocate(int capacity) {
+        entries = new long[capacity];
+        Arrays.fill(entries, emptyEntry);
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        size = 0;
+    }
+
+    /**
+     * Method to get the bucket a ride number hashes to
+     *
+     * @param rideNumber ride number
+     * @return index of the home bucket
+     */
+    private int home(int rideNumber) {
+        return (int) ((rideNumber * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * Method to get the bucket holding a ride number
+     *
+     * @param rideNumber ride number
+     * @return index of the bucket, or -1 if the ride number is not in the index
+     */
+    private int bucketOf(int rideNumber) {
+        for (int bucket = home(rideNumber); ; bucket = (bucket + 1) & mask) {
+            long entry = entries[bucket];
+            if (entry == emptyEntry) {
+                return -1;
+            }
+            if ((int) (entry >>> 32) == rideNumber) {
+                return bucket;
+            }
+        }
+    }
+
+    /**
+     * Method to get number of rides in the index
+     *
+     * @return number of rides
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to find the slot of a ride
+     *
+     * @param rideNumber ride number
+     * @return slot of the ride, or noSlot
+     */
+    public int get(int rideNumber) {
+        int bucket = bucketOf(rideNumber);
+        return bucket < 0 ? rideTable.noSlot : (int) entries[bucket];
+    }
+
+    /**
+     * Method to add a ride
+     *
+     * @param rideNumber ride number
+     * @param slot       slot of the ride
+     * @return false if the ride number is already present
+     */
+    public boolean put(int rideNumber, int slot) {
+        if (2L * (size + 1) > entries.length) {
+            grow();
+        }
+
+        int bucket = home(rideNumber);
+        for (long entry = entries[bucket]; entry != emptyEntry; entry = entries[bucket]) {
+            if ((int) (entry >>> 32) == rideNumber) {
+                return false;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+        entries[bucket] = (long) rideNumber << 32 | (slot & 0xFFFFFFFFL);
+        size++;
+        return true;
+    }
+
+    /**
+     * Method to remove a ride. Later entries of the cluster whose home bucket is not between the emptied
+     * bucket and themselves move back into it, so every entry stays reachable from its home bucket.
+     *
+     * @param rideNumber ride number
+     * @return slot of the removed ride, or noSlot
+     */
+    public int remove(int rideNumber) {
+        int hole = bucketOf(rideNumber);
+        if (hole < 0) {
+            return rideTable.noSlot;
+        }
+
+        int slot = (int) entries[hole];
+        for (int bucket = (hole + 1) & mask; entries[bucket] != emptyEntry; bucket = (bucket + 1) & mask) {
+            int homeBucket = home((int) (entries[bucket] >>> 32));
+            if (((bucket - homeBucket) & mask) >= ((bucket - hole) & mask)) {
+                entries[hole] = entries[bucket];
+                hole = bucket;
+            }
+        }
+        entries[hole] = emptyEntry;
+        size--;
+        return slot;
+    }
+
+    /**
+     * Method to double the buckets and put every ride again
+     */
+    private void grow() {
+        long[] previous = entries;
+        allocate(entries.length * 2);
+        for (long entry : previous) {
+            if (entry != emptyEntry) {
+                put((int) (entry >>> 32), (int) entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,553 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Class implementing durability for gatorTaxi - an append-only binary write-ahead log of the commands that
+ * change state, plus checkpoints of the ride table. Records are gathered into groups that are written, and
+ * forced to disk unless fsync is none, with one write per group; each group is framed by its length and
+ * CRC32C so a torn tail is found and cut off on recovery. A checkpoint records the log offset it covers,
+ * after which the log is restarted from that offset; recovery loads the latest checkpoint and replays only
+ * the log behind it.
+ */
+public class rideJournal implements AutoCloseable {
+
+    /**
+     * Magic number opening the write-ahead log, "GTWL"
+     */
+    private static final int logMagic = 0x4754574C;
+
+    /**
+     * Magic number opening a checkpoint, "GTCP"
+     */
+    private static final int checkpointMagic = 0x47544350;
+
+    /**
+     * Version of the log and checkpoint formats
+     */
+    private static final int formatVersion = 1;
+
+    /**
+     * Size in bytes of the log header - magic, version and offset of the first group
+     */
+    private static final int logHeaderSize = 16;
+
+    /**
+     * Size in bytes of a group header - payload length and CRC32C of the payload
+     */
+    private static final int groupHeaderSize = 8;
+
+    /**
+     * Size in bytes of the checkpoint header - magic, version, log offset, ride count and CRC32C of the rides
+     */
+    private static final int checkpointHeaderSize = 24;
+
+    /**
+     * Size in bytes of a ride in a checkpoint - ride number, cost and trip duration
+     */
+    private static final int checkpointRideSize = 12;
+
+    /**
+     * Size in bytes of the largest record, an Insert
+     */
+    private static final int maximumRecordSize = 13;
+
+    /**
+     * Path of the write-ahead log
+     */
+    private final Path logPath;
+
+    /**
+     * Path of the latest checkpoint
+     */
+    private final Path checkpointPath;
+
+    /**
+     * Whether every command is committed on its own before the next one runs
+     */
+    private final boolean commitEachCommand;
+
+    /**
+     * Whether committed groups are forced to disk
+     */
+    private final boolean forceGroups;
+
+    /**
+     * Nanoseconds a group stays open after its first record before it is committed
+     */
+    private final long groupIntervalNanos;
+
+    /**
+     * Number of logged commands after which a checkpoint is taken, or 0 for none
+     */
+    private final int checkpointInterval;
+
+    /**
+     * Group being filled, a group header followed by records
+     */
+    private final ByteBuffer group;
+
+    /**
+     * Buffer for reading and writing checkpoints and log groups
+     */
+    private final ByteBuffer transfer = ByteBuffer.allocateDirect(1 << 20);
+
+    /**
+     * Checksum reused for every group and checkpoint
+     */
+    private final CRC32C checksum = new CRC32C();
+
+    /**
+     * Page of ride slots reused while writing a checkpoint
+     */
+    private final int[] ridePage = new int[256];
+
+    /**
+     * Write-ahead log, positioned at its end once recovered
+     */
+    private FileChannel log;
+
+    /**
+     * Log offset just past the last committed group; offsets keep growing across checkpoints
+     */
+    private long committedOffset;
+
+    /**
+     * Time the open group received its first record
+     */
+    private long groupStartNanos;
+
+    /**
+     * Number of commands logged since the last checkpoint
+     */
+    private int commandsSinceCheckpoint;
+
+    /**
+     * Ride journal constructor, nothing is read until recover is called
+     *
+     * @param options start-up options naming the directory and commit policy
+     * @throws IOException if the directory cannot be created
+     */
+    public rideJournal(gatorTaxiOptions options) throws IOException {
+        Path directory = Paths.get(options.walDirectory);
+        Files.createDirectories(directory);
+        logPath = directory.resolve("rides.wal");
+        checkpointPath = directory.resolve("rides.checkpoint");
+        commitEachCommand = options.fsync.equals("always");
+        forceGroups = !options.fsync.equals("none");
+        groupIntervalNanos = options.groupCommitMillis * 1_000_000L;
+        checkpointInterval = options.checkpointInterval;
+        group = ByteBuffer.allocateDirect(options.groupCommitBytes);
+        group.position(groupHeaderSize);
+    }
+
+    /**
+     * Method to restore gatorTaxi from the latest checkpoint and the log behind it. A torn or corrupt group
+     * at the end of the log was never acknowledged by a commit, so it and everything after it is cut off.
+     *
+     * @return number of commands replayed from the log
+     * @throws IOException if reading fails or the checkpoint or log header is damaged
+     */
+    public int recover() throws IOException {
+        long checkpointOffset = loadCheckpoint();
+        if (!Files.exists(logPath)) {
+            startLog(checkpointOffset);
+            return 0;
+        }
+
+        log = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(logHeaderSize);
+        if (!readFully(log, header, 0) || header.getInt(0) != logMagic || header.getInt(4) != formatVersion) {
+            throw new IOException("Not a ride journal: " + logPath);
+        }
+        long baseOffset = header.getLong(8);
+        if (baseOffset > checkpointOffset) {
+            throw new IOException("Ride journal " + logPath + " starts after checkpoint " + checkpointPath);
+        }
+
+        int replayed = 0;
+        long position = logHeaderSize;
+        long size = log.size();
+        while (true) {
+            ByteBuffer groupHeader = ByteBuffer.allocate(groupHeaderSize);
+            if (!readFully(log, groupHeader, position)) {
+                break;
+            }
+            int length = groupHeader.getInt(0);
+            if (length <= 0 || length > size - position - groupHeaderSize) {
+                break;
+            }
+
+            ByteBuffer payload = length <= transfer.capacity() ? transfer.clear().limit(length) : ByteBuffer.allocateDirect(length);
+            if (!readFully(log, payload, position + groupHeaderSize)) {
+                break;
+            }
+            checksum.reset();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != groupHeader.getInt(4)) {
+                break;
+            }
+
+            if (baseOffset + position - logHeaderSize >= checkpointOffset) {
+                replayed += apply(payload);
+            }
+            position += groupHeaderSize + length;
+        }
+
+        if (baseOffset + position - logHeaderSize < checkpointOffset) {
+            startLog(checkpointOffset);
+            return 0;
+        }
+        log.truncate(position);
+        log.position(position);
+        committedOffset = baseOffset + position - logHeaderSize;
+        commandsSinceCheckpoint = replayed;
+        return replayed;
+    }
+
+    /**
+     * Method to run the records of a group against gatorTaxi
+     *
+     * @param payload records of the group
+     * @return number of commands replayed
+     * @throws IOException if a record has an unknown type
+     */
+    private int apply(ByteBuffer payload) throws IOException {
+        int commands = 0;
+        while (payload.hasRemaining()) {
+            switch (payload.get()) {
+                case opcode.Insert:
+                    gatorTaxi.insert(payload.getInt(), payload.getInt(), payload.getInt());
+                    break;
+                case opcode.GetNextRide:
+                    gatorTaxi.dropNextRide();
+                    break;
+                case opcode.CancelRide:
+                    gatorTaxi.cancelRide(payload.getInt());
+                    break;
+                case opcode.UpdateTrip:
+                    gatorTaxi.updateTrip(payload.getInt(), payload.getInt());
+                    break;
+                default:
+                    throw new IOException("Unknown record in ride journal " + logPath);
+            }
+            commands++;
+        }
+        return commands;
+    }
+
+    /**
+     * Method to bulk load the rides of the latest checkpoint into gatorTaxi
+     *
+     * @return log offset the checkpoint covers, 0 if there is none
+     * @throws IOException if reading fails or the checkpoint is damaged
+     */
+    private long loadCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(checkpointPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(checkpointHeaderSize);
+            if (!readFully(channel, header, 0) || header.getInt(0) != checkpointMagic || header.getInt(4) != formatVersion) {
+                throw new IOException("Not a ride checkpoint: " + checkpointPath);
+            }
+            long logOffset = header.getLong(8);
+            int count = header.getInt(16);
+            if (count < 0 || channel.size() != checkpointHeaderSize + (long) count * checkpointRideSize) {
+                throw new IOException("Truncated ride checkpoint: " + checkpointPath);
+            }
+
+            int[] rideNumbers = new int[count];
+            int[] rideCosts = new int[count];
+            int[] tripDurations = new int[count];
+            checksum.reset();
+            channel.position(checkpointHeaderSize);
+            transfer.clear().flip();
+            for (int ride = 0; ride < count; ride++) {
+                if (transfer.remaining() < checkpointRideSize) {
+                    refill(channel);
+                }
+                rideNumbers[ride] = transfer.getInt();
+                rideCosts[ride] = transfer.getInt();
+                tripDurations[ride] = transfer.getInt();
+            }
+            if ((int) checksum.getValue() != header.getInt(20)) {
+                throw new IOException("Corrupt ride checkpoint: " + checkpointPath);
+            }
+
+            if (!gatorTaxi.bulkLoad(rideNumbers, rideCosts, tripDurations, count).isEmpty()) {
+                throw new IOException("Duplicate RideNumber in ride checkpoint: " + checkpointPath);
+            }
+            return logOffset;
+        }
+    }
+
+    /**
+     * Method to move the unread rest of the transfer buffer to its front and read more of a checkpoint behind
+     * it, adding the new bytes to the checksum
+     *
+     * @param channel checkpoint being read
+     * @throws IOException if reading fails
+     */
+    private void refill(FileChannel channel) throws IOException {
+        transfer.compact();
+        int start = transfer.position();
+        int read;
+        do {
+            read = channel.read(transfer);
+        } while (read > 0 && transfer.hasRemaining());
+        ByteBuffer added = transfer.duplicate().flip().position(start);
+        checksum.update(added);
+        transfer.flip();
+    }
+
+    /**
+     * Method to read a buffer's remaining bytes from a position of a channel
+     *
+     * @param channel  channel to read
+     * @param buffer   buffer to fill, flipped for reading afterwards
+     * @param position position in the channel to read from
+     * @return false if the channel ended first
+     * @throws IOException if reading fails
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /**
+     * Method to replace the log by an empty one whose first group will have the given offset. The new log is
+     * written aside and renamed over the old one so a crash leaves one or the other.
+     *
+     * @param baseOffset offset of the first group
+     * @throws IOException if writing fails
+     */
+    private void startLog(long baseOffset) throws IOException {
+        Path temporary = logPath.resolveSibling("rides.wal.tmp");
+        FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(logHeaderSize).putInt(logMagic).putInt(formatVersion).putLong(baseOffset).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        Files.move(temporary, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (log != null) {
+            log.close();
+        }
+        log = channel;
+        committedOffset = baseOffset;
+    }
+
+    /**
+     * Method to reserve room for a record in the open group, committing the group first if it is full
+     *
+     * @return group to put the record in
+     * @throws IOException if committing fails
+     */
+    private ByteBuffer reserve() throws IOException {
+        if (group.remaining() < maximumRecordSize) {
+            commit();
+        }
+        if (group.position() == groupHeaderSize) {
+            groupStartNanos = System.nanoTime();
+        }
+        return group;
+    }
+
+    /**
+     * Method to commit after a record as the policy asks and take a checkpoint when one is due
+     *
+     * @throws IOException if committing or checkpointing fails
+     */
+    private void logged() throws IOException {
+        commandsSinceCheckpoint++;
+        if (commitEachCommand) {
+            commit();
+        } else {
+            commitIfDue();
+        }
+        if (checkpointInterval > 0 && commandsSinceCheckpoint >= checkpointInterval) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Method to commit the open group once it has been open for the group interval. Called after every
+     * command, not only logged ones, so commands that change nothing still close a group that is due.
+     *
+     * @throws IOException if committing fails
+     */
+    public void commitIfDue() throws IOException {
+        if (group.position() > groupHeaderSize && System.nanoTime() - groupStartNanos >= groupIntervalNanos) {
+            commit();
+        }
+    }
+
+    /**
+     * Method to get the log offset just past the last committed group
+     *
+     * @return committed offset
+     */
+    long committedOffset() {
+        return committedOffset;
+    }
+
+    /**
+     * Method to log an Insert that added a ride
+     *
+     * @param rideNumber   ride number
+     * @param rideCost     cost of ride
+     * @param tripDuration trip duration of ride
+     * @throws IOException if committing fails
+     */
+    public void logInsert(int rideNumber, int rideCost, int tripDuration) throws IOException {
+        reserve().put((byte) opcode.Insert).putInt(rideNumber).putInt(rideCost).putInt(tripDuration);
+        logged();
+    }
+
+    /**
+     * Method to log a GetNextRide
+     *
+     * @throws IOException if committing fails
+     */
+    public void logGetNextRide() throws IOException {
+        reserve().put((byte) opcode.GetNextRide);
+        logged();
+    }
+
+    /**
+     * Method to log a CancelRide
+     *
+     * @param rideNumber ride number of ride to cancel
+     * @throws IOException if committing fails
+     */
+    public void logCancelRide(int rideNumber) throws IOException {
+        reserve().put((byte) opcode.CancelRide).putInt(rideNumber);
+        logged();
+    }
+
+    /**
+     * Method to log an UpdateTrip
+     *
+     * @param rideNumber       ride number of ride to update
+     * @param new_tripDuration new trip duration
+     * @throws IOException if committing fails
+     */
+    public void logUpdateTrip(int rideNumber, int new_tripDuration) throws IOException {
+        reserve().put((byte) opcode.UpdateTrip).putInt(rideNumber).putInt(new_tripDuration);
+        logged();
+    }
+
+    /**
+     * Method to write the open group to the log with a single write, and force it unless fsync is none
+     *
+     * @throws IOException if writing fails
+     */
+    public void commit() throws IOException {
+        int length = group.position() - groupHeaderSize;
+        if (length == 0) {
+            return;
+        }
+
+        checksum.reset();
+        checksum.update(group.duplicate().flip().position(groupHeaderSize));
+        group.putInt(0, length).putInt(4, (int) checksum.getValue()).flip();
+        while (group.hasRemaining()) {
+            log.write(group);
+        }
+        if (forceGroups) {
+            log.force(false);
+        }
+
+        committedOffset += groupHeaderSize + length;
+        group.clear().position(groupHeaderSize);
+    }
+
+    /**
+     * Method to write every ride of gatorTaxi in ride number order to a new checkpoint, so that loading it
+     * takes the sorted path of bulkLoad, and restart the log behind it. The checkpoint is written aside and
+     * renamed into place; until the log is restarted the old log still replays correctly from its offset.
+     *
+     * @throws IOException if writing fails
+     */
+    public void checkpoint() throws IOException {
+        commit();
+
+        Path temporary = checkpointPath.resolveSibling("rides.checkpoint.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            rideTable rides = gatorTaxi.rides;
+            redBlackTreeCursor cursor = gatorTaxi.redBlackTree.range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+            int count = 0;
+            checksum.reset();
+            channel.position(checkpointHeaderSize);
+            transfer.clear();
+            for (int size = cursor.nextPage(ridePage); size > 0; size = cursor.nextPage(ridePage)) {
+                for (int index = 0; index < size; index++) {
+                    if (transfer.remaining() < checkpointRideSize) {
+                        drain(channel);
+                    }
+                    int ride = ridePage[index];
+                    transfer.putInt(rides.rideNumber[ride]).putInt(rides.rideCost[ride]).putInt(rides.tripDuration[ride]);
+                }
+                count += size;
+            }
+            drain(channel);
+
+            ByteBuffer header = ByteBuffer.allocate(checkpointHeaderSize).putInt(checkpointMagic).putInt(formatVersion)
+                    .putLong(committedOffset).putInt(count).putInt((int) checksum.getValue()).flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        startLog(committedOffset);
+        commandsSinceCheckpoint = 0;
+    }
+
+    /**
+     * Method to write the filled part of the transfer buffer to a checkpoint, adding it to the checksum
+     *
+     * @param channel checkpoint being written
+     * @throws IOException if writing fails
+     */
+    private void drain(FileChannel channel) throws IOException {
+        transfer.flip();
+        checksum.update(transfer.duplicate());
+        while (transfer.hasRemaining()) {
+            channel.write(transfer);
+        }
+        transfer.clear();
+    }
+
+    /**
+     * Method to commit the open group and close the log. No checkpoint is taken; the next recovery replays
+     * the log.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            commit();
+            log.close();
+        }
+    }
+}
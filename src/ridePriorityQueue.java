@@ -0,0 +1,270 @@
+/**
+ * Priority queue of ride slots in the order GetNextRide takes them - lower cost, then lower trip duration,
+ * then lower ride number. Keys live in the ride table; the heapIndex column is non-zero exactly while a ride
+ * is in the queue.
+ */
+public interface ridePriorityQueue {
+
+    /**
+     * Method to create the priority queue selected by the options
+     *
+     * @param rides           table holding the rides
+     * @param initialCapacity number of rides the queue holds before growing
+     * @param options         start-up options
+     * @return priority queue
+     */
+    static ridePriorityQueue create(rideTable rides, int initialCapacity, gatorTaxiOptions options) {
+        switch (options.heap) {
+            case "4-ary":
+                return new dAryHeap(rides, 4, initialCapacity, options.heapGrowthFactor, options.heapShrink);
+            case "8-ary":
+                return new dAryHeap(rides, 8, initialCapacity, options.heapGrowthFactor, options.heapShrink);
+            case "pairing":
+                return new pairingHeap(rides);
+            case "bucket":
+                return new bucketQueue(rides, options.bucketCostLimit, initialCapacity, options.heapGrowthFactor, options.heapShrink);
+            default:
+                return new minHeap(rides, initialCapacity, options.heapGrowthFactor, options.heapShrink);
+        }
+    }
+
+    /**
+     * Method to get number of rides in the queue
+     *
+     * @return number of rides
+     */
+    int size();
+
+    /**
+     * Method to insert a ride
+     *
+     * @param slot slot of the ride to be inserted
+     */
+    void insert(int slot);
+
+    /**
+     * Method to insert a batch of rides. Queues that can do better than one insert per ride override this.
+     *
+     * @param slots slots of the rides to be inserted
+     * @param count number of slots to take from the start of slots
+     */
+    default void bulkLoad(int[] slots, int count) {
+        for (int index = 0; index < count; index++) {
+            insert(slots[index]);
+        }
+    }
+
+    /**
+     * Method to get the minimum without removing it
+     *
+     * @return slot of the minimum ride, or noSlot if empty
+     */
+    int peek();
+
+    /**
+     * Method to remove the minimum
+     *
+     * @return slot of the minimum ride, or noSlot if empty
+     */
+    int deleteMin();
+
+    /**
+     * Method to remove up to count minimums at once, in the order count calls of deleteMin would return them.
+     * Queues that can do better than one deleteMin per ride override this.
+     *
+     * @param slots array to write the removed slots to, smallest first
+     * @param count most rides to remove
+     * @return number of rides removed, less than count only if the queue ran empty
+     */
+    default int deleteMins(int[] slots, int count) {
+        int removed = 0;
+        while (removed < count && size() > 0) {
+            slots[removed++] = deleteMin();
+        }
+        return removed;
+    }
+
+    /**
+     * Method to remove a ride anywhere in the queue
+     *
+     * @param slot slot of the ride to be deleted
+     */
+    void arbitraryDelete(int slot);
+
+    /**
+     * Method to remove every ride marked cancelled in the ride table in one pass over the queue, rebuilding it
+     * from the rides that are left
+     *
+     * @param slots array to write the removed slots to, long enough for every cancelled ride
+     * @return number of rides removed
+     */
+    int removeCancelled(int[] slots);
+
+    /**
+     * Method to change the cost and trip duration of a ride in the queue, keeping the queue ordered
+     *
+     * @param slot         slot of the ride
+     * @param rideCost     new cost of the ride
+     * @param tripDuration new trip duration of the ride
+     */
+    void changeKey(int slot, int rideCost, int tripDuration);
+
+    /**
+     * Method to check whether a ride is in the queue
+     *
+     * @param slot slot of the ride
+     * @return true if the ride has not been deleted from the queue
+     */
+    boolean contains(int slot);
+}
+
+/**
+ * Small binary heap of heap positions used to find the k smallest rides of a heap without changing it. Only
+ * the root starts in the frontier; taking a ride adds its children, so after k takes it has held at most
+ * k * (arity - 1) + 1 positions. Each ride's keys are copied in once on push, so ordering the frontier
+ * never goes back to the scattered ride table columns.
+ */
+final class rideFrontier {
+
+    /**
+     * Table holding the rides the frontier holds
+     */
+    private final rideTable rides;
+
+    /**
+     * Cost and trip duration of each ride, packed so one signed comparison orders both
+     */
+    private long[] keys = new long[16];
+
+    /**
+     * Ride number of each ride, breaking ties of keys
+     */
+    private int[] rideNumbers = new int[16];
+
+    /**
+     * Slot of each ride
+     */
+    private int[] slots = new int[16];
+
+    /**
+     * Heap position of each ride in the heap searched
+     */
+    private int[] positions = new int[16];
+
+    /**
+     * Number of rides in the frontier
+     */
+    private int size;
+
+    /**
+     * Ride frontier constructor
+     *
+     * @param rides table holding the rides
+     */
+    rideFrontier(rideTable rides) {
+        this.rides = rides;
+    }
+
+    /**
+     * Method to empty the frontier and make room for a number of rides
+     *
+     * @param capacity most rides the frontier holds before the next clear
+     */
+    void clear(int capacity) {
+        if (capacity > slots.length) {
+            keys = new long[capacity];
+            rideNumbers = new int[capacity];
+            slots = new int[capacity];
+            positions = new int[capacity];
+        }
+        size = 0;
+    }
+
+    /**
+     * Method to get the slot of the smallest ride in the frontier
+     *
+     * @return slot of the smallest ride
+     */
+    int peekSlot() {
+        return slots[0];
+    }
+
+    /**
+     * Method to compare two rides in the order of rideTable.ranksBefore
+     *
+     * @param key1        packed cost and trip duration of the first ride
+     * @param rideNumber1 ride number of the first ride
+     * @param key2        packed cost and trip duration of the second ride
+     * @param rideNumber2 ride number of the second ride
+     * @return true if the first ride ranks before the second
+     */
+    private static boolean ranksBefore(long key1, int rideNumber1, long key2, int rideNumber2) {
+        return key1 < key2 || (key1 == key2 && rideNumber1 < rideNumber2);
+    }
+
+    /**
+     * Method to put a ride at an index of the frontier
+     *
+     * @param index      index in the frontier
+     * @param key        packed cost and trip duration of the ride
+     * @param rideNumber ride number of the ride
+     * @param slot       slot of the ride
+     * @param position   position of the ride in the heap searched
+     */
+    private void place(int index, long key, int rideNumber, int slot, int position) {
+        keys[index] = key;
+        rideNumbers[index] = rideNumber;
+        slots[index] = slot;
+        positions[index] = position;
+    }
+
+    /**
+     * Method to add a ride
+     *
+     * @param slot     slot of the ride
+     * @param position position of the ride in the heap searched
+     */
+    void push(int slot, int position) {
+        long key = (long) rides.rideCost[slot] << 32 | (rides.tripDuration[slot] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+        int rideNumber = rides.rideNumber[slot];
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >> 1;
+            if (!ranksBefore(key, rideNumber, keys[parent], rideNumbers[parent])) {
+                break;
+            }
+            place(index, keys[parent], rideNumbers[parent], slots[parent], positions[parent]);
+            index = parent;
+        }
+        place(index, key, rideNumber, slot, position);
+    }
+
+    /**
+     * Method to remove the smallest ride
+     *
+     * @return position of the removed ride in the heap searched
+     */
+    int pop() {
+        int popped = positions[0];
+        size--;
+        long key = keys[size];
+        int rideNumber = rideNumbers[size];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksBefore(keys[child + 1], rideNumbers[child + 1], keys[child], rideNumbers[child])) {
+                child++;
+            }
+            if (!ranksBefore(keys[child], rideNumbers[child], key, rideNumber)) {
+                break;
+            }
+            place(index, keys[child], rideNumbers[child], slots[child], positions[child]);
+            index = child;
+        }
+        place(index, key, rideNumber, slots[size], positions[size]);
+        return popped;
+    }
+}
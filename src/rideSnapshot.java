@@ -0,0 +1,373 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class holding rides as int columns, in ride number order
+ */
+final class rideColumns {
+
+    /**
+     * Ride number of each ride
+     */
+    final int[] rideNumber;
+
+    /**
+     * Cost of each ride
+     */
+    final int[] rideCost;
+
+    /**
+     * Trip duration of each ride
+     */
+    final int[] tripDuration;
+
+    /**
+     * Number of rides
+     */
+    int count;
+
+    /**
+     * Ride columns constructor
+     *
+     * @param capacity number of rides the columns hold
+     */
+    rideColumns(int capacity) {
+        rideNumber = new int[capacity];
+        rideCost = new int[capacity];
+        tripDuration = new int[capacity];
+    }
+
+    /**
+     * Method to append a ride
+     *
+     * @param rideNumber   ride number
+     * @param rideCost     cost of the ride
+     * @param tripDuration trip duration of the ride
+     */
+    void add(int rideNumber, int rideCost, int tripDuration) {
+        this.rideNumber[count] = rideNumber;
+        this.rideCost[count] = rideCost;
+        this.tripDuration[count] = tripDuration;
+        count++;
+    }
+}
+
+/**
+ * Class implementing a read-only snapshot of every ride, laid out the way gatorTaxi serves it and memory-mapped
+ * so a restart answers commands without reading, parsing or rebuilding anything first. The file holds the
+ * rides as columns sorted by ride number, which Print binary searches, and the ride indexes in the order
+ * GetNextRide takes them - fully sorted, so also a valid heap - which GetNextRide walks. The file is never
+ * written to; rides removed since it was mapped are marked in a bitset, and new or changed rides live in the
+ * structures of gatorTaxi, the overlay.
+ */
+public class rideSnapshot {
+
+    /**
+     * Magic number opening a snapshot, "GTSN"
+     */
+    private static final int snapshotMagic = 0x4754534E;
+
+    /**
+     * Version of the snapshot format
+     */
+    private static final int formatVersion = 1;
+
+    /**
+     * Size in bytes of the header - magic, version, ride count and a reserved int
+     */
+    private static final int headerSize = 16;
+
+    /**
+     * Number of int columns - ride number, cost, trip duration and GetNextRide order
+     */
+    private static final int columns = 4;
+
+    /**
+     * Ride numbers in increasing order
+     */
+    private final IntBuffer rideNumber;
+
+    /**
+     * Cost of each ride
+     */
+    private final IntBuffer rideCost;
+
+    /**
+     * Trip duration of each ride
+     */
+    private final IntBuffer tripDuration;
+
+    /**
+     * Ride indexes by lower cost, then lower trip duration, then lower ride number
+     */
+    private final IntBuffer priorityOrder;
+
+    /**
+     * Number of rides in the file
+     */
+    private final int size;
+
+    /**
+     * Bit per ride, set once the ride is removed
+     */
+    private final long[] removed;
+
+    /**
+     * Number of removed rides
+     */
+    private int removedCount;
+
+    /**
+     * Position in priorityOrder before which every ride is removed
+     */
+    private int nextPriority;
+
+    /**
+     * Ride snapshot constructor
+     *
+     * @param buffer mapped file
+     * @param size   number of rides in the file
+     */
+    private rideSnapshot(MappedByteBuffer buffer, int size) {
+        this.size = size;
+        rideNumber = column(buffer, 0, size);
+        rideCost = column(buffer, 1, size);
+        tripDuration = column(buffer, 2, size);
+        priorityOrder = column(buffer, 3, size);
+        removed = new long[(size + 63) >>> 6];
+    }
+
+    /**
+     * Method to view one column of the mapped file as ints
+     *
+     * @param buffer mapped file
+     * @param column index of the column
+     * @param size   number of rides in the file
+     * @return view of the column
+     */
+    private static IntBuffer column(ByteBuffer buffer, int column, int size) {
+        return buffer.slice(headerSize + column * 4 * size, 4 * size).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * Method to map a snapshot file. Pages are read by the operating system as commands touch them.
+     *
+     * @param path snapshot file
+     * @return mapped snapshot
+     * @throws IOException if the file cannot be mapped or is not a snapshot
+     */
+    public static rideSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < headerSize || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Not a ride snapshot: " + path);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int size = buffer.getInt(8);
+            if (buffer.getInt(0) != snapshotMagic || buffer.getInt(4) != formatVersion || size < 0
+                    || fileSize != headerSize + (long) columns * 4 * size) {
+                throw new IOException("Not a ride snapshot: " + path);
+            }
+            return new rideSnapshot(buffer, size);
+        }
+    }
+
+    /**
+     * Method to write rides to a snapshot file. The file is written aside and renamed into place, so a
+     * snapshot mapped from the same path keeps its old contents.
+     *
+     * @param path  snapshot file
+     * @param rides rides in ride number order
+     * @throws IOException if writing fails or the rides do not fit in a mappable file
+     */
+    public static void write(Path path, rideColumns rides) throws IOException {
+        int count = rides.count;
+        long fileSize = headerSize + (long) columns * 4 * count;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Too many rides for a snapshot: " + count);
+        }
+
+        int[] order = new int[count];
+        for (int index = 0; index < count; index++) {
+            order[index] = index;
+        }
+        order = gatorTaxi.radixSort(rides.tripDuration, order, count);
+        order = gatorTaxi.radixSort(rides.rideCost, order, count);
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(snapshotMagic).putInt(formatVersion).putInt(count).putInt(0);
+            IntBuffer ints = buffer.asIntBuffer();
+            ints.put(rides.rideNumber, 0, count);
+            ints.put(rides.rideCost, 0, count);
+            ints.put(rides.tripDuration, 0, count);
+            ints.put(order, 0, count);
+            buffer.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Method to get number of rides in the file, removed ones included
+     *
+     * @return number of rides
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to get number of rides not removed
+     *
+     * @return number of live rides
+     */
+    public int liveCount() {
+        return size - removedCount;
+    }
+
+    /**
+     * Method to get number of removed rides
+     *
+     * @return number of removed rides
+     */
+    public int removedCount() {
+        return removedCount;
+    }
+
+    /**
+     * Method to get ride number of a ride
+     *
+     * @param index index of the ride
+     * @return ride number
+     */
+    int rideNumber(int index) {
+        return rideNumber.get(index);
+    }
+
+    /**
+     * Method to get cost of a ride
+     *
+     * @param index index of the ride
+     * @return ride cost
+     */
+    int rideCost(int index) {
+        return rideCost.get(index);
+    }
+
+    /**
+     * Method to get trip duration of a ride
+     *
+     * @param index index of the ride
+     * @return trip duration
+     */
+    int tripDuration(int index) {
+        return tripDuration.get(index);
+    }
+
+    /**
+     * Method to get the first ride with ride number not less than value, removed or not
+     *
+     * @param value lower limit of ride number
+     * @return index of the ride, or size if there is none
+     */
+    private int lowerBound(int value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (rideNumber.get(middle) < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Method to find a live ride
+     *
+     * @param value ride number to find
+     * @return index of the ride, or -1 if it is not in the file or removed
+     */
+    public int find(int value) {
+        int index = lowerBound(value);
+        return index < size && rideNumber.get(index) == value && !isRemoved(index) ? index : -1;
+    }
+
+    /**
+     * Method to get the first live ride with ride number not less than value
+     *
+     * @param value lower limit of ride number
+     * @return index of the ride, or size if there is none
+     */
+    public int ceiling(int value) {
+        return nextLive(lowerBound(value));
+    }
+
+    /**
+     * Method to get the first live ride at or after an index
+     *
+     * @param index index to start from
+     * @return index of the ride, or size if there is none
+     */
+    public int nextLive(int index) {
+        if (index >= size) {
+            return size;
+        }
+
+        int word = index >>> 6;
+        long free = ~removed[word] & (-1L << index);
+        while (free == 0) {
+            if (++word == removed.length) {
+                return size;
+            }
+            free = ~removed[word];
+        }
+        return Math.min(size, (word << 6) + Long.numberOfTrailingZeros(free));
+    }
+
+    /**
+     * Method to check whether a ride has been removed
+     *
+     * @param index index of the ride
+     * @return true if removed
+     */
+    public boolean isRemoved(int index) {
+        return (removed[index >>> 6] & 1L << index) != 0;
+    }
+
+    /**
+     * Method to remove a live ride
+     *
+     * @param index index of the ride
+     */
+    public void remove(int index) {
+        removed[index >>> 6] |= 1L << index;
+        removedCount++;
+    }
+
+    /**
+     * Method to get the live ride GetNextRide takes next from the file
+     *
+     * @return index of the ride, or -1 if every ride is removed
+     */
+    public int peekNext() {
+        while (nextPriority < size && isRemoved(priorityOrder.get(nextPriority))) {
+            nextPriority++;
+        }
+        return nextPriority < size ? priorityOrder.get(nextPriority) : -1;
+    }
+}
@@ -0,0 +1,271 @@
+import java.util.Arrays;
+
+/**
+ * Class implementing ride table - every ride is stored once, in parallel primitive columns addressed by a slot.
+ * A slot is the tree node, the heap entry and the ride record at once, and released slots are reused from a
+ * free list, so running commands allocates nothing per ride. The free list never holds more slots than were
+ * live at the busiest point. Running with -DgatorTaxi.slotChecks=true checks every release, and every slot the
+ * tree, the priority queues and the output touch, against released slots.
+ */
+public class rideTable {
+
+    /**
+     * Whether slots are checked for use after release, fixed when the class is loaded. The checks are guarded
+     * by this constant, so with it off the JIT drops them.
+     */
+    static final boolean slotChecks = Boolean.getBoolean("gatorTaxi.slotChecks");
+
+    /**
+     * Slot representing absence of a ride (null pointer)
+     */
+    public static final int noSlot = -1;
+
+    /**
+     * Slot reserved for the external (leaf) node of red-black tree
+     */
+    public static final int externalSlot = 0;
+
+    /**
+     * ride number column
+     */
+    int[] rideNumber;
+
+    /**
+     * cost of the ride column
+     */
+    int[] rideCost;
+
+    /**
+     * trip duration of the ride column
+     */
+    int[] tripDuration;
+
+    /**
+     * Position index of the ride in min heap array column
+     */
+    int[] heapIndex;
+
+    /**
+     * Parent slot of the ride in red-black tree column
+     */
+    int[] parent;
+
+    /**
+     * Left child slot of the ride in red-black tree column
+     */
+    int[] leftChild;
+
+    /**
+     * Right child slot of the ride in red-black tree column
+     */
+    int[] rightChild;
+
+    /**
+     * Colour(Red, Black) of the ride in red-black tree column
+     */
+    byte[] nodeColour;
+
+    /**
+     * Cancelled flag of a ride that was cancelled lazily and still waits in the priority queue column
+     */
+    boolean[] cancelled;
+
+    /**
+     * Whether each slot is released, kept only with slot checks on
+     */
+    private boolean[] released;
+
+    /**
+     * Stack of released slots available for reuse
+     */
+    private int[] freeSlots;
+
+    /**
+     * Number of released slots in the stack
+     */
+    private int freeCount;
+
+    /**
+     * Next never used slot
+     */
+    private int nextSlot;
+
+    /**
+     * Ride table constructor
+     *
+     * @param initialCapacity number of rides the table can hold before growing
+     */
+    public rideTable(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1) + 1;
+
+        rideNumber = new int[capacity];
+        rideCost = new int[capacity];
+        tripDuration = new int[capacity];
+        heapIndex = new int[capacity];
+        parent = new int[capacity];
+        leftChild = new int[capacity];
+        rightChild = new int[capacity];
+        nodeColour = new byte[capacity];
+        cancelled = new boolean[capacity];
+        freeSlots = new int[capacity];
+        released = slotChecks ? new boolean[capacity] : null;
+
+        parent[externalSlot] = noSlot;
+        leftChild[externalSlot] = externalSlot;
+        rightChild[externalSlot] = externalSlot;
+        nodeColour[externalSlot] = colour.Black;
+        nextSlot = externalSlot + 1;
+    }
+
+    /**
+     * Method to store a ride in the table
+     *
+     * @param rideNumber   ride number
+     * @param rideCost     cost of the ride
+     * @param tripDuration trip duration of the ride
+     * @return slot of the stored ride
+     */
+    public int allocate(int rideNumber, int rideCost, int tripDuration) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (nextSlot == this.rideNumber.length) {
+                grow();
+            }
+            slot = nextSlot++;
+        }
+
+        this.rideNumber[slot] = rideNumber;
+        this.rideCost[slot] = rideCost;
+        this.tripDuration[slot] = tripDuration;
+        heapIndex[slot] = 0;
+        parent[slot] = noSlot;
+        leftChild[slot] = externalSlot;
+        rightChild[slot] = externalSlot;
+        nodeColour[slot] = colour.Red;
+        cancelled[slot] = false;
+        if (slotChecks) {
+            released[slot] = false;
+        }
+        return slot;
+    }
+
+    /**
+     * Method to release a ride's slot for reuse
+     *
+     * @param slot slot of the ride to release
+     * @throws IllegalStateException with slot checks on, if the slot is already released, still in the
+     *                               priority queue or still linked into the tree
+     */
+    public void release(int slot) {
+        if (slotChecks) {
+            checkLive(slot);
+            if (heapIndex[slot] != 0) {
+                throw new IllegalStateException("Ride slot " + slot + " released while still in the priority queue");
+            }
+            if (parent[slot] != noSlot || leftChild[slot] != externalSlot || rightChild[slot] != externalSlot) {
+                throw new IllegalStateException("Ride slot " + slot + " released while still linked into the tree");
+            }
+            released[slot] = true;
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Method to check that a slot holds a ride, with slot checks on
+     *
+     * @param slot slot of the ride
+     * @throws IllegalStateException if the slot has been released and not allocated again
+     */
+    void checkLive(int slot) {
+        if (slot <= externalSlot || slot >= nextSlot || released[slot]) {
+            throw new IllegalStateException("Ride slot " + slot + " used after release");
+        }
+    }
+
+    /**
+     * Method to get number of rides stored in the table
+     *
+     * @return number of rides
+     */
+    public int size() {
+        return nextSlot - 1 - freeCount;
+    }
+
+    /**
+     * Method to compare two rides in the order GetNextRide takes them
+     *
+     * @param slot1 slot of the first ride
+     * @param slot2 slot of the second ride
+     * @return true if the first ride has lower cost, then lower trip duration, then lower ride number
+     */
+    public boolean ranksBefore(int slot1, int slot2) {
+        if (rideCost[slot1] != rideCost[slot2]) {
+            return rideCost[slot1] < rideCost[slot2];
+        }
+        if (tripDuration[slot1] != tripDuration[slot2]) {
+            return tripDuration[slot1] < tripDuration[slot2];
+        }
+        return rideNumber[slot1] < rideNumber[slot2];
+    }
+
+    /**
+     * Method to check whether the next allocate() grows the table, replacing every column
+     *
+     * @return true if no slot is free
+     */
+    public boolean isFull() {
+        return freeCount == 0 && nextSlot == rideNumber.length;
+    }
+
+    /**
+     * Method to double the capacity of every column
+     */
+    private void grow() {
+        resize(rideNumber.length * 2);
+    }
+
+    /**
+     * Method to grow the columns once so that the given number of further rides fit without doubling
+     *
+     * @param rides number of rides about to be stored
+     */
+    public void reserve(int rides) {
+        long needed = (long) nextSlot + rides - freeCount;
+        if (needed > rideNumber.length) {
+            resize((int) Math.min(Integer.MAX_VALUE - 8, needed));
+        }
+    }
+
+    /**
+     * Method to copy every column into arrays of a new capacity
+     *
+     * @param capacity new capacity of the columns
+     */
+    private void resize(int capacity) {
+        rideNumber = Arrays.copyOf(rideNumber, capacity);
+        rideCost = Arrays.copyOf(rideCost, capacity);
+        tripDuration = Arrays.copyOf(tripDuration, capacity);
+        heapIndex = Arrays.copyOf(heapIndex, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        leftChild = Arrays.copyOf(leftChild, capacity);
+        rightChild = Arrays.copyOf(rightChild, capacity);
+        nodeColour = Arrays.copyOf(nodeColour, capacity);
+        cancelled = Arrays.copyOf(cancelled, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+        if (slotChecks) {
+            released = Arrays.copyOf(released, capacity);
+        }
+    }
+
+    /**
+     * Method to get string format of ride
+     *
+     * @param slot slot of the ride
+     * @return String format of ride
+     */
+    public String toString(int slot) {
+        return "(" + rideNumber[slot] + "," + rideCost[slot] + "," + tripDuration[slot] + ")";
+    }
+}
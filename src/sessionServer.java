@@ -0,0 +1,351 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class implementing one client session of sessionServer - a blocking loop on its own thread that reads what
+ * the client sent, has the core thread run the complete commands and writes the replies
+ */
+final class serverSession implements Runnable {
+
+    /**
+     * State of the connection, touched by the session thread and, while it waits, by the core thread
+     */
+    final serverConnection connection;
+
+    /**
+     * Core thread running the commands
+     */
+    private final sessionCore core;
+
+    /**
+     * Released by the core thread once it has run the commands handed to it
+     */
+    final Semaphore executed = new Semaphore(0);
+
+    /**
+     * Server session constructor
+     *
+     * @param channel socket of the session, in blocking mode
+     * @param core    core thread running the commands
+     */
+    serverSession(SocketChannel channel, sessionCore core) {
+        this.connection = new serverConnection(channel);
+        this.core = core;
+    }
+
+    /**
+     * Method run by the session thread until the client finishes or the connection fails
+     */
+    @Override
+    public void run() {
+        try {
+            while (!connection.closing) {
+                if (connection.read()) {
+                    core.execute(this);
+                }
+                connection.send();
+            }
+        } catch (IOException e) {
+            // the client went away or the server is closing; either way the session is over
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                connection.channel.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+        }
+    }
+}
+
+/**
+ * Class implementing the core thread of sessionServer - the single writer of the engine. Sessions queue up
+ * in a bounded queue, so a burst blocks session threads instead of piling up work, and the core thread runs
+ * the commands of each in turn. It also writes the metrics file when one is due.
+ */
+final class sessionCore implements Runnable {
+
+    /**
+     * Sessions waiting for their commands to run
+     */
+    private final BlockingQueue<serverSession> pending;
+
+    /**
+     * Engine the commands are run against
+     */
+    private final concurrentGatorTaxi taxi;
+
+    /**
+     * Session core constructor
+     *
+     * @param taxi      engine the commands are run against
+     * @param queueSize number of sessions that can wait at once
+     */
+    sessionCore(concurrentGatorTaxi taxi, int queueSize) {
+        this.taxi = taxi;
+        this.pending = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    /**
+     * Method to have the complete commands of a session run, waiting until they have been
+     *
+     * @param session session with commands read
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void execute(serverSession session) throws InterruptedException {
+        pending.put(session);
+        session.executed.acquire();
+    }
+
+    /**
+     * Method to write the metrics file if it is due; a failed write is reported and the core carries on
+     */
+    private void writeMetricsIfDue() {
+        try {
+            taxi.writeMetricsIfDue();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method run by the core thread until interrupted, then releasing the sessions still waiting
+     */
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                serverSession session = taxi.metricsInterval == 0 ? pending.take() : pending.poll(taxi.metricsInterval, TimeUnit.MILLISECONDS);
+                if (session != null) {
+                    try {
+                        session.connection.runReceived(taxi);
+                    } catch (IOException e) {
+                        session.connection.closing = true;
+                    } finally {
+                        session.executed.release();
+                    }
+                }
+                writeMetricsIfDue();
+            }
+        } catch (InterruptedException e) {
+            serverSession waiting;
+            while ((waiting = pending.poll()) != null) {
+                waiting.connection.closing = true;
+                waiting.executed.release();
+            }
+        }
+    }
+}
+
+/**
+ * Class implementing Gator Taxi as a TCP service with one thread per session. Each session runs a plain
+ * blocking read, execute and write loop; the commands themselves are run by a single core thread the
+ * sessions hand them to through a bounded queue. Sessions run on virtual threads where the runtime has
+ * them (Java 21), or on a fixed pool of platform threads. A connection arriving while every pool thread
+ * runs a session is told the server is busy and closed, rather than left waiting for a thread without a
+ * reply. Connections speak the same protocol as gatorTaxiServer.
+ */
+public class sessionServer implements AutoCloseable {
+
+    /**
+     * Channel accepting connections
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * Sockets of the open sessions
+     */
+    private final Set<SocketChannel> sessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Core thread running commands
+     */
+    private final Thread coreThread;
+
+    /**
+     * Thread accepting connections
+     */
+    private final Thread acceptThread;
+
+    /**
+     * Factory of virtual session threads, or null to run sessions on sessionPool
+     */
+    private final ThreadFactory virtualThreads;
+
+    /**
+     * Platform threads running sessions, or null with virtual threads
+     */
+    private final ExecutorService sessionPool;
+
+    /**
+     * Free threads of sessionPool, one taken per session it runs, or null with virtual threads
+     */
+    private final Semaphore freeSessionThreads;
+
+    /**
+     * Reply sent to a connection refused because every session thread is busy
+     */
+    private final byte[] busyReply;
+
+    /**
+     * Session server constructor - binds the listening socket and starts the core and accept threads
+     *
+     * @param options start-up options; serverModel picks virtual or platform session threads
+     * @throws IOException if the socket cannot be bound
+     */
+    public sessionServer(gatorTaxiOptions options) throws IOException {
+        sessionCore core = new sessionCore(new concurrentGatorTaxi(options), options.coreQueueSize);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(options.bindAddress, options.port), 1024);
+
+        virtualThreads = options.serverModel.equals("virtual") ? virtualThreadFactory() : null;
+        if (options.serverModel.equals("virtual") && virtualThreads == null) {
+            System.out.println("Virtual threads need Java 21; running sessions on platform threads");
+        }
+        sessionPool = virtualThreads == null ? Executors.newFixedThreadPool(options.sessionThreads) : null;
+        freeSessionThreads = virtualThreads == null ? new Semaphore(options.sessionThreads) : null;
+        busyReply = ("Server busy: all " + options.sessionThreads + " session threads in use\n").getBytes(StandardCharsets.US_ASCII);
+
+        coreThread = new Thread(core, "gatorTaxi-core");
+        coreThread.setDaemon(true);
+        coreThread.start();
+        acceptThread = new Thread(() -> acceptSessions(core), "gatorTaxi-accept");
+        acceptThread.start();
+    }
+
+    /**
+     * Method to get a factory of virtual threads, found by reflection so the code still builds for Java 17
+     *
+     * @return thread factory, or null if the runtime has no virtual threads
+     */
+    static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "gatorTaxi-session-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Method to get the kind of threads running sessions
+     *
+     * @return "virtual" or "platform"
+     */
+    public String threadKind() {
+        return virtualThreads != null ? "virtual" : "platform";
+    }
+
+    /**
+     * Method run by the accept thread - starts a session per connection until the listening socket closes,
+     * and refuses connections the session pool has no free thread for
+     *
+     * @param core core thread the sessions feed
+     */
+    private void acceptSessions(sessionCore core) {
+        try {
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                if (freeSessionThreads != null && !freeSessionThreads.tryAcquire()) {
+                    refuse(channel);
+                    continue;
+                }
+                sessions.add(channel);
+                Runnable session = () -> {
+                    try {
+                        new serverSession(channel, core).run();
+                    } finally {
+                        sessions.remove(channel);
+                        if (freeSessionThreads != null) {
+                            freeSessionThreads.release();
+                        }
+                    }
+                };
+                if (virtualThreads != null) {
+                    virtualThreads.newThread(session).start();
+                } else {
+                    sessionPool.execute(session);
+                }
+            }
+        } catch (IOException e) {
+            // the listening socket was closed
+        }
+    }
+
+    /**
+     * Method to tell a connection the server is busy and close it. The reply is one short line, which fits
+     * the socket's send buffer, so the accept thread does not wait on the client.
+     *
+     * @param channel socket of the connection
+     */
+    private void refuse(SocketChannel channel) {
+        try (channel) {
+            channel.write(ByteBuffer.wrap(busyReply));
+        } catch (IOException e) {
+            // the client is gone already
+        }
+    }
+
+    /**
+     * Method to get the port the server listens on
+     *
+     * @return local port
+     * @throws IOException if the socket is closed
+     */
+    public int port() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Method to wait until the server stops accepting
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitTermination() throws InterruptedException {
+        acceptThread.join();
+    }
+
+    /**
+     * Method to stop accepting, close every session and stop the core thread
+     */
+    @Override
+    public void close() {
+        try {
+            serverChannel.close();
+            acceptThread.join();
+        } catch (IOException e) {
+            // already closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SocketChannel channel : sessions) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+        if (sessionPool != null) {
+            sessionPool.shutdownNow();
+        }
+        coreThread.interrupt();
+    }
+}
@@ -0,0 +1,756 @@
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-producer single-consumer ring of commands, four ints per command. The producer publishes by
+ * advancing published and the consumer acknowledges by advancing consumed; neither takes a lock.
+ */
+final class commandRing {
+
+    /**
+     * Number of ints per command - operation code and up to three arguments
+     */
+    private static final int entrySize = 4;
+
+    /**
+     * Commands, entrySize ints each
+     */
+    private final int[] entries;
+
+    /**
+     * Number of commands the ring holds minus one
+     */
+    private final int mask;
+
+    /**
+     * Number of commands published by the producer
+     */
+    final AtomicLong published = new AtomicLong();
+
+    /**
+     * Number of commands applied by the consumer
+     */
+    final AtomicLong consumed = new AtomicLong();
+
+    /**
+     * Producer's copy of published
+     */
+    private long tail;
+
+    /**
+     * Command ring constructor
+     *
+     * @param capacity number of commands the ring holds, a power of two
+     */
+    commandRing(int capacity) {
+        entries = new int[capacity * entrySize];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Method to wait a little longer each time nothing has happened yet - spin, then yield, then park
+     *
+     * @param attempt number of waits so far
+     * @return number of waits including this one
+     */
+    static int idle(int attempt) {
+        if (attempt < 64) {
+            Thread.onSpinWait();
+        } else if (attempt < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+        return attempt + 1;
+    }
+
+    /**
+     * Method to publish a command, waiting while the ring is full. Called by the producer only.
+     *
+     * @param operation operation code
+     * @param argument0 first argument
+     * @param argument1 second argument
+     * @param argument2 third argument
+     */
+    void publish(int operation, int argument0, int argument1, int argument2) {
+        for (int attempt = 0; tail - consumed.get() > mask; ) {
+            attempt = idle(attempt);
+        }
+        int index = (int) (tail & mask) * entrySize;
+        entries[index] = operation;
+        entries[index + 1] = argument0;
+        entries[index + 2] = argument1;
+        entries[index + 3] = argument2;
+        published.lazySet(++tail);
+    }
+
+    /**
+     * Method to check whether the consumer has applied every published command. Called by the producer only.
+     *
+     * @return true if nothing is pending
+     */
+    boolean isDrained() {
+        return consumed.get() == tail;
+    }
+
+    /**
+     * Method to read the operation code of a published command
+     *
+     * @param position position of the command
+     * @return operation code
+     */
+    int operation(long position) {
+        return entries[(int) (position & mask) * entrySize];
+    }
+
+    /**
+     * Method to read an argument of a published command
+     *
+     * @param position position of the command
+     * @param argument index of the argument, 0 to 2
+     * @return argument value
+     */
+    int argument(long position, int argument) {
+        return entries[(int) (position & mask) * entrySize + 1 + argument];
+    }
+}
+
+/**
+ * One shard of sharded Gator Taxi - a ride table, red-black tree and min heap written only by the shard's
+ * worker thread, which applies Insert, CancelRide and UpdateTrip commands from its ring
+ */
+final class gatorTaxiShard implements Runnable {
+
+    /**
+     * Number of commands the ring of a shard holds
+     */
+    private static final int ringCapacity = 1 << 14;
+
+    /**
+     * Table holding the rides of the shard
+     */
+    final rideTable rides;
+
+    /**
+     * Red-black tree of the rides of the shard
+     */
+    final redBlackTree redBlackTree;
+
+    /**
+     * Priority queue of the rides of the shard
+     */
+    final ridePriorityQueue rideQueue;
+
+    /**
+     * Commands waiting for the worker
+     */
+    final commandRing commands = new commandRing(ringCapacity);
+
+    /**
+     * Whether an Insert hit an active ride number
+     */
+    volatile boolean duplicate;
+
+    /**
+     * Cleared to stop the worker
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Worker thread owning the shard
+     */
+    private final Thread worker;
+
+    /**
+     * Shard constructor - starts the worker
+     *
+     * @param options start-up options
+     * @param index   index of the shard
+     */
+    gatorTaxiShard(gatorTaxiOptions options, int index) {
+        int expectedRides = Math.max(options.expectedRides / options.shards, 16);
+        rides = new rideTable(expectedRides);
+        redBlackTree = new redBlackTree(rides, options.hashIndex ? new rideHashIndex(expectedRides) : null);
+        rideQueue = ridePriorityQueue.create(rides, expectedRides, options);
+        worker = new Thread(this, "gatorTaxi-shard-" + index);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Method run by the worker - applies published commands until stopped
+     */
+    @Override
+    public void run() {
+        long head = 0;
+        int attempt = 0;
+
+        while (running) {
+            long available = commands.published.get();
+            if (head == available) {
+                attempt = commandRing.idle(attempt);
+                continue;
+            }
+            attempt = 0;
+            for (; head < available; head++) {
+                apply(head);
+            }
+            commands.consumed.lazySet(head);
+        }
+    }
+
+    /**
+     * Method to apply a published command
+     *
+     * @param position position of the command in the ring
+     */
+    private void apply(long position) {
+        int rideNumber = commands.argument(position, 0);
+        switch (commands.operation(position)) {
+            case opcode.Insert:
+                insert(rideNumber, commands.argument(position, 1), commands.argument(position, 2));
+                break;
+            case opcode.CancelRide:
+                cancelRide(rideNumber);
+                break;
+            default:
+                updateTrip(rideNumber, commands.argument(position, 1));
+                break;
+        }
+    }
+
+    /**
+     * Method to insert ride into red-black tree and min heap
+     *
+     * @param rideNumber   ride number
+     * @param rideCost     cost of ride
+     * @param tripDuration trip duration of ride
+     */
+    private void insert(int rideNumber, int rideCost, int tripDuration) {
+        int ride = rides.allocate(rideNumber, rideCost, tripDuration);
+        if (!redBlackTree.insert(ride)) {
+            rides.release(ride);
+            duplicate = true;
+            return;
+        }
+        rideQueue.insert(ride);
+    }
+
+    /**
+     * Method to cancel a ride
+     *
+     * @param rideNumber ride number of ride to cancel
+     */
+    private void cancelRide(int rideNumber) {
+        int ride = redBlackTree.delete(rideNumber);
+        if (ride != rideTable.noSlot) {
+            rideQueue.arbitraryDelete(ride);
+            rides.release(ride);
+        }
+    }
+
+    /**
+     * Method to update trip duration of a ride, keeping its slot and tree node
+     *
+     * @param rideNumber       ride number of ride to update
+     * @param new_tripDuration new trip duration
+     */
+    private void updateTrip(int rideNumber, int new_tripDuration) {
+        int ride = redBlackTree.find(rideNumber);
+        if (ride == rideTable.noSlot) {
+            return;
+        }
+
+        int tripDuration = rides.tripDuration[ride];
+        int rideCost = rides.rideCost[ride];
+        if (new_tripDuration <= tripDuration) {
+            rideQueue.changeKey(ride, rideCost, new_tripDuration);
+        } else if (new_tripDuration <= 2 * tripDuration) {
+            rideQueue.changeKey(ride, rideCost + 10, new_tripDuration);
+        } else {
+            redBlackTree.deleteNode(ride);
+            rideQueue.arbitraryDelete(ride);
+            rides.release(ride);
+        }
+    }
+
+    /**
+     * Method to stop the worker
+     *
+     * @throws InterruptedException if interrupted while waiting for the worker
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join();
+    }
+}
+
+/**
+ * Class implementing Gator Taxi split by ride number across shards, each owned by one worker thread.
+ * <p>
+ * A single coordinating thread hands Insert, CancelRide and UpdateTrip to the owning shard's ring without
+ * waiting. Commands with output first wait for every shard to drain its ring; the shards are then idle
+ * until the coordinator publishes again, so it reads them directly. Print(rideNumber1, rideNumber2) merges
+ * the shards' ordered cursors and GetNextRide takes the winner of a tournament tree over the shard minimums,
+ * replaying only the shards changed since the last one.
+ */
+public class shardedGatorTaxi implements AutoCloseable {
+
+    /**
+     * Shards the rides are split across
+     */
+    private final gatorTaxiShard[] shards;
+
+    /**
+     * Number of leaves of the tournament tree, a power of two
+     */
+    private final int leafCount;
+
+    /**
+     * Tournament tree - winning shard of each node, or -1; node 1 is the root and leaves start at leafCount
+     */
+    private final int[] tournament;
+
+    /**
+     * Whether a shard changed since the tournament tree last saw it
+     */
+    private final boolean[] changed;
+
+    /**
+     * Shards that changed since the tournament tree last saw them
+     */
+    private final int[] changedShards;
+
+    /**
+     * Number of entries in changedShards
+     */
+    private int changedCount;
+
+    /**
+     * Cursor of each shard during a range merge
+     */
+    private final redBlackTreeCursor[] cursors;
+
+    /**
+     * Current ride slot of each shard's cursor during a range merge
+     */
+    private final int[] cursorRide;
+
+    /**
+     * Binary heap of shards ordered by the ride number of their current ride during a range merge
+     */
+    private final int[] mergeHeap;
+
+    /**
+     * Sharded Gator Taxi constructor - starts one worker per shard
+     *
+     * @param options start-up options
+     */
+    public shardedGatorTaxi(gatorTaxiOptions options) {
+        shards = new gatorTaxiShard[options.shards];
+        for (int index = 0; index < shards.length; index++) {
+            shards[index] = new gatorTaxiShard(options, index);
+        }
+
+        leafCount = Integer.highestOneBit(Math.max(shards.length * 2 - 1, 1));
+        tournament = new int[leafCount * 2];
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            tournament[leafCount + leaf] = leaf < shards.length ? leaf : -1;
+        }
+        for (int node = leafCount - 1; node >= 1; node--) {
+            tournament[node] = winner(tournament[node * 2], tournament[node * 2 + 1]);
+        }
+
+        changed = new boolean[shards.length];
+        changedShards = new int[shards.length];
+        cursors = new redBlackTreeCursor[shards.length];
+        cursorRide = new int[shards.length];
+        mergeHeap = new int[shards.length];
+    }
+
+    /**
+     * Method to get the shard owning a ride number
+     *
+     * @param rideNumber ride number
+     * @return index of the shard
+     */
+    private int shardOf(int rideNumber) {
+        return (int) (Integer.toUnsignedLong(rideNumber * 0x9E3779B9) % shards.length);
+    }
+
+    /**
+     * Method to note that a shard's minimum may have changed
+     *
+     * @param shard index of the shard
+     */
+    private void markChanged(int shard) {
+        if (!changed[shard]) {
+            changed[shard] = true;
+            changedShards[changedCount++] = shard;
+        }
+    }
+
+    /**
+     * Method to hand a ride to its shard for insertion
+     *
+     * @param rideNumber   ride number
+     * @param rideCost     cost of ride
+     * @param tripDuration trip duration of ride
+     */
+    public void insert(int rideNumber, int rideCost, int tripDuration) {
+        int shard = shardOf(rideNumber);
+        shards[shard].commands.publish(opcode.Insert, rideNumber, rideCost, tripDuration);
+        markChanged(shard);
+    }
+
+    /**
+     * Method to hand a cancellation to the ride's shard
+     *
+     * @param rideNumber ride number of ride to cancel
+     */
+    public void cancelRide(int rideNumber) {
+        int shard = shardOf(rideNumber);
+        shards[shard].commands.publish(opcode.CancelRide, rideNumber, 0, 0);
+        markChanged(shard);
+    }
+
+    /**
+     * Method to hand a trip duration update to the ride's shard
+     *
+     * @param rideNumber       ride number of ride to update
+     * @param new_tripDuration new trip duration
+     */
+    public void updateTrip(int rideNumber, int new_tripDuration) {
+        int shard = shardOf(rideNumber);
+        shards[shard].commands.publish(opcode.UpdateTrip, rideNumber, new_tripDuration, 0);
+        markChanged(shard);
+    }
+
+    /**
+     * Method to wait until every shard has applied every command handed to it
+     */
+    private void awaitShards() {
+        for (gatorTaxiShard shard : shards) {
+            for (int attempt = 0; !shard.commands.isDrained(); ) {
+                attempt = commandRing.idle(attempt);
+            }
+        }
+    }
+
+    /**
+     * Method to check whether any Insert so far hit an active ride number
+     *
+     * @return true if an Insert was a duplicate
+     */
+    public boolean duplicateInsert() {
+        awaitShards();
+        for (gatorTaxiShard shard : shards) {
+            if (shard.duplicate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method to write ride details
+     *
+     * @param rideNumber given ride number
+     * @param sink       output to write the ride to
+     * @throws IOException if writing fails
+     */
+    public void printRidesInRange(int rideNumber, outputSink sink) throws IOException {
+        awaitShards();
+        gatorTaxiShard shard = shards[shardOf(rideNumber)];
+        int ride = shard.redBlackTree.find(rideNumber);
+        if (ride == rideTable.noSlot) {
+            sink.writeAscii("(0,0,0)");
+            return;
+        }
+        printRide(shard, ride, sink);
+    }
+
+    /**
+     * Method to write range of rides between rideNumber1 and rideNumber2, merged from every shard
+     *
+     * @param rideNumber1 start limit of range
+     * @param rideNumber2 end limit of range
+     * @param sink        output to stream the rides to
+     * @throws IOException if writing fails
+     */
+    public void printRidesInRange(int rideNumber1, int rideNumber2, outputSink sink) throws IOException {
+        awaitShards();
+        int size = 0;
+        for (int shard = 0; shard < shards.length; shard++) {
+            cursors[shard] = shards[shard].redBlackTree.range(rideNumber1, rideNumber2);
+            int ride = cursors[shard].next();
+            if (ride != rideTable.noSlot) {
+                cursorRide[shard] = ride;
+                mergeHeap[size++] = shard;
+            }
+        }
+        if (size == 0) {
+            sink.writeAscii("(0,0,0)");
+            return;
+        }
+        for (int position = size / 2 - 1; position >= 0; position--) {
+            siftDownMerge(position, size);
+        }
+
+        boolean isFirst = true;
+        while (size > 0) {
+            int shard = mergeHeap[0];
+            if (!isFirst) {
+                sink.writeByte(',');
+            }
+            printRide(shards[shard], cursorRide[shard], sink);
+            isFirst = false;
+
+            int ride = cursors[shard].next();
+            if (ride == rideTable.noSlot) {
+                mergeHeap[0] = mergeHeap[--size];
+            } else {
+                cursorRide[shard] = ride;
+            }
+            siftDownMerge(0, size);
+        }
+    }
+
+    /**
+     * Method to get the ride number of a shard's current ride during a range merge
+     *
+     * @param shard index of the shard
+     * @return ride number
+     */
+    private int mergeKey(int shard) {
+        return shards[shard].rides.rideNumber[cursorRide[shard]];
+    }
+
+    /**
+     * Method to move a shard down the merge heap to its place
+     *
+     * @param position position of the shard in the merge heap
+     * @param size     number of shards in the merge heap
+     */
+    private void siftDownMerge(int position, int size) {
+        int shard = mergeHeap[position];
+        int key = size > 0 ? mergeKey(shard) : 0;
+
+        while (position * 2 + 1 < size) {
+            int child = position * 2 + 1;
+            if (child + 1 < size && mergeKey(mergeHeap[child + 1]) < mergeKey(mergeHeap[child])) {
+                child++;
+            }
+            if (mergeKey(mergeHeap[child]) >= key) {
+                break;
+            }
+            mergeHeap[position] = mergeHeap[child];
+            position = child;
+        }
+        mergeHeap[position] = shard;
+    }
+
+    /**
+     * Method to get the shard whose minimum ride goes first
+     *
+     * @param shard1 index of a shard, or -1
+     * @param shard2 index of a shard, or -1
+     * @return winning shard, or -1 if neither has a ride
+     */
+    private int winner(int shard1, int shard2) {
+        if (shard1 < 0 || shards[shard1].rideQueue.peek() == rideTable.noSlot) {
+            return shard2 < 0 || shards[shard2].rideQueue.peek() == rideTable.noSlot ? -1 : shard2;
+        }
+        if (shard2 < 0 || shards[shard2].rideQueue.peek() == rideTable.noSlot) {
+            return shard1;
+        }
+
+        rideTable rides1 = shards[shard1].rides;
+        rideTable rides2 = shards[shard2].rides;
+        int ride1 = shards[shard1].rideQueue.peek();
+        int ride2 = shards[shard2].rideQueue.peek();
+        if (rides1.rideCost[ride1] != rides2.rideCost[ride2]) {
+            return rides1.rideCost[ride1] < rides2.rideCost[ride2] ? shard1 : shard2;
+        }
+        if (rides1.tripDuration[ride1] != rides2.tripDuration[ride2]) {
+            return rides1.tripDuration[ride1] < rides2.tripDuration[ride2] ? shard1 : shard2;
+        }
+        return rides1.rideNumber[ride1] < rides2.rideNumber[ride2] ? shard1 : shard2;
+    }
+
+    /**
+     * Method to replay the matches on the path from a shard's leaf to the root of the tournament tree
+     *
+     * @param shard index of the shard
+     */
+    private void replayMatches(int shard) {
+        for (int node = (leafCount + shard) / 2; node >= 1; node /= 2) {
+            tournament[node] = winner(tournament[node * 2], tournament[node * 2 + 1]);
+        }
+    }
+
+    /**
+     * Method to remove next active ride with the lowest cost across all shards and write it
+     *
+     * @param sink output to write the ride to
+     * @throws IOException if writing fails
+     */
+    public void printNextRide(outputSink sink) throws IOException {
+        awaitShards();
+        for (int index = 0; index < changedCount; index++) {
+            changed[changedShards[index]] = false;
+            replayMatches(changedShards[index]);
+        }
+        changedCount = 0;
+
+        int winner = tournament[1];
+        if (winner < 0) {
+            sink.writeAscii("No active ride requests");
+            return;
+        }
+
+        gatorTaxiShard shard = shards[winner];
+        int lowestCostRide = shard.rideQueue.deleteMin();
+        shard.redBlackTree.deleteNode(lowestCostRide);
+        printRide(shard, lowestCostRide, sink);
+        shard.rides.release(lowestCostRide);
+        replayMatches(winner);
+    }
+
+    /**
+     * Method to write a ride as "(rideNumber,rideCost,tripDuration)"
+     *
+     * @param shard shard holding the ride
+     * @param ride  slot of the ride
+     * @param sink  output to write the ride to
+     * @throws IOException if writing fails
+     */
+    private static void printRide(gatorTaxiShard shard, int ride, outputSink sink) throws IOException {
+        sink.writeRide(shard.rides.rideNumber[ride], shard.rides.rideCost[ride], shard.rides.tripDuration[ride]);
+    }
+
+    /**
+     * Method to print the diagnostic of a malformed command, unless an earlier Insert was a duplicate. The
+     * single-threaded engine stops at the duplicate and never reaches the command, so neither may this one.
+     * Malformed commands are rare, so waiting here for the shards costs a well-formed run nothing.
+     *
+     * @param message diagnostic of the command
+     * @return true if an earlier Insert was a duplicate and the run stops
+     */
+    private boolean diagnose(String message) {
+        if (duplicateInsert()) {
+            return true;
+        }
+        System.out.println(message);
+        return false;
+    }
+
+    /**
+     * Method to run every command of the input, stopping after a duplicate ride number
+     *
+     * @param parser parser of the input
+     * @param sink   output to write results to
+     * @throws IOException if reading or writing fails
+     */
+    public void run(commandParser parser, outputSink sink) throws IOException {
+        boolean duplicate = false;
+
+        while (!duplicate && parser.next()) {
+            int[] methodArgs = parser.arguments;
+            int argumentCount = parser.argumentCount;
+
+            switch (parser.operation) {
+                case opcode.Insert:
+                    if (argumentCount != 3) {
+                        duplicate = diagnose("Incorrect number of parameters in Insert on line " + parser.lineNumber);
+                        break;
+                    }
+                    insert(methodArgs[0], methodArgs[1], methodArgs[2]);
+                    break;
+                case opcode.Print:
+                    if (argumentCount != 1 && argumentCount != 2) {
+                        duplicate = diagnose("Incorrect number of parameters in Print on line " + parser.lineNumber);
+                        break;
+                    }
+                    duplicate = duplicateInsert();
+                    if (duplicate) {
+                        break;
+                    }
+                    sink.beginLine();
+                    if (argumentCount == 1) {
+                        printRidesInRange(methodArgs[0], sink);
+                    } else {
+                        printRidesInRange(methodArgs[0], methodArgs[1], sink);
+                    }
+                    break;
+                case opcode.GetNextRide:
+                    if (argumentCount != 0) {
+                        duplicate = diagnose("Incorrect number of parameters in GetNextRide on line " + parser.lineNumber);
+                        break;
+                    }
+                    duplicate = duplicateInsert();
+                    if (duplicate) {
+                        break;
+                    }
+                    sink.beginLine();
+                    printNextRide(sink);
+                    break;
+                case opcode.GetNextRides:
+                    if (argumentCount != 1 || methodArgs[0] < 1) {
+                        duplicate = diagnose("Incorrect number of parameters in GetNextRides on line " + parser.lineNumber);
+                        break;
+                    }
+                    duplicate = duplicateInsert();
+                    if (duplicate) {
+                        break;
+                    }
+                    sink.beginLine();
+                    for (int call = 0; call < methodArgs[0]; call++) {
+                        if (call > 0) {
+                            sink.writeByte('\n');
+                        }
+                        printNextRide(sink);
+                    }
+                    break;
+                case opcode.CancelRide:
+                    if (argumentCount != 1) {
+                        duplicate = diagnose("Incorrect number of parameters in CancelRide on line " + parser.lineNumber);
+                        break;
+                    }
+                    cancelRide(methodArgs[0]);
+                    break;
+                case opcode.UpdateTrip:
+                    if (argumentCount != 2) {
+                        duplicate = diagnose("Incorrect number of parameters in UpdateTrip on line " + parser.lineNumber);
+                        break;
+                    }
+                    updateTrip(methodArgs[0], methodArgs[1]);
+                    break;
+                default:
+                    duplicate = diagnose(parser.error);
+                    break;
+            }
+        }
+
+        if (duplicate || duplicateInsert()) {
+            sink.beginLine();
+            sink.writeAscii("Duplicate RideNumber");
+        }
+    }
+
+    /**
+     * Method to stop every shard's worker
+     */
+    @Override
+    public void close() {
+        try {
+            for (gatorTaxiShard shard : shards) {
+                shard.stop();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
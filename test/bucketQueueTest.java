@@ -0,0 +1,125 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of bucketQueue falling back to a min heap for costs outside its buckets and coming back
+ */
+class bucketQueueTest {
+
+    /**
+     * Number of buckets of the queues under test
+     */
+    private static final int costLimit = 64;
+
+    /**
+     * Method to create a bucket queue over a ride table
+     *
+     * @param rides table holding the rides
+     * @return empty bucket queue
+     */
+    private static bucketQueue queueOf(rideTable rides) {
+        return new bucketQueue(rides, costLimit, 16, 2.0, false);
+    }
+
+    @Test
+    void returnsToBucketsOnceOutOfRangeRidesAreGone() {
+        rideTable rides = new rideTable(16);
+        bucketQueue queue = queueOf(rides);
+        for (int rideNumber = 1; rideNumber <= 10; rideNumber++) {
+            queue.insert(rides.allocate(rideNumber, rideNumber, 100));
+        }
+        int expensive = rides.allocate(11, costLimit, 100);
+        queue.insert(expensive);
+        assertTrue(queue.hasFallenBack());
+
+        queue.arbitraryDelete(expensive);
+        rides.release(expensive);
+        // the min heap has served the insert and the delete; it returns once operations catch up with its size
+        for (int taken = 0; taken < 4; taken++) {
+            assertTrue(queue.hasFallenBack());
+            int slot = queue.deleteMin();
+            assertEquals(taken + 1, rides.rideNumber[slot]);
+            rides.release(slot);
+        }
+        assertFalse(queue.hasFallenBack());
+        assertEquals(6, queue.size());
+        assertEquals(5, rides.rideNumber[queue.peek()]);
+    }
+
+    @Test
+    void changeKeyPastTheLimitFallsBackUntilTheCostComesDown() {
+        rideTable rides = new rideTable(16);
+        bucketQueue queue = queueOf(rides);
+        int slot = rides.allocate(1, costLimit - 5, 100);
+        queue.insert(slot);
+
+        queue.changeKey(slot, costLimit + 5, 200);
+        assertTrue(queue.hasFallenBack());
+        queue.changeKey(slot, 3, 50);
+        assertFalse(queue.hasFallenBack());
+        assertEquals(slot, queue.deleteMin());
+    }
+
+    @Test
+    void matchesMinHeapAcrossFallBacks() {
+        rideTable bucketRides = new rideTable(16);
+        rideTable heapRides = new rideTable(16);
+        bucketQueue queue = queueOf(bucketRides);
+        minHeap heap = new minHeap(heapRides, 16);
+        int[] bucketSlots = new int[1 << 12];
+        int[] heapSlots = new int[bucketSlots.length];
+        int live = 0;
+        int nextRideNumber = 1;
+        boolean fellBack = false;
+        boolean cameBack = false;
+
+        SplittableRandom random = new SplittableRandom(3);
+        for (int operation = 0; operation < 200_000; operation++) {
+            int choice = random.nextInt(10);
+            if (live < bucketSlots.length && (live == 0 || choice < 4)) {
+                int rideCost = random.nextInt(200) == 0 ? costLimit + random.nextInt(10) : random.nextInt(costLimit);
+                int tripDuration = random.nextInt(1000);
+                bucketSlots[live] = bucketRides.allocate(nextRideNumber, rideCost, tripDuration);
+                heapSlots[live] = heapRides.allocate(nextRideNumber++, rideCost, tripDuration);
+                queue.insert(bucketSlots[live]);
+                heap.insert(heapSlots[live++]);
+            } else if (choice < 7) {
+                int index = random.nextInt(live);
+                int rideCost = random.nextInt(100) == 0 ? costLimit + 1 : random.nextInt(costLimit);
+                int tripDuration = random.nextInt(1000);
+                queue.changeKey(bucketSlots[index], rideCost, tripDuration);
+                heap.changeKey(heapSlots[index], rideCost, tripDuration);
+            } else if (choice < 8) {
+                int index = random.nextInt(live);
+                queue.arbitraryDelete(bucketSlots[index]);
+                heap.arbitraryDelete(heapSlots[index]);
+                bucketRides.release(bucketSlots[index]);
+                heapRides.release(heapSlots[index]);
+                bucketSlots[index] = bucketSlots[--live];
+                heapSlots[index] = heapSlots[live];
+            } else {
+                int bucketSlot = queue.deleteMin();
+                int heapSlot = heap.deleteMin();
+                assertEquals(heapRides.rideNumber[heapSlot], bucketRides.rideNumber[bucketSlot]);
+                bucketRides.release(bucketSlot);
+                heapRides.release(heapSlot);
+                for (int index = 0; index < live; index++) {
+                    if (bucketSlots[index] == bucketSlot) {
+                        bucketSlots[index] = bucketSlots[--live];
+                        heapSlots[index] = heapSlots[live];
+                        break;
+                    }
+                }
+            }
+            fellBack |= queue.hasFallenBack();
+            cameBack |= fellBack && !queue.hasFallenBack();
+            assertEquals(heap.size(), queue.size());
+        }
+        assertTrue(fellBack && cameBack);
+    }
+}
@@ -0,0 +1,59 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of dAryHeap giving back the heap array after a burst
+ */
+class dAryHeapTest {
+
+    /**
+     * Capacity the heaps under test start with
+     */
+    private static final int initialCapacity = 16;
+
+    /**
+     * Number of rides in the burst
+     */
+    private static final int burst = 1024;
+
+    /**
+     * Method to fill a heap with a burst of rides and take them all, checking they come out in order
+     *
+     * @param arity  number of children per node
+     * @param shrink whether the heap shrinks after bursts
+     * @return capacity of the heap array once drained
+     */
+    private static int capacityAfterBurst(int arity, boolean shrink) {
+        rideTable rides = new rideTable(burst);
+        dAryHeap heap = new dAryHeap(rides, arity, initialCapacity, 2.0, shrink);
+        for (int rideNumber = burst; rideNumber >= 1; rideNumber--) {
+            heap.insert(rides.allocate(rideNumber, rideNumber % 7, rideNumber));
+        }
+        assertEquals(burst, heap.capacity());
+
+        int previous = heap.deleteMin();
+        for (int taken = 1; taken < burst; taken++) {
+            int slot = heap.deleteMin();
+            assertTrue(rides.ranksBefore(previous, slot));
+            rides.release(previous);
+            previous = slot;
+        }
+        rides.release(previous);
+        return heap.capacity();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 8})
+    void shrinksAfterBurstDrains(int arity) {
+        assertEquals(initialCapacity, capacityAfterBurst(arity, true));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 8})
+    void keepsCapacityWithoutHeapShrink(int arity) {
+        assertEquals(burst, capacityAfterBurst(arity, false));
+    }
+}
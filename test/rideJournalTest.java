@@ -0,0 +1,121 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of rideJournal closing groups on time
+ */
+class rideJournalTest {
+
+    /**
+     * Milliseconds a group stays open in the tests
+     */
+    private static final int groupCommitMillis = 5;
+
+    /**
+     * Input stream handing out one line per read and pausing before every line but the first
+     */
+    private static final class slowInput extends InputStream {
+
+        /**
+         * Lines still to hand out
+         */
+        private final String[] lines;
+
+        /**
+         * Index of the next line to hand out
+         */
+        private int next;
+
+        /**
+         * Slow input constructor
+         *
+         * @param lines lines to hand out
+         */
+        slowInput(String... lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (next == lines.length) {
+                return -1;
+            }
+            if (next > 0) {
+                try {
+                    Thread.sleep(groupCommitMillis * 10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] line = (lines[next++] + "\n").getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(line, 0, buffer, offset, line.length);
+            return line.length;
+        }
+    }
+
+    /**
+     * Method to create options logging to a directory with group commit
+     *
+     * @param directory directory of the log
+     * @return start-up options
+     */
+    private static gatorTaxiOptions optionsFor(Path directory) {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.walDirectory = directory.toString();
+        options.fsync = "group";
+        options.groupCommitMillis = groupCommitMillis;
+        return options;
+    }
+
+    @Test
+    void commitIfDueClosesAGroupWithoutAnotherRecord(@TempDir Path directory) throws IOException {
+        gatorTaxiOptions options = optionsFor(directory);
+        gatorTaxi.initialize(options);
+        try (rideJournal journal = new rideJournal(options)) {
+            journal.recover();
+            long start = journal.committedOffset();
+            journal.logInsert(1, 10, 20);
+            journal.commitIfDue();
+            assertEquals(start, journal.committedOffset());
+
+            long deadline = System.nanoTime() + groupCommitMillis * 2_000_000L;
+            while (System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            journal.commitIfDue();
+            assertTrue(journal.committedOffset() > start);
+        }
+    }
+
+    @Test
+    void printAfterTheIntervalCommitsLoggedInserts(@TempDir Path directory) throws IOException {
+        gatorTaxiOptions options = optionsFor(directory);
+        gatorTaxi.initialize(options);
+        try (rideJournal journal = new rideJournal(options);
+             FileChannel output = FileChannel.open(directory.resolve("output.txt"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             outputSink sink = new outputSink(output, 1 << 12, false)) {
+            journal.recover();
+            gatorTaxi.journal = journal;
+            long start = journal.committedOffset();
+            gatorTaxi.run(new commandParser(new slowInput("Insert(1,10,20)", "Print(1)", "Print(1,5)"), 1 << 12), sink);
+            assertTrue(journal.committedOffset() > start);
+        } finally {
+            gatorTaxi.journal = null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the slot checks of rideTable, run with -DgatorTaxi.slotChecks=true by the build
+ */
+class rideTableTest {
+
+    /**
+     * Method to make sure the checks under test are on
+     */
+    @BeforeAll
+    static void requireSlotChecks() {
+        assertTrue(rideTable.slotChecks, "Run with -DgatorTaxi.slotChecks=true");
+    }
+
+    /**
+     * Method to create a priority queue of a kind over a ride table
+     *
+     * @param rides table holding the rides
+     * @param heap  kind of queue, as --heap takes it
+     * @return empty priority queue
+     */
+    private static ridePriorityQueue queueOf(rideTable rides, String heap) {
+        gatorTaxiOptions options = new gatorTaxiOptions();
+        options.heap = heap;
+        return ridePriorityQueue.create(rides, 16, options);
+    }
+
+    @Test
+    void useAfterReleaseThrows() {
+        rideTable rides = new rideTable(16);
+        int slot = rides.allocate(7, 10, 20);
+        rides.release(slot);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> rides.checkLive(slot));
+        assertEquals("Ride slot " + slot + " used after release", failure.getMessage());
+        assertThrows(IllegalStateException.class, () -> new redBlackTree(rides).insert(slot));
+        assertThrows(IllegalStateException.class, () -> rides.release(slot));
+    }
+
+    @Test
+    void reallocatedSlotIsLiveAgain() {
+        rideTable rides = new rideTable(16);
+        int slot = rides.allocate(7, 10, 20);
+        rides.release(slot);
+
+        assertEquals(slot, rides.allocate(8, 10, 20));
+        rides.checkLive(slot);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"binary", "4-ary", "pairing", "bucket"})
+    void queueUseAfterReleaseThrows(String heap) {
+        rideTable rides = new rideTable(16);
+        ridePriorityQueue queue = queueOf(rides, heap);
+        int slot = rides.allocate(7, 10, 20);
+        rides.release(slot);
+
+        assertThrows(IllegalStateException.class, () -> queue.insert(slot));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"binary", "4-ary", "pairing", "bucket"})
+    void releaseWhileQueuedThrows(String heap) {
+        rideTable rides = new rideTable(16);
+        ridePriorityQueue queue = queueOf(rides, heap);
+        int slot = rides.allocate(7, 10, 20);
+        queue.insert(slot);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> rides.release(slot));
+        assertEquals("Ride slot " + slot + " released while still in the priority queue", failure.getMessage());
+
+        assertEquals(slot, queue.deleteMin());
+        rides.release(slot);
+    }
+
+    @Test
+    void releaseWhileLinkedIntoTreeThrows() {
+        rideTable rides = new rideTable(16);
+        redBlackTree tree = new redBlackTree(rides);
+        int root = rides.allocate(5, 10, 20);
+        int slot = rides.allocate(7, 10, 20);
+        tree.insert(root);
+        tree.insert(slot);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> rides.release(slot));
+        assertEquals("Ride slot " + slot + " released while still linked into the tree", failure.getMessage());
+
+        tree.deleteNode(slot);
+        rides.release(slot);
+        assertEquals(rideTable.noSlot, tree.find(7));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"binary", "pairing", "bucket"})
+    void commandsPassSlotChecks(String heap) {
+        for (boolean lazyCancel : new boolean[]{false, true}) {
+            gatorTaxiOptions options = new gatorTaxiOptions();
+            options.heap = heap;
+            options.lazyCancel = lazyCancel;
+            options.hashIndex = lazyCancel;
+            gatorTaxi.initialize(options);
+            for (int rideNumber = 1; rideNumber <= 200; rideNumber++) {
+                gatorTaxi.insert(rideNumber, rideNumber % 7, rideNumber * 3);
+            }
+            for (int rideNumber = 1; rideNumber <= 200; rideNumber += 3) {
+                gatorTaxi.cancelRide(rideNumber);
+                gatorTaxi.updateTrip(rideNumber + 1, rideNumber * 3 + 1);
+            }
+            assertEquals("(14,0,40)", gatorTaxi.getNextRide());
+            for (int rideNumber = 1; rideNumber <= 200; rideNumber++) {
+                gatorTaxi.insert(rideNumber + 1000, 1, 1);
+                gatorTaxi.getNextRide();
+            }
+        }
+    }
+}